@@ -214,14 +214,15 @@ public class EQFilter extends AudioProcessor
 		// We have to process each channel independently because the function
 		// is recursive.
 		final SampleBuffer sb = sample.getSampleBuffer();
+		final float[] samples = sb.asFloatArray();
 		final int nChans = sample.getFormat().getNumChannels();
 		for( int c = 0; c < nChans; c++ )
 		{
 			this.xm1 = this.xm2 = this.xm3 = this.xm4 = 0;
 			this.ym1 = this.ym2 = this.ym3 = this.ym4 = 0;
-			for( int n = c; n < sb.size(); n += nChans )
+			for( int n = c; n < samples.length; n += nChans )
 			{
-				final double tempx = sb.get(n);
+				final double tempx = samples[n];
 				final double tempy = this.vars.a0*tempx + this.vars.a1*this.xm1 
 						+ this.vars.a2*this.xm2 + this.vars.a3*this.xm3 + 
 						this.vars.a4*this.xm4 - this.vars.b1*this.ym1 - 
@@ -233,9 +234,11 @@ public class EQFilter extends AudioProcessor
 				this.ym4 = this.ym3; this.ym3 = this.ym2; this.ym2 = this.ym1;
 				this.ym1 = tempy;
 		
-				sb.set( n, (float)tempy );
+				samples[n] = (float)tempy;
 			}
 		}
+
+		sb.set( 0, samples, 0, samples.length );
 			
 		return sample;
 	}
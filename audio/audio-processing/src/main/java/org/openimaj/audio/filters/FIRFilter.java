@@ -76,13 +76,16 @@ public abstract class FIRFilter extends FixedSizeSampleAudioProcessor
 	public SampleChunk process( final SampleChunk sample ) throws Exception
 	{
 		final SampleBuffer sb = sample.getSampleBuffer();
+		final int nc = sample.getFormat().getNumChannels();
+		final int len = Math.min( sb.size(), this.coefficients.length * nc );
+		final float[] samples = sb.get( 0, new float[this.coefficients.length * nc], 0, len );
 
-		for( int c = 0; c < sample.getFormat().getNumChannels(); c++ )
+		for( int c = 0; c < nc; c++ )
 		{
 			float acc = 0;
 			for( int i = 0; i < this.coefficients.length; i++ )
-				acc += sb.get(i) * this.coefficients[i];
-			sb.set( 0, acc );
+				acc += samples[i*nc+c] * this.coefficients[i];
+			sb.set( c, acc );
 		}
 
 		return sample;
@@ -97,7 +97,7 @@ public class HammingAudioProcessor extends HanningAudioProcessor
 	protected void generateWeightTableCache( final int length, final int nc )
 	{
 		final int ns = length;
-		this.weightTable = new double[ length ];
+		this.weightTable = new double[ length * nc ];
 		for( int n = 0; n < ns; n++ )
 			for( int c = 0; c < nc; c++ )
 				this.weightTable[n*nc+c] = 0.54-0.46*Math.cos((2*Math.PI*n)/ns);		
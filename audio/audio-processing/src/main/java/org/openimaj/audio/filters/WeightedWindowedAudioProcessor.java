@@ -158,16 +158,16 @@ public abstract class WeightedWindowedAudioProcessor
 		if( this.weightTable == null )
 			this.generateWeightTableCache( b.size()/nc, nc );
 
-		for( int c = 0; c < nc; c++ )
-		{
-			for( int n = 0; n < b.size()/nc; n++ )
-			{
-				final float x = b.get(n*nc+c);
-				float v = (float)(x * this.weightTable[n*nc+c]);
-				if( !this.useWeights ) v = x;
-				b.set( n*nc+c, v );
-			}
-		}
+		if( !this.useWeights )
+			return b;
+
+		// The weight table is interleaved in the same way as the samples
+		// so we can apply it in a single pass over the buffer
+		final int len = (b.size()/nc)*nc;
+		final float[] samples = b.get( 0, new float[len], 0, len );
+		for( int i = 0; i < len; i++ )
+			samples[i] = (float)(samples[i] * this.weightTable[i]);
+		b.set( 0, samples, 0, len );
 		
 		return b;
 	}
@@ -105,6 +105,49 @@ public class FloatSampleBuffer implements SampleBuffer, Iterator<Float>
 		this.samples[index] = sample;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.openimaj.audio.samples.SampleBuffer#get(int, float[], int, int)
+	 */
+	@Override
+	public float[] get(final int index, final float[] dst, final int offset, final int length) {
+		SampleBufferFactory.checkRange(this, index, dst.length, offset, length);
+		System.arraycopy(this.samples, index, dst, offset, length);
+		return dst;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.openimaj.audio.samples.SampleBuffer#set(int, float[], int, int)
+	 */
+	@Override
+	public void set(final int index, final float[] src, final int offset, final int length) {
+		SampleBufferFactory.checkRange(this, index, src.length, offset, length);
+		System.arraycopy(src, offset, this.samples, index, length);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.openimaj.audio.samples.SampleBuffer#asFloatArray()
+	 */
+	@Override
+	public float[] asFloatArray() {
+		return this.samples.clone();
+	}
+
+	/**
+	 * Returns the underlying sample array. Changes to the array will be
+	 * reflected in this buffer.
+	 * 
+	 * @return The samples
+	 */
+	public float[] getSamples() {
+		return this.samples;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -75,6 +75,58 @@ public interface SampleBuffer extends Iterable<Float>
 	 */
 	public void set( int index, float sample );
 
+	/**
+	 * 	Bulk get of the samples in this buffer. Copies <code>length</code>
+	 * 	samples starting at <code>index</code> into the given array starting at
+	 * 	<code>offset</code>. The values are scaled in exactly the same way as
+	 * 	{@link #get(int)}, but this method avoids the per-sample decoding
+	 * 	and method call overhead so processors can work on a contiguous
+	 * 	primitive array.
+	 *
+	 * 	Unlike {@link #get(int)}, which some implementations allow to read
+	 * 	past the end of the buffer, the whole range must lie within both this
+	 * 	buffer and the destination array.
+	 *
+	 *	@param index The index of the first sample to retrieve
+	 *	@param dst The array to fill
+	 *	@param offset The offset in the destination array
+	 *	@param length The number of samples to copy
+	 *	@return The destination array
+	 *	@throws IndexOutOfBoundsException if <code>index</code>,
+	 *		<code>offset</code> or <code>length</code> is negative,
+	 *		<code>index + length</code> is greater than {@link #size()} or
+	 *		<code>offset + length</code> is greater than the length of
+	 *		<code>dst</code>.
+	 */
+	public float[] get( int index, float[] dst, int offset, int length );
+
+	/**
+	 * 	Bulk set of the samples in this buffer. Copies <code>length</code>
+	 * 	samples from the given array, starting at <code>offset</code>, into
+	 * 	this buffer starting at <code>index</code>. The values are expected to
+	 * 	be scaled as for {@link #set(int, float)} and will be clipped if the
+	 * 	underlying sample format requires it.
+	 *
+	 *	@param index The index of the first sample to set
+	 *	@param src The array of samples
+	 *	@param offset The offset in the source array
+	 *	@param length The number of samples to copy
+	 *	@throws IndexOutOfBoundsException if <code>index</code>,
+	 *		<code>offset</code> or <code>length</code> is negative,
+	 *		<code>index + length</code> is greater than {@link #size()} or
+	 *		<code>offset + length</code> is greater than the length of
+	 *		<code>src</code>.
+	 */
+	public void set( int index, float[] src, int offset, int length );
+
+	/**
+	 * 	Returns the (unnormalised) samples in this buffer as a new float array.
+	 * 	The values are scaled as for {@link #get(int)}.
+	 *
+	 *	@return A float array containing the samples
+	 */
+	public float[] asFloatArray();
+
 	/**
 	 * 	Returns the size of this buffer. Divide by the number of channels
 	 * 	to get the number of samples per channel.
@@ -80,6 +80,32 @@ public class SampleBuffer16Bit implements SampleBuffer, Iterator<Float>
 		this.setStartTimecode( samples.getStartTimecode() );
 	}
 
+	/**
+	 * 	Create a new 16-bit sample buffer that wraps the given byte buffer
+	 * 	using the given audio format. The buffer may be a direct (off-heap)
+	 * 	buffer, in which case the samples are read and written in-place
+	 * 	without being copied onto the heap. The samples are read using the
+	 * 	byte order given by the audio format. Only the bytes between the
+	 * 	position and the limit of the buffer are used. The start timecode is
+	 * 	zero.
+	 *
+	 * 	@param buffer The buffer of samples to wrap.
+	 * 	@param af The audio format.
+	 */
+	public SampleBuffer16Bit( final ByteBuffer buffer, final AudioFormat af )
+	{
+		this.format = af;
+		this.shortBuffer = buffer.duplicate().order( af.isBigEndian() ?
+				ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN ).asShortBuffer();
+		this.setStartTimecode( new AudioTimecode( 0 ) );
+
+		// The byte array can only be shared if it holds exactly the samples
+		// of the short buffer; otherwise getSampleChunk() copies them out
+		if( buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+				&& buffer.limit() == buffer.array().length && buffer.limit() % 2 == 0 )
+			this.samples = buffer.array();
+	}
+
 	/**
 	 * 	Create a new 16-bit sample buffer using the given
 	 * 	sample format at the given size. It does not scale for
@@ -105,6 +131,18 @@ public class SampleBuffer16Bit implements SampleBuffer, Iterator<Float>
 	@Override
 	public SampleChunk getSampleChunk()
 	{
+		// A direct buffer has no backing array so we must copy it out
+		if( this.samples == null )
+		{
+			final byte[] b = new byte[this.size()*2];
+			ByteBuffer.wrap( b ).order( this.format.isBigEndian() ?
+					ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN )
+				.asShortBuffer().put( this.shortBuffer.duplicate() );
+			final SampleChunk sc = new SampleChunk( b, this.format );
+			sc.setStartTimecode( this.timecode );
+			return sc;
+		}
+
 		final SampleChunk sc = new SampleChunk( this.samples, this.format );
 		sc.setStartTimecode( this.timecode );
 		return sc;
@@ -180,7 +218,55 @@ public class SampleBuffer16Bit implements SampleBuffer, Iterator<Float>
 		if( s < Integer.MIN_VALUE )
 			s = Integer.MIN_VALUE;
 
-		this.shortBuffer.put( index, (short)(sample  * Short.MAX_VALUE / Integer.MAX_VALUE) );
+		this.shortBuffer.put( index, (short)(s * Short.MAX_VALUE / Integer.MAX_VALUE) );
+	}
+
+	/**
+	 *	{@inheritDoc}
+	 * 	@see org.openimaj.audio.samples.SampleBuffer#get(int, float[], int, int)
+	 */
+	@Override
+	public float[] get( final int index, final float[] dst, final int offset, final int length )
+	{
+		SampleBufferFactory.checkRange( this, index, dst.length, offset, length );
+
+		final ShortBuffer sb = this.shortBuffer;
+		for( int i = 0; i < length; i++ )
+			dst[offset+i] = (float)sb.get(index+i) * Integer.MAX_VALUE / Short.MAX_VALUE;
+
+		return dst;
+	}
+
+	/**
+	 *	{@inheritDoc}
+	 * 	@see org.openimaj.audio.samples.SampleBuffer#set(int, float[], int, int)
+	 */
+	@Override
+	public void set( final int index, final float[] src, final int offset, final int length )
+	{
+		SampleBufferFactory.checkRange( this, index, src.length, offset, length );
+
+		final ShortBuffer sb = this.shortBuffer;
+		for( int i = 0; i < length; i++ )
+		{
+			float s = src[offset+i];
+			if( s > Integer.MAX_VALUE )
+				s = Integer.MAX_VALUE;
+			if( s < Integer.MIN_VALUE )
+				s = Integer.MIN_VALUE;
+
+			sb.put( index+i, (short)(s * Short.MAX_VALUE / Integer.MAX_VALUE) );
+		}
+	}
+
+	/**
+	 *	{@inheritDoc}
+	 * 	@see org.openimaj.audio.samples.SampleBuffer#asFloatArray()
+	 */
+	@Override
+	public float[] asFloatArray()
+	{
+		return this.get( 0, new float[this.size()], 0, this.size() );
 	}
 
 	/**
@@ -183,6 +183,43 @@ public class SampleBuffer8Bit implements SampleBuffer, Iterator<Float>
 		this.byteBuffer[index] = (byte)(sample / SampleBuffer8Bit.SAMPLE_SCALAR);
 	}
 
+	/**
+	 *	{@inheritDoc}
+	 * 	@see org.openimaj.audio.samples.SampleBuffer#get(int, float[], int, int)
+	 */
+	@Override
+	public float[] get( final int index, final float[] dst, final int offset, final int length )
+	{
+		SampleBufferFactory.checkRange( this, index, dst.length, offset, length );
+
+		for( int i = 0; i < length; i++ )
+			dst[offset+i] = this.byteBuffer[index+i] * SampleBuffer8Bit.SAMPLE_SCALAR;
+		return dst;
+	}
+
+	/**
+	 *	{@inheritDoc}
+	 * 	@see org.openimaj.audio.samples.SampleBuffer#set(int, float[], int, int)
+	 */
+	@Override
+	public void set( final int index, final float[] src, final int offset, final int length )
+	{
+		SampleBufferFactory.checkRange( this, index, src.length, offset, length );
+
+		for( int i = 0; i < length; i++ )
+			this.set( index+i, src[offset+i] );
+	}
+
+	/**
+	 *	{@inheritDoc}
+	 * 	@see org.openimaj.audio.samples.SampleBuffer#asFloatArray()
+	 */
+	@Override
+	public float[] asFloatArray()
+	{
+		return this.get( 0, new float[this.size()], 0, this.size() );
+	}
+
 	/**
 	 *	{@inheritDoc}
 	 * 	@see org.openimaj.audio.samples.SampleBuffer#size()
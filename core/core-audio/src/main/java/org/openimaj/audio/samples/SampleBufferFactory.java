@@ -32,6 +32,8 @@
  */
 package org.openimaj.audio.samples;
 
+import java.nio.ByteBuffer;
+
 import org.openimaj.audio.AudioFormat;
 import org.openimaj.audio.SampleChunk;
 
@@ -77,4 +79,51 @@ public abstract class SampleBufferFactory {
 			return null;
 		}
 	}
+
+	/**
+	 * Create a {@link SampleBuffer} over the given byte buffer. For 16-bit
+	 * audio the buffer is wrapped directly, so direct (off-heap) buffers can
+	 * be processed without copying; other sample sizes are copied into a
+	 * {@link SampleChunk} first.
+	 * 
+	 * @param buffer
+	 * @param af
+	 * @return new {@link SampleBuffer}.
+	 */
+	public static SampleBuffer createSampleBuffer(ByteBuffer buffer, AudioFormat af) {
+		switch (af.getNBits()) {
+		case 8:
+			final byte[] b = new byte[buffer.remaining()];
+			buffer.duplicate().get(b);
+			return new SampleBuffer8Bit(new SampleChunk(b, af), af);
+		case 16:
+			return new SampleBuffer16Bit(buffer, af);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Check the arguments of the bulk {@link SampleBuffer#get(int, float[], int, int)}
+	 * and {@link SampleBuffer#set(int, float[], int, int)} methods.
+	 * 
+	 * @param sb
+	 *            the sample buffer
+	 * @param index
+	 *            the first sample in the buffer
+	 * @param arrayLength
+	 *            the length of the source or destination array
+	 * @param offset
+	 *            the offset in the array
+	 * @param length
+	 *            the number of samples
+	 * @throws IndexOutOfBoundsException
+	 *             if the range is not within the buffer and the array
+	 */
+	static void checkRange(SampleBuffer sb, int index, int arrayLength, int offset, int length) {
+		if (index < 0 || offset < 0 || length < 0 || index > sb.size() - length || offset > arrayLength - length)
+			throw new IndexOutOfBoundsException("Range [" + index + ", " + (index + length)
+					+ ") is out of bounds for a buffer of " + sb.size() + " samples, or [" + offset + ", "
+					+ (offset + length) + ") for an array of length " + arrayLength);
+	}
 }
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.audio.samples;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openimaj.audio.AudioFormat;
+import org.openimaj.audio.SampleChunk;
+
+/**
+ *	Tests for the bulk float accessors of the {@link SampleBuffer}
+ *	implementations.
+ */
+public class SampleBufferTest
+{
+	private SampleBuffer create( final int nBits, final int size )
+	{
+		final AudioFormat af = new AudioFormat( nBits, 44.1, 2 );
+		final SampleBuffer sb = SampleBufferFactory.createSampleBuffer( af, size );
+		for( int i = 0; i < size; i++ )
+			sb.set( i, (float)(Math.sin( i / 10d ) * Integer.MAX_VALUE * 0.8) );
+		return sb;
+	}
+
+	private void checkBulkGet( final SampleBuffer sb )
+	{
+		final float[] all = sb.asFloatArray();
+		Assert.assertEquals( sb.size(), all.length );
+		for( int i = 0; i < sb.size(); i++ )
+			Assert.assertEquals( sb.get(i), all[i], 0 );
+
+		final float[] part = sb.get( 10, new float[25], 5, 20 );
+		for( int i = 0; i < 20; i++ )
+			Assert.assertEquals( sb.get(10+i), part[5+i], 0 );
+	}
+
+	private void checkBulkSet( final SampleBuffer sb )
+	{
+		final SampleBuffer copy = SampleBufferFactory.createSampleBuffer(
+				sb.getFormat(), sb.size() );
+		final float[] f = sb.asFloatArray();
+
+		copy.set( 0, f, 0, f.length );
+		for( int i = 0; i < sb.size(); i++ )
+			copy.set( i, f[i] );
+		Assert.assertArrayEquals( f, copy.asFloatArray(), 0 );
+		Assert.assertArrayEquals( sb.getSampleChunk().getSamples(),
+				copy.getSampleChunk().getSamples() );
+	}
+
+	/**
+	 * 	Test the bulk methods of the 8-bit buffer
+	 */
+	@Test
+	public void test8Bit()
+	{
+		final SampleBuffer sb = this.create( 8, 100 );
+		this.checkBulkGet( sb );
+		this.checkBulkSet( sb );
+	}
+
+	/**
+	 * 	Test the bulk methods of the 16-bit buffer
+	 */
+	@Test
+	public void test16Bit()
+	{
+		final SampleBuffer sb = this.create( 16, 100 );
+		this.checkBulkGet( sb );
+		this.checkBulkSet( sb );
+	}
+
+	/**
+	 * 	Test that the bulk setter clips values outside of the sample range
+	 * 	in the same way as the single setter.
+	 */
+	@Test
+	public void test16BitClipping()
+	{
+		final SampleBuffer sb = SampleBufferFactory.createSampleBuffer(
+				new AudioFormat( 16, 44.1, 1 ), 2 );
+		sb.set( 0, new float[] { Float.MAX_VALUE, -Float.MAX_VALUE }, 0, 2 );
+		Assert.assertEquals( Short.MAX_VALUE, sb.getUnscaled( 0 ), 1 );
+		Assert.assertEquals( Short.MIN_VALUE, sb.getUnscaled( 1 ), 1 );
+	}
+
+	/**
+	 * 	Test that a 16-bit buffer can wrap a direct byte buffer and
+	 * 	produce the same samples as the heap version.
+	 */
+	@Test
+	public void test16BitDirect()
+	{
+		final SampleBuffer sb = this.create( 16, 100 );
+		final byte[] bytes = sb.getSampleChunk().getSamples();
+
+		final ByteBuffer direct = ByteBuffer.allocateDirect( bytes.length );
+		direct.put( bytes ).flip();
+
+		final SampleBuffer dsb = SampleBufferFactory.createSampleBuffer( direct, sb.getFormat() );
+		Assert.assertArrayEquals( sb.asFloatArray(), dsb.asFloatArray(), 0 );
+
+		final SampleChunk sc = dsb.getSampleChunk();
+		Assert.assertArrayEquals( bytes, sc.getSamples() );
+
+		dsb.set( 0, new float[] { 0, 0 }, 0, 2 );
+		Assert.assertEquals( 0, direct.get( 0 ) );
+		Assert.assertEquals( 0, direct.get( 3 ) );
+	}
+
+	/**
+	 * 	Test that a 16-bit buffer wrapping part of a heap byte buffer only
+	 * 	sees the bytes up to the limit, and has a start timecode.
+	 */
+	@Test
+	public void test16BitByteBufferLimit()
+	{
+		final SampleBuffer sb = this.create( 16, 100 );
+		final byte[] bytes = sb.getSampleChunk().getSamples();
+
+		final ByteBuffer buffer = ByteBuffer.wrap( bytes );
+		buffer.limit( 40 );
+
+		final SampleBuffer wsb = SampleBufferFactory.createSampleBuffer( buffer, sb.getFormat() );
+		Assert.assertEquals( 20, wsb.size() );
+		Assert.assertEquals( 40, wsb.getSampleChunk().getSamples().length );
+		Assert.assertNotNull( wsb.getStartTimecode() );
+		Assert.assertNotNull( wsb.getSampleChunk().getStartTimecode() );
+		for( int i = 0; i < 20; i++ )
+			Assert.assertEquals( sb.get( i ), wsb.get( i ), 0 );
+	}
+
+	private void checkOutOfRange( final SampleBuffer sb, final int index,
+			final int arrayLength, final int offset, final int length )
+	{
+		try
+		{
+			sb.get( index, new float[arrayLength], offset, length );
+			Assert.fail( "get should have thrown" );
+		}
+		catch( final IndexOutOfBoundsException e )
+		{
+		}
+
+		try
+		{
+			sb.set( index, new float[arrayLength], offset, length );
+			Assert.fail( "set should have thrown" );
+		}
+		catch( final IndexOutOfBoundsException e )
+		{
+		}
+	}
+
+	/**
+	 * 	Test that all implementations reject out of range bulk accesses in
+	 * 	the same way.
+	 */
+	@Test
+	public void testBulkOutOfRange()
+	{
+		final AudioFormat af = new AudioFormat( 16, 44.1, 2 );
+		final SampleBuffer[] buffers = {
+				this.create( 8, 10 ),
+				this.create( 16, 10 ),
+				new FloatSampleBuffer( new float[10], af )
+		};
+
+		for( final SampleBuffer sb : buffers )
+		{
+			this.checkOutOfRange( sb, 5, 10, 0, 6 );
+			this.checkOutOfRange( sb, -1, 10, 0, 2 );
+			this.checkOutOfRange( sb, 0, 4, 2, 3 );
+			this.checkOutOfRange( sb, 0, 4, -1, 2 );
+			this.checkOutOfRange( sb, 0, 4, 0, -1 );
+
+			// the whole buffer is fine, as is an empty range at the end
+			Assert.assertEquals( 10, sb.get( 0, new float[10], 0, 10 ).length );
+			sb.get( 10, new float[0], 0, 0 );
+		}
+	}
+}
@@ -44,6 +44,8 @@ import java.util.Locale;
 import java.util.Scanner;
 
 import org.openimaj.feature.local.LocalFeature;
+import org.openimaj.io.ByteBufferDataInput;
+import org.openimaj.io.IOUtils;
 import org.openimaj.io.VariableLength;
 
 class LocalFeatureListUtils {
@@ -73,6 +75,14 @@ class LocalFeatureListUtils {
 	protected static <T extends LocalFeature<?, ?>> void readBinary(File file,
 			MemoryLocalFeatureList<T> memoryKeypointList, Class<T> clz) throws IOException
 	{
+		if (file.length() <= Integer.MAX_VALUE) {
+			// read the features directly from the mapped file
+			final ByteBufferDataInput in = new ByteBufferDataInput(IOUtils.map(file));
+			in.skipBytes(memoryKeypointList.binaryHeader().length);
+			readBinary(in, memoryKeypointList, clz);
+			return;
+		}
+
 		BufferedInputStream bis = null;
 
 		try {
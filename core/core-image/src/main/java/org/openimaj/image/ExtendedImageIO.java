@@ -29,6 +29,7 @@
  */
 package org.openimaj.image;
 
+import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
 import java.io.File;
@@ -193,6 +194,130 @@ class ExtendedImageIO {
 		return bi;
 	}
 
+	/**
+	 * Decode an image from the given file at a reduced resolution, such that
+	 * its longest side is at most <code>maxSize</code> pixels. See
+	 * {@link #read(InputStream, int)}.
+	 * 
+	 * @param input
+	 *            a <code>File</code> to read from.
+	 * @param maxSize
+	 *            the maximum length of the longest side of the decoded image
+	 * @return a <code>BufferedImage</code> containing the decoded contents of
+	 *         the input, or <code>null</code>.
+	 * @exception IllegalArgumentException
+	 *                if <code>input</code> is <code>null</code> or
+	 *                <code>maxSize</code> is not positive.
+	 * @exception IOException
+	 *                if an error occurs during reading.
+	 */
+	public static BufferedImage read(File input, int maxSize) throws IOException {
+		if (input == null) {
+			throw new IllegalArgumentException("input == null!");
+		}
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be positive!");
+		}
+		if (!input.canRead()) {
+			throw new IIOException("Can't read input file!");
+		}
+		InputStream stream = null;
+		try {
+			stream = new FileInputStream(input);
+			return read(stream, maxSize);
+		} finally {
+			try {
+				stream.close();
+			} catch (final IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Decode an image from the given stream at a reduced resolution, such that
+	 * its longest side is at most <code>maxSize</code> pixels. The reduction is
+	 * performed by the {@link ImageReader} using integer source subsampling, so
+	 * the full resolution raster is never allocated. If the size of the image
+	 * can't be determined, the reader fails, or the decoded image isn't RGB or
+	 * grey (for example a CMYK JPEG), the image is decoded at full resolution
+	 * using {@link #read(InputStream)} instead.
+	 * <p>
+	 * This method <em>does not</em> close the provided <code>InputStream</code>
+	 * after the read operation has completed.
+	 * 
+	 * @param input
+	 *            an <code>InputStream</code> to read from.
+	 * @param maxSize
+	 *            the maximum length of the longest side of the decoded image
+	 * @return a <code>BufferedImage</code> containing the decoded contents of
+	 *         the input, or <code>null</code>.
+	 * @exception IllegalArgumentException
+	 *                if <code>input</code> is <code>null</code> or
+	 *                <code>maxSize</code> is not positive.
+	 * @exception IOException
+	 *                if an error occurs during reading.
+	 */
+	public static BufferedImage read(InputStream input, int maxSize) throws IOException {
+		if (input == null) {
+			throw new IllegalArgumentException("input == null!");
+		}
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be positive!");
+		}
+
+		final NonClosableInputStream buffer = new NonClosableInputStream(input);
+		buffer.mark(10 * 1024 * 1024);
+
+		BufferedImage bi;
+		try {
+			bi = readSubsampled(buffer, maxSize);
+		} catch (final Exception ex) {
+			bi = null;
+		}
+
+		if (bi == null || !isRGBOrGrey(bi)) {
+			// let the full reader deal with CMYK and the other special cases
+			buffer.reset();
+			bi = read(buffer);
+		}
+
+		return bi;
+	}
+
+	private static boolean isRGBOrGrey(BufferedImage bi) {
+		final int type = bi.getColorModel().getColorSpace().getType();
+		return type == ColorSpace.TYPE_RGB || type == ColorSpace.TYPE_GRAY;
+	}
+
+	private static BufferedImage readSubsampled(BufferedInputStream binput, int maxSize) throws IOException {
+		final ImageInputStream stream = ImageIO.createImageInputStream(binput);
+		if (stream == null)
+			return null;
+
+		ImageReader reader = null;
+		try {
+			final Iterator<ImageReader> iter = ImageIO.getImageReaders(stream);
+			if (!iter.hasNext())
+				return null;
+
+			reader = iter.next();
+			reader.setInput(stream, true, true);
+
+			final int size = Math.max(reader.getWidth(0), reader.getHeight(0));
+			final ImageReadParam param = reader.getDefaultReadParam();
+			if (size > maxSize) {
+				final int factor = (size + maxSize - 1) / maxSize;
+				param.setSourceSubsampling(factor, factor, 0, 0);
+			}
+
+			return reader.read(0, param);
+		} finally {
+			if (reader != null)
+				reader.dispose();
+			stream.close();
+		}
+	}
+
 	/**
 	 * Returns a <code>BufferedImage</code> as the result of decoding a supplied
 	 * <code>URL</code> with an <code>ImageReader</code> chosen automatically
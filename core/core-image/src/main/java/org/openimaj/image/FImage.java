@@ -30,14 +30,18 @@
 package org.openimaj.image;
 
 import java.util.Comparator;
+import java.util.Random;
 
 import org.apache.log4j.Logger;
 import org.openimaj.image.analyser.PixelAnalyser;
 import org.openimaj.image.colour.ColourSpace;
 import org.openimaj.image.pixel.FValuePixel;
 import org.openimaj.image.pixel.Pixel;
+import org.openimaj.image.processor.FKernelProcessor;
+import org.openimaj.image.processor.FKernelWindow;
 import org.openimaj.image.processor.KernelProcessor;
 import org.openimaj.image.processor.PixelProcessor;
+import org.openimaj.image.processor.ProcessorUtilities;
 import org.openimaj.image.renderer.FImageRenderer;
 import org.openimaj.image.renderer.RenderHints;
 import org.openimaj.math.geometry.shape.Rectangle;
@@ -1293,7 +1297,8 @@ public class FImage extends SingleBandImage<Float, FImage>
 
 	/**
 	 * {@inheritDoc} This method has been overridden in {@link FImage} for
-	 * performance.
+	 * performance; {@link FKernelProcessor}s are applied with a sliding
+	 * {@link FKernelWindow} rather than a copy of each patch.
 	 *
 	 * @see org.openimaj.image.SingleBandImage#process(org.openimaj.image.processor.KernelProcessor,
 	 *      boolean)
@@ -1301,6 +1306,9 @@ public class FImage extends SingleBandImage<Float, FImage>
 	@Override
 	public FImage process(final KernelProcessor<Float, FImage> p, final boolean pad)
 	{
+		if (p instanceof FKernelProcessor)
+			return ProcessorUtilities.process(this, (FKernelProcessor) p, pad, null);
+
 		final FImage newImage = new FImage(this.width, this.height);
 		final int kh = p.getKernelHeight();
 		final int kw = p.getKernelWidth();
@@ -1882,6 +1890,28 @@ public class FImage extends SingleBandImage<Float, FImage>
 		return img;
 	}
 
+	/**
+	 * Create a random image of the given size, with pixels uniformly
+	 * distributed in [0, 1) drawn from the given random number generator.
+	 *
+	 * @param rng
+	 *            the random number generator
+	 * @param width
+	 *            the width
+	 * @param height
+	 *            the height
+	 * @return the image
+	 */
+	public static FImage randomImage(final Random rng, final int width, final int height) {
+		final FImage img = new FImage(width, height);
+
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				img.pixels[y][x] = rng.nextFloat();
+
+		return img;
+	}
+
 	@Override
 	public FImage replace(Float target, Float replacement) {
 		return replace((float) target, (float) replacement);
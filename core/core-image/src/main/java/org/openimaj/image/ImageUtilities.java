@@ -32,7 +32,10 @@ package org.openimaj.image;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
@@ -44,10 +47,16 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.imageio.ImageIO;
 import javax.imageio.stream.ImageOutputStream;
@@ -59,6 +68,7 @@ import org.apache.sanselan.common.byteSources.ByteSource;
 import org.apache.sanselan.common.byteSources.ByteSourceInputStream;
 import org.openimaj.image.colour.ColourSpace;
 import org.openimaj.io.InputStreamObjectReader;
+import org.openimaj.util.parallel.GlobalExecutorPool;
 
 /**
  * A static utility class with methods for dealing with images.
@@ -111,11 +121,21 @@ public class ImageUtilities {
 	/** Lookup table for byte->float conversion */
 	public final static float[] BYTE_TO_FLOAT_LUT;
 
+	/** Lookup table for byte grey level->luminance float conversion */
+	private final static float[] GREY_TO_LUMA_LUT;
+
 	// Static initialisation
 	static {
 		BYTE_TO_FLOAT_LUT = new float[256];
 		for (int i = 0; i < ImageUtilities.BYTE_TO_FLOAT_LUT.length; i++)
 			ImageUtilities.BYTE_TO_FLOAT_LUT[i] = i / 255f;
+
+		// grey levels go through the same NTSC weighting as RGB pixels (see
+		// FImage#internalAssign(int[], int, int)), which doesn't always round
+		// back to the same level
+		GREY_TO_LUMA_LUT = new float[256];
+		for (int i = 0; i < ImageUtilities.GREY_TO_LUMA_LUT.length; i++)
+			ImageUtilities.GREY_TO_LUMA_LUT[i] = BYTE_TO_FLOAT_LUT[(int) (0.299f * i + 0.587f * i + 0.114f * i)];
 	}
 
 	private ImageUtilities() {
@@ -281,6 +301,10 @@ public class ImageUtilities {
 	 * @return an FImage representation of the input image
 	 */
 	public static FImage createFImage(final BufferedImage image) {
+		final FImage fimage = ImageUtilities.readRaster(image);
+		if (fimage != null)
+			return fimage;
+
 		final BufferedImage bimg = ImageUtilities.createWorkingImage(image);
 		final int[] data = bimg.getRGB(0, 0, bimg.getWidth(), bimg.getHeight(), null, 0, bimg.getWidth());
 
@@ -297,12 +321,208 @@ public class ImageUtilities {
 	 * @return an MBFImage representation of the input image
 	 */
 	public static MBFImage createMBFImage(final BufferedImage image, final boolean alpha) {
+		final MBFImage mbfimage = ImageUtilities.readRaster(image, alpha);
+		if (mbfimage != null)
+			return mbfimage;
+
 		final BufferedImage bimg = ImageUtilities.createWorkingImage(image);
 		final int[] data = bimg.getRGB(0, 0, bimg.getWidth(), bimg.getHeight(), null, 0, bimg.getWidth());
 
 		return new MBFImage(data, bimg.getWidth(), bimg.getHeight(), alpha);
 	}
 
+	/**
+	 * Offset of the pixel at (0, 0) of the given image within the array of its
+	 * {@link DataBuffer}.
+	 */
+	private static int rasterOffset(final WritableRaster raster, final int scanlineStride, final int pixelStride) {
+		return raster.getDataBuffer().getOffset() - raster.getSampleModelTranslateY() * scanlineStride
+				- raster.getSampleModelTranslateX() * pixelStride;
+	}
+
+	/**
+	 * Create an {@link FImage} by reading the pixels directly from the raster
+	 * of the given {@link BufferedImage}. This avoids the intermediate ARGB
+	 * copies made by {@link #createWorkingImage(BufferedImage)} and
+	 * {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}, and
+	 * gives exactly the same result. Only the layouts produced by the common
+	 * decoders (3-byte BGR, byte grey and the packed integer types) are
+	 * supported.
+	 * 
+	 * @param image
+	 *            the image
+	 * @return the {@link FImage}, or null if the raster layout is not
+	 *         supported
+	 */
+	private static FImage readRaster(final BufferedImage image) {
+		final int width = image.getWidth();
+		final int height = image.getHeight();
+		final WritableRaster raster = image.getRaster();
+
+		switch (image.getType()) {
+		case BufferedImage.TYPE_3BYTE_BGR: {
+			final ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+			final byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+			final int scanlineStride = sm.getScanlineStride();
+			final int pixelStride = sm.getPixelStride();
+			final int[] offsets = sm.getBandOffsets();
+			final int base = rasterOffset(raster, scanlineStride, pixelStride);
+
+			final FImage fimage = new FImage(width, height);
+			for (int y = 0; y < height; y++) {
+				final float[] row = fimage.pixels[y];
+				for (int x = 0, i = base + y * scanlineStride; x < width; x++, i += pixelStride) {
+					final int red = data[i + offsets[0]] & 0xff;
+					final int green = data[i + offsets[1]] & 0xff;
+					final int blue = data[i + offsets[2]] & 0xff;
+
+					row[x] = BYTE_TO_FLOAT_LUT[(int) (0.299f * red + 0.587f * green + 0.114f * blue)];
+				}
+			}
+			return fimage;
+		}
+		case BufferedImage.TYPE_BYTE_GRAY: {
+			final ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+			final byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+			final int scanlineStride = sm.getScanlineStride();
+			final int base = rasterOffset(raster, scanlineStride, 1);
+
+			final FImage fimage = new FImage(width, height);
+			for (int y = 0; y < height; y++) {
+				final float[] row = fimage.pixels[y];
+				for (int x = 0, i = base + y * scanlineStride; x < width; x++, i++)
+					row[x] = GREY_TO_LUMA_LUT[data[i] & 0xff];
+			}
+			return fimage;
+		}
+		case BufferedImage.TYPE_INT_RGB:
+		case BufferedImage.TYPE_INT_ARGB:
+		case BufferedImage.TYPE_INT_BGR: {
+			final SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+			final int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+			final int scanlineStride = sm.getScanlineStride();
+			final int base = rasterOffset(raster, scanlineStride, 1);
+			final boolean bgr = image.getType() == BufferedImage.TYPE_INT_BGR;
+
+			final FImage fimage = new FImage(width, height);
+			for (int y = 0; y < height; y++) {
+				final float[] row = fimage.pixels[y];
+				for (int x = 0, i = base + y * scanlineStride; x < width; x++, i++) {
+					final int rgb = data[i];
+					final int red = bgr ? (rgb & 0xff) : ((rgb >> 16) & 0xff);
+					final int green = (rgb >> 8) & 0xff;
+					final int blue = bgr ? ((rgb >> 16) & 0xff) : (rgb & 0xff);
+
+					row[x] = BYTE_TO_FLOAT_LUT[(int) (0.299f * red + 0.587f * green + 0.114f * blue)];
+				}
+			}
+			return fimage;
+		}
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Create an {@link MBFImage} by reading the pixels directly from the raster
+	 * of the given {@link BufferedImage}. See {@link #readRaster(BufferedImage)}
+	 * for details.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param alpha
+	 *            should the resultant MBFImage have an alpha channel
+	 * @return the {@link MBFImage}, or null if the raster layout is not
+	 *         supported
+	 */
+	private static MBFImage readRaster(final BufferedImage image, final boolean alpha) {
+		final int width = image.getWidth();
+		final int height = image.getHeight();
+		final WritableRaster raster = image.getRaster();
+
+		final MBFImage mbfimage;
+		switch (image.getType()) {
+		case BufferedImage.TYPE_3BYTE_BGR: {
+			mbfimage = new MBFImage(width, height, alpha ? ColourSpace.RGBA : ColourSpace.RGB);
+
+			final ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+			final byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+			final int scanlineStride = sm.getScanlineStride();
+			final int pixelStride = sm.getPixelStride();
+			final int[] offsets = sm.getBandOffsets();
+			final int base = rasterOffset(raster, scanlineStride, pixelStride);
+
+			for (int y = 0; y < height; y++) {
+				final float[] br = mbfimage.getBand(0).pixels[y];
+				final float[] bg = mbfimage.getBand(1).pixels[y];
+				final float[] bb = mbfimage.getBand(2).pixels[y];
+
+				for (int x = 0, i = base + y * scanlineStride; x < width; x++, i += pixelStride) {
+					br[x] = BYTE_TO_FLOAT_LUT[data[i + offsets[0]] & 0xff];
+					bg[x] = BYTE_TO_FLOAT_LUT[data[i + offsets[1]] & 0xff];
+					bb[x] = BYTE_TO_FLOAT_LUT[data[i + offsets[2]] & 0xff];
+				}
+			}
+			break;
+		}
+		case BufferedImage.TYPE_BYTE_GRAY: {
+			mbfimage = new MBFImage(width, height, alpha ? ColourSpace.RGBA : ColourSpace.RGB);
+
+			final ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+			final byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+			final int scanlineStride = sm.getScanlineStride();
+			final int base = rasterOffset(raster, scanlineStride, 1);
+
+			for (int y = 0; y < height; y++) {
+				final float[] br = mbfimage.getBand(0).pixels[y];
+				for (int x = 0, i = base + y * scanlineStride; x < width; x++, i++)
+					br[x] = BYTE_TO_FLOAT_LUT[data[i] & 0xff];
+
+				System.arraycopy(br, 0, mbfimage.getBand(1).pixels[y], 0, width);
+				System.arraycopy(br, 0, mbfimage.getBand(2).pixels[y], 0, width);
+			}
+			break;
+		}
+		case BufferedImage.TYPE_INT_RGB:
+		case BufferedImage.TYPE_INT_ARGB:
+		case BufferedImage.TYPE_INT_BGR: {
+			mbfimage = new MBFImage(width, height, alpha ? ColourSpace.RGBA : ColourSpace.RGB);
+
+			final SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+			final int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+			final int scanlineStride = sm.getScanlineStride();
+			final int base = rasterOffset(raster, scanlineStride, 1);
+			final boolean bgr = image.getType() == BufferedImage.TYPE_INT_BGR;
+			final boolean hasAlpha = image.getType() == BufferedImage.TYPE_INT_ARGB;
+
+			for (int y = 0; y < height; y++) {
+				final float[] br = mbfimage.getBand(0).pixels[y];
+				final float[] bg = mbfimage.getBand(1).pixels[y];
+				final float[] bb = mbfimage.getBand(2).pixels[y];
+				final float[] ba = alpha ? mbfimage.getBand(3).pixels[y] : null;
+
+				for (int x = 0, i = base + y * scanlineStride; x < width; x++, i++) {
+					final int rgb = data[i];
+					br[x] = BYTE_TO_FLOAT_LUT[bgr ? (rgb & 0xff) : ((rgb >> 16) & 0xff)];
+					bg[x] = BYTE_TO_FLOAT_LUT[(rgb >> 8) & 0xff];
+					bb[x] = BYTE_TO_FLOAT_LUT[bgr ? ((rgb >> 16) & 0xff) : (rgb & 0xff)];
+
+					if (ba != null)
+						ba[x] = hasAlpha ? BYTE_TO_FLOAT_LUT[(rgb >> 24) & 0xff] : 1f;
+				}
+			}
+			return mbfimage;
+		}
+		default:
+			return null;
+		}
+
+		if (alpha)
+			mbfimage.getBand(3).fill(1f);
+
+		return mbfimage;
+	}
+
 	/**
 	 * Reads an {@link FImage} from the given file.
 	 * 
@@ -423,6 +643,165 @@ public class ImageUtilities {
 		return ImageUtilities.createMBFImage(ExtendedImageIO.read(input), true);
 	}
 
+	/**
+	 * Reads an {@link FImage} from the given file, decoding it at a reduced
+	 * resolution such that the longest side is at most <code>maxSize</code>
+	 * pixels. The resolution is reduced by an integer factor by the decoder,
+	 * so this is much cheaper than reading the full image and resizing it,
+	 * however the result will often be smaller than <code>maxSize</code>.
+	 * 
+	 * @param input
+	 *            The file to read the {@link FImage} from.
+	 * @param maxSize
+	 *            The maximum length of the longest side of the image
+	 * @return An {@link FImage}
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static FImage readF(final File input, final int maxSize) throws IOException {
+		return ImageUtilities.createFImage(ExtendedImageIO.read(input, maxSize));
+	}
+
+	/**
+	 * Reads an {@link FImage} from the given input stream, decoding it at a
+	 * reduced resolution such that the longest side is at most
+	 * <code>maxSize</code> pixels. See {@link #readF(File, int)}.
+	 * 
+	 * @param input
+	 *            The input stream to read the {@link FImage} from.
+	 * @param maxSize
+	 *            The maximum length of the longest side of the image
+	 * @return An {@link FImage}
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 */
+	public static FImage readF(final InputStream input, final int maxSize) throws IOException {
+		return ImageUtilities.createFImage(ExtendedImageIO.read(input, maxSize));
+	}
+
+	/**
+	 * Reads an {@link MBFImage} from the given file, decoding it at a reduced
+	 * resolution such that the longest side is at most <code>maxSize</code>
+	 * pixels. See {@link #readF(File, int)}.
+	 * 
+	 * @param input
+	 *            The file to read the {@link MBFImage} from.
+	 * @param maxSize
+	 *            The maximum length of the longest side of the image
+	 * @return An {@link MBFImage}
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static MBFImage readMBF(final File input, final int maxSize) throws IOException {
+		return ImageUtilities.createMBFImage(ExtendedImageIO.read(input, maxSize), false);
+	}
+
+	/**
+	 * Reads an {@link MBFImage} from the given input stream, decoding it at a
+	 * reduced resolution such that the longest side is at most
+	 * <code>maxSize</code> pixels. See {@link #readF(File, int)}.
+	 * 
+	 * @param input
+	 *            The input stream to read the {@link MBFImage} from.
+	 * @param maxSize
+	 *            The maximum length of the longest side of the image
+	 * @return An {@link MBFImage}
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 */
+	public static MBFImage readMBF(final InputStream input, final int maxSize) throws IOException {
+		return ImageUtilities.createMBFImage(ExtendedImageIO.read(input, maxSize), false);
+	}
+
+	/**
+	 * Reads a batch of {@link FImage}s from the given files in parallel using
+	 * the {@link GlobalExecutorPool}. If called from a thread of the pool the
+	 * files are read sequentially on the calling thread.
+	 * 
+	 * @param inputs
+	 *            The files to read the {@link FImage}s from.
+	 * @param maxSize
+	 *            The maximum length of the longest side of the images (see
+	 *            {@link #readF(File, int)}), or 0 to read the images at full
+	 *            resolution.
+	 * @return The {@link FImage}s, in the same order as the inputs
+	 * @throws IOException
+	 *             if any of the files cannot be read
+	 */
+	public static List<FImage> readF(final List<File> inputs, final int maxSize) throws IOException {
+		final List<Callable<FImage>> tasks = new ArrayList<Callable<FImage>>(inputs.size());
+		for (final File input : inputs) {
+			tasks.add(new Callable<FImage>() {
+				@Override
+				public FImage call() throws Exception {
+					return maxSize > 0 ? readF(input, maxSize) : readF(input);
+				}
+			});
+		}
+
+		return invokeAll(tasks);
+	}
+
+	/**
+	 * Reads a batch of {@link MBFImage}s from the given files in parallel using
+	 * the {@link GlobalExecutorPool}. If called from a thread of the pool the
+	 * files are read sequentially on the calling thread.
+	 * 
+	 * @param inputs
+	 *            The files to read the {@link MBFImage}s from.
+	 * @param maxSize
+	 *            The maximum length of the longest side of the images (see
+	 *            {@link #readF(File, int)}), or 0 to read the images at full
+	 *            resolution.
+	 * @return The {@link MBFImage}s, in the same order as the inputs
+	 * @throws IOException
+	 *             if any of the files cannot be read
+	 */
+	public static List<MBFImage> readMBF(final List<File> inputs, final int maxSize) throws IOException {
+		final List<Callable<MBFImage>> tasks = new ArrayList<Callable<MBFImage>>(inputs.size());
+		for (final File input : inputs) {
+			tasks.add(new Callable<MBFImage>() {
+				@Override
+				public MBFImage call() throws Exception {
+					return maxSize > 0 ? readMBF(input, maxSize) : readMBF(input);
+				}
+			});
+		}
+
+		return invokeAll(tasks);
+	}
+
+	private static <T> List<T> invokeAll(final List<Callable<T>> tasks) throws IOException {
+		final List<T> results = new ArrayList<T>(tasks.size());
+
+		// waiting on the pool from one of its own threads could dead-lock, so
+		// read sequentially instead
+		if (GlobalExecutorPool.isPoolThread()) {
+			for (final Callable<T> task : tasks) {
+				try {
+					results.add(task.call());
+				} catch (final IOException e) {
+					throw e;
+				} catch (final Exception e) {
+					throw new IOException(e);
+				}
+			}
+			return results;
+		}
+
+		try {
+			for (final Future<T> future : GlobalExecutorPool.getPool().invokeAll(tasks))
+				results.add(future.get());
+		} catch (final InterruptedException e) {
+			throw new InterruptedIOException();
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		}
+		return results;
+	}
+
 	/**
 	 * Checks whether the width and height of all the given images match.
 	 * 
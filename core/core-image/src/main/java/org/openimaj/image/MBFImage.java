@@ -558,6 +558,29 @@ public class MBFImage extends MultiBandImage<Float, MBFImage, FImage> {
 		return img;
 	}
 
+	/**
+	 * Compare this image against another using a threshold on the absolute
+	 * difference between pixel values in order to determine equality.
+	 *
+	 * @param o
+	 *            the image to compare against
+	 * @param thresh
+	 *            the threshold for determining equality
+	 * @return true if the images have the same number of bands, and each
+	 *         band is equal within the threshold according to
+	 *         {@link FImage#equalsThresh(FImage, float)}; false otherwise.
+	 */
+	public boolean equalsThresh(final MBFImage o, final float thresh) {
+		if (o.numBands() != this.numBands())
+			return false;
+
+		for (int i = 0; i < this.numBands(); i++)
+			if (!this.bands.get(i).equalsThresh(o.bands.get(i), thresh))
+				return false;
+
+		return true;
+	}
+
 	/**
 	 * Convenience method to create an RGB {@link MBFImage} from an
 	 * {@link FImage} by cloning the {@link FImage} for each of the R, G and B
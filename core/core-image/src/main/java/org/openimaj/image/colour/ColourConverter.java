@@ -0,0 +1,692 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.colour;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.image.MBFImage;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+
+/**
+ * A faster engine for converting {@link MBFImage}s between colour spaces. The
+ * conversions give the same results as the corresponding methods in
+ * {@link Transforms} (to within the accuracy of the lookup tables, which is
+ * better than 1e-5 for RGB and XYZ values and 1e-3 for L*a*b* and L*u*v*
+ * values), but:
+ * <ul>
+ * <li>the sRGB companding curves and the CIE cube-root function are read from
+ * precomputed, linearly interpolated lookup tables instead of calling
+ * {@link Math#pow(double, double)} for every pixel;</li>
+ * <li>conversions are fused, so RGB is converted straight to CIE L*a*b*
+ * without an intermediate CIE XYZ image, and a conversion between two non-RGB
+ * spaces passes through RGB one row at a time;</li>
+ * <li>the result can be written into a caller-supplied image, including the
+ * input image itself, rather than always allocating a new one;</li>
+ * <li>rows can be converted in parallel on a thread pool.</li>
+ * </ul>
+ * Fused conversions are available between {@link ColourSpace#RGB} (or
+ * {@link ColourSpace#RGBA} as an input) and {@link ColourSpace#HSV},
+ * {@link ColourSpace#CIE_XYZ}, {@link ColourSpace#CIE_Lab},
+ * {@link ColourSpace#CIE_Lab_Norm}, {@link ColourSpace#CIE_Luv},
+ * {@link ColourSpace#YUV} and {@link ColourSpace#YUV_Norm}, and between any
+ * two of these. Other colour spaces fall back to
+ * {@link ColourSpace#convert(MBFImage)}.
+ * <p>
+ * Unlike {@link Transforms#RGB_TO_CIELUV(MBFImage)} and
+ * {@link Transforms#CIELUV_TO_RGB(MBFImage)}, black is mapped to L*u*v* = (0,
+ * 0, 0) and back again rather than to NaN.
+ */
+public final class ColourConverter {
+	/**
+	 * Number of intervals in each lookup table over the domain [0, 1]
+	 */
+	private static final int LUT_SIZE = 8192;
+
+	private static final float EPSILON = 0.008856f; // actual CIE standard
+	private static final float KAPPA = 903.3f; // actual CIE standard
+
+	private static final float XR = 0.950456f; // reference white
+	private static final float YR = 1.0f; // reference white
+	private static final float ZR = 1.088754f; // reference white
+
+	private static final float U0 = (4 * XR) / (XR + 15 * YR + 3 * ZR);
+	private static final float V0 = (9 * YR) / (XR + 15 * YR + 3 * ZR);
+
+	private static final float WR = 0.299f;
+	private static final float WB = 0.114f;
+	private static final float WG = 0.587f;
+	private static final float UMAX = 0.436f;
+	private static final float VMAX = 0.615f;
+
+	/** inverse sRGB companding */
+	private static final float[] LINEARISE = new float[LUT_SIZE + 1];
+
+	/** sRGB companding */
+	private static final float[] COMPAND = new float[LUT_SIZE + 1];
+
+	/** the CIE f(t) function shared by L*a*b* and L*u*v* */
+	private static final float[] CIE_F = new float[LUT_SIZE + 1];
+
+	static {
+		for (int i = 0; i <= LUT_SIZE; i++) {
+			final double v = (double) i / LUT_SIZE;
+
+			LINEARISE[i] = (float) linearise(v);
+			COMPAND[i] = (float) compand(v);
+			CIE_F[i] = (float) cieF(v);
+		}
+	}
+
+	/**
+	 * Converts a row of pixels. Implementations read all the values of a pixel
+	 * before writing any outputs, so the input and output rows can be the
+	 * same arrays.
+	 */
+	private static abstract class RowConverter {
+		abstract void convert(float[] a, float[] b, float[] c, float[] x, float[] y, float[] z, int width);
+	}
+
+	private static final Map<ColourSpace, RowConverter> FROM_RGB = new EnumMap<ColourSpace, RowConverter>(
+			ColourSpace.class);
+	private static final Map<ColourSpace, RowConverter> TO_RGB = new EnumMap<ColourSpace, RowConverter>(
+			ColourSpace.class);
+
+	static {
+		FROM_RGB.put(ColourSpace.HSV, new RowConverter() {
+			@Override
+			void convert(float[] r, float[] g, float[] b, float[] h, float[] s, float[] v, int width) {
+				final float[] pIn = new float[3];
+				final float[] pOut = new float[3];
+
+				for (int x = 0; x < width; x++) {
+					pIn[0] = r[x];
+					pIn[1] = g[x];
+					pIn[2] = b[x];
+
+					Transforms.RGB_TO_HSV(pIn, pOut);
+
+					h[x] = pOut[0];
+					s[x] = pOut[1];
+					v[x] = pOut[2];
+				}
+			}
+		});
+
+		TO_RGB.put(ColourSpace.HSV, new RowConverter() {
+			@Override
+			void convert(float[] h, float[] s, float[] v, float[] r, float[] g, float[] b, int width) {
+				for (int x = 0; x < width; x++) {
+					final float H = h[x];
+					final float S = s[x];
+					final float V = v[x];
+
+					if (V == 0) {
+						r[x] = g[x] = b[x] = 0;
+					} else if (S == 0) {
+						r[x] = g[x] = b[x] = V;
+					} else {
+						final float hf = H * 360f / 60.0f;
+						final int i = (int) Math.floor(hf);
+						final float f = hf - i;
+						final float pv = V * (1 - S);
+						final float qv = V * (1 - S * f);
+						final float tv = V * (1 - S * (1 - f));
+
+						switch (i) {
+						case -1:
+						case 5:
+							r[x] = V;
+							g[x] = pv;
+							b[x] = qv;
+							break;
+						case 0:
+						case 6:
+							r[x] = V;
+							g[x] = tv;
+							b[x] = pv;
+							break;
+						case 1:
+							r[x] = qv;
+							g[x] = V;
+							b[x] = pv;
+							break;
+						case 2:
+							r[x] = pv;
+							g[x] = V;
+							b[x] = tv;
+							break;
+						case 3:
+							r[x] = pv;
+							g[x] = qv;
+							b[x] = V;
+							break;
+						case 4:
+							r[x] = tv;
+							g[x] = pv;
+							b[x] = V;
+							break;
+						default:
+							// the colour is not defined
+							r[x] = g[x] = b[x] = 0;
+							break;
+						}
+					}
+				}
+			}
+		});
+
+		FROM_RGB.put(ColourSpace.CIE_XYZ, new RowConverter() {
+			@Override
+			void convert(float[] R, float[] G, float[] B, float[] X, float[] Y, float[] Z, int width) {
+				for (int x = 0; x < width; x++) {
+					final float r = linear(R[x]);
+					final float g = linear(G[x]);
+					final float b = linear(B[x]);
+
+					X[x] = r * 0.4124564f + g * 0.3575761f + b * 0.1804375f;
+					Y[x] = r * 0.2126729f + g * 0.7151522f + b * 0.0721750f;
+					Z[x] = r * 0.0193339f + g * 0.1191920f + b * 0.9503041f;
+				}
+			}
+		});
+
+		TO_RGB.put(ColourSpace.CIE_XYZ, new RowConverter() {
+			@Override
+			void convert(float[] X, float[] Y, float[] Z, float[] R, float[] G, float[] B, int width) {
+				for (int x = 0; x < width; x++) {
+					final float xx = X[x];
+					final float yy = Y[x];
+					final float zz = Z[x];
+
+					R[x] = xyzToR(xx, yy, zz);
+					G[x] = xyzToG(xx, yy, zz);
+					B[x] = xyzToB(xx, yy, zz);
+				}
+			}
+		});
+
+		FROM_RGB.put(ColourSpace.CIE_Lab, new LabFromRGB(false));
+		FROM_RGB.put(ColourSpace.CIE_Lab_Norm, new LabFromRGB(true));
+		TO_RGB.put(ColourSpace.CIE_Lab, new LabToRGB(false));
+		TO_RGB.put(ColourSpace.CIE_Lab_Norm, new LabToRGB(true));
+
+		FROM_RGB.put(ColourSpace.CIE_Luv, new RowConverter() {
+			@Override
+			void convert(float[] R, float[] G, float[] B, float[] Lb, float[] ub, float[] vb, int width) {
+				for (int x = 0; x < width; x++) {
+					final float r = linear(R[x]);
+					final float g = linear(G[x]);
+					final float b = linear(B[x]);
+
+					final float X = r * 0.4124564f + g * 0.3575761f + b * 0.1804375f;
+					final float Y = r * 0.2126729f + g * 0.7151522f + b * 0.0721750f;
+					final float Z = r * 0.0193339f + g * 0.1191920f + b * 0.9503041f;
+
+					final float L = 116 * cie(Y / YR) - 16;
+					final float denom = X + 15 * Y + 3 * Z;
+
+					Lb[x] = L;
+					if (denom == 0) {
+						ub[x] = 0;
+						vb[x] = 0;
+					} else {
+						ub[x] = 13 * L * ((4 * X) / denom - U0);
+						vb[x] = 13 * L * ((9 * Y) / denom - V0);
+					}
+				}
+			}
+		});
+
+		TO_RGB.put(ColourSpace.CIE_Luv, new RowConverter() {
+			@Override
+			void convert(float[] Lb, float[] ub, float[] vb, float[] R, float[] G, float[] B, int width) {
+				for (int x = 0; x < width; x++) {
+					final float L = Lb[x];
+					final float u = ub[x];
+					final float v = vb[x];
+
+					if (L == 0) {
+						R[x] = G[x] = B[x] = 0;
+						continue;
+					}
+
+					final float Y;
+					if (L > KAPPA * EPSILON) {
+						final float fy = (L + 16) / 116;
+						Y = YR * fy * fy * fy;
+					} else {
+						Y = YR * L / KAPPA;
+					}
+
+					final float a = (1f / 3f) * (((52 * L) / (u + 13 * L * U0)) - 1);
+					final float bb = -5 * Y;
+					final float c = -1f / 3f;
+					final float d = Y * (((39 * L) / (v + 13 * L * V0)) - 5);
+
+					final float X = (d - bb) / (a - c);
+					final float Z = X * a + bb;
+
+					R[x] = xyzToR(X, Y, Z);
+					G[x] = xyzToG(X, Y, Z);
+					B[x] = xyzToB(X, Y, Z);
+				}
+			}
+		});
+
+		FROM_RGB.put(ColourSpace.YUV, new YUVFromRGB(false));
+		FROM_RGB.put(ColourSpace.YUV_Norm, new YUVFromRGB(true));
+		TO_RGB.put(ColourSpace.YUV, new YUVToRGB(false));
+		TO_RGB.put(ColourSpace.YUV_Norm, new YUVToRGB(true));
+	}
+
+	private static class LabFromRGB extends RowConverter {
+		final float Lscale;
+		final float abscale;
+		final float abdelta;
+
+		LabFromRGB(boolean norm) {
+			Lscale = norm ? 1f / 100f : 1;
+			abscale = norm ? 1f / 256f : 1;
+			abdelta = norm ? 127 : 0;
+		}
+
+		@Override
+		void convert(float[] R, float[] G, float[] B, float[] Lb, float[] ab, float[] bb, int width) {
+			for (int x = 0; x < width; x++) {
+				final float r = linear(R[x]);
+				final float g = linear(G[x]);
+				final float b = linear(B[x]);
+
+				final float X = r * 0.4124564f + g * 0.3575761f + b * 0.1804375f;
+				final float Y = r * 0.2126729f + g * 0.7151522f + b * 0.0721750f;
+				final float Z = r * 0.0193339f + g * 0.1191920f + b * 0.9503041f;
+
+				final float fx = cie(X / XR);
+				final float fy = cie(Y / YR);
+				final float fz = cie(Z / ZR);
+
+				Lb[x] = (116 * fy - 16) * Lscale;
+				ab[x] = (500 * (fx - fy) + abdelta) * abscale;
+				bb[x] = (200 * (fy - fz) + abdelta) * abscale;
+			}
+		}
+	}
+
+	private static class LabToRGB extends RowConverter {
+		final float Lscale;
+		final float abscale;
+		final float abdelta;
+
+		LabToRGB(boolean norm) {
+			Lscale = norm ? 100 : 1;
+			abscale = norm ? 256 : 1;
+			abdelta = norm ? -127 : 0;
+		}
+
+		@Override
+		void convert(float[] Lb, float[] ab, float[] bb, float[] R, float[] G, float[] B, int width) {
+			for (int x = 0; x < width; x++) {
+				final float L = Lb[x] * Lscale;
+				final float a = ab[x] * abscale + abdelta;
+				final float b = bb[x] * abscale + abdelta;
+
+				final float fy = (L + 16) / 116;
+				final float fx = a / 500 + fy;
+				final float fz = fy - (b / 200);
+
+				final float fx3 = fx * fx * fx;
+				final float fz3 = fz * fz * fz;
+
+				final float xr = (fx3 > EPSILON) ? fx3 : (116 * fx - 16) / KAPPA;
+				final float yr = (L > KAPPA * EPSILON) ? fy * fy * fy : L / KAPPA;
+				final float zr = (fz3 > EPSILON) ? fz3 : (116 * fz - 16) / KAPPA;
+
+				final float X = XR * xr;
+				final float Y = YR * yr;
+				final float Z = ZR * zr;
+
+				R[x] = xyzToR(X, Y, Z);
+				G[x] = xyzToG(X, Y, Z);
+				B[x] = xyzToB(X, Y, Z);
+			}
+		}
+	}
+
+	private static class YUVFromRGB extends RowConverter {
+		final float deltaU;
+		final float deltaV;
+		final float Unorm;
+		final float Vnorm;
+
+		YUVFromRGB(boolean norm) {
+			deltaU = norm ? -UMAX : 0;
+			deltaV = norm ? -VMAX : 0;
+			Unorm = norm ? 2 * UMAX : 1;
+			Vnorm = norm ? 2 * VMAX : 1;
+		}
+
+		@Override
+		void convert(float[] Rb, float[] Gb, float[] Bb, float[] Yb, float[] Ub, float[] Vb, int width) {
+			for (int x = 0; x < width; x++) {
+				final float R = Rb[x];
+				final float G = Gb[x];
+				final float B = Bb[x];
+
+				final float Y = WR * R + WG * G + WB * B;
+				final float U = UMAX * ((B - Y) / (1 - WB));
+				final float V = VMAX * ((R - Y) / (1 - WR));
+
+				Yb[x] = Y;
+				Ub[x] = (U - deltaU) / Unorm;
+				Vb[x] = (V - deltaV) / Vnorm;
+			}
+		}
+	}
+
+	private static class YUVToRGB extends RowConverter {
+		final float deltaU;
+		final float deltaV;
+		final float Unorm;
+		final float Vnorm;
+
+		YUVToRGB(boolean norm) {
+			deltaU = norm ? -UMAX : 0;
+			deltaV = norm ? -VMAX : 0;
+			Unorm = norm ? 2 * UMAX : 1;
+			Vnorm = norm ? 2 * VMAX : 1;
+		}
+
+		@Override
+		void convert(float[] Yb, float[] Ub, float[] Vb, float[] Rb, float[] Gb, float[] Bb, int width) {
+			for (int x = 0; x < width; x++) {
+				final float Y = Yb[x];
+				final float U = (Ub[x] * Unorm) + deltaU;
+				final float V = (Vb[x] * Vnorm) + deltaV;
+
+				Rb[x] = Y + V * ((1 - WR) / VMAX);
+				Gb[x] = Y - U * ((WB * (1 - WB)) / (UMAX * WG)) - V * ((WR * (1 - WR)) / (VMAX * WG));
+				Bb[x] = Y + U * ((1 - WB) / UMAX);
+			}
+		}
+	}
+
+	private ColourConverter() {
+	}
+
+	/**
+	 * Determine whether a conversion between the given colour spaces is
+	 * performed directly by this class, rather than falling back to
+	 * {@link ColourSpace#convert(MBFImage)}.
+	 *
+	 * @param source
+	 *            the colour space of the input
+	 * @param target
+	 *            the colour space of the output
+	 * @return true if the conversion is accelerated; false otherwise
+	 */
+	public static boolean isAccelerated(ColourSpace source, ColourSpace target) {
+		if (source == target)
+			return true;
+
+		final boolean fromOk = isRGB(source) || TO_RGB.containsKey(source);
+		final boolean toOk = target == ColourSpace.RGB || FROM_RGB.containsKey(target);
+
+		return fromOk && toOk;
+	}
+
+	/**
+	 * Convert an image to the given colour space, creating a new image.
+	 *
+	 * @param input
+	 *            the image to convert
+	 * @param target
+	 *            the colour space to convert to
+	 * @return the converted image
+	 */
+	public static MBFImage convert(MBFImage input, ColourSpace target) {
+		return convert(input, target, null, null);
+	}
+
+	/**
+	 * Convert an image to the given colour space, creating a new image. If a
+	 * thread pool is given, bands of rows are converted in parallel.
+	 *
+	 * @param input
+	 *            the image to convert
+	 * @param target
+	 *            the colour space to convert to
+	 * @param pool
+	 *            the thread pool to convert bands of rows with; can be null to
+	 *            work on the calling thread.
+	 * @return the converted image
+	 */
+	public static MBFImage convert(MBFImage input, ColourSpace target, ThreadPoolExecutor pool) {
+		return convert(input, target, null, pool);
+	}
+
+	/**
+	 * Convert an image to the given colour space, overwriting the pixels of the
+	 * input. Any bands beyond those needed by the target colour space (for
+	 * example the alpha channel of an {@link ColourSpace#RGBA} image) are
+	 * removed. If a thread pool is given, bands of rows are converted in
+	 * parallel.
+	 *
+	 * @param image
+	 *            the image to convert
+	 * @param target
+	 *            the colour space to convert to
+	 * @param pool
+	 *            the thread pool to convert bands of rows with; can be null to
+	 *            work on the calling thread.
+	 * @return the input image
+	 */
+	public static MBFImage convertInplace(MBFImage image, ColourSpace target, ThreadPoolExecutor pool) {
+		return convert(image, target, image, pool);
+	}
+
+	/**
+	 * Convert an image to the given colour space, writing the result into the
+	 * given output image. The output must either be null (in which case a new
+	 * image is created), the input image itself (in which case the conversion
+	 * is performed in place, and any surplus bands of the input are removed),
+	 * or an image with the same size as the input and the number of bands
+	 * required by the target colour space. If a thread pool is given, bands of
+	 * rows are converted in parallel.
+	 *
+	 * @param input
+	 *            the image to convert
+	 * @param target
+	 *            the colour space to convert to
+	 * @param output
+	 *            the image to write the result to; can be null.
+	 * @param pool
+	 *            the thread pool to convert bands of rows with; can be null to
+	 *            work on the calling thread.
+	 * @return the output image
+	 */
+	public static MBFImage convert(final MBFImage input, ColourSpace target, MBFImage output,
+			ThreadPoolExecutor pool)
+	{
+		final ColourSpace source = input.colourSpace;
+		final int width = input.getWidth();
+		final int height = input.getHeight();
+		final int nbands = target.getNumBands();
+
+		if (output != null && output != input &&
+				(output.getWidth() != width || output.getHeight() != height || output.numBands() != nbands))
+		{
+			throw new IllegalArgumentException("Output image must be " + width + "x" + height + " with " + nbands
+					+ " bands");
+		}
+
+		if (!isAccelerated(source, target))
+			return fallback(input, target, output);
+
+		if (output == null) {
+			output = new MBFImage(width, height, target);
+		} else if (output == input) {
+			while (output.numBands() > nbands)
+				output.bands.remove(output.numBands() - 1);
+		}
+		output.colourSpace = target;
+
+		if (source == target || (isRGB(source) && target == ColourSpace.RGB)) {
+			if (output != input) {
+				for (int i = 0; i < nbands; i++)
+					output.getBand(i).internalCopy(input.getBand(i));
+			}
+			return output;
+		}
+
+		final RowConverter toRGB = isRGB(source) ? null : TO_RGB.get(source);
+		final RowConverter fromRGB = target == ColourSpace.RGB ? null : FROM_RGB.get(target);
+		final float[][][] in = bands(input);
+		final float[][][] out = bands(output);
+
+		if (pool == null) {
+			convertRows(in, out, toRGB, fromRGB, width, 0, height);
+		} else {
+			Parallel.forRange(0, height, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					convertRows(in, out, toRGB, fromRGB, width, range.start, range.stop);
+				}
+			}, pool);
+		}
+
+		return output;
+	}
+
+	private static MBFImage fallback(MBFImage input, ColourSpace target, MBFImage output) {
+		final MBFImage result = target.convert(input);
+
+		if (output == null)
+			return result;
+
+		if (output == input) {
+			output.internalAssign(result);
+		} else {
+			for (int i = 0; i < output.numBands(); i++)
+				output.getBand(i).internalCopy(result.getBand(i));
+		}
+		output.colourSpace = target;
+
+		return output;
+	}
+
+	private static void convertRows(float[][][] in, float[][][] out, RowConverter toRGB, RowConverter fromRGB,
+			int width, int y0, int y1)
+	{
+		for (int y = y0; y < y1; y++) {
+			final float[] a = in[0][y];
+			final float[] b = in[1][y];
+			final float[] c = in[2][y];
+			final float[] x = out[0][y];
+			final float[] yy = out[1][y];
+			final float[] z = out[2][y];
+
+			if (toRGB == null) {
+				fromRGB.convert(a, b, c, x, yy, z, width);
+			} else {
+				toRGB.convert(a, b, c, x, yy, z, width);
+
+				if (fromRGB != null)
+					fromRGB.convert(x, yy, z, x, yy, z, width);
+			}
+		}
+	}
+
+	private static float[][][] bands(MBFImage image) {
+		final float[][][] data = new float[3][][];
+		for (int i = 0; i < 3; i++)
+			data[i] = image.getBand(i).pixels;
+		return data;
+	}
+
+	private static boolean isRGB(ColourSpace cs) {
+		return cs == ColourSpace.RGB || cs == ColourSpace.RGBA;
+	}
+
+	private static double linearise(double v) {
+		return (v <= 0.04045) ? (v / 12.92) : (Math.pow((v + 0.055) / 1.055, 2.4));
+	}
+
+	private static double compand(double v) {
+		return (v <= 0.0031308) ? (v * 12.92) : (1.055 * Math.pow(v, 1 / 2.4) - 0.055);
+	}
+
+	private static double cieF(double t) {
+		return (t > EPSILON) ? Math.cbrt(t) : ((KAPPA * t + 16.0) / 116.0);
+	}
+
+	private static float lookup(float[] lut, float v) {
+		final float p = v * LUT_SIZE;
+		final int i = (int) p;
+
+		if (i >= LUT_SIZE)
+			return lut[LUT_SIZE];
+
+		return lut[i] + (p - i) * (lut[i + 1] - lut[i]);
+	}
+
+	private static float linear(float v) {
+		if (v >= 0 && v <= 1)
+			return lookup(LINEARISE, v);
+		return (float) linearise(v);
+	}
+
+	private static float srgb(float v) {
+		if (v >= 0 && v <= 1)
+			return lookup(COMPAND, v);
+		return (float) compand(v);
+	}
+
+	private static float cie(float t) {
+		if (t >= 0 && t <= 1)
+			return lookup(CIE_F, t);
+		return (float) cieF(t);
+	}
+
+	private static float xyzToR(float X, float Y, float Z) {
+		return srgb(X * 3.2404542f + Y * -1.5371385f + Z * -0.4985314f);
+	}
+
+	private static float xyzToG(float X, float Y, float Z) {
+		return srgb(X * -0.9692660f + Y * 1.8760108f + Z * 0.0415560f);
+	}
+
+	private static float xyzToB(float X, float Y, float Z) {
+		return srgb(X * 0.0556434f + Y * -0.2040259f + Z * 1.0572252f);
+	}
+}
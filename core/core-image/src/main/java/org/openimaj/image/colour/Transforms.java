@@ -1234,12 +1234,14 @@ public class Transforms {
 		final int height = input.getHeight();
 		final int width = input.getWidth();
 
+		final ColourSpace cs = norm ? ColourSpace.CIE_Lab_Norm : ColourSpace.CIE_Lab;
+
 		MBFImage out;
 		if (inPlace) {
 			out = input;
-			out.colourSpace = ColourSpace.CIE_Lab;
+			out.colourSpace = cs;
 		} else {
-			out = new MBFImage(width, height, ColourSpace.CIE_Lab);
+			out = new MBFImage(width, height, cs);
 		}
 
 		final FImage Xb = input.getBand(0);
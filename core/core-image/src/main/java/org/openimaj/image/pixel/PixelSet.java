@@ -262,6 +262,9 @@ public class PixelSet implements Cloneable, ReadWriteable, Iterable<Pixel> {
 		if (p == 0 && q == 0)
 			return calculateArea();
 
+		if (pixels instanceof RunLengthEncodedPixels)
+			return calculateMoment((RunLengthEncodedPixels) pixels, p, q, xc, yc);
+
 		double mpq = 0;
 		for (final Pixel pix : pixels) {
 			mpq += Math.pow(pix.x - xc, p) * Math.pow(pix.y - yc, q);
@@ -269,6 +272,20 @@ public class PixelSet implements Cloneable, ReadWriteable, Iterable<Pixel> {
 		return mpq;
 	}
 
+	private static double calculateMoment(RunLengthEncodedPixels rle, int p, int q, double xc, double yc) {
+		double mpq = 0;
+		for (int r = 0; r < rle.getNumRows(); r++) {
+			final double yq = Math.pow(rle.getRowY(r) - yc, q);
+
+			for (int k = 0; k < rle.getNumRuns(r); k++) {
+				for (int x = rle.getRunStart(r, k); x <= rle.getRunEnd(r, k); x++) {
+					mpq += Math.pow(x - xc, p) * yq;
+				}
+			}
+		}
+		return mpq;
+	}
+
 	/**
 	 * Calculate the pq central moment, μ<sub>pq</sub> for this region. From
 	 * Equation 6.44 in Sonka, Hlavac and Boyle.
@@ -285,6 +302,9 @@ public class PixelSet implements Cloneable, ReadWriteable, Iterable<Pixel> {
 
 		final double[] centroid = calculateCentroid();
 
+		if (pixels instanceof RunLengthEncodedPixels)
+			return calculateMoment((RunLengthEncodedPixels) pixels, p, q, centroid[0], centroid[1]);
+
 		double mpq = 0;
 		for (final Pixel pix : pixels) {
 			mpq += Math.pow(pix.x - centroid[0], p) * Math.pow(pix.y - centroid[1], q);
@@ -431,6 +451,28 @@ public class PixelSet implements Cloneable, ReadWriteable, Iterable<Pixel> {
 	public Rectangle calculateRegularBoundingBox() {
 		int xmin = Integer.MAX_VALUE, xmax = 0, ymin = Integer.MAX_VALUE, ymax = 0;
 
+		if (pixels instanceof RunLengthEncodedPixels) {
+			// only the ends of the runs need to be checked
+			final RunLengthEncodedPixels rle = (RunLengthEncodedPixels) pixels;
+
+			for (int r = 0; r < rle.getNumRows(); r++) {
+				final int y = rle.getRowY(r);
+				final int start = rle.getRunStart(r, 0);
+				final int end = rle.getRunEnd(r, rle.getNumRuns(r) - 1);
+
+				if (start < xmin)
+					xmin = start;
+				if (end > xmax)
+					xmax = end;
+				if (y < ymin)
+					ymin = y;
+				if (y > ymax)
+					ymax = y;
+			}
+
+			return new Rectangle(xmin, ymin, xmax - xmin, ymax - ymin);
+		}
+
 		for (final Pixel p : pixels) {
 			if (p.x < xmin)
 				xmin = p.x;
@@ -0,0 +1,405 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.pixel;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A compact {@link java.util.Set} of {@link Pixel}s, stored as run-length
+ * encoded rows. Each row that contains pixels holds a sorted list of
+ * horizontal runs, given by their first and last x-ordinates. This uses much
+ * less memory than a {@link java.util.HashSet} for the large, mostly solid
+ * regions produced by connected component labelling, and allows statistics
+ * to be computed without creating a {@link Pixel} object for each pixel.
+ * <p>
+ * The set supports all the optional {@link java.util.Set} operations, so it
+ * can be used as the pixels of a {@link PixelSet} or {@link ConnectedComponent}.
+ * Iteration is in raster order (by row, then column) and creates a new
+ * {@link Pixel} for each element; changing the returned pixels doesn't change
+ * the set.
+ */
+public class RunLengthEncodedPixels extends AbstractSet<Pixel> {
+	private int[] rowY = new int[2];
+	private int[][] runs = new int[2][];
+	private int[] rowLength = new int[2];
+	private int nrows;
+	private int size;
+
+	/**
+	 * Construct an empty set
+	 */
+	public RunLengthEncodedPixels() {
+	}
+
+	/**
+	 * Construct a set containing the given pixels
+	 * 
+	 * @param pixels
+	 *            the pixels
+	 */
+	public RunLengthEncodedPixels(Collection<Pixel> pixels) {
+		addAll(pixels);
+	}
+
+	/**
+	 * Add all the pixels in the horizontal run from x0 to x1 (inclusive) on
+	 * row y. This is fast if the run is after all the existing pixels in raster
+	 * order, so sets should be built in raster order where possible.
+	 * 
+	 * @param y
+	 *            the row
+	 * @param x0
+	 *            the first x-ordinate of the run
+	 * @param x1
+	 *            the last x-ordinate of the run
+	 */
+	public void addRun(int y, int x0, int x1) {
+		if (x1 < x0)
+			return;
+
+		if (nrows == 0 || y > rowY[nrows - 1]) {
+			insertRow(nrows, y);
+			appendRun(nrows - 1, x0, x1);
+			size += x1 - x0 + 1;
+		} else if (y == rowY[nrows - 1] && x0 > runs[nrows - 1][rowLength[nrows - 1] - 1] + 1) {
+			appendRun(nrows - 1, x0, x1);
+			size += x1 - x0 + 1;
+		} else if (y == rowY[nrows - 1] && x0 == runs[nrows - 1][rowLength[nrows - 1] - 1] + 1) {
+			runs[nrows - 1][rowLength[nrows - 1] - 1] = x1;
+			size += x1 - x0 + 1;
+		} else {
+			for (int x = x0; x <= x1; x++)
+				add(new Pixel(x, y));
+		}
+	}
+
+	@Override
+	public boolean add(Pixel p) {
+		final int x = p.x;
+		int r = findRow(p.y);
+
+		if (r < 0) {
+			r = -r - 1;
+			insertRow(r, p.y);
+			appendRun(r, x, x);
+			size++;
+			return true;
+		}
+
+		final int[] row = runs[r];
+		final int nruns = rowLength[r] / 2;
+		final int k = findRun(r, x);
+
+		if (k >= 0 && x <= row[2 * k + 1])
+			return false;
+
+		final boolean joinLeft = k >= 0 && row[2 * k + 1] == x - 1;
+		final boolean joinRight = k + 1 < nruns && row[2 * (k + 1)] == x + 1;
+
+		if (joinLeft && joinRight) {
+			row[2 * k + 1] = row[2 * (k + 1) + 1];
+			deleteRun(r, k + 1);
+		} else if (joinLeft) {
+			row[2 * k + 1] = x;
+		} else if (joinRight) {
+			row[2 * (k + 1)] = x;
+		} else {
+			insertRun(r, k + 1, x, x);
+		}
+
+		size++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!(o instanceof Pixel))
+			return false;
+
+		final int x = ((Pixel) o).x;
+		final int r = findRow(((Pixel) o).y);
+		if (r < 0)
+			return false;
+
+		final int k = findRun(r, x);
+		if (k < 0 || x > runs[r][2 * k + 1])
+			return false;
+
+		final int start = runs[r][2 * k];
+		final int end = runs[r][2 * k + 1];
+
+		if (start == end) {
+			deleteRun(r, k);
+			if (rowLength[r] == 0)
+				deleteRow(r);
+		} else if (x == start) {
+			runs[r][2 * k] = x + 1;
+		} else if (x == end) {
+			runs[r][2 * k + 1] = x - 1;
+		} else {
+			runs[r][2 * k + 1] = x - 1;
+			insertRun(r, k + 1, x + 1, end);
+		}
+
+		size--;
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Pixel))
+			return false;
+
+		final int x = ((Pixel) o).x;
+		final int r = findRow(((Pixel) o).y);
+		if (r < 0)
+			return false;
+
+		final int k = findRun(r, x);
+		return k >= 0 && x <= runs[r][2 * k + 1];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		nrows = 0;
+		size = 0;
+	}
+
+	@Override
+	public Iterator<Pixel> iterator() {
+		return new Iterator<Pixel>() {
+			int r = 0;
+			int k = 0;
+			int x = nrows > 0 ? runs[0][0] : 0;
+			boolean canRemove;
+			int lastX, lastY;
+
+			@Override
+			public boolean hasNext() {
+				return r < nrows;
+			}
+
+			@Override
+			public Pixel next() {
+				if (r >= nrows)
+					throw new NoSuchElementException();
+
+				final Pixel p = new Pixel(x, rowY[r]);
+				lastX = p.x;
+				lastY = p.y;
+				canRemove = true;
+
+				if (x < runs[r][2 * k + 1]) {
+					x++;
+				} else if (2 * (k + 1) < rowLength[r]) {
+					k++;
+					x = runs[r][2 * k];
+				} else {
+					r++;
+					k = 0;
+					if (r < nrows)
+						x = runs[r][0];
+				}
+
+				return p;
+			}
+
+			@Override
+			public void remove() {
+				if (!canRemove)
+					throw new IllegalStateException();
+
+				RunLengthEncodedPixels.this.remove(new Pixel(lastX, lastY));
+				seek(lastY, lastX + 1);
+				canRemove = false;
+			}
+
+			/**
+			 * Move to the first pixel at or after (x, y) in raster order
+			 */
+			private void seek(int y, int xx) {
+				r = findRow(y);
+				if (r < 0) {
+					r = -r - 1;
+					xx = Integer.MIN_VALUE;
+				}
+
+				while (r < nrows) {
+					for (k = 0; 2 * k < rowLength[r]; k++) {
+						if (runs[r][2 * k + 1] >= xx) {
+							x = Math.max(xx, runs[r][2 * k]);
+							return;
+						}
+					}
+					r++;
+					xx = Integer.MIN_VALUE;
+				}
+				k = 0;
+			}
+		};
+	}
+
+	/**
+	 * @return the number of rows containing pixels
+	 */
+	public int getNumRows() {
+		return nrows;
+	}
+
+	/**
+	 * Get the y-ordinate of a row. Rows are in increasing order of y.
+	 * 
+	 * @param row
+	 *            the row index
+	 * @return the y-ordinate
+	 */
+	public int getRowY(int row) {
+		return rowY[row];
+	}
+
+	/**
+	 * Get the number of runs in a row
+	 * 
+	 * @param row
+	 *            the row index
+	 * @return the number of runs
+	 */
+	public int getNumRuns(int row) {
+		return rowLength[row] / 2;
+	}
+
+	/**
+	 * Get the first x-ordinate of a run. Runs in a row are in increasing
+	 * order of x and don't touch.
+	 * 
+	 * @param row
+	 *            the row index
+	 * @param run
+	 *            the run index within the row
+	 * @return the first x-ordinate of the run
+	 */
+	public int getRunStart(int row, int run) {
+		return runs[row][2 * run];
+	}
+
+	/**
+	 * Get the last x-ordinate (inclusive) of a run.
+	 * 
+	 * @param row
+	 *            the row index
+	 * @param run
+	 *            the run index within the row
+	 * @return the last x-ordinate of the run
+	 */
+	public int getRunEnd(int row, int run) {
+		return runs[row][2 * run + 1];
+	}
+
+	private int findRow(int y) {
+		return Arrays.binarySearch(rowY, 0, nrows, y);
+	}
+
+	/**
+	 * Find the index of the last run in the row that starts at or before x,
+	 * or -1 if there isn't one
+	 */
+	private int findRun(int r, int x) {
+		final int[] row = runs[r];
+		int lo = 0, hi = rowLength[r] / 2 - 1, found = -1;
+
+		while (lo <= hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (row[2 * mid] <= x) {
+				found = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+
+		return found;
+	}
+
+	private void insertRow(int r, int y) {
+		if (nrows == rowY.length) {
+			final int capacity = rowY.length * 2;
+			rowY = Arrays.copyOf(rowY, capacity);
+			runs = Arrays.copyOf(runs, capacity);
+			rowLength = Arrays.copyOf(rowLength, capacity);
+		}
+
+		System.arraycopy(rowY, r, rowY, r + 1, nrows - r);
+		System.arraycopy(runs, r, runs, r + 1, nrows - r);
+		System.arraycopy(rowLength, r, rowLength, r + 1, nrows - r);
+
+		rowY[r] = y;
+		runs[r] = new int[2];
+		rowLength[r] = 0;
+		nrows++;
+	}
+
+	private void deleteRow(int r) {
+		System.arraycopy(rowY, r + 1, rowY, r, nrows - r - 1);
+		System.arraycopy(runs, r + 1, runs, r, nrows - r - 1);
+		System.arraycopy(rowLength, r + 1, rowLength, r, nrows - r - 1);
+		nrows--;
+		runs[nrows] = null;
+	}
+
+	private void appendRun(int r, int x0, int x1) {
+		insertRun(r, rowLength[r] / 2, x0, x1);
+	}
+
+	private void insertRun(int r, int k, int x0, int x1) {
+		if (rowLength[r] + 2 > runs[r].length)
+			runs[r] = Arrays.copyOf(runs[r], runs[r].length * 2);
+
+		final int[] row = runs[r];
+		System.arraycopy(row, 2 * k, row, 2 * k + 2, rowLength[r] - 2 * k);
+		row[2 * k] = x0;
+		row[2 * k + 1] = x1;
+		rowLength[r] += 2;
+	}
+
+	private void deleteRun(int r, int k) {
+		final int[] row = runs[r];
+		System.arraycopy(row, 2 * k + 2, row, 2 * k, rowLength[r] - 2 * k - 2);
+		rowLength[r] -= 2;
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processor;
+
+import org.openimaj.image.FImage;
+
+/**
+ * A {@link KernelProcessor} for {@link FImage}s that can work directly on a
+ * {@link FKernelWindow} over the source image rather than a copy of each
+ * patch, and return a primitive value. {@link FImage#process(KernelProcessor, boolean)}
+ * uses {@link #processWindow(FKernelWindow)} for processors implementing this
+ * interface, so existing {@link KernelProcessor}s can opt in just by
+ * implementing it. The result must be the same as calling
+ * {@link #processKernel(org.openimaj.image.Image)} with a patch copied from
+ * the window.
+ * 
+ * @see ProcessorUtilities#process(FImage, FKernelProcessor, boolean,
+ *      java.util.concurrent.ThreadPoolExecutor)
+ */
+public interface FKernelProcessor extends KernelProcessor<Float, FImage> {
+	/**
+	 * Process the pixels in the window and return the value for the pixel at
+	 * the centre of the window. Implementations must not hold on to the
+	 * window, which is moved between calls.
+	 * 
+	 * @param window
+	 *            the window of pixels to process
+	 * @return the value to place in the output image
+	 */
+	public float processWindow(FKernelWindow window);
+}
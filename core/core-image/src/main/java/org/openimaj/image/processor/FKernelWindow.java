@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processor;
+
+import org.openimaj.image.FImage;
+
+/**
+ * A sliding window over the pixels of an {@link FImage}, for use by
+ * {@link FKernelProcessor}s. The window is a view on the rows of the source
+ * image, so moving it doesn't copy any pixels. Pixels of the window that lie
+ * outside the image read as zero, as they do in the patches extracted by
+ * {@link FImage#process(KernelProcessor, boolean)}.
+ */
+public final class FKernelWindow {
+	private final float[][] pixels;
+	private final int imageWidth;
+	private final int imageHeight;
+	private final int width;
+	private final int height;
+	private int x;
+	private int y;
+	private boolean inside;
+
+	/**
+	 * Construct a window of the given size over the given image
+	 * 
+	 * @param image
+	 *            the image
+	 * @param width
+	 *            the width of the window
+	 * @param height
+	 *            the height of the window
+	 */
+	public FKernelWindow(FImage image, int width, int height) {
+		this.pixels = image.pixels;
+		this.imageWidth = image.width;
+		this.imageHeight = image.height;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Move the window so that its top-left corner is at the given position in
+	 * the image. The position can be outside the image.
+	 * 
+	 * @param x
+	 *            the x-ordinate of the top-left of the window
+	 * @param y
+	 *            the y-ordinate of the top-left of the window
+	 */
+	public void moveTo(int x, int y) {
+		this.x = x;
+		this.y = y;
+		this.inside = x >= 0 && y >= 0 && x + width <= imageWidth && y + height <= imageHeight;
+	}
+
+	/**
+	 * Get the pixel at the given position in the window
+	 * 
+	 * @param wx
+	 *            the x-ordinate within the window
+	 * @param wy
+	 *            the y-ordinate within the window
+	 * @return the pixel value, or zero if the position is outside of the image
+	 */
+	public float get(int wx, int wy) {
+		final int xx = x + wx;
+		final int yy = y + wy;
+
+		if (inside || (xx >= 0 && yy >= 0 && xx < imageWidth && yy < imageHeight))
+			return pixels[yy][xx];
+
+		return 0;
+	}
+
+	/**
+	 * Is the whole window inside the image? If it is, the pixels can be read
+	 * directly from {@link #getPixels()} without bounds checks.
+	 * 
+	 * @return true if the window is inside the image
+	 */
+	public boolean isInside() {
+		return inside;
+	}
+
+	/**
+	 * Get the rows of the underlying image. These must not be modified.
+	 * 
+	 * @return the image pixels
+	 */
+	public float[][] getPixels() {
+		return pixels;
+	}
+
+	/**
+	 * @return the x-ordinate of the top-left of the window in the image
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * @return the y-ordinate of the top-left of the window in the image
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * @return the width of the window
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the height of the window
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Copy the window into the given patch image, which must be the same size
+	 * as the window. This is useful for processors that can only work on a
+	 * patch in some cases.
+	 * 
+	 * @param patch
+	 *            the patch to fill
+	 * @return the patch
+	 */
+	public FImage copyTo(FImage patch) {
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				patch.pixels[r][c] = get(c, r);
+
+		return patch;
+	}
+}
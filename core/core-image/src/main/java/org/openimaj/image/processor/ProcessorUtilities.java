@@ -29,8 +29,13 @@
  */
 package org.openimaj.image.processor;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
 import org.openimaj.image.FImage;
 import org.openimaj.image.MBFImage;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
 
 /**
  * Utility functions for dealing with {@link Processor}s.
@@ -55,4 +60,70 @@ public class ProcessorUtilities {
 			}
 		};
 	}
+
+	/**
+	 * Process an image with a {@link FKernelProcessor}, sliding a
+	 * {@link FKernelWindow} over the image instead of copying out a patch for
+	 * each pixel. The output is the same as
+	 * {@link FImage#process(KernelProcessor, boolean)}. If a thread pool is
+	 * given, bands of rows are processed in parallel, so the processor must be
+	 * safe to call from multiple threads.
+	 * 
+	 * @param image
+	 *            the image to process
+	 * @param p
+	 *            the processor
+	 * @param pad
+	 *            Should the image be zero padded so the kernel reaches the
+	 *            edges of the output
+	 * @param pool
+	 *            the thread pool to process bands of rows with; can be null to
+	 *            work on the calling thread.
+	 * @return a new image containing the result
+	 */
+	public static FImage process(final FImage image, final FKernelProcessor p, boolean pad, ThreadPoolExecutor pool)
+	{
+		final FImage output = new FImage(image.width, image.height);
+		final int kh = p.getKernelHeight();
+		final int kw = p.getKernelWidth();
+		final int hh = kh / 2;
+		final int hw = kw / 2;
+
+		final int x0 = pad ? 0 : hw;
+		final int x1 = pad ? image.width : image.width - (kw - hw);
+		final int y0 = pad ? 0 : hh;
+		final int y1 = pad ? image.height : image.height - (kh - hh);
+
+		if (x1 <= x0 || y1 <= y0)
+			return output;
+
+		if (pool == null) {
+			processRows(image, output, p, x0, x1, y0, y1);
+		} else {
+			Parallel.forRange(y0, y1, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					processRows(image, output, p, x0, x1, range.start, range.stop);
+				}
+			}, pool);
+		}
+
+		return output;
+	}
+
+	private static void processRows(FImage image, FImage output, FKernelProcessor p, int x0, int x1, int y0, int y1)
+	{
+		final FKernelWindow window = new FKernelWindow(image, p.getKernelWidth(), p.getKernelHeight());
+		final int hh = p.getKernelHeight() / 2;
+		final int hw = p.getKernelWidth() / 2;
+
+		for (int y = y0; y < y1; y++) {
+			final float[] out = output.pixels[y];
+
+			for (int x = x0; x < x1; x++) {
+				window.moveTo(x - hw, y - hh);
+				out[x] = p.processWindow(window);
+			}
+		}
+	}
 }
@@ -0,0 +1,449 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.MBFImage;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+
+/**
+ * An opt-in executor that applies {@link SinglebandImageProcessor}s and
+ * {@link PixelProcessor}s to {@link FImage}s and {@link MBFImage}s by
+ * partitioning the image into tiles, and processing the tiles (and the bands
+ * of an {@link MBFImage}) in parallel.
+ * <p>
+ * The default tiles are small enough for the tile and its output to stay in
+ * cache. Neighbourhood operators need to see pixels outside of the tile, so
+ * each tile is extended by a halo (clamped to the image bounds) before being
+ * processed; only the pixels of the tile itself are kept. The result is
+ * identical to processing the whole image provided that the halo is at least
+ * as large as the distance over which the processor reads (e.g. the kernel
+ * radius of a convolution, or the radius multiplied by the number of
+ * iterations for iterative processors). Processors that depend on the whole
+ * image (e.g. normalisation, histogram equalisation or FFT based operations)
+ * must not be tiled; use a tile size of 0 to only process bands in parallel.
+ * <p>
+ * The processors are called concurrently from multiple threads, so they must
+ * not have any mutable per-call state, and they must not change the size of
+ * the image (an {@link IllegalArgumentException} is thrown if they do).
+ * Processors that themselves run on the same pool should not be used, as they
+ * could dead-lock waiting for a free thread. When the executor uses the
+ * {@link GlobalExecutorPool} and is called from one of the pool's own threads,
+ * the tiles are processed on the calling thread for the same reason.
+ */
+public class TiledExecutor {
+	/**
+	 * The default width and height of the tiles. A 256x256 float tile is
+	 * 256KB, which is of the order of a typical L2 cache, whilst being large
+	 * enough that the halo doesn't add much work.
+	 */
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	private final int tileWidth;
+	private final int tileHeight;
+	private final int halo;
+	private final ThreadPoolExecutor pool;
+
+	/**
+	 * Construct an executor for processors that only read the pixels they
+	 * write (i.e. with no halo) using the default tile size and the global
+	 * thread pool. If used from a thread of the global pool, the tiles are
+	 * processed on the calling thread.
+	 */
+	public TiledExecutor() {
+		this(0);
+	}
+
+	/**
+	 * Construct an executor with the given halo, using the default tile size
+	 * and the global thread pool. If used from a thread of the global pool,
+	 * the tiles are processed on the calling thread.
+	 * 
+	 * @param halo
+	 *            the number of pixels around each tile that the processor
+	 *            needs to see.
+	 */
+	public TiledExecutor(int halo) {
+		this(DEFAULT_TILE_SIZE, DEFAULT_TILE_SIZE, halo, GlobalExecutorPool.getPool());
+	}
+
+	/**
+	 * Construct an executor with the given tile size, halo and thread pool.
+	 * 
+	 * @param tileWidth
+	 *            the width of the tiles; 0 means the whole width of the image
+	 * @param tileHeight
+	 *            the height of the tiles; 0 means the whole height of the image
+	 * @param halo
+	 *            the number of pixels around each tile that the processor
+	 *            needs to see.
+	 * @param pool
+	 *            the thread pool; can be null to process the tiles on the
+	 *            calling thread.
+	 */
+	public TiledExecutor(int tileWidth, int tileHeight, int halo, ThreadPoolExecutor pool) {
+		if (tileWidth < 0 || tileHeight < 0)
+			throw new IllegalArgumentException("tile size must not be negative");
+		if (halo < 0)
+			throw new IllegalArgumentException("halo must not be negative");
+
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+		this.halo = halo;
+		this.pool = pool;
+	}
+
+	/**
+	 * @return the width of the tiles (0 for the full image width)
+	 */
+	public int getTileWidth() {
+		return tileWidth;
+	}
+
+	/**
+	 * @return the height of the tiles (0 for the full image height)
+	 */
+	public int getTileHeight() {
+		return tileHeight;
+	}
+
+	/**
+	 * @return the halo added around each tile
+	 */
+	public int getHalo() {
+		return halo;
+	}
+
+	/**
+	 * Process a copy of the image with the given processor.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param p
+	 *            the processor
+	 * @return a new image containing the result
+	 */
+	public FImage process(FImage image, SinglebandImageProcessor<Float, FImage> p) {
+		return processInplace(image.clone(), p);
+	}
+
+	/**
+	 * Process the image in place with the given processor.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param p
+	 *            the processor
+	 * @return the image
+	 */
+	public FImage processInplace(FImage image, SinglebandImageProcessor<Float, FImage> p) {
+		processBands(new FImage[] { image }, p);
+		return image;
+	}
+
+	/**
+	 * Process a copy of each band of the image with the given processor.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param p
+	 *            the processor
+	 * @return a new image containing the result
+	 */
+	public MBFImage process(MBFImage image, SinglebandImageProcessor<Float, FImage> p) {
+		return processInplace(image.clone(), p);
+	}
+
+	/**
+	 * Process each band of the image in place with the given processor. Bands
+	 * are processed in parallel as well as tiles.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param p
+	 *            the processor
+	 * @return the image
+	 */
+	public MBFImage processInplace(MBFImage image, SinglebandImageProcessor<Float, FImage> p) {
+		processBands(image.bands.toArray(new FImage[image.numBands()]), p);
+		return image;
+	}
+
+	/**
+	 * Process a copy of the image with the given pixel processor.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param p
+	 *            the processor
+	 * @return a new image containing the result
+	 */
+	public FImage process(FImage image, PixelProcessor<Float> p) {
+		return processInplace(image.clone(), p);
+	}
+
+	/**
+	 * Process the image in place with the given pixel processor.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param p
+	 *            the processor
+	 * @return the image
+	 */
+	public FImage processInplace(FImage image, PixelProcessor<Float> p) {
+		processPixels(new FImage[] { image }, p);
+		return image;
+	}
+
+	/**
+	 * Process a copy of each band of the image with the given pixel
+	 * processor.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param p
+	 *            the processor
+	 * @return a new image containing the result
+	 */
+	public MBFImage process(MBFImage image, SinglebandPixelProcessor<Float> p) {
+		return processInplace(image.clone(), p);
+	}
+
+	/**
+	 * Process each band of the image in place with the given pixel processor.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param p
+	 *            the processor
+	 * @return the image
+	 */
+	public MBFImage processInplace(MBFImage image, SinglebandPixelProcessor<Float> p) {
+		processPixels(image.bands.toArray(new FImage[image.numBands()]), p);
+		return image;
+	}
+
+	/**
+	 * Process a copy of the image with the given multiband pixel processor.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param p
+	 *            the processor
+	 * @return a new image containing the result
+	 */
+	public MBFImage process(MBFImage image, PixelProcessor<Float[]> p) {
+		return processInplace(image.clone(), p);
+	}
+
+	/**
+	 * Process the image in place with the given multiband pixel processor.
+	 * The result is the same as {@link MBFImage#processInplace(PixelProcessor)}.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param p
+	 *            the processor
+	 * @return the image
+	 */
+	public MBFImage processInplace(final MBFImage image, final PixelProcessor<Float[]> p) {
+		final Tiling tiling = new Tiling(image.getWidth(), image.getHeight(), 1);
+
+		run(tiling.count, new TileTask() {
+			@Override
+			void process(int i) {
+				final int x0 = tiling.x0(i), x1 = tiling.x1(i);
+				final int y0 = tiling.y0(i), y1 = tiling.y1(i);
+
+				for (int y = y0; y < y1; y++)
+					for (int x = x0; x < x1; x++)
+						image.setPixel(x, y, p.processPixel(image.getPixel(x, y)));
+			}
+		});
+
+		return image;
+	}
+
+	private void processPixels(final FImage[] bands, final PixelProcessor<Float> p) {
+		if (bands.length == 0)
+			return;
+
+		final Tiling tiling = new Tiling(bands[0].width, bands[0].height, bands.length);
+
+		run(tiling.count, new TileTask() {
+			@Override
+			void process(int i) {
+				final float[][] pixels = bands[tiling.band(i)].pixels;
+				final int x0 = tiling.x0(i), x1 = tiling.x1(i);
+				final int y0 = tiling.y0(i), y1 = tiling.y1(i);
+
+				for (int y = y0; y < y1; y++) {
+					final float[] row = pixels[y];
+					for (int x = x0; x < x1; x++)
+						row[x] = p.processPixel(row[x]);
+				}
+			}
+		});
+	}
+
+	private void processBands(final FImage[] bands, final SinglebandImageProcessor<Float, FImage> p) {
+		if (bands.length == 0)
+			return;
+
+		final int width = bands[0].width;
+		final int height = bands[0].height;
+		final Tiling tiling = new Tiling(width, height, bands.length);
+
+		if (tiling.tilesPerBand == 1) {
+			// nothing to tile; just process the bands in parallel
+			run(bands.length, new TileTask() {
+				@Override
+				void process(int i) {
+					bands[i].processInplace(p);
+					checkSize(bands[i], width, height);
+				}
+			});
+			return;
+		}
+
+		// with a halo the tiles read their neighbours, so the output can't be
+		// written back until every tile has been processed
+		final FImage[] outputs = new FImage[bands.length];
+		for (int b = 0; b < bands.length; b++)
+			outputs[b] = halo == 0 ? bands[b] : new FImage(width, height);
+
+		run(tiling.count, new TileTask() {
+			@Override
+			void process(int i) {
+				final int b = tiling.band(i);
+				processTile(bands[b], outputs[b], p, tiling.x0(i), tiling.x1(i), tiling.y0(i), tiling.y1(i));
+			}
+		});
+
+		if (halo != 0) {
+			for (int b = 0; b < bands.length; b++)
+				bands[b].internalAssign(outputs[b]);
+		}
+	}
+
+	private void processTile(FImage input, FImage output, SinglebandImageProcessor<Float, FImage> p, int x0,
+			int x1, int y0, int y1)
+	{
+		final int ex0 = Math.max(0, x0 - halo);
+		final int ex1 = Math.min(input.width, x1 + halo);
+		final int ey0 = Math.max(0, y0 - halo);
+		final int ey1 = Math.min(input.height, y1 + halo);
+
+		final FImage tile = input.extractROI(ex0, ey0, ex1 - ex0, ey1 - ey0);
+		tile.processInplace(p);
+		checkSize(tile, ex1 - ex0, ey1 - ey0);
+
+		for (int y = y0; y < y1; y++)
+			System.arraycopy(tile.pixels[y - ey0], x0 - ex0, output.pixels[y], x0, x1 - x0);
+	}
+
+	private static void checkSize(FImage image, int width, int height) {
+		if (image.width != width || image.height != height)
+			throw new IllegalArgumentException("Processors that change the size of the image can't be used");
+	}
+
+	private void run(int count, final TileTask task) {
+		// waiting on the global pool from one of its own threads could
+		// dead-lock, so process the tiles on the calling thread instead
+		if (pool == null || count <= 1
+				|| (pool == GlobalExecutorPool.getPool() && GlobalExecutorPool.isPoolThread()))
+		{
+			for (int i = 0; i < count; i++)
+				task.process(i);
+		} else {
+			Parallel.forRange(0, count, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					for (int i = range.start; i < range.stop; i++)
+						task.process(i);
+				}
+			}, pool);
+		}
+	}
+
+	private static abstract class TileTask {
+		abstract void process(int i);
+	}
+
+	/*
+	 * The partitioning of a set of equally sized bands into tiles. Tiles are
+	 * numbered band-by-band, in raster order within each band.
+	 */
+	private class Tiling {
+		final int width;
+		final int height;
+		final int tw;
+		final int th;
+		final int tilesX;
+		final int tilesPerBand;
+		final int count;
+
+		Tiling(int width, int height, int numBands) {
+			this.width = width;
+			this.height = height;
+			this.tw = tileWidth == 0 ? Math.max(1, width) : tileWidth;
+			this.th = tileHeight == 0 ? Math.max(1, height) : tileHeight;
+			this.tilesX = (width + tw - 1) / tw;
+			this.tilesPerBand = tilesX * ((height + th - 1) / th);
+			this.count = tilesPerBand * numBands;
+		}
+
+		int band(int i) {
+			return i / tilesPerBand;
+		}
+
+		int x0(int i) {
+			return ((i % tilesPerBand) % tilesX) * tw;
+		}
+
+		int x1(int i) {
+			return Math.min(width, x0(i) + tw);
+		}
+
+		int y0(int i) {
+			return ((i % tilesPerBand) / tilesX) * th;
+		}
+
+		int y1(int i) {
+			return Math.min(height, y0(i) + th);
+		}
+	}
+}
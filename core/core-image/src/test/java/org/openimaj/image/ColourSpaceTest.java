@@ -29,9 +29,15 @@
  */
 package org.openimaj.image;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
 import org.junit.Test;
+import org.openimaj.image.colour.ColourConverter;
 import org.openimaj.image.colour.ColourSpace;
 
 /**
@@ -89,4 +95,90 @@ public class ColourSpaceTest {
 			}
 		}
 	}
+
+	/**
+	 * Test that the {@link ColourConverter} gives the same results as the
+	 * conversions in {@link ColourSpace}, both from and to RGB and between
+	 * pairs of colour spaces.
+	 */
+	@Test
+	public void testConverter() {
+		final MBFImage rgbIn = MBFImage.randomImage(100, 100);
+
+		for (final ColourSpace cs : ColourSpace.values()) {
+			if (!ColourConverter.isAccelerated(ColourSpace.RGB, cs) || cs.getNumBands() != 3)
+				continue;
+
+			final float eps = (cs == ColourSpace.CIE_Lab || cs == ColourSpace.CIE_Luv) ? 0.01f : 0.0001f;
+
+			final MBFImage expected = cs.convertFromRGB(rgbIn);
+			final MBFImage actual = ColourConverter.convert(rgbIn, cs);
+			assertEquals(cs, actual.colourSpace);
+			assertTrue(expected.equalsThresh(actual, eps));
+
+			assertTrue(cs.convertToRGB(expected).equalsThresh(
+					ColourConverter.convert(expected, ColourSpace.RGB), 0.0001f));
+			assertTrue(ColourSpace.CIE_Lab.convert(expected).equalsThresh(
+					ColourConverter.convert(expected, ColourSpace.CIE_Lab), 0.01f));
+		}
+	}
+
+	/**
+	 * Test the {@link ColourConverter} at the ends of its lookup tables, at
+	 * the knee of the sRGB curve and outside of [0, 1] (where the tables are
+	 * not used), and that black is mapped to and from L*u*v* (0, 0, 0)
+	 */
+	@Test
+	public void testConverterEdges() {
+		final float[][] colours = { { 0, 0, 0 }, { 1, 1, 1 }, { 0.04045f, 0.04046f, 0.0031308f },
+				{ 1, 0, 0 }, { -0.1f, 0.5f, 1.2f }, { 1.5f, -0.5f, 0.999f } };
+
+		final MBFImage rgb = new MBFImage(colours.length, 1, ColourSpace.RGB);
+		for (int x = 0; x < colours.length; x++)
+			for (int b = 0; b < 3; b++)
+				rgb.getBand(b).pixels[0][x] = colours[x][b];
+
+		assertTrue(ColourSpace.CIE_Lab.convertFromRGB(rgb).equalsThresh(
+				ColourConverter.convert(rgb, ColourSpace.CIE_Lab), 0.01f));
+		final MBFImage xyz = ColourConverter.convert(rgb, ColourSpace.CIE_XYZ);
+		assertTrue(ColourSpace.CIE_XYZ.convertFromRGB(rgb).equalsThresh(xyz, 0.0001f));
+		assertTrue(rgb.equalsThresh(ColourConverter.convert(xyz, ColourSpace.RGB), 0.0001f));
+
+		final MBFImage black = new MBFImage(1, 1, ColourSpace.RGB);
+		final MBFImage luv = ColourConverter.convert(black, ColourSpace.CIE_Luv);
+		for (int b = 0; b < 3; b++)
+			assertEquals(0, luv.getBand(b).pixels[0][0], 0);
+		assertTrue(black.equalsThresh(ColourConverter.convert(luv, ColourSpace.RGB), 0.0001f));
+	}
+
+	/**
+	 * Test the in-place, destination buffer and parallel variants of the
+	 * {@link ColourConverter}, and the fallback for colour spaces it doesn't
+	 * accelerate.
+	 */
+	@Test
+	public void testConverterVariants() {
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			final MBFImage rgbIn = MBFImage.randomImage(101, 77);
+			final MBFImage expected = ColourConverter.convert(rgbIn, ColourSpace.CIE_Lab);
+
+			assertEquals(expected, ColourConverter.convert(rgbIn, ColourSpace.CIE_Lab, pool));
+
+			final MBFImage dest = new MBFImage(101, 77, ColourSpace.RGB);
+			assertSame(dest, ColourConverter.convert(rgbIn, ColourSpace.CIE_Lab, dest, pool));
+			assertEquals(ColourSpace.CIE_Lab, dest.colourSpace);
+			assertEquals(expected, dest);
+
+			final MBFImage rgba = ColourSpace.convert(rgbIn, ColourSpace.RGBA);
+			assertSame(rgba, ColourConverter.convertInplace(rgba, ColourSpace.CIE_Lab, pool));
+			assertEquals(3, rgba.numBands());
+			assertEquals(expected, rgba);
+
+			assertEquals(ColourSpace.HSI.convertFromRGB(rgbIn), ColourConverter.convert(rgbIn, ColourSpace.HSI));
+		} finally {
+			pool.shutdown();
+		}
+	}
 }
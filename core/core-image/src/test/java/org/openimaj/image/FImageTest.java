@@ -29,7 +29,18 @@
  */
 package org.openimaj.image;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
 import org.junit.Test;
+import org.openimaj.image.processor.FKernelProcessor;
+import org.openimaj.image.processor.FKernelWindow;
+import org.openimaj.image.processor.ProcessorUtilities;
 
 /**
  * Tests for FImage
@@ -54,4 +65,95 @@ public class FImageTest {
 			}
 		}
 	}
+
+	/**
+	 * Test that {@link FKernelProcessor}s applied through an
+	 * {@link FKernelWindow} give the same result as when applied to patches
+	 */
+	@Test
+	public void testKernelWindow() {
+		final FKernelProcessor proc = new FKernelProcessor() {
+			@Override
+			public int getKernelHeight() {
+				return 3;
+			}
+
+			@Override
+			public int getKernelWidth() {
+				return 4;
+			}
+
+			@Override
+			public Float processKernel(FImage patch) {
+				float sum = 0;
+				for (int y = 0; y < 3; y++)
+					for (int x = 0; x < 4; x++)
+						sum += (1 + x + 4 * y) * patch.pixels[y][x];
+				return sum;
+			}
+
+			@Override
+			public float processWindow(FKernelWindow window) {
+				float sum = 0;
+				for (int y = 0; y < 3; y++)
+					for (int x = 0; x < 4; x++)
+						sum += (1 + x + 4 * y) * window.get(x, y);
+				return sum;
+			}
+		};
+
+		final Random rng = new Random(0);
+		final FImage image = FImage.randomImage(rng, 37, 23);
+
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			for (final boolean pad : new boolean[] { true, false }) {
+				final FImage expected = new FImage(image.width, image.height);
+				final FImage patch = new FImage(4, 3);
+				for (int y = pad ? 0 : 1; y < image.height - (pad ? 0 : 2); y++)
+					for (int x = pad ? 0 : 2; x < image.width - (pad ? 0 : 2); x++)
+						expected.pixels[y][x] = proc.processKernel(image.extractROI(x - 2, y - 1, patch));
+
+				final FImage sequential = image.process(proc, pad);
+				final FImage parallel = ProcessorUtilities.process(image, proc, pad, pool);
+				assertEquals(expected, sequential);
+				assertEquals(expected, parallel);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test {@link FKernelWindow}s that touch the edges of the image, lie
+	 * partly or wholly outside it, or are bigger than it
+	 */
+	@Test
+	public void testKernelWindowEdges() {
+		final FImage image = new FImage(new float[][] { { 1, 2, 3 }, { 4, 5, 6 } });
+
+		final FKernelWindow window = new FKernelWindow(image, 2, 2);
+		window.moveTo(1, 0);
+		assertTrue(window.isInside());
+		assertEquals(6, window.get(1, 1), 0);
+
+		window.moveTo(2, 0);
+		assertFalse(window.isInside());
+		assertEquals(new FImage(new float[][] { { 3, 0 }, { 6, 0 } }), window.copyTo(new FImage(2, 2)));
+
+		window.moveTo(-1, -1);
+		assertFalse(window.isInside());
+		assertEquals(new FImage(new float[][] { { 0, 0 }, { 0, 1 } }), window.copyTo(new FImage(2, 2)));
+
+		window.moveTo(5, 5);
+		assertEquals(new FImage(2, 2), window.copyTo(new FImage(2, 2)));
+
+		final FKernelWindow big = new FKernelWindow(image, 5, 4);
+		big.moveTo(-1, -1);
+		assertFalse(big.isInside());
+		final FImage expected = new FImage(5, 4);
+		expected.drawImage(image, 1, 1);
+		assertEquals(expected, big.copyTo(new FImage(5, 4)));
+	}
 }
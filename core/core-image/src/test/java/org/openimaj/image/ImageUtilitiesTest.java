@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * Tests for {@link ImageUtilities}
+ */
+public class ImageUtilitiesTest {
+	/**
+	 * Temporary folder for the test images
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final int[] TYPES = {
+			BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_INT_RGB,
+			BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_4BYTE_ABGR
+	};
+
+	private static BufferedImage createRandomImage(int type, Random rng) {
+		final BufferedImage image = new BufferedImage(37, 23, type);
+		final WritableRaster raster = image.getRaster();
+
+		for (int y = 0; y < raster.getHeight(); y++)
+			for (int x = 0; x < raster.getWidth(); x++)
+				for (int b = 0; b < raster.getNumBands(); b++)
+					raster.setSample(x, y, b, rng.nextInt(256));
+
+		return image;
+	}
+
+	private static int[] getARGB(BufferedImage image) {
+		final BufferedImage bimg = ImageUtilities.createWorkingImage(image);
+		return bimg.getRGB(0, 0, bimg.getWidth(), bimg.getHeight(), null, 0, bimg.getWidth());
+	}
+
+	/**
+	 * Test that reading directly from the raster gives the same result as
+	 * going via the packed ARGB pixels
+	 */
+	@Test
+	public void testCreateImage() {
+		final Random rng = new Random(0);
+
+		for (final int type : TYPES) {
+			final BufferedImage image = createRandomImage(type, rng);
+			final int[] argb = getARGB(image);
+
+			assertEquals(new FImage(argb, 37, 23), ImageUtilities.createFImage(image));
+
+			for (final boolean alpha : new boolean[] { false, true }) {
+				final MBFImage expected = new MBFImage(argb, 37, 23, alpha);
+				final MBFImage actual = ImageUtilities.createMBFImage(image, alpha);
+
+				assertEquals(expected.getColourSpace(), actual.getColourSpace());
+				assertEquals(expected, actual);
+			}
+		}
+	}
+
+	/**
+	 * Test reading directly from the raster of a sub-image
+	 */
+	@Test
+	public void testCreateImageFromSubimage() {
+		final Random rng = new Random(1);
+
+		for (final int type : TYPES) {
+			final BufferedImage image = createRandomImage(type, rng).getSubimage(5, 3, 20, 10);
+			final int[] argb = getARGB(image);
+
+			assertEquals(new FImage(argb, 20, 10), ImageUtilities.createFImage(image));
+			assertEquals(new MBFImage(argb, 20, 10).getBand(2), ImageUtilities.createMBFImage(image, false).getBand(2));
+		}
+	}
+
+	/**
+	 * Test reduced resolution decoding and batch reading
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testReadReduced() throws IOException {
+		final MBFImage image = ImageUtilities.readMBF(getClass().getResourceAsStream(
+				"/org/openimaj/image/data/sinaface.jpg"));
+
+		final List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 3; i++) {
+			final File file = folder.newFile("image" + i + ".png");
+			ImageUtilities.write(image, file);
+			files.add(file);
+		}
+
+		final int maxSize = Math.max(image.getWidth(), image.getHeight()) / 3;
+		final MBFImage reduced = ImageUtilities.readMBF(files.get(0), maxSize);
+		assertTrue(Math.max(reduced.getWidth(), reduced.getHeight()) <= maxSize);
+		assertTrue(Math.max(reduced.getWidth(), reduced.getHeight()) > maxSize / 2);
+
+		final List<FImage> full = ImageUtilities.readF(files, 0);
+		assertEquals(3, full.size());
+		assertEquals(ImageUtilities.readF(files.get(2)), full.get(2));
+
+		final List<MBFImage> batch = ImageUtilities.readMBF(files, maxSize);
+		assertEquals(3, batch.size());
+		assertEquals(reduced.getBand(0), batch.get(1).getBand(0));
+	}
+
+	/**
+	 * Test the sizes at which the subsampling factor changes, that reduced
+	 * images are subsampled from the full image, and that images no bigger
+	 * than the maximum size are read at full resolution
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testReadReducedSizes() throws IOException {
+		final Random rng = new Random(2);
+		final FImage image = new FImage(90, 61);
+		for (int y = 0; y < image.height; y++)
+			for (int x = 0; x < image.width; x++)
+				image.pixels[y][x] = rng.nextInt(256) / 255f;
+
+		final File file = folder.newFile("grey.png");
+		ImageUtilities.write(image, file);
+		final FImage full = ImageUtilities.readF(file);
+
+		// the longest side is divided by the smallest factor that fits
+		final int[][] cases = { { 200, 1 }, { 90, 1 }, { 89, 2 }, { 45, 2 }, { 44, 3 }, { 1, 90 } };
+		for (final int[] c : cases) {
+			final int factor = c[1];
+			final FImage reduced = ImageUtilities.readF(file, c[0]);
+
+			assertEquals((90 + factor - 1) / factor, reduced.width);
+			assertEquals((61 + factor - 1) / factor, reduced.height);
+			for (int y = 0; y < reduced.height; y++)
+				for (int x = 0; x < reduced.width; x++)
+					assertEquals(full.pixels[y * factor][x * factor], reduced.pixels[y][x], 0);
+		}
+	}
+
+	/**
+	 * Test that a file that can't be read fails the whole batch
+	 * 
+	 * @throws IOException
+	 */
+	@Test(expected = IOException.class)
+	public void testReadBatchMissingFile() throws IOException {
+		final File file = folder.newFile("image.png");
+		ImageUtilities.write(new FImage(10, 10), file);
+
+		final List<File> files = new ArrayList<File>();
+		files.add(file);
+		files.add(new File(folder.getRoot(), "missing.png"));
+		ImageUtilities.readF(files, 5);
+	}
+
+	/**
+	 * A reduced read needs a positive maximum size
+	 * 
+	 * @throws IOException
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadReducedInvalidSize() throws IOException {
+		ImageUtilities.readF(getClass().getResourceAsStream("/org/openimaj/image/data/sinaface.jpg"), 0);
+	}
+
+	/**
+	 * Test that batch reading from the threads of the global pool doesn't
+	 * dead-lock, even when all of them are busy
+	 * 
+	 * @throws Exception
+	 */
+	@Test(timeout = 10000)
+	public void testReadBatchFromGlobalPool() throws Exception {
+		final MBFImage image = ImageUtilities.readMBF(getClass().getResourceAsStream(
+				"/org/openimaj/image/data/sinaface.jpg"));
+
+		final List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 2; i++) {
+			final File file = folder.newFile("image" + i + ".png");
+			ImageUtilities.write(image, file);
+			files.add(file);
+		}
+
+		final ThreadPoolExecutor global = GlobalExecutorPool.getPool();
+		final List<Future<List<FImage>>> results = new ArrayList<Future<List<FImage>>>();
+		for (int i = 0; i < global.getMaximumPoolSize(); i++) {
+			results.add(global.submit(new Callable<List<FImage>>() {
+				@Override
+				public List<FImage> call() throws IOException {
+					return ImageUtilities.readF(files, 0);
+				}
+			}));
+		}
+
+		final FImage expected = ImageUtilities.readF(files.get(1));
+		for (final Future<List<FImage>> result : results)
+			assertEquals(expected, result.get().get(1));
+	}
+}
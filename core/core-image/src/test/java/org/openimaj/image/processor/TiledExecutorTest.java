@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.colour.ColourSpace;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * Tests for {@link TiledExecutor}
+ */
+public class TiledExecutorTest {
+	/*
+	 * A neighbourhood operator that reads pixels up to radius away and clamps
+	 * at the image edges, so any missing halo would change the result.
+	 */
+	private static SinglebandImageProcessor<Float, FImage> boxMean(final int radius) {
+		return new SinglebandImageProcessor<Float, FImage>() {
+			@Override
+			public void processImage(FImage image) {
+				final FImage out = new FImage(image.width, image.height);
+				for (int y = 0; y < image.height; y++) {
+					for (int x = 0; x < image.width; x++) {
+						float sum = 0;
+						for (int dy = -radius; dy <= radius; dy++) {
+							final int yy = Math.min(image.height - 1, Math.max(0, y + dy));
+							for (int dx = -radius; dx <= radius; dx++) {
+								final int xx = Math.min(image.width - 1, Math.max(0, x + dx));
+								sum += image.pixels[yy][xx];
+							}
+						}
+						out.pixels[y][x] = sum;
+					}
+				}
+				image.internalAssign(out);
+			}
+		};
+	}
+
+	private static final PixelProcessor<Float> SQUARE = new PixelProcessor<Float>() {
+		@Override
+		public Float processPixel(Float pixel) {
+			return pixel * pixel;
+		}
+	};
+
+	/**
+	 * Test that tiled processing with a sufficient halo matches processing the
+	 * whole image
+	 */
+	@Test
+	public void testNeighbourhood() {
+		final Random rng = new Random(0);
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			for (final int[] size : new int[][] { { 100, 70 }, { 17, 33 }, { 5, 5 } }) {
+				final FImage img = FImage.randomImage(rng, size[0], size[1]);
+
+				for (final int radius : new int[] { 0, 1, 3 }) {
+					final SinglebandImageProcessor<Float, FImage> p = boxMean(radius);
+					final FImage expected = img.process(p);
+
+					assertEquals(expected, new TiledExecutor(16, 16, radius, pool).process(img, p));
+					assertEquals(expected, new TiledExecutor(7, 9, radius, null).process(img, p));
+					assertEquals(expected, new TiledExecutor(0, 0, radius, pool).process(img, p));
+					assertEquals(expected, new TiledExecutor(radius).process(img, p));
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test that a halo smaller than the distance the processor reads only
+	 * changes the pixels within that distance of a seam between tiles (the
+	 * image edges are not seams, and the last row of tiles is shorter than the
+	 * others), and that tiles smaller than the halo still work
+	 */
+	@Test
+	public void testSeams() {
+		final int width = 30, height = 25, tile = 10, radius = 2, halo = 1;
+		final FImage img = FImage.randomImage(new Random(4), width, height);
+		final SinglebandImageProcessor<Float, FImage> p = boxMean(radius);
+		final FImage expected = img.process(p);
+
+		final FImage actual = new TiledExecutor(tile, tile, halo, null).process(img, p);
+		int differences = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (nearSeam(x, width, tile, radius - halo) || nearSeam(y, height, tile, radius - halo)) {
+					if (expected.pixels[y][x] != actual.pixels[y][x])
+						differences++;
+				} else {
+					assertEquals(expected.pixels[y][x], actual.pixels[y][x], 0);
+				}
+			}
+		}
+		assertTrue(differences > 0);
+
+		assertEquals(expected, new TiledExecutor(tile, tile, radius, null).process(img, p));
+		assertEquals(expected, new TiledExecutor(1, 1, radius, null).process(img, p));
+		assertEquals(expected, new TiledExecutor(3, 2, radius + 5, null).process(img, p));
+	}
+
+	/*
+	 * Is x within distance d of a seam between tiles?
+	 */
+	private static boolean nearSeam(int x, int size, int tile, int d) {
+		final int x0 = (x / tile) * tile;
+		final int x1 = Math.min(size, x0 + tile);
+		return (x0 > 0 && x - x0 < d) || (x1 < size && x1 - 1 - x < d);
+	}
+
+	/**
+	 * Test that bands of an {@link MBFImage} are processed correctly
+	 */
+	@Test
+	public void testBands() {
+		final Random rng = new Random(1);
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			final MBFImage img = new MBFImage(ColourSpace.RGB);
+			for (int b = 0; b < 3; b++)
+				img.bands.add(FImage.randomImage(rng, 45, 38));
+
+			final SinglebandImageProcessor<Float, FImage> p = boxMean(2);
+			final MBFImage expected = img.process(p);
+
+			final TiledExecutor exec = new TiledExecutor(10, 10, 2, pool);
+			final MBFImage actual = exec.process(img, p);
+			for (int b = 0; b < 3; b++)
+				assertEquals(expected.getBand(b), actual.getBand(b));
+
+			final MBFImage bandsOnly = new TiledExecutor(0, 0, 0, pool).process(img, p);
+			for (int b = 0; b < 3; b++)
+				assertEquals(expected.getBand(b), bandsOnly.getBand(b));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test pixel processors
+	 */
+	@Test
+	public void testPixels() {
+		final Random rng = new Random(2);
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			final TiledExecutor exec = new TiledExecutor(16, 8, 0, pool);
+
+			final FImage img = FImage.randomImage(rng, 50, 30);
+			assertEquals(img.process(SQUARE), exec.process(img, SQUARE));
+
+			final MBFImage mbf = new MBFImage(ColourSpace.RGB);
+			for (int b = 0; b < 3; b++)
+				mbf.bands.add(FImage.randomImage(rng, 50, 30));
+
+			final MBFImage squared = exec.process(mbf, new SinglebandPixelProcessor<Float>() {
+				@Override
+				public Float processPixel(Float pixel) {
+					return pixel * pixel;
+				}
+			});
+			for (int b = 0; b < 3; b++)
+				assertEquals(mbf.getBand(b).process(SQUARE), squared.getBand(b));
+
+			final PixelProcessor<Float[]> swap = new PixelProcessor<Float[]>() {
+				@Override
+				public Float[] processPixel(Float[] pixel) {
+					return new Float[] { pixel[2], pixel[1], pixel[0] };
+				}
+			};
+			final MBFImage swapped = exec.process(mbf, swap);
+			final MBFImage expected = mbf.process(swap);
+			for (int b = 0; b < 3; b++)
+				assertEquals(expected.getBand(b), swapped.getBand(b));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test that processors that change the size of the image are rejected,
+	 * whether or not the image is tiled
+	 */
+	@Test
+	public void testSizeChange() {
+		final SinglebandImageProcessor<Float, FImage> half = new SinglebandImageProcessor<Float, FImage>() {
+			@Override
+			public void processImage(FImage image) {
+				image.internalAssign(image.extractROI(0, 0, image.width / 2, image.height / 2));
+			}
+		};
+
+		for (final TiledExecutor exec : new TiledExecutor[] { new TiledExecutor(8, 8, 0, null),
+				new TiledExecutor(0, 0, 0, null) })
+		{
+			try {
+				exec.process(new FImage(20, 20), half);
+				fail("expected an IllegalArgumentException");
+			} catch (final IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 * Test that the global pool can be used from its own threads without
+	 * dead-locking, even when all of them are busy
+	 * 
+	 * @throws Exception
+	 */
+	@Test(timeout = 10000)
+	public void testNestedGlobalPool() throws Exception {
+		final ThreadPoolExecutor global = GlobalExecutorPool.getPool();
+		final FImage img = FImage.randomImage(new Random(3), 60, 40);
+		final FImage expected = img.process(boxMean(1));
+
+		final List<Future<FImage>> results = new ArrayList<Future<FImage>>();
+		for (int i = 0; i < global.getMaximumPoolSize(); i++) {
+			results.add(global.submit(new Callable<FImage>() {
+				@Override
+				public FImage call() {
+					return new TiledExecutor(16, 16, 1, GlobalExecutorPool.getPool()).process(img, boxMean(1));
+				}
+			}));
+		}
+
+		for (final Future<FImage> result : results)
+			assertEquals(expected, result.get());
+	}
+}
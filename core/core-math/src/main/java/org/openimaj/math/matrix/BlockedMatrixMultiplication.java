@@ -0,0 +1,611 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.math.matrix;
+
+import java.util.Arrays;
+
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+
+/**
+ * Cache-blocked, multi-threaded dense matrix multiplication over
+ * <code>double[][]</code> and <code>float[][]</code> arrays (as used by Jama
+ * and most of OpenIMAJ).
+ * <p>
+ * The implementation follows the usual GotoBLAS structure: the output is
+ * split into MC x NC tiles which are computed independently (and in parallel
+ * using {@link Parallel} for large enough problems). For each tile, KC-deep
+ * slices of the inputs are packed into contiguous micro-panels that fit in
+ * cache, and a 4x4 register-blocked kernel accumulates their product into the
+ * output. Either input can be transposed on the fly during packing, so
+ * products like <code>A^T A</code> never need an explicit transpose.
+ */
+public class BlockedMatrixMultiplication {
+	private static final int MR = 4;
+	private static final int NR = 4;
+	private static final int KC = 256;
+	private static final int MC = 64;
+	private static final int NC = 512;
+
+	/**
+	 * Products with fewer multiply-adds than this are computed on the calling
+	 * thread.
+	 */
+	private static final long PARALLEL_THRESHOLD = 1 << 18;
+
+	private static final ThreadLocal<double[][]> DOUBLE_WORKSPACE = new ThreadLocal<double[][]>() {
+		@Override
+		protected double[][] initialValue() {
+			return new double[][] { new double[MC * KC], new double[KC * NC] };
+		}
+	};
+
+	private static final ThreadLocal<float[][]> FLOAT_WORKSPACE = new ThreadLocal<float[][]>() {
+		@Override
+		protected float[][] initialValue() {
+			return new float[][] { new float[MC * KC], new float[KC * NC] };
+		}
+	};
+
+	private BlockedMatrixMultiplication() {
+	}
+
+	/**
+	 * Compute <code>a * b</code>.
+	 * 
+	 * @param a
+	 *            the left matrix
+	 * @param b
+	 *            the right matrix
+	 * @return a new matrix containing the product
+	 */
+	public static double[][] multiply(double[][] a, double[][] b) {
+		return multiply(a, false, b, false);
+	}
+
+	/**
+	 * Compute <code>op(a) * op(b)</code>, where <code>op(x)</code> is either
+	 * <code>x</code> or its transpose.
+	 * 
+	 * @param a
+	 *            the left matrix
+	 * @param transA
+	 *            should a be transposed
+	 * @param b
+	 *            the right matrix
+	 * @param transB
+	 *            should b be transposed
+	 * @return a new matrix containing the product
+	 */
+	public static double[][] multiply(double[][] a, boolean transA, double[][] b, boolean transB) {
+		final int m = transA ? cols(a) : a.length;
+		final int n = transB ? b.length : cols(b);
+
+		return multiply(a, transA, b, transB, new double[m][n]);
+	}
+
+	/**
+	 * Compute <code>op(a) * op(b)</code>, where <code>op(x)</code> is either
+	 * <code>x</code> or its transpose, writing the result into <code>c</code>.
+	 * Any existing content of <code>c</code> is overwritten. The output must
+	 * not be the same array as either of the inputs.
+	 * 
+	 * @param a
+	 *            the left matrix
+	 * @param transA
+	 *            should a be transposed
+	 * @param b
+	 *            the right matrix
+	 * @param transB
+	 *            should b be transposed
+	 * @param c
+	 *            the output matrix
+	 * @return c
+	 */
+	public static double[][] multiply(final double[][] a, final boolean transA, final double[][] b, final boolean transB,
+			final double[][] c)
+	{
+		final int m = transA ? cols(a) : a.length;
+		final int k = transA ? a.length : cols(a);
+		final int kb = transB ? cols(b) : b.length;
+		final int n = transB ? b.length : cols(b);
+
+		if (k != kb)
+			throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+		if (c.length != m || cols(c) != n)
+			throw new IllegalArgumentException("Output matrix has the wrong dimensions.");
+		if (c == a || c == b)
+			throw new IllegalArgumentException("Output matrix must not be one of the inputs.");
+
+		final int rowBlocks = (m + MC - 1) / MC;
+		final int colBlocks = (n + NC - 1) / NC;
+		final int nTasks = rowBlocks * colBlocks;
+
+		if (nTasks == 1 || (long) m * n * k < PARALLEL_THRESHOLD) {
+			for (int t = 0; t < nTasks; t++)
+				multiplyBlock(a, transA, b, transB, c, m, n, k, t / colBlocks, t % colBlocks);
+		} else {
+			Parallel.forIndex(0, nTasks, 1, new Operation<Integer>() {
+				@Override
+				public void perform(Integer t) {
+					multiplyBlock(a, transA, b, transB, c, m, n, k, t / colBlocks, t % colBlocks);
+				}
+			});
+		}
+
+		return c;
+	}
+
+	private static int cols(double[][] x) {
+		return x.length == 0 ? 0 : x[0].length;
+	}
+
+	/**
+	 * Compute the MC x NC tile of the output at the given block coordinates.
+	 * The tile is written by exactly one task, so no synchronisation is
+	 * required.
+	 */
+	private static void multiplyBlock(double[][] a, boolean transA, double[][] b, boolean transB, double[][] c,
+			int m, int n, int k, int rowBlock, int colBlock)
+	{
+		final int i0 = rowBlock * MC;
+		final int j0 = colBlock * NC;
+		final int mc = Math.min(MC, m - i0);
+		final int nc = Math.min(NC, n - j0);
+
+		for (int i = i0; i < i0 + mc; i++)
+			Arrays.fill(c[i], j0, j0 + nc, 0);
+
+		final double[][] buffers = DOUBLE_WORKSPACE.get();
+		final double[] ap = buffers[0];
+		final double[] bp = buffers[1];
+
+		for (int p0 = 0; p0 < k; p0 += KC) {
+			final int kc = Math.min(KC, k - p0);
+
+			packA(a, transA, i0, mc, p0, kc, ap);
+			packB(b, transB, p0, kc, j0, nc, bp);
+
+			for (int jr = 0; jr < nc; jr += NR) {
+				final int nr = Math.min(NR, nc - jr);
+				for (int ir = 0; ir < mc; ir += MR) {
+					final int mr = Math.min(MR, mc - ir);
+					kernel(kc, ap, ir * kc, bp, jr * kc, c, i0 + ir, j0 + jr, mr, nr);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pack a block of op(a) into MR-row micro-panels, each stored
+	 * column-by-column, zero-padding the final panel.
+	 */
+	private static void packA(double[][] a, boolean transA, int i0, int mc, int p0, int kc, double[] ap) {
+		int idx = 0;
+		for (int ir = 0; ir < mc; ir += MR) {
+			final int mr = Math.min(MR, mc - ir);
+
+			if (transA) {
+				for (int p = 0; p < kc; p++) {
+					final double[] row = a[p0 + p];
+					int r = 0;
+					for (; r < mr; r++)
+						ap[idx++] = row[i0 + ir + r];
+					for (; r < MR; r++)
+						ap[idx++] = 0;
+				}
+			} else {
+				for (int r = 0; r < MR; r++) {
+					if (r < mr) {
+						final double[] row = a[i0 + ir + r];
+						for (int p = 0; p < kc; p++)
+							ap[idx + p * MR + r] = row[p0 + p];
+					} else {
+						for (int p = 0; p < kc; p++)
+							ap[idx + p * MR + r] = 0;
+					}
+				}
+				idx += kc * MR;
+			}
+		}
+	}
+
+	/**
+	 * Pack a block of op(b) into NR-column micro-panels, each stored
+	 * row-by-row, zero-padding the final panel.
+	 */
+	private static void packB(double[][] b, boolean transB, int p0, int kc, int j0, int nc, double[] bp) {
+		int idx = 0;
+		for (int jr = 0; jr < nc; jr += NR) {
+			final int nr = Math.min(NR, nc - jr);
+
+			if (transB) {
+				for (int q = 0; q < NR; q++) {
+					if (q < nr) {
+						final double[] row = b[j0 + jr + q];
+						for (int p = 0; p < kc; p++)
+							bp[idx + p * NR + q] = row[p0 + p];
+					} else {
+						for (int p = 0; p < kc; p++)
+							bp[idx + p * NR + q] = 0;
+					}
+				}
+				idx += kc * NR;
+			} else {
+				for (int p = 0; p < kc; p++) {
+					final double[] row = b[p0 + p];
+					int q = 0;
+					for (; q < nr; q++)
+						bp[idx++] = row[j0 + jr + q];
+					for (; q < NR; q++)
+						bp[idx++] = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 4x4 register-blocked micro-kernel accumulating a packed A micro-panel
+	 * times a packed B micro-panel into c.
+	 */
+	private static void kernel(int kc, double[] ap, int aoff, double[] bp, int boff, double[][] c, int i, int j,
+			int mr, int nr)
+	{
+		double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+		double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+		double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+		double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+
+		for (int p = 0; p < kc; p++) {
+			final double a0 = ap[aoff], a1 = ap[aoff + 1], a2 = ap[aoff + 2], a3 = ap[aoff + 3];
+			final double b0 = bp[boff], b1 = bp[boff + 1], b2 = bp[boff + 2], b3 = bp[boff + 3];
+			aoff += MR;
+			boff += NR;
+
+			c00 += a0 * b0;
+			c01 += a0 * b1;
+			c02 += a0 * b2;
+			c03 += a0 * b3;
+			c10 += a1 * b0;
+			c11 += a1 * b1;
+			c12 += a1 * b2;
+			c13 += a1 * b3;
+			c20 += a2 * b0;
+			c21 += a2 * b1;
+			c22 += a2 * b2;
+			c23 += a2 * b3;
+			c30 += a3 * b0;
+			c31 += a3 * b1;
+			c32 += a3 * b2;
+			c33 += a3 * b3;
+		}
+
+		if (mr == MR && nr == NR) {
+			double[] row = c[i];
+			row[j] += c00;
+			row[j + 1] += c01;
+			row[j + 2] += c02;
+			row[j + 3] += c03;
+			row = c[i + 1];
+			row[j] += c10;
+			row[j + 1] += c11;
+			row[j + 2] += c12;
+			row[j + 3] += c13;
+			row = c[i + 2];
+			row[j] += c20;
+			row[j + 1] += c21;
+			row[j + 2] += c22;
+			row[j + 3] += c23;
+			row = c[i + 3];
+			row[j] += c30;
+			row[j + 1] += c31;
+			row[j + 2] += c32;
+			row[j + 3] += c33;
+		} else {
+			final double[] acc = {
+					c00, c01, c02, c03,
+					c10, c11, c12, c13,
+					c20, c21, c22, c23,
+					c30, c31, c32, c33 };
+
+			for (int r = 0; r < mr; r++) {
+				final double[] row = c[i + r];
+				for (int q = 0; q < nr; q++)
+					row[j + q] += acc[r * NR + q];
+			}
+		}
+	}
+
+	/**
+	 * Compute <code>a * b</code>.
+	 * 
+	 * @param a
+	 *            the left matrix
+	 * @param b
+	 *            the right matrix
+	 * @return a new matrix containing the product
+	 */
+	public static float[][] multiply(float[][] a, float[][] b) {
+		return multiply(a, false, b, false);
+	}
+
+	/**
+	 * Compute <code>op(a) * op(b)</code>, where <code>op(x)</code> is either
+	 * <code>x</code> or its transpose.
+	 * 
+	 * @param a
+	 *            the left matrix
+	 * @param transA
+	 *            should a be transposed
+	 * @param b
+	 *            the right matrix
+	 * @param transB
+	 *            should b be transposed
+	 * @return a new matrix containing the product
+	 */
+	public static float[][] multiply(float[][] a, boolean transA, float[][] b, boolean transB) {
+		final int m = transA ? cols(a) : a.length;
+		final int n = transB ? b.length : cols(b);
+
+		return multiply(a, transA, b, transB, new float[m][n]);
+	}
+
+	/**
+	 * Compute <code>op(a) * op(b)</code>, where <code>op(x)</code> is either
+	 * <code>x</code> or its transpose, writing the result into <code>c</code>.
+	 * Any existing content of <code>c</code> is overwritten. The output must
+	 * not be the same array as either of the inputs.
+	 * 
+	 * @param a
+	 *            the left matrix
+	 * @param transA
+	 *            should a be transposed
+	 * @param b
+	 *            the right matrix
+	 * @param transB
+	 *            should b be transposed
+	 * @param c
+	 *            the output matrix
+	 * @return c
+	 */
+	public static float[][] multiply(final float[][] a, final boolean transA, final float[][] b, final boolean transB,
+			final float[][] c)
+	{
+		final int m = transA ? cols(a) : a.length;
+		final int k = transA ? a.length : cols(a);
+		final int kb = transB ? cols(b) : b.length;
+		final int n = transB ? b.length : cols(b);
+
+		if (k != kb)
+			throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+		if (c.length != m || cols(c) != n)
+			throw new IllegalArgumentException("Output matrix has the wrong dimensions.");
+		if (c == a || c == b)
+			throw new IllegalArgumentException("Output matrix must not be one of the inputs.");
+
+		final int rowBlocks = (m + MC - 1) / MC;
+		final int colBlocks = (n + NC - 1) / NC;
+		final int nTasks = rowBlocks * colBlocks;
+
+		if (nTasks == 1 || (long) m * n * k < PARALLEL_THRESHOLD) {
+			for (int t = 0; t < nTasks; t++)
+				multiplyBlock(a, transA, b, transB, c, m, n, k, t / colBlocks, t % colBlocks);
+		} else {
+			Parallel.forIndex(0, nTasks, 1, new Operation<Integer>() {
+				@Override
+				public void perform(Integer t) {
+					multiplyBlock(a, transA, b, transB, c, m, n, k, t / colBlocks, t % colBlocks);
+				}
+			});
+		}
+
+		return c;
+	}
+
+	private static int cols(float[][] x) {
+		return x.length == 0 ? 0 : x[0].length;
+	}
+
+	/**
+	 * Compute the MC x NC tile of the output at the given block coordinates.
+	 * The tile is written by exactly one task, so no synchronisation is
+	 * required.
+	 */
+	private static void multiplyBlock(float[][] a, boolean transA, float[][] b, boolean transB, float[][] c,
+			int m, int n, int k, int rowBlock, int colBlock)
+	{
+		final int i0 = rowBlock * MC;
+		final int j0 = colBlock * NC;
+		final int mc = Math.min(MC, m - i0);
+		final int nc = Math.min(NC, n - j0);
+
+		for (int i = i0; i < i0 + mc; i++)
+			Arrays.fill(c[i], j0, j0 + nc, 0);
+
+		final float[][] buffers = FLOAT_WORKSPACE.get();
+		final float[] ap = buffers[0];
+		final float[] bp = buffers[1];
+
+		for (int p0 = 0; p0 < k; p0 += KC) {
+			final int kc = Math.min(KC, k - p0);
+
+			packA(a, transA, i0, mc, p0, kc, ap);
+			packB(b, transB, p0, kc, j0, nc, bp);
+
+			for (int jr = 0; jr < nc; jr += NR) {
+				final int nr = Math.min(NR, nc - jr);
+				for (int ir = 0; ir < mc; ir += MR) {
+					final int mr = Math.min(MR, mc - ir);
+					kernel(kc, ap, ir * kc, bp, jr * kc, c, i0 + ir, j0 + jr, mr, nr);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pack a block of op(a) into MR-row micro-panels, each stored
+	 * column-by-column, zero-padding the final panel.
+	 */
+	private static void packA(float[][] a, boolean transA, int i0, int mc, int p0, int kc, float[] ap) {
+		int idx = 0;
+		for (int ir = 0; ir < mc; ir += MR) {
+			final int mr = Math.min(MR, mc - ir);
+
+			if (transA) {
+				for (int p = 0; p < kc; p++) {
+					final float[] row = a[p0 + p];
+					int r = 0;
+					for (; r < mr; r++)
+						ap[idx++] = row[i0 + ir + r];
+					for (; r < MR; r++)
+						ap[idx++] = 0;
+				}
+			} else {
+				for (int r = 0; r < MR; r++) {
+					if (r < mr) {
+						final float[] row = a[i0 + ir + r];
+						for (int p = 0; p < kc; p++)
+							ap[idx + p * MR + r] = row[p0 + p];
+					} else {
+						for (int p = 0; p < kc; p++)
+							ap[idx + p * MR + r] = 0;
+					}
+				}
+				idx += kc * MR;
+			}
+		}
+	}
+
+	/**
+	 * Pack a block of op(b) into NR-column micro-panels, each stored
+	 * row-by-row, zero-padding the final panel.
+	 */
+	private static void packB(float[][] b, boolean transB, int p0, int kc, int j0, int nc, float[] bp) {
+		int idx = 0;
+		for (int jr = 0; jr < nc; jr += NR) {
+			final int nr = Math.min(NR, nc - jr);
+
+			if (transB) {
+				for (int q = 0; q < NR; q++) {
+					if (q < nr) {
+						final float[] row = b[j0 + jr + q];
+						for (int p = 0; p < kc; p++)
+							bp[idx + p * NR + q] = row[p0 + p];
+					} else {
+						for (int p = 0; p < kc; p++)
+							bp[idx + p * NR + q] = 0;
+					}
+				}
+				idx += kc * NR;
+			} else {
+				for (int p = 0; p < kc; p++) {
+					final float[] row = b[p0 + p];
+					int q = 0;
+					for (; q < nr; q++)
+						bp[idx++] = row[j0 + jr + q];
+					for (; q < NR; q++)
+						bp[idx++] = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 4x4 register-blocked micro-kernel accumulating a packed A micro-panel
+	 * times a packed B micro-panel into c.
+	 */
+	private static void kernel(int kc, float[] ap, int aoff, float[] bp, int boff, float[][] c, int i, int j,
+			int mr, int nr)
+	{
+		float c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+		float c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+		float c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+		float c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+
+		for (int p = 0; p < kc; p++) {
+			final float a0 = ap[aoff], a1 = ap[aoff + 1], a2 = ap[aoff + 2], a3 = ap[aoff + 3];
+			final float b0 = bp[boff], b1 = bp[boff + 1], b2 = bp[boff + 2], b3 = bp[boff + 3];
+			aoff += MR;
+			boff += NR;
+
+			c00 += a0 * b0;
+			c01 += a0 * b1;
+			c02 += a0 * b2;
+			c03 += a0 * b3;
+			c10 += a1 * b0;
+			c11 += a1 * b1;
+			c12 += a1 * b2;
+			c13 += a1 * b3;
+			c20 += a2 * b0;
+			c21 += a2 * b1;
+			c22 += a2 * b2;
+			c23 += a2 * b3;
+			c30 += a3 * b0;
+			c31 += a3 * b1;
+			c32 += a3 * b2;
+			c33 += a3 * b3;
+		}
+
+		if (mr == MR && nr == NR) {
+			float[] row = c[i];
+			row[j] += c00;
+			row[j + 1] += c01;
+			row[j + 2] += c02;
+			row[j + 3] += c03;
+			row = c[i + 1];
+			row[j] += c10;
+			row[j + 1] += c11;
+			row[j + 2] += c12;
+			row[j + 3] += c13;
+			row = c[i + 2];
+			row[j] += c20;
+			row[j + 1] += c21;
+			row[j + 2] += c22;
+			row[j + 3] += c23;
+			row = c[i + 3];
+			row[j] += c30;
+			row[j + 1] += c31;
+			row[j + 2] += c32;
+			row[j + 3] += c33;
+		} else {
+			final float[] acc = {
+					c00, c01, c02, c03,
+					c10, c11, c12, c13,
+					c20, c21, c22, c23,
+					c30, c31, c32, c33 };
+
+			for (int r = 0; r < mr; r++) {
+				final float[] row = c[i + r];
+				for (int q = 0; q < nr; q++)
+					row[j + q] += acc[r * NR + q];
+			}
+		}
+	}
+}
@@ -35,6 +35,7 @@ import gov.sandia.cognition.math.matrix.MatrixEntry;
 import gov.sandia.cognition.math.matrix.MatrixFactory;
 import gov.sandia.cognition.math.matrix.Vector;
 import gov.sandia.cognition.math.matrix.VectorEntry;
+import gov.sandia.cognition.math.matrix.mtj.DenseMatrix;
 import gov.sandia.cognition.math.matrix.mtj.DenseMatrixFactoryMTJ;
 import gov.sandia.cognition.math.matrix.mtj.SparseColumnMatrix;
 import gov.sandia.cognition.math.matrix.mtj.SparseMatrixFactoryMTJ;
@@ -598,9 +599,31 @@ public class CFMatrixUtils {
 		if (a instanceof SparseRowMatrix && b instanceof SparseColumnMatrix) {
 			return fastsparsedot((SparseRowMatrix) a, (SparseColumnMatrix) b);
 		}
+		if (a instanceof DenseMatrix && b instanceof DenseMatrix) {
+			if (a.getNumColumns() != b.getNumRows())
+				throw new DimensionalityMismatchException(a.getNumColumns(), b.getNumRows());
+
+			final double[][] ret = BlockedMatrixMultiplication.multiply(toArray((DenseMatrix) a),
+					toArray((DenseMatrix) b));
+			return DenseMatrixFactoryMTJ.INSTANCE.copyArray(ret);
+		}
 		return a.times(b);
 	}
 
+	private static double[][] toArray(DenseMatrix m) {
+		final double[] data = ((no.uib.cipr.matrix.DenseMatrix) m.getInternalMatrix()).getData();
+		final int rows = m.getNumRows();
+		final int cols = m.getNumColumns();
+		final double[][] ret = new double[rows][cols];
+
+		// mtj stores dense matrices in column-major order
+		for (int c = 0, i = 0; c < cols; c++)
+			for (int r = 0; r < rows; r++, i++)
+				ret[r][c] = data[i];
+
+		return ret;
+	}
+
 	/**
 	 * @param a
 	 * @return turns the provided matrix into a {@link SparseColumnMatrix}
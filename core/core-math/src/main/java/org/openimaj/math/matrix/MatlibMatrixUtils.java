@@ -138,6 +138,40 @@ public class MatlibMatrixUtils {
 		return mat;
 	}
 
+	/**
+	 * Left and right multiply a sparse matrix by diagonal matrices:
+	 * <code>R = L . A . D</code>. This is computed in a single pass over the
+	 * non-zeros of <code>A</code> without creating an intermediate matrix.
+	 * 
+	 * @param L
+	 *            the left diagonal matrix
+	 * @param A
+	 *            the sparse matrix
+	 * @param D
+	 *            the right diagonal matrix
+	 * @return result of multiplication
+	 */
+	public static SparseMatrix times(DiagonalMatrix L, SparseMatrix A, DiagonalMatrix D) {
+		final SparseMatrix mat = new SparseMatrix(A.rowCount(), A.columnCount());
+		final double[] Lvals = L.getVals();
+		final double[] Dvals = D.getVals();
+		int rowIndex = 0;
+		for (final Vector row : A.rows()) {
+			final SparseVector srow = (SparseVector) row;
+			final int[] keys = srow.keys();
+			final double[] vals = srow.values();
+			final int used = srow.used();
+
+			// keys are sorted, so each put is an append
+			final SparseVector out = new SparseVector(A.columnCount(), used);
+			for (int k = 0; k < used; k++)
+				out.put(keys[k], vals[k] * Lvals[rowIndex] * Dvals[keys[k]]);
+			mat.setRow(rowIndex, out);
+			rowIndex++;
+		}
+		return mat;
+	}
+
 	/**
 	 * Add two matrices, storing the results in the first:
 	 * <code>A = A + B</code>
@@ -1350,6 +1350,40 @@ public class MatrixUtils {
 		return m;
 	}
 
+	/**
+	 * Compute the matrix product <code>a * b</code> using the cache-blocked
+	 * (and, for large matrices, multi-threaded) implementation in
+	 * {@link BlockedMatrixMultiplication}. This is a drop-in replacement for
+	 * {@link Matrix#times(Matrix)}.
+	 * 
+	 * @param a
+	 *            the left matrix
+	 * @param b
+	 *            the right matrix
+	 * @return the product
+	 */
+	public static Matrix times(Matrix a, Matrix b) {
+		return new Matrix(BlockedMatrixMultiplication.multiply(a.getArray(), false, b.getArray(), false),
+				a.getRowDimension(), b.getColumnDimension());
+	}
+
+	/**
+	 * Compute the matrix product <code>a^T * b</code> without explicitly
+	 * forming the transpose of <code>a</code>.
+	 * 
+	 * @see BlockedMatrixMultiplication
+	 * 
+	 * @param a
+	 *            the left matrix
+	 * @param b
+	 *            the right matrix
+	 * @return the product
+	 */
+	public static Matrix transposeTimes(Matrix a, Matrix b) {
+		return new Matrix(BlockedMatrixMultiplication.multiply(a.getArray(), true, b.getArray(), false),
+				a.getColumnDimension(), b.getColumnDimension());
+	}
+
 	/**
 	 * Convert an mtj matrix into a 2d double array
 	 * 
@@ -1614,7 +1648,7 @@ public class MatrixUtils {
 	 */
 	public static Matrix covariance(Matrix m) {
 		final int N = m.getRowDimension();
-		return times(m.transpose().times(m), 1.0 / (N > 1 ? N - 1 : N));
+		return times(transposeTimes(m, m), 1.0 / (N > 1 ? N - 1 : N));
 	}
 
 	/**
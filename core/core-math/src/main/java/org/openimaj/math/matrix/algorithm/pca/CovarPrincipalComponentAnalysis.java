@@ -69,7 +69,7 @@ public class CovarPrincipalComponentAnalysis extends PrincipalComponentAnalysis
 	
 	@Override
 	protected void learnBasisNorm(Matrix m) {
-		Matrix covar = m.transpose().times(m);
+		Matrix covar = MatrixUtils.transposeTimes(m, m);
 		
 		EigenvalueDecomposition eig = covar.eig();
 		Matrix all_eigenvectors = eig.getV();
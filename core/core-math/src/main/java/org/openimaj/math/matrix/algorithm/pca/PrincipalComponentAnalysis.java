@@ -32,6 +32,8 @@ package org.openimaj.math.matrix.algorithm.pca;
 import java.util.Arrays;
 import java.util.List;
 
+import org.openimaj.math.matrix.MatrixUtils;
+
 import Jama.Matrix;
 
 /**
@@ -435,7 +437,7 @@ public abstract class PrincipalComponentAnalysis {
 				vecarr[r][c] -= mean[c];
 
 		// T = (Vt.Dt)^T == Dt.Vt
-		return vec.times(basis);
+		return MatrixUtils.times(vec, basis);
 	}
 
 	/**
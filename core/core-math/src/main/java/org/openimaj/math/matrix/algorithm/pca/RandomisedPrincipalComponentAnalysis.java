@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.math.matrix.algorithm.pca;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.openimaj.data.DataSource;
+import org.openimaj.data.DoubleArrayBackedDataSource;
+import org.openimaj.math.matrix.BlockedMatrixMultiplication;
+import org.openimaj.math.matrix.MatrixUtils;
+
+import Jama.EigenvalueDecomposition;
+import Jama.Matrix;
+import Jama.QRDecomposition;
+
+/**
+ * Compute the PCA using a randomised range-finder (Halko, Martinsson and
+ * Tropp, 2011) applied to the covariance matrix. The data is only ever
+ * accessed in batches of rows through a {@link DataSource}, so the PCA of
+ * datasets that are too large to hold in memory as a single matrix (for
+ * example VLAD or Fisher vectors of millions of images) can be computed with
+ * memory proportional to the number of dimensions times the number of
+ * components. The batch products are performed with
+ * {@link BlockedMatrixMultiplication}, and are thus multi-threaded.
+ * <p>
+ * The data is read <code>3 + powerIterations</code> times: once to compute
+ * the mean, once per range-finder iteration and once to project the
+ * covariance onto the final subspace. Only the first <code>ndims</code>
+ * components are computed.
+ */
+public class RandomisedPrincipalComponentAnalysis extends PrincipalComponentAnalysis {
+	private final int ndims;
+	private final int oversampling;
+	private final int powerIterations;
+	private final int batchSize;
+	private final Random rng;
+
+	/**
+	 * Construct a {@link RandomisedPrincipalComponentAnalysis} that will
+	 * extract the n best eigenvectors using the default oversampling (10),
+	 * power iterations (2) and batch size (1000).
+	 * 
+	 * @param ndims
+	 *            the number of eigenvectors to select.
+	 */
+	public RandomisedPrincipalComponentAnalysis(int ndims) {
+		this(ndims, 10, 2, 1000, new Random());
+	}
+
+	/**
+	 * Construct a {@link RandomisedPrincipalComponentAnalysis} that will
+	 * extract the n best eigenvectors.
+	 * 
+	 * @param ndims
+	 *            the number of eigenvectors to select.
+	 * @param oversampling
+	 *            the number of additional random directions used to capture
+	 *            the range of the covariance matrix
+	 * @param powerIterations
+	 *            the number of power iterations; more iterations give better
+	 *            accuracy when the spectrum decays slowly
+	 * @param batchSize
+	 *            the number of rows to read from the data at once
+	 * @param rng
+	 *            the source of randomness for the test matrix
+	 */
+	public RandomisedPrincipalComponentAnalysis(int ndims, int oversampling, int powerIterations, int batchSize,
+			Random rng)
+	{
+		this.ndims = ndims;
+		this.oversampling = oversampling;
+		this.powerIterations = powerIterations;
+		this.batchSize = batchSize;
+		this.rng = rng;
+	}
+
+	/**
+	 * Learn the principal components of the data provided by the given
+	 * {@link DataSource}. The data is read in batches and is never held in
+	 * memory all at once.
+	 * 
+	 * @param data
+	 *            the data
+	 * @throws IllegalArgumentException
+	 *             if the data is empty
+	 */
+	public void learnBasis(DataSource<double[]> data) {
+		this.mean = computeMean(data);
+		learnBasis(data, mean);
+	}
+
+	@Override
+	protected void learnBasisNorm(Matrix norm) {
+		learnBasis(new DoubleArrayBackedDataSource(norm.getArray()), new double[norm.getColumnDimension()]);
+	}
+
+	private double[] computeMean(DataSource<double[]> data) {
+		final int n = data.size();
+
+		if (n == 0)
+			throw new IllegalArgumentException("Cannot compute the mean of an empty data source");
+
+		final int d = data.numDimensions();
+		final double[][] batch = data.createTemporaryArray(Math.min(batchSize, n));
+		final double[] sum = new double[d];
+
+		for (int start = 0; start < n; start += batch.length) {
+			final int stop = Math.min(n, start + batch.length);
+			data.getData(start, stop, batch);
+
+			for (int i = 0; i < stop - start; i++)
+				for (int j = 0; j < d; j++)
+					sum[j] += batch[i][j];
+		}
+
+		for (int j = 0; j < d; j++)
+			sum[j] /= n;
+
+		return sum;
+	}
+
+	private void learnBasis(DataSource<double[]> data, double[] mu) {
+		final int n = data.size();
+		final int d = data.numDimensions();
+		final int l = Math.min(d, ndims + oversampling);
+
+		final Matrix omega = new Matrix(d, l);
+		final double[][] omegaData = omega.getArray();
+		for (int i = 0; i < d; i++)
+			for (int j = 0; j < l; j++)
+				omegaData[i][j] = rng.nextGaussian();
+
+		Matrix q = orthonormalise(covarianceTimes(data, mu, omega));
+		for (int i = 0; i < powerIterations; i++)
+			q = orthonormalise(covarianceTimes(data, mu, q));
+
+		// project the covariance onto the subspace: B = Q^T C Q, which is
+		// small (l x l) and symmetric
+		final Matrix b = MatrixUtils.transposeTimes(q, covarianceTimes(data, mu, q));
+		final EigenvalueDecomposition eig = b.plus(b.transpose()).times(0.5).eig();
+
+		// eigenvalues are in increasing order, so take the last ndims
+		final int dims = Math.min(ndims, l);
+		final Matrix evecs = eig.getV();
+		final Matrix top = evecs.getMatrix(0, l - 1, l - dims, l - 1);
+		basis = MatrixUtils.times(q, top);
+		MatrixUtils.reverseColumnsInplace(basis);
+
+		final double[] evals = eig.getRealEigenvalues();
+		final double norm = 1.0 / (n > 1 ? n - 1 : n);
+		eigenvalues = new double[dims];
+		for (int i = 0; i < dims; i++)
+			eigenvalues[i] = evals[l - 1 - i] * norm;
+	}
+
+	private static Matrix orthonormalise(Matrix y) {
+		return new QRDecomposition(y).getQ();
+	}
+
+	/**
+	 * Compute the (unnormalised) covariance of the data multiplied by the
+	 * given matrix, without forming the covariance matrix: <code>sum_b
+	 * X_b^T (X_b M)</code> over batches of centred rows <code>X_b</code>.
+	 */
+	private Matrix covarianceTimes(DataSource<double[]> data, double[] mu, Matrix m) {
+		final int n = data.size();
+		final int d = data.numDimensions();
+		final int l = m.getColumnDimension();
+		final int bs = Math.min(batchSize, n);
+
+		final double[][] raw = data.createTemporaryArray(bs);
+		final double[][] centred = new double[bs][d];
+		final double[][] xm = new double[bs][l];
+		final double[][] xtxm = new double[d][l];
+		final double[][] result = new double[d][l];
+
+		for (int start = 0; start < n; start += bs) {
+			final int stop = Math.min(n, start + bs);
+			final int rows = stop - start;
+			data.getData(start, stop, raw);
+
+			for (int i = 0; i < rows; i++)
+				for (int j = 0; j < d; j++)
+					centred[i][j] = raw[i][j] - mu[j];
+
+			final double[][] x = rows == bs ? centred : Arrays.copyOf(centred, rows);
+			final double[][] t = rows == bs ? xm : Arrays.copyOf(xm, rows);
+
+			BlockedMatrixMultiplication.multiply(x, false, m.getArray(), false, t);
+			BlockedMatrixMultiplication.multiply(x, true, t, false, xtxm);
+
+			for (int i = 0; i < d; i++)
+				for (int j = 0; j < l; j++)
+					result[i][j] += xtxm[i][j];
+		}
+
+		return new Matrix(result);
+	}
+}
@@ -0,0 +1,384 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.math.matrix.similarity;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openimaj.util.comparator.DistanceComparator;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+import ch.akuhn.matrix.SparseMatrix;
+import ch.akuhn.matrix.SparseVector;
+
+/**
+ * Construct {@link SimilarityMatrix}s and {@link SparseSimilarityMatrix}s from
+ * a list of items and a {@link DistanceComparator}. The matrix is computed in
+ * square tiles which are processed in parallel. For the sparse forms only the
+ * top-k entries of each row and/or the entries that are better than a
+ * threshold are kept (for a distance "better" means smaller; for a similarity
+ * it means bigger), so the memory required is proportional to the number of
+ * entries kept rather than the square of the number of items. When a top-k
+ * or threshold selection is made, the diagonal (the comparison of each item
+ * with itself) is skipped so that it does not take one of the selected slots;
+ * if all entries are kept the diagonal is included.
+ * <p>
+ * Very large matrices can be streamed straight to disk in the
+ * {@link SparseSimilarityMatrix} binary format with
+ * {@link #write(String[], List, DataOutput)}; in this case only a band of rows
+ * is held in memory at any one time.
+ * 
+ * @param <T>
+ *            the type of item being compared
+ */
+public class SimilarityMatrixBuilder<T> {
+	protected DistanceComparator<? super T> comparator;
+	protected int topK = -1;
+	protected double threshold = Double.NaN;
+	protected int tileSize = 256;
+
+	/**
+	 * Construct a builder that keeps all the entries
+	 * 
+	 * @param comparator
+	 *            the comparator used to compute the entries
+	 */
+	public SimilarityMatrixBuilder(DistanceComparator<? super T> comparator) {
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Construct a builder that keeps the best k entries of each row that are
+	 * also better than the threshold.
+	 * 
+	 * @param comparator
+	 *            the comparator used to compute the entries
+	 * @param topK
+	 *            the number of entries to keep per row; a value less than 1
+	 *            keeps all entries
+	 * @param threshold
+	 *            the threshold; {@link Double#NaN} disables thresholding
+	 */
+	public SimilarityMatrixBuilder(DistanceComparator<? super T> comparator, int topK, double threshold) {
+		this.comparator = comparator;
+		this.topK = topK;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Set the number of entries to keep per row in the sparse forms
+	 * 
+	 * @param topK
+	 *            the number of entries; a value less than 1 keeps all entries
+	 */
+	public void setTopK(int topK) {
+		this.topK = topK;
+	}
+
+	/**
+	 * Set the threshold for entries to keep in the sparse forms
+	 * 
+	 * @param threshold
+	 *            the threshold; {@link Double#NaN} disables thresholding
+	 */
+	public void setThreshold(double threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Set the size of the side of the square tiles that are computed in
+	 * parallel.
+	 * 
+	 * @param tileSize
+	 *            the tile size
+	 */
+	public void setTileSize(int tileSize) {
+		this.tileSize = tileSize;
+	}
+
+	/**
+	 * Build a dense {@link SimilarityMatrix} containing all the entries. The
+	 * top-k and threshold settings are ignored.
+	 * 
+	 * @param index
+	 *            the index, with one entry per item
+	 * @param items
+	 *            the items
+	 * @return the similarity matrix
+	 */
+	public SimilarityMatrix buildDense(String[] index, final List<? extends T> items) {
+		checkIndex(index, items);
+
+		final SimilarityMatrix matrix = new SimilarityMatrix(index);
+		final double[][] data = matrix.getArray();
+		final int n = items.size();
+		final int tiles = (n + tileSize - 1) / tileSize;
+
+		Parallel.forIndex(0, tiles * tiles, 1, new Operation<Integer>() {
+			@Override
+			public void perform(Integer tile) {
+				final int r0 = (tile / tiles) * tileSize;
+				final int c0 = (tile % tiles) * tileSize;
+				final int r1 = Math.min(n, r0 + tileSize);
+				final int c1 = Math.min(n, c0 + tileSize);
+
+				for (int r = r0; r < r1; r++) {
+					final T ri = items.get(r);
+					for (int c = c0; c < c1; c++)
+						data[r][c] = comparator.compare(ri, items.get(c));
+				}
+			}
+		});
+
+		return matrix;
+	}
+
+	/**
+	 * Build a {@link SparseSimilarityMatrix} containing the best entries of
+	 * each row.
+	 * 
+	 * @param index
+	 *            the index, with one entry per item
+	 * @param items
+	 *            the items
+	 * @return the similarity matrix
+	 */
+	public SparseSimilarityMatrix buildSparse(String[] index, List<? extends T> items) {
+		checkIndex(index, items);
+
+		final int n = items.size();
+		final SparseMatrix matrix = new SparseMatrix(n, n);
+		final int band = bandSize();
+
+		for (int r0 = 0; r0 < n; r0 += band) {
+			final int r1 = Math.min(n, r0 + band);
+			final SparseVector[] rows = computeRows(items, r0, r1);
+
+			for (int r = r0; r < r1; r++)
+				matrix.setRow(r, rows[r - r0]);
+		}
+
+		return new SparseSimilarityMatrix(index, matrix);
+	}
+
+	/**
+	 * Compute the sparse similarity matrix and write it directly to the given
+	 * output in the {@link SparseSimilarityMatrix} binary format (including
+	 * the header), so that it can be read back with
+	 * {@link org.openimaj.io.IOUtils#read(java.io.File, Class)}. Only a band of
+	 * rows is held in memory at once.
+	 * 
+	 * @param index
+	 *            the index, with one entry per item
+	 * @param items
+	 *            the items
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if an error occurs writing
+	 */
+	public void write(String[] index, List<? extends T> items, DataOutput out) throws IOException {
+		checkIndex(index, items);
+
+		out.write(SparseSimilarityMatrix.HEADER);
+		SparseSimilarityMatrix.writeIndex(out, index);
+
+		final int n = items.size();
+		final int band = bandSize();
+
+		for (int r0 = 0; r0 < n; r0 += band) {
+			final int r1 = Math.min(n, r0 + band);
+
+			for (final SparseVector row : computeRows(items, r0, r1))
+				SparseSimilarityMatrix.writeRow(out, row);
+		}
+	}
+
+	private void checkIndex(String[] index, List<? extends T> items) {
+		if (index.length != items.size())
+			throw new IllegalArgumentException("index must have same length as the list of items");
+	}
+
+	/**
+	 * Enough rows to give every thread several tiles of work
+	 */
+	private int bandSize() {
+		return tileSize * Math.max(1, GlobalExecutorPool.getPool().getMaximumPoolSize()) * 2;
+	}
+
+	/**
+	 * Compute the selected entries of rows [r0, r1), splitting the rows into
+	 * tiles that are computed in parallel. Each tile of rows is scanned across
+	 * the columns in tile-sized chunks for locality.
+	 */
+	private SparseVector[] computeRows(final List<? extends T> items, final int r0, final int r1) {
+		final int n = items.size();
+		final SparseVector[] rows = new SparseVector[r1 - r0];
+		final int rowTiles = (r1 - r0 + tileSize - 1) / tileSize;
+		final boolean skipSelf = topK > 0 || !Double.isNaN(threshold);
+
+		Parallel.forIndex(0, rowTiles, 1, new Operation<Integer>() {
+			@Override
+			public void perform(Integer tile) {
+				final int tr0 = r0 + tile * tileSize;
+				final int tr1 = Math.min(r1, tr0 + tileSize);
+				final RowSelector[] selectors = new RowSelector[tr1 - tr0];
+				for (int i = 0; i < selectors.length; i++)
+					selectors[i] = new RowSelector(n, topK, threshold, comparator.isDistance());
+
+				for (int c0 = 0; c0 < n; c0 += tileSize) {
+					final int c1 = Math.min(n, c0 + tileSize);
+
+					for (int r = tr0; r < tr1; r++) {
+						final T ri = items.get(r);
+						final RowSelector sel = selectors[r - tr0];
+
+						for (int c = c0; c < c1; c++) {
+							if (skipSelf && c == r)
+								continue;
+							sel.offer(c, comparator.compare(ri, items.get(c)));
+						}
+					}
+				}
+
+				for (int r = tr0; r < tr1; r++)
+					rows[r - r0] = selectors[r - tr0].toVector();
+			}
+		});
+
+		return rows;
+	}
+
+	/**
+	 * Accumulates the entries of a single row, keeping those that pass the
+	 * threshold and (if required) only the best k of those in a bounded heap
+	 * whose root is the worst entry kept so far.
+	 */
+	private static class RowSelector {
+		final int size;
+		final int topK;
+		final double threshold;
+		final boolean smallerIsBetter;
+		int[] cols;
+		double[] vals;
+		int count;
+
+		RowSelector(int size, int topK, double threshold, boolean smallerIsBetter) {
+			this.size = size;
+			this.topK = topK;
+			this.threshold = threshold;
+			this.smallerIsBetter = smallerIsBetter;
+			final int capacity = topK > 0 ? topK : 16;
+			cols = new int[capacity];
+			vals = new double[capacity];
+		}
+
+		boolean better(double a, double b) {
+			return smallerIsBetter ? a < b : a > b;
+		}
+
+		void offer(int col, double val) {
+			if (!Double.isNaN(threshold) && better(threshold, val))
+				return;
+
+			if (topK <= 0) {
+				if (count == cols.length) {
+					cols = Arrays.copyOf(cols, count * 2);
+					vals = Arrays.copyOf(vals, count * 2);
+				}
+				cols[count] = col;
+				vals[count++] = val;
+			} else if (count < topK) {
+				cols[count] = col;
+				vals[count] = val;
+				siftUp(count++);
+			} else if (better(val, vals[0])) {
+				cols[0] = col;
+				vals[0] = val;
+				siftDown(0);
+			}
+		}
+
+		void siftUp(int i) {
+			while (i > 0) {
+				final int p = (i - 1) / 2;
+				if (!better(vals[p], vals[i]))
+					break;
+				swap(i, p);
+				i = p;
+			}
+		}
+
+		void siftDown(int i) {
+			while (true) {
+				final int l = 2 * i + 1;
+				if (l >= count)
+					break;
+
+				int worst = l;
+				if (l + 1 < count && better(vals[l], vals[l + 1]))
+					worst = l + 1;
+				if (!better(vals[i], vals[worst]))
+					break;
+
+				swap(i, worst);
+				i = worst;
+			}
+		}
+
+		void swap(int i, int j) {
+			final int tc = cols[i];
+			cols[i] = cols[j];
+			cols[j] = tc;
+			final double tv = vals[i];
+			vals[i] = vals[j];
+			vals[j] = tv;
+		}
+
+		SparseVector toVector() {
+			// sort the kept entries by column so they can be appended
+			final long[] order = new long[count];
+			for (int i = 0; i < count; i++)
+				order[i] = ((long) cols[i] << 32) | i;
+			Arrays.sort(order);
+
+			final SparseVector vector = new SparseVector(size, count);
+			for (final long o : order) {
+				final int i = (int) o;
+				vector.put(cols[i], vals[i]);
+			}
+			return vector;
+		}
+	}
+}
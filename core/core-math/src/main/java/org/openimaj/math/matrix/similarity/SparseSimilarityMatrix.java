@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.math.matrix.similarity;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.openimaj.io.ReadWriteableBinary;
+import org.openimaj.math.matrix.similarity.processor.SimilarityMatrixProcessor;
+import org.openimaj.math.matrix.similarity.processor.SparseSimilarityMatrixProcessor;
+
+import ch.akuhn.matrix.SparseMatrix;
+import ch.akuhn.matrix.SparseVector;
+import ch.akuhn.matrix.Vector;
+
+/**
+ * A sparse version of the {@link SimilarityMatrix}, which only stores the
+ * entries that have been set (typically the top-k or above-threshold
+ * similarities produced by a {@link SimilarityMatrixBuilder}). The underlying
+ * {@link SparseMatrix} can be passed directly to the similarity-based
+ * clusterers.
+ * <p>
+ * {@link SparseSimilarityMatrixProcessor}s work on the stored entries
+ * directly. The dense {@link SimilarityMatrixProcessor}s can only be applied
+ * to a dense copy, which is refused for matrices with more than
+ * {@link #MAX_DENSE_SIZE} items.
+ * <p>
+ * The binary format is written row by row, so that the
+ * {@link SimilarityMatrixBuilder} can stream matrices that are too large to
+ * hold in memory straight to disk, and they can later be read with
+ * {@link org.openimaj.io.IOUtils}.
+ */
+public class SparseSimilarityMatrix implements ReadWriteableBinary {
+	static final byte[] HEADER = "SpSimMat".getBytes();
+
+	/**
+	 * The largest number of items for which a dense copy will be made. A
+	 * dense copy of this size takes 512MB.
+	 */
+	public static final int MAX_DENSE_SIZE = 8192;
+
+	protected String[] index;
+	protected SparseMatrix matrix;
+
+	/**
+	 * Construct an empty similarity matrix. Only for IOUtils use.
+	 */
+	protected SparseSimilarityMatrix() {
+	}
+
+	/**
+	 * Construct an empty similarity matrix with the given index and set the
+	 * matrix size based on the index length.
+	 * 
+	 * @param index
+	 *            the index.
+	 */
+	public SparseSimilarityMatrix(String[] index) {
+		this(index, new SparseMatrix(index.length, index.length));
+	}
+
+	/**
+	 * Construct a similarity matrix based on the given index and matrix. The
+	 * matrix must be square and its dimensions must be the same as the index
+	 * length.
+	 * 
+	 * @param index
+	 *            the index
+	 * @param matrix
+	 *            the matrix
+	 */
+	public SparseSimilarityMatrix(String[] index, SparseMatrix matrix) {
+		if (matrix.columnCount() != matrix.rowCount())
+			throw new IllegalArgumentException("matrix must be square");
+
+		if (index.length != matrix.rowCount())
+			throw new IllegalArgumentException("index must have same length as matrix sides");
+
+		this.index = index;
+		this.matrix = matrix;
+	}
+
+	/**
+	 * Get the offset in the index for a given value
+	 * 
+	 * @param value
+	 *            the value
+	 * @return the index
+	 */
+	public int indexOf(String value) {
+		return Arrays.binarySearch(index, value);
+	}
+
+	/**
+	 * Set the value of the index at a given offset
+	 * 
+	 * @param i
+	 *            the offset
+	 * @param value
+	 *            the value
+	 */
+	public void setIndexValue(int i, String value) {
+		index[i] = value;
+	}
+
+	/**
+	 * Get a value from the index
+	 * 
+	 * @param i
+	 *            the offset into the index
+	 * @return the value
+	 */
+	public String getIndexValue(int i) {
+		return index[i];
+	}
+
+	/**
+	 * Get the index
+	 * 
+	 * @return the index
+	 */
+	public String[] getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return the number of items in the matrix
+	 */
+	public int size() {
+		return index.length;
+	}
+
+	/**
+	 * Get the similarity between two items
+	 * 
+	 * @param row
+	 *            the first item
+	 * @param column
+	 *            the second item
+	 * @return the similarity, or 0 if it wasn't stored
+	 */
+	public double get(int row, int column) {
+		return matrix.get(row, column);
+	}
+
+	/**
+	 * Set the similarity between two items
+	 * 
+	 * @param row
+	 *            the first item
+	 * @param column
+	 *            the second item
+	 * @param value
+	 *            the similarity
+	 */
+	public void set(int row, int column, double value) {
+		matrix.put(row, column, value);
+	}
+
+	/**
+	 * Get the underlying sparse matrix. This can be given directly to any of
+	 * the similarity-based clusterers.
+	 * 
+	 * @return the sparse matrix
+	 */
+	public SparseMatrix getMatrix() {
+		return matrix;
+	}
+
+	/**
+	 * Convert to a dense {@link SimilarityMatrix}. Entries which are not stored
+	 * are zero.
+	 * 
+	 * @return a dense copy of this matrix
+	 * @throws IllegalStateException
+	 *             if the matrix has more than {@link #MAX_DENSE_SIZE} items
+	 */
+	public SimilarityMatrix toSimilarityMatrix() {
+		if (index.length > MAX_DENSE_SIZE)
+			throw new IllegalStateException("A " + index.length + "x" + index.length
+					+ " matrix is too large to convert to a dense matrix");
+
+		return new SimilarityMatrix(Arrays.copyOf(index, index.length), matrix.asDenseDoubleDouble());
+	}
+
+	/**
+	 * Process a dense copy of this similarity matrix with the given processor
+	 * and return the copy. The {@link SimilarityMatrixProcessor}s work on dense
+	 * matrices, so this is only suitable for matrices that fit in memory in
+	 * dense form; use {@link #processInplace(SparseSimilarityMatrixProcessor)}
+	 * where possible.
+	 * 
+	 * @param proc
+	 *            the processor
+	 * @return a processed dense copy of this matrix
+	 * @throws IllegalStateException
+	 *             if the matrix has more than {@link #MAX_DENSE_SIZE} items
+	 */
+	public SimilarityMatrix process(SimilarityMatrixProcessor proc) {
+		return toSimilarityMatrix().processInplace(proc);
+	}
+
+	/**
+	 * Process the stored entries of this matrix inplace with the given
+	 * processor.
+	 * 
+	 * @param proc
+	 *            the processor
+	 * @return this matrix
+	 */
+	public SparseSimilarityMatrix processInplace(SparseSimilarityMatrixProcessor proc) {
+		proc.process(this);
+		return this;
+	}
+
+	@Override
+	public void readBinary(DataInput in) throws IOException {
+		final int size = in.readInt();
+
+		index = new String[size];
+		for (int i = 0; i < size; i++)
+			index[i] = in.readUTF();
+
+		matrix = new SparseMatrix(size, size);
+		for (int r = 0; r < size; r++) {
+			final int used = in.readInt();
+			final SparseVector row = new SparseVector(size, used);
+
+			for (int i = 0; i < used; i++) {
+				final int c = in.readInt();
+				row.put(c, in.readDouble());
+			}
+
+			matrix.setRow(r, row);
+		}
+	}
+
+	@Override
+	public byte[] binaryHeader() {
+		return HEADER;
+	}
+
+	@Override
+	public void writeBinary(DataOutput out) throws IOException {
+		writeIndex(out, index);
+
+		for (final Vector row : matrix.rows())
+			writeRow(out, (SparseVector) row);
+	}
+
+	static void writeIndex(DataOutput out, String[] index) throws IOException {
+		out.writeInt(index.length);
+
+		for (final String s : index)
+			out.writeUTF(s);
+	}
+
+	static void writeRow(DataOutput out, SparseVector row) throws IOException {
+		final int used = row.used();
+		final int[] keys = row.keys();
+		final double[] values = row.values();
+
+		out.writeInt(used);
+		for (int i = 0; i < used; i++) {
+			out.writeInt(keys[i]);
+			out.writeDouble(values[i]);
+		}
+	}
+}
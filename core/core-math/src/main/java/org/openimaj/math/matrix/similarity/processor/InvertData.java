@@ -30,15 +30,20 @@
 package org.openimaj.math.matrix.similarity.processor;
 
 import org.openimaj.math.matrix.similarity.SimilarityMatrix;
+import org.openimaj.math.matrix.similarity.SparseSimilarityMatrix;
+
+import ch.akuhn.matrix.SparseVector;
+import ch.akuhn.matrix.Vector;
 
 /**
  * A similarity matrix processor that sets inverts all values
- * by setting the smallest to the biggest, etc.
+ * by setting the smallest to the biggest, etc. Applied to a
+ * {@link SparseSimilarityMatrix}, only the stored entries are inverted.
  * 
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  *
  */
-public class InvertData implements SimilarityMatrixProcessor {
+public class InvertData implements SimilarityMatrixProcessor, SparseSimilarityMatrixProcessor {
 	/**
 	 * Default constructor. 
 	 */
@@ -72,4 +77,29 @@ public class InvertData implements SimilarityMatrixProcessor {
 			}
 		}
 	}
+
+	@Override
+	public void process(SparseSimilarityMatrix matrix) {
+		double max = -Double.MAX_VALUE;
+		double min = Double.MAX_VALUE;
+		
+		for (Vector row : matrix.getMatrix().rows()) {
+			final int used = ((SparseVector) row).used();
+			final double[] values = ((SparseVector) row).values();
+			
+			for (int i=0; i<used; i++) {
+				min = Math.min(min, values[i]);
+				max = Math.max(max, values[i]);
+			}
+		}
+		
+		for (Vector row : matrix.getMatrix().rows()) {
+			final int used = ((SparseVector) row).used();
+			final double[] values = ((SparseVector) row).values();
+			
+			for (int i=0; i<used; i++) {
+				values[i] = max - (values[i] - min);
+			}
+		}
+	}
 }
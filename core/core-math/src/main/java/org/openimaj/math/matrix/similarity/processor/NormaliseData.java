@@ -30,14 +30,20 @@
 package org.openimaj.math.matrix.similarity.processor;
 
 import org.openimaj.math.matrix.similarity.SimilarityMatrix;
+import org.openimaj.math.matrix.similarity.SparseSimilarityMatrix;
+
+import ch.akuhn.matrix.SparseVector;
+import ch.akuhn.matrix.Vector;
 
 /**
- * Normalise and optionally invert a {@link SimilarityMatrix}.
+ * Normalise and optionally invert a {@link SimilarityMatrix}. Applied to a
+ * {@link SparseSimilarityMatrix}, only the stored entries are used to find
+ * the range and are normalised.
  * 
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  *
  */
-public class NormaliseData implements SimilarityMatrixProcessor {
+public class NormaliseData implements SimilarityMatrixProcessor, SparseSimilarityMatrixProcessor {
 	boolean invert = false;
 	
 	/**
@@ -86,4 +92,34 @@ public class NormaliseData implements SimilarityMatrixProcessor {
 			}
 		}
 	}
+
+	@Override
+	public void process(SparseSimilarityMatrix matrix) {
+		double max = -Double.MAX_VALUE;
+		double min = Double.MAX_VALUE;
+		
+		for (Vector row : matrix.getMatrix().rows()) {
+			final int used = ((SparseVector) row).used();
+			final double[] values = ((SparseVector) row).values();
+			
+			for (int i=0; i<used; i++) {
+				min = Math.min(min, values[i]);
+				max = Math.max(max, values[i]);
+			}
+		}
+		
+		for (Vector row : matrix.getMatrix().rows()) {
+			final int used = ((SparseVector) row).used();
+			final double[] values = ((SparseVector) row).values();
+			
+			for (int i=0; i<used; i++) {
+				double norm = (values[i] - min) / (max - min);
+				
+				if (invert)
+					norm = 1 - norm;
+				
+				values[i] = norm;
+			}
+		}
+	}
 }
@@ -30,16 +30,21 @@
 package org.openimaj.math.matrix.similarity.processor;
 
 import org.openimaj.math.matrix.similarity.SimilarityMatrix;
+import org.openimaj.math.matrix.similarity.SparseSimilarityMatrix;
+
+import ch.akuhn.matrix.SparseVector;
+import ch.akuhn.matrix.Vector;
 
 /**
  * A similarity matrix processor that sets all values
  * less than a threshold to 0 and all other values to
- * 1.
+ * 1. Applied to a {@link SparseSimilarityMatrix}, only the stored
+ * entries are thresholded.
  * 
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  *
  */
-public class Threshold implements SimilarityMatrixProcessor {
+public class Threshold implements SimilarityMatrixProcessor, SparseSimilarityMatrixProcessor {
 	protected double threshold;
 
 	/**
@@ -67,4 +72,16 @@ public class Threshold implements SimilarityMatrixProcessor {
 		}
 	}
 
+	@Override
+	public void process(SparseSimilarityMatrix matrix) {
+		for (Vector row : matrix.getMatrix().rows()) {
+			final int used = ((SparseVector) row).used();
+			final double[] values = ((SparseVector) row).values();
+			
+			for (int i=0; i<used; i++) {
+				values[i] = values[i] < threshold ? 0 : 1;
+			}
+		}
+	}
+
 }
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.math.matrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+import org.openimaj.util.parallel.Parallel;
+
+import Jama.Matrix;
+
+/**
+ * Tests for {@link BlockedMatrixMultiplication}
+ */
+public class BlockedMatrixMultiplicationTest {
+	private static final double EPS = 1e-8;
+
+	/**
+	 * Compare against Jama for sizes that don't align with the block sizes,
+	 * including ones large enough to run in parallel.
+	 */
+	@Test
+	public void testAgainstJama() {
+		final Random rng = new Random(1);
+		final int[][] sizes = { { 1, 1, 1 }, { 3, 5, 7 }, { 65, 257, 13 }, { 130, 300, 515 } };
+
+		for (final int[] s : sizes) {
+			final Matrix a = Matrix.random(s[0], s[1]);
+			final Matrix b = Matrix.random(s[1], s[2]);
+			a.timesEquals(rng.nextDouble());
+
+			final Matrix expected = a.times(b);
+
+			assertEquals(0, expected.minus(MatrixUtils.times(a, b)).normF(), EPS);
+			assertEquals(0, expected.minus(new Matrix(BlockedMatrixMultiplication.multiply(
+					a.transpose().getArray(), true, b.getArray(), false))).normF(), EPS);
+			assertEquals(0, expected.minus(new Matrix(BlockedMatrixMultiplication.multiply(
+					a.getArray(), false, b.transpose().getArray(), true))).normF(), EPS);
+			assertEquals(0, a.transpose().times(a).minus(MatrixUtils.transposeTimes(a, a)).normF(), EPS);
+		}
+	}
+
+	/**
+	 * Test that the output is overwritten and that the float version agrees
+	 */
+	@Test
+	public void testFloatAndReuse() {
+		final float[][] a = { { 1, 2, 3 }, { 4, 5, 6 } };
+		final float[][] b = { { 1, 0 }, { 0, 1 }, { 1, 1 } };
+		final float[][] c = { { 9, 9 }, { 9, 9 } };
+
+		BlockedMatrixMultiplication.multiply(a, false, b, false, c);
+
+		assertArrayEquals(new float[] { 4, 5 }, c[0], 0f);
+		assertArrayEquals(new float[] { 10, 11 }, c[1], 0f);
+	}
+
+	/**
+	 * Test that mismatched inner dimensions are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDimensionMismatch() {
+		BlockedMatrixMultiplication.multiply(new double[2][3], new double[2][3]);
+	}
+
+	/**
+	 * Test that large products can be computed from inside a parallel loop on
+	 * the global pool without dead-locking it
+	 */
+	@Test(timeout = 30000)
+	public void testNestedInGlobalPool() {
+		final Matrix a = Matrix.random(130, 300);
+		final Matrix b = Matrix.random(300, 515);
+		final Matrix expected = a.times(b);
+		final int n = GlobalExecutorPool.getPool().getMaximumPoolSize() + 1;
+		final double[] errors = new double[n];
+
+		Parallel.forIndex(0, n, 1, new Operation<Integer>() {
+			@Override
+			public void perform(Integer i) {
+				errors[i] = expected.minus(MatrixUtils.times(a, b)).normF();
+			}
+		});
+
+		for (final double error : errors)
+			assertEquals(0, error, EPS);
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.math.matrix.algorithm.pca;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.openimaj.data.DoubleArrayBackedDataSource;
+
+import Jama.Matrix;
+
+/**
+ * Tests for {@link RandomisedPrincipalComponentAnalysis}
+ */
+public class RandomisedPrincipalComponentAnalysisTest extends PrincipalComponentAnalysisTest {
+
+	@Override
+	protected PrincipalComponentAnalysis createPCA() {
+		return new RandomisedPrincipalComponentAnalysis(2);
+	}
+
+	/**
+	 * Check the streamed (batched) computation agrees with a full SVD on
+	 * higher dimensional data with a decaying spectrum.
+	 */
+	@Test
+	public void testAgainstSvd() {
+		final Random rng = new Random(42);
+		final int n = 2500;
+		final int d = 50;
+		final double[][] data = new double[n][d];
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < d; j++)
+				data[i][j] = 5 + rng.nextGaussian() * 20.0 / (j + 1);
+
+		final SvdPrincipalComponentAnalysis svd = new SvdPrincipalComponentAnalysis(5);
+		svd.learnBasis(data);
+
+		final RandomisedPrincipalComponentAnalysis rpca = new RandomisedPrincipalComponentAnalysis(5, 10, 2, 300,
+				new Random(1));
+		rpca.learnBasis(new DoubleArrayBackedDataSource(data));
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(svd.getEigenValues()[i], rpca.getEigenValues()[i], 1e-3 * svd.getEigenValues()[i]);
+			assertEquals(svd.getMean()[i], rpca.getMean()[i], 1e-10);
+
+			final Matrix a = svd.getBasis().getMatrix(0, d - 1, i, i);
+			final Matrix b = rpca.getBasis().getMatrix(0, d - 1, i, i);
+			assertEquals(1, Math.abs(a.transpose().times(b).get(0, 0)), 1e-3);
+		}
+	}
+
+	/**
+	 * An empty data source has no mean, so must be rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmpty() {
+		new RandomisedPrincipalComponentAnalysis(2).learnBasis(new DoubleArrayBackedDataSource(new double[0][3]));
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.math.matrix.similarity;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openimaj.io.IOUtils;
+import org.openimaj.util.comparator.DistanceComparator;
+
+import ch.akuhn.matrix.SparseVector;
+
+/**
+ * Tests for {@link SimilarityMatrixBuilder} and {@link SparseSimilarityMatrix}
+ */
+public class SimilarityMatrixBuilderTest {
+	/**
+	 * Temporary directory for IO tests
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final DistanceComparator<double[]> EUCLIDEAN = new DistanceComparator<double[]>() {
+		@Override
+		public double compare(double[] o1, double[] o2) {
+			double sum = 0;
+			for (int i = 0; i < o1.length; i++)
+				sum += (o1[i] - o2[i]) * (o1[i] - o2[i]);
+			return Math.sqrt(sum);
+		}
+
+		@Override
+		public boolean isDistance() {
+			return true;
+		}
+	};
+
+	List<double[]> items;
+	String[] index;
+
+	/**
+	 * Setup
+	 */
+	@Before
+	public void setup() {
+		final Random rng = new Random(1);
+		items = new ArrayList<double[]>();
+		index = new String[103];
+		for (int i = 0; i < index.length; i++) {
+			items.add(new double[] { rng.nextDouble(), rng.nextDouble(), rng.nextDouble() });
+			index[i] = "item" + i;
+		}
+	}
+
+	/**
+	 * Test the dense matrix has every entry
+	 */
+	@Test
+	public void testDense() {
+		final SimilarityMatrixBuilder<double[]> builder = new SimilarityMatrixBuilder<double[]>(EUCLIDEAN);
+		builder.setTileSize(10);
+		final SimilarityMatrix m = builder.buildDense(index, items);
+
+		for (int r = 0; r < index.length; r++)
+			for (int c = 0; c < index.length; c++)
+				assertEquals(EUCLIDEAN.compare(items.get(r), items.get(c)), m.get(r, c), 0);
+	}
+
+	/**
+	 * Test that the top-k and threshold selections keep the right entries
+	 */
+	@Test
+	public void testSparseSelection() {
+		final int k = 5;
+		final double threshold = 0.3;
+		final SimilarityMatrixBuilder<double[]> builder = new SimilarityMatrixBuilder<double[]>(EUCLIDEAN, k,
+				threshold);
+		builder.setTileSize(16);
+		final SparseSimilarityMatrix m = builder.buildSparse(index, items);
+
+		for (int r = 0; r < index.length; r++) {
+			// the diagonal is never selected
+			final double[] dists = new double[index.length];
+			for (int c = 0; c < index.length; c++)
+				dists[c] = c == r ? Double.MAX_VALUE : EUCLIDEAN.compare(items.get(r), items.get(c));
+			final double[] sorted = dists.clone();
+			Arrays.sort(sorted);
+
+			int expected = 0;
+			for (int i = 0; i < k; i++)
+				if (sorted[i] <= threshold)
+					expected++;
+
+			final SparseVector row = (SparseVector) m.getMatrix().row(r);
+			assertEquals(expected, row.used());
+			assertFalse(row.isUsed(r));
+			for (int c = 0; c < index.length; c++) {
+				final boolean keep = dists[c] <= threshold && dists[c] <= sorted[k - 1];
+				assertEquals(keep, row.isUsed(c));
+				if (keep)
+					assertEquals(dists[c], m.get(r, c), 1e-6);
+			}
+		}
+	}
+
+	/**
+	 * Test that the diagonal is kept when all entries are kept, but skipped
+	 * when only the top-k are kept
+	 */
+	@Test
+	public void testSparseDiagonal() {
+		final SimilarityMatrixBuilder<double[]> all = new SimilarityMatrixBuilder<double[]>(EUCLIDEAN);
+		all.setTileSize(16);
+		final SparseSimilarityMatrix allm = all.buildSparse(index, items);
+
+		final SimilarityMatrixBuilder<double[]> top = new SimilarityMatrixBuilder<double[]>(EUCLIDEAN, 1, Double.NaN);
+		top.setTileSize(16);
+		final SparseSimilarityMatrix topm = top.buildSparse(index, items);
+
+		for (int r = 0; r < index.length; r++) {
+			assertEquals(index.length, allm.getMatrix().row(r).used());
+
+			// the single kept entry is the nearest other item
+			int nearest = -1;
+			for (int c = 0; c < index.length; c++)
+				if (c != r && (nearest < 0 || EUCLIDEAN.compare(items.get(r), items.get(c)) < EUCLIDEAN.compare(
+						items.get(r), items.get(nearest))))
+					nearest = c;
+
+			final SparseVector row = (SparseVector) topm.getMatrix().row(r);
+			assertEquals(1, row.used());
+			assertTrue(row.isUsed(nearest));
+		}
+	}
+
+	/**
+	 * Test that a streamed matrix can be read back and is the same as the one
+	 * built in memory
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testWriteRead() throws IOException {
+		final SimilarityMatrixBuilder<double[]> builder = new SimilarityMatrixBuilder<double[]>(EUCLIDEAN, 10,
+				Double.NaN);
+		builder.setTileSize(7);
+
+		final File file = folder.newFile("sparse.bin");
+		final DataOutputStream dos = new DataOutputStream(new FileOutputStream(file));
+		builder.write(index, items, dos);
+		dos.close();
+
+		final SparseSimilarityMatrix read = IOUtils.read(file, SparseSimilarityMatrix.class);
+		final SparseSimilarityMatrix built = builder.buildSparse(index, items);
+
+		assertArrayEquals(index, read.getIndex());
+		assertEquals(built.getMatrix(), read.getMatrix());
+
+		final File file2 = folder.newFile("sparse2.bin");
+		IOUtils.writeBinary(file2, built);
+		assertEquals(built.getMatrix(), IOUtils.read(file2, SparseSimilarityMatrix.class).getMatrix());
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.math.matrix.similarity;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openimaj.math.matrix.similarity.processor.InvertData;
+import org.openimaj.math.matrix.similarity.processor.NormaliseData;
+import org.openimaj.math.matrix.similarity.processor.Threshold;
+
+/**
+ * Tests for {@link SparseSimilarityMatrix}
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ *
+ */
+public class SparseSimilarityMatrixTest {
+	SparseSimilarityMatrix mat;
+
+	/**
+	 * setup
+	 */
+	@Before
+	public void setup() {
+		mat = new SparseSimilarityMatrix(new String[]{"a","b","c","d"});
+		mat.set(0, 1, 2);
+		mat.set(1, 2, 4);
+		mat.set(3, 0, 6);
+	}
+
+	/**
+	 * Thresholding only touches the stored entries
+	 */
+	@Test
+	public void testThreshold() {
+		mat.processInplace(new Threshold(3));
+
+		assertEquals(0, mat.get(0, 1), 0);
+		assertEquals(1, mat.get(1, 2), 0);
+		assertEquals(1, mat.get(3, 0), 0);
+		assertEquals(0, mat.get(2, 2), 0);
+	}
+
+	/**
+	 * Normalisation takes its range from the stored entries and leaves the
+	 * missing ones missing
+	 */
+	@Test
+	public void testNormalise() {
+		mat.processInplace(new NormaliseData(true));
+
+		assertEquals(1, mat.get(0, 1), 1e-6);
+		assertEquals(0.5, mat.get(1, 2), 1e-6);
+		assertEquals(0, mat.get(3, 0), 1e-6);
+		assertEquals(0, mat.get(2, 3), 0);
+		assertEquals(3, mat.getMatrix().used());
+	}
+
+	/**
+	 * Inversion maps the largest stored entry onto the smallest
+	 */
+	@Test
+	public void testInvert() {
+		mat.processInplace(new InvertData());
+
+		assertEquals(6, mat.get(0, 1), 1e-6);
+		assertEquals(4, mat.get(1, 2), 1e-6);
+		assertEquals(2, mat.get(3, 0), 1e-6);
+		assertEquals(0, mat.get(1, 0), 0);
+	}
+
+	/**
+	 * The dense processors agree with the sparse ones on small matrices
+	 */
+	@Test
+	public void testDense() {
+		SimilarityMatrix dense = mat.process(new Threshold(3));
+
+		assertEquals(4, dense.getRowDimension());
+		assertEquals(1, dense.get(1, 2), 0);
+		assertEquals(0, dense.get(0, 1), 0);
+	}
+
+	/**
+	 * Matrices too big to copy densely are refused rather than allocated
+	 */
+	@Test(expected=IllegalStateException.class)
+	public void testTooBigForDense() {
+		new SparseSimilarityMatrix(new String[SparseSimilarityMatrix.MAX_DENSE_SIZE + 1]).toSimilarityMatrix();
+	}
+}
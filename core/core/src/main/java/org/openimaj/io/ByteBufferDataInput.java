@@ -0,0 +1,321 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.io;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link DataInput} that reads directly from a {@link ByteBuffer}, such as a
+ * {@link java.nio.MappedByteBuffer} over a file or a buffer wrapping a byte
+ * array. Unlike a {@link DataInputStream}, no bytes are copied through an
+ * intermediate stream buffer, and primitive arrays can be read in bulk using
+ * the <code>readFully</code> methods (which {@link IOUtils} uses for any
+ * {@link DataInput} it is given). The data is interpreted in big-endian order,
+ * so anything written to a {@link java.io.DataOutput} can be read back.
+ * <p>
+ * The underlying buffer is duplicated on construction, so the position of the
+ * original buffer is not changed by reading.
+ */
+public class ByteBufferDataInput implements DataInput {
+	private final ByteBuffer buffer;
+
+	/**
+	 * Construct with the given buffer. Reading will start from the current
+	 * position of the buffer and end at its limit.
+	 * 
+	 * @param buffer
+	 *            the buffer to read from
+	 */
+	public ByteBufferDataInput(ByteBuffer buffer) {
+		this.buffer = buffer.duplicate();
+		this.buffer.order(ByteOrder.BIG_ENDIAN);
+	}
+
+	/**
+	 * Construct with the given byte array.
+	 * 
+	 * @param data
+	 *            the data to read from
+	 */
+	public ByteBufferDataInput(byte[] data) {
+		this(ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Get the underlying buffer. The buffer's position is the position of the
+	 * next byte that will be read.
+	 * 
+	 * @return the buffer
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * @return the number of bytes that can still be read
+	 */
+	public int remaining() {
+		return buffer.remaining();
+	}
+
+	private void require(int nbytes) throws EOFException {
+		if (buffer.remaining() < nbytes)
+			throw new EOFException();
+	}
+
+	@Override
+	public void readFully(byte[] b) throws IOException {
+		readFully(b, 0, b.length);
+	}
+
+	@Override
+	public void readFully(byte[] b, int off, int len) throws IOException {
+		require(len);
+		buffer.get(b, off, len);
+	}
+
+	/**
+	 * Read <code>len</code> shorts into the given array in a single bulk
+	 * operation.
+	 * 
+	 * @param s
+	 *            the array to fill
+	 * @param off
+	 *            the offset into the array
+	 * @param len
+	 *            the number of values to read
+	 * @throws IOException
+	 *             if there are not enough bytes remaining
+	 */
+	public void readFully(short[] s, int off, int len) throws IOException {
+		require(len * 2);
+		buffer.asShortBuffer().get(s, off, len);
+		skip(len * 2);
+	}
+
+	/**
+	 * Read <code>len</code> ints into the given array in a single bulk
+	 * operation.
+	 * 
+	 * @param i
+	 *            the array to fill
+	 * @param off
+	 *            the offset into the array
+	 * @param len
+	 *            the number of values to read
+	 * @throws IOException
+	 *             if there are not enough bytes remaining
+	 */
+	public void readFully(int[] i, int off, int len) throws IOException {
+		require(len * 4);
+		buffer.asIntBuffer().get(i, off, len);
+		skip(len * 4);
+	}
+
+	/**
+	 * Read <code>len</code> longs into the given array in a single bulk
+	 * operation.
+	 * 
+	 * @param l
+	 *            the array to fill
+	 * @param off
+	 *            the offset into the array
+	 * @param len
+	 *            the number of values to read
+	 * @throws IOException
+	 *             if there are not enough bytes remaining
+	 */
+	public void readFully(long[] l, int off, int len) throws IOException {
+		require(len * 8);
+		buffer.asLongBuffer().get(l, off, len);
+		skip(len * 8);
+	}
+
+	/**
+	 * Read <code>len</code> floats into the given array in a single bulk
+	 * operation.
+	 * 
+	 * @param f
+	 *            the array to fill
+	 * @param off
+	 *            the offset into the array
+	 * @param len
+	 *            the number of values to read
+	 * @throws IOException
+	 *             if there are not enough bytes remaining
+	 */
+	public void readFully(float[] f, int off, int len) throws IOException {
+		require(len * 4);
+		buffer.asFloatBuffer().get(f, off, len);
+		skip(len * 4);
+	}
+
+	/**
+	 * Read <code>len</code> doubles into the given array in a single bulk
+	 * operation.
+	 * 
+	 * @param d
+	 *            the array to fill
+	 * @param off
+	 *            the offset into the array
+	 * @param len
+	 *            the number of values to read
+	 * @throws IOException
+	 *             if there are not enough bytes remaining
+	 */
+	public void readFully(double[] d, int off, int len) throws IOException {
+		require(len * 8);
+		buffer.asDoubleBuffer().get(d, off, len);
+		skip(len * 8);
+	}
+
+	private void skip(int n) {
+		buffer.position(buffer.position() + n);
+	}
+
+	@Override
+	public int skipBytes(int n) throws IOException {
+		final int skip = Math.max(0, Math.min(n, buffer.remaining()));
+		skip(skip);
+		return skip;
+	}
+
+	@Override
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+
+	@Override
+	public byte readByte() throws IOException {
+		try {
+			return buffer.get();
+		} catch (final BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+
+	@Override
+	public int readUnsignedByte() throws IOException {
+		return readByte() & 0xff;
+	}
+
+	@Override
+	public short readShort() throws IOException {
+		try {
+			return buffer.getShort();
+		} catch (final BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+
+	@Override
+	public int readUnsignedShort() throws IOException {
+		return readShort() & 0xffff;
+	}
+
+	@Override
+	public char readChar() throws IOException {
+		try {
+			return buffer.getChar();
+		} catch (final BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+
+	@Override
+	public int readInt() throws IOException {
+		try {
+			return buffer.getInt();
+		} catch (final BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+
+	@Override
+	public long readLong() throws IOException {
+		try {
+			return buffer.getLong();
+		} catch (final BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+
+	@Override
+	public float readFloat() throws IOException {
+		try {
+			return buffer.getFloat();
+		} catch (final BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+
+	@Override
+	public double readDouble() throws IOException {
+		try {
+			return buffer.getDouble();
+		} catch (final BufferUnderflowException e) {
+			throw new EOFException();
+		}
+	}
+
+	@Override
+	public String readLine() throws IOException {
+		if (!buffer.hasRemaining())
+			return null;
+
+		final StringBuilder sb = new StringBuilder();
+		while (buffer.hasRemaining()) {
+			final int c = buffer.get() & 0xff;
+
+			if (c == '\n')
+				break;
+
+			if (c == '\r') {
+				if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n')
+					buffer.get();
+				break;
+			}
+
+			sb.append((char) c);
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String readUTF() throws IOException {
+		return DataInputStream.readUTF(this);
+	}
+}
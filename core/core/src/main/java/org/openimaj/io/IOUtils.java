@@ -51,6 +51,9 @@ import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Scanner;
 
@@ -449,6 +452,132 @@ public class IOUtils {
 		return read(fis, newInstance(cls));
 	}
 
+	/**
+	 * Read a new instance of type class from a file by memory-mapping the
+	 * file. If the file contains the binary header of the object, the object
+	 * is read directly from the mapped bytes through a
+	 * {@link ByteBufferDataInput}, avoiding the copying performed by the
+	 * stream based methods. ASCII files, and files that are too big to be
+	 * mapped in one go, are read using {@link #read(File, Class)}.
+	 * 
+	 * @param <T>
+	 *            instance type expected
+	 * @param f
+	 *            the file
+	 * @param cls
+	 *            the class
+	 * @return new instance of class instantiated from the file
+	 * @throws IOException
+	 *             problem reading file
+	 */
+	public static <T extends InternalReadable> T readMapped(File f, Class<T> cls) throws IOException {
+		return readMapped(f, newInstance(cls));
+	}
+
+	/**
+	 * Read an object from a file by memory-mapping the file. If the file
+	 * contains the binary header of the object, the object is read directly
+	 * from the mapped bytes through a {@link ByteBufferDataInput}, avoiding the
+	 * copying performed by the stream based methods. ASCII files, and files
+	 * that are too big to be mapped in one go, are read using
+	 * {@link #read(File, InternalReadable)}.
+	 * 
+	 * @param <T>
+	 *            instance type expected
+	 * @param f
+	 *            the file
+	 * @param obj
+	 *            the object to read into
+	 * @return the object
+	 * @throws IOException
+	 *             problem reading file
+	 */
+	public static <T extends InternalReadable> T readMapped(File f, T obj) throws IOException {
+		if (f.length() > Integer.MAX_VALUE)
+			return read(f, obj);
+
+		return read(map(f), obj);
+	}
+
+	/**
+	 * Read an instance of an object from a {@link ByteBuffer}, starting at the
+	 * buffer's current position. The buffer is tested to contain the ASCII or
+	 * binary header and the appropriate read instance is called. Binary data
+	 * is read directly from the buffer using a {@link ByteBufferDataInput}. The
+	 * position of the given buffer is not changed.
+	 * 
+	 * @param <T>
+	 *            instance type expected
+	 * @param buffer
+	 *            the buffer
+	 * @param obj
+	 *            the object to instantiate
+	 * @return the object
+	 * @throws IOException
+	 *             if there is a problem reading the buffer
+	 */
+	public static <T extends InternalReadable> T read(ByteBuffer buffer, T obj) throws IOException {
+		if (obj instanceof ReadableBinary && isBinary(buffer, ((ReadableBinary) obj).binaryHeader())) {
+			final ByteBufferDataInput in = new ByteBufferDataInput(buffer);
+			in.skipBytes(((ReadableBinary) obj).binaryHeader().length);
+			((ReadableBinary) obj).readBinary(in);
+			return obj;
+		}
+
+		if (buffer.hasArray())
+			return read(new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(),
+					buffer.remaining()), obj);
+
+		final byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return read(new ByteArrayInputStream(bytes), obj);
+	}
+
+	/**
+	 * Memory-map the given file for reading. The mapping remains valid until
+	 * the returned buffer is garbage collected, even though the underlying
+	 * file is closed before this method returns.
+	 * 
+	 * @param f
+	 *            the file
+	 * @return a read-only buffer over the contents of the file
+	 * @throws IOException
+	 *             if the file cannot be mapped (for example if it is larger
+	 *             than {@link Integer#MAX_VALUE} bytes)
+	 */
+	public static MappedByteBuffer map(File f) throws IOException {
+		final FileInputStream fis = new FileInputStream(f);
+		try {
+			final FileChannel channel = fis.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			fis.close();
+		}
+	}
+
+	/**
+	 * Checks whether a given buffer contains readable binary information by
+	 * checking whether the bytes from its current position match the header.
+	 * The position of the buffer is not changed.
+	 * 
+	 * @param buffer
+	 *            buffer containing data
+	 * @param header
+	 *            expected binary header
+	 * @return does the buffer contain binary information
+	 */
+	public static boolean isBinary(ByteBuffer buffer, byte[] header) {
+		if (buffer.remaining() < header.length)
+			return false;
+
+		final int pos = buffer.position();
+		for (int i = 0; i < header.length; i++)
+			if (buffer.get(pos + i) != header[i])
+				return false;
+
+		return true;
+	}
+
 	/**
 	 * Opens an input stream and calls input stream version
 	 * 
@@ -464,23 +593,27 @@ public class IOUtils {
 	 */
 	public static boolean isBinary(File f, byte[] header) throws IOException {
 		FileInputStream fis = null;
-		BufferedInputStream bis = null;
 		try {
 			fis = new FileInputStream(f);
-			bis = new BufferedInputStream(fis);
 
-			return isBinary(bis, header);
+			// only the header bytes are needed, so read them directly rather
+			// than filling a buffered stream
+			final byte[] aheader = new byte[header.length];
+			int n = 0;
+			while (n < aheader.length) {
+				final int r = fis.read(aheader, n, aheader.length - n);
+				if (r < 0)
+					break;
+				n += r;
+			}
+
+			return Arrays.equals(aheader, header);
 		} finally {
 			if (fis != null)
 				try {
 					fis.close();
 				} catch (final IOException e) {
 				}
-			if (bis != null)
-				try {
-					bis.close();
-				} catch (final IOException e) {
-				}
 		}
 	}
 
@@ -918,8 +1051,8 @@ public class IOUtils {
 
 	/**
 	 * Convenience function for deserializing an object from a byte array. Calls
-	 * {@link IOUtils#read(InputStream, Class)} on a
-	 * {@link ByteArrayInputStream}.
+	 * {@link IOUtils#read(ByteBuffer, InternalReadable)} on a {@link ByteBuffer}
+	 * wrapping the array, so binary data is read without being copied.
 	 * 
 	 * @param source
 	 *            where to read from
@@ -931,15 +1064,13 @@ public class IOUtils {
 	 * @throws IOException
 	 */
 	public static <T extends ReadableBinary> T deserialize(byte[] source, Class<T> clazz) throws IOException {
-		final ByteArrayInputStream stream = new ByteArrayInputStream(source);
-		final T out = IOUtils.read(stream, clazz);
-		return out;
+		return IOUtils.read(ByteBuffer.wrap(source), newInstance(clazz));
 	}
 
 	/**
 	 * Convenience function for deserializing an object from a byte array. Calls
-	 * {@link IOUtils#read(InputStream, Class)} on a
-	 * {@link ByteArrayInputStream}.
+	 * {@link IOUtils#read(ByteBuffer, InternalReadable)} on a {@link ByteBuffer}
+	 * wrapping the array, so binary data is read without being copied.
 	 * 
 	 * @param source
 	 *            where to read from
@@ -953,16 +1084,14 @@ public class IOUtils {
 	 * @throws IOException
 	 */
 	public static <T extends ReadableBinary> T deserialize(byte[] source, long skip, Class<T> clazz) throws IOException {
-		final ByteArrayInputStream stream = new ByteArrayInputStream(source);
-		stream.skip(skip);
-		final T out = IOUtils.read(stream, clazz);
-		return out;
+		final int offset = (int) Math.max(0, Math.min(skip, source.length));
+		return IOUtils.read(ByteBuffer.wrap(source, offset, source.length - offset), newInstance(clazz));
 	}
 
 	/**
 	 * Convenience function for deserializing an object from a byte array. Calls
-	 * {@link IOUtils#read(InputStream, Class)} on a
-	 * {@link ByteArrayInputStream}.
+	 * {@link IOUtils#read(ByteBuffer, InternalReadable)} on a {@link ByteBuffer}
+	 * wrapping the array, so binary data is read without being copied.
 	 * 
 	 * @param source
 	 *            where to read from
@@ -974,9 +1103,289 @@ public class IOUtils {
 	 * @throws IOException
 	 */
 	public static <T extends InternalReadable> T deserialize(byte[] source, T instance) throws IOException {
-		final ByteArrayInputStream stream = new ByteArrayInputStream(source);
-		final T out = IOUtils.read(stream, instance);
-		return out;
+		return IOUtils.read(ByteBuffer.wrap(source), instance);
+	}
+
+	/**
+	 * The maximum number of bytes read at a time by the bulk array reading
+	 * methods when the {@link DataInput} isn't a {@link ByteBufferDataInput}.
+	 */
+	private static final int BULK_READ_SIZE = 8192;
+
+	/**
+	 * Fill the given array from a {@link DataInput}. This is equivalent to
+	 * {@link DataInput#readFully(byte[])}, and is provided so that all the
+	 * primitive array types can be read in the same way.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param b
+	 *            the array to fill
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, byte[] b) throws IOException {
+		in.readFully(b);
+	}
+
+	/**
+	 * Fill the given array with shorts read from a {@link DataInput}. The
+	 * result is the same as calling {@link DataInput#readShort()} for every
+	 * element, but the values are read in bulk.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param data
+	 *            the array to fill
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, short[] data) throws IOException {
+		readFully(in, data, 0, data.length);
+	}
+
+	/**
+	 * Read <code>len</code> shorts from a {@link DataInput} into the given
+	 * array. The result is the same as calling {@link DataInput#readShort()}
+	 * <code>len</code> times, but the values are read in bulk; directly from
+	 * the underlying buffer in the case of a {@link ByteBufferDataInput}, and
+	 * in blocks of bytes otherwise.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param data
+	 *            the array to fill
+	 * @param off
+	 *            the offset into the array
+	 * @param len
+	 *            the number of values to read
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, short[] data, int off, int len) throws IOException {
+		if (in instanceof ByteBufferDataInput) {
+			((ByteBufferDataInput) in).readFully(data, off, len);
+			return;
+		}
+
+		final byte[] bytes = new byte[Math.min(len, BULK_READ_SIZE / 2) * 2];
+		final ByteBuffer bb = ByteBuffer.wrap(bytes);
+		while (len > 0) {
+			final int n = Math.min(len, bytes.length / 2);
+			in.readFully(bytes, 0, n * 2);
+			bb.clear();
+			bb.asShortBuffer().get(data, off, n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Fill the given array with ints read from a {@link DataInput}. The
+	 * result is the same as calling {@link DataInput#readInt()} for every
+	 * element, but the values are read in bulk.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param data
+	 *            the array to fill
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, int[] data) throws IOException {
+		readFully(in, data, 0, data.length);
+	}
+
+	/**
+	 * Read <code>len</code> ints from a {@link DataInput} into the given
+	 * array. The result is the same as calling {@link DataInput#readInt()}
+	 * <code>len</code> times, but the values are read in bulk; directly from
+	 * the underlying buffer in the case of a {@link ByteBufferDataInput}, and
+	 * in blocks of bytes otherwise.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param data
+	 *            the array to fill
+	 * @param off
+	 *            the offset into the array
+	 * @param len
+	 *            the number of values to read
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, int[] data, int off, int len) throws IOException {
+		if (in instanceof ByteBufferDataInput) {
+			((ByteBufferDataInput) in).readFully(data, off, len);
+			return;
+		}
+
+		final byte[] bytes = new byte[Math.min(len, BULK_READ_SIZE / 4) * 4];
+		final ByteBuffer bb = ByteBuffer.wrap(bytes);
+		while (len > 0) {
+			final int n = Math.min(len, bytes.length / 4);
+			in.readFully(bytes, 0, n * 4);
+			bb.clear();
+			bb.asIntBuffer().get(data, off, n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Fill the given array with longs read from a {@link DataInput}. The
+	 * result is the same as calling {@link DataInput#readLong()} for every
+	 * element, but the values are read in bulk.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param data
+	 *            the array to fill
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, long[] data) throws IOException {
+		readFully(in, data, 0, data.length);
+	}
+
+	/**
+	 * Read <code>len</code> longs from a {@link DataInput} into the given
+	 * array. The result is the same as calling {@link DataInput#readLong()}
+	 * <code>len</code> times, but the values are read in bulk; directly from
+	 * the underlying buffer in the case of a {@link ByteBufferDataInput}, and
+	 * in blocks of bytes otherwise.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param data
+	 *            the array to fill
+	 * @param off
+	 *            the offset into the array
+	 * @param len
+	 *            the number of values to read
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, long[] data, int off, int len) throws IOException {
+		if (in instanceof ByteBufferDataInput) {
+			((ByteBufferDataInput) in).readFully(data, off, len);
+			return;
+		}
+
+		final byte[] bytes = new byte[Math.min(len, BULK_READ_SIZE / 8) * 8];
+		final ByteBuffer bb = ByteBuffer.wrap(bytes);
+		while (len > 0) {
+			final int n = Math.min(len, bytes.length / 8);
+			in.readFully(bytes, 0, n * 8);
+			bb.clear();
+			bb.asLongBuffer().get(data, off, n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Fill the given array with floats read from a {@link DataInput}. The
+	 * result is the same as calling {@link DataInput#readFloat()} for every
+	 * element, but the values are read in bulk.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param data
+	 *            the array to fill
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, float[] data) throws IOException {
+		readFully(in, data, 0, data.length);
+	}
+
+	/**
+	 * Read <code>len</code> floats from a {@link DataInput} into the given
+	 * array. The result is the same as calling {@link DataInput#readFloat()}
+	 * <code>len</code> times, but the values are read in bulk; directly from
+	 * the underlying buffer in the case of a {@link ByteBufferDataInput}, and
+	 * in blocks of bytes otherwise.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param data
+	 *            the array to fill
+	 * @param off
+	 *            the offset into the array
+	 * @param len
+	 *            the number of values to read
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, float[] data, int off, int len) throws IOException {
+		if (in instanceof ByteBufferDataInput) {
+			((ByteBufferDataInput) in).readFully(data, off, len);
+			return;
+		}
+
+		final byte[] bytes = new byte[Math.min(len, BULK_READ_SIZE / 4) * 4];
+		final ByteBuffer bb = ByteBuffer.wrap(bytes);
+		while (len > 0) {
+			final int n = Math.min(len, bytes.length / 4);
+			in.readFully(bytes, 0, n * 4);
+			bb.clear();
+			bb.asFloatBuffer().get(data, off, n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Fill the given array with doubles read from a {@link DataInput}. The
+	 * result is the same as calling {@link DataInput#readDouble()} for every
+	 * element, but the values are read in bulk.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param data
+	 *            the array to fill
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, double[] data) throws IOException {
+		readFully(in, data, 0, data.length);
+	}
+
+	/**
+	 * Read <code>len</code> doubles from a {@link DataInput} into the given
+	 * array. The result is the same as calling {@link DataInput#readDouble()}
+	 * <code>len</code> times, but the values are read in bulk; directly from
+	 * the underlying buffer in the case of a {@link ByteBufferDataInput}, and
+	 * in blocks of bytes otherwise.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param data
+	 *            the array to fill
+	 * @param off
+	 *            the offset into the array
+	 * @param len
+	 *            the number of values to read
+	 * @throws IOException
+	 *             if an error occurs
+	 */
+	public static void readFully(DataInput in, double[] data, int off, int len) throws IOException {
+		if (in instanceof ByteBufferDataInput) {
+			((ByteBufferDataInput) in).readFully(data, off, len);
+			return;
+		}
+
+		final byte[] bytes = new byte[Math.min(len, BULK_READ_SIZE / 8) * 8];
+		final ByteBuffer bb = ByteBuffer.wrap(bytes);
+		while (len > 0) {
+			final int n = Math.min(len, bytes.length / 8);
+			in.readFully(bytes, 0, n * 8);
+			bb.clear();
+			bb.asDoubleBuffer().get(data, off, n);
+			off += n;
+			len -= n;
+		}
 	}
 
 	/**
@@ -1069,6 +1478,9 @@ public class IOUtils {
 	 * @throws IOException
 	 */
 	public static <T> T readFromFile(File in) throws IOException {
+		if (in.length() <= Integer.MAX_VALUE)
+			return IOUtils.<T> read(new ByteBufferDataInput(map(in)));
+
 		DataInputStream din = null;
 		try {
 			din = new DataInputStream(new FileInputStream(in));
@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An {@link InputStream} which reads from another stream in a background
+ * thread, keeping a bounded number of blocks ready for the consumer. This is
+ * useful when the underlying stream is expensive to read (for example when it
+ * is decompressing a gzip or bzip2 file) as the decompression then overlaps
+ * with whatever the consumer is doing with the data. The blocks are recycled,
+ * so once running no further memory is allocated.
+ * <p>
+ * The underlying stream is only ever used by the background thread, which
+ * closes it when it reaches the end of the stream or after
+ * {@link #close()} is called (once any read it is in the middle of has
+ * returned).
+ * <p>
+ * If reading the underlying stream fails, the bytes read before the failure
+ * are still returned, after which every further read rethrows the same
+ * {@link IOException}.
+ */
+public class ReadAheadInputStream extends InputStream {
+	/**
+	 * Default size of each block
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+	/**
+	 * Default number of blocks to read ahead
+	 */
+	public static final int DEFAULT_BLOCKS = 8;
+
+	private static class Block {
+		byte[] data;
+		int length;
+		IOException error;
+
+		Block(int size) {
+			this.data = new byte[size];
+		}
+	}
+
+	private final InputStream in;
+	private final BlockingQueue<Block> full;
+	private final BlockingQueue<Block> empty;
+	private final Thread reader;
+	private volatile boolean closed;
+
+	private Block current;
+	private int pos;
+	private boolean eof;
+	private IOException error;
+
+	/**
+	 * Construct with the default block size and number of blocks
+	 * 
+	 * @param in
+	 *            the stream to read from
+	 */
+	public ReadAheadInputStream(InputStream in) {
+		this(in, DEFAULT_BLOCK_SIZE, DEFAULT_BLOCKS);
+	}
+
+	/**
+	 * Construct with the given block size and number of blocks. The
+	 * background thread is started immediately.
+	 * 
+	 * @param in
+	 *            the stream to read from
+	 * @param blockSize
+	 *            the size of each block in bytes
+	 * @param blocks
+	 *            the maximum number of blocks read ahead of the consumer
+	 */
+	public ReadAheadInputStream(InputStream in, int blockSize, int blocks) {
+		this.in = in;
+		this.full = new ArrayBlockingQueue<Block>(blocks + 1);
+		this.empty = new ArrayBlockingQueue<Block>(blocks + 1);
+		for (int i = 0; i < blocks; i++)
+			empty.add(new Block(blockSize));
+
+		this.reader = new Thread("read-ahead") {
+			@Override
+			public void run() {
+				readBlocks();
+			}
+		};
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	private void readBlocks() {
+		try {
+			readBlocksUntilDone();
+		} finally {
+			try {
+				in.close();
+			} catch (final IOException e) {
+				// nothing can be done with this here
+			}
+		}
+	}
+
+	private void readBlocksUntilDone() {
+		try {
+			while (!closed) {
+				final Block b = empty.take();
+				b.length = 0;
+				b.error = null;
+				try {
+					int read = 0;
+					while (b.length < b.data.length && (read = in.read(b.data, b.length, b.data.length - b.length)) >= 0)
+						b.length += read;
+
+					full.put(b);
+					if (read < 0)
+						return;
+				} catch (final IOException e) {
+					b.error = e;
+					full.put(b);
+					return;
+				}
+			}
+		} catch (final InterruptedException e) {
+			// closed
+		}
+	}
+
+	/*
+	 * Make sure there is a block with unread data, returning false at the end
+	 * of the stream
+	 */
+	private boolean fill() throws IOException {
+		if (closed)
+			throw new IOException("Stream closed");
+
+		while (current == null || pos >= current.length) {
+			if (error != null)
+				throw error;
+			if (eof)
+				return false;
+
+			if (current != null) {
+				empty.add(current);
+				current = null;
+			}
+
+			try {
+				current = full.take();
+			} catch (final InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+			pos = 0;
+
+			// the bytes read before an error are returned before it is thrown
+			if (current.error != null)
+				error = current.error;
+			else if (current.length < current.data.length)
+				eof = true;
+		}
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!fill())
+			return -1;
+		return current.data[pos++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		if (!fill())
+			return -1;
+
+		final int n = Math.min(len, current.length - pos);
+		System.arraycopy(current.data, pos, b, off, n);
+		pos += n;
+		return n;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return current == null ? 0 : current.length - pos;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+
+		// the reader closes the underlying stream itself, so it is never
+		// closed under a read in progress
+		reader.interrupt();
+	}
+}
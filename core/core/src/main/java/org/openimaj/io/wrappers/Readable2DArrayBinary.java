@@ -32,6 +32,7 @@ package org.openimaj.io.wrappers;
 import java.io.DataInput;
 import java.io.IOException;
 
+import org.openimaj.io.IOUtils;
 import org.openimaj.io.ReadableBinary;
 
 /**
@@ -63,9 +64,7 @@ public class Readable2DArrayBinary implements ReadableBinary {
 		value = new double[rows][cols];
 
 		for (int i = 0; i < rows; i++) {
-			for (int j = 0; j < cols; j++) {
-				value[i][j] = in.readDouble();
-			}
+			IOUtils.readFully(in, value[i]);
 		}
 	}
 
@@ -0,0 +1,563 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, lock-free {@linkplain BlockingDroppingQueue blocking dropping
+ * queue} backed by an array, suitable for use with many concurrent producers
+ * and consumers.
+ * 
+ * <p>
+ * Elements in the queue are ordered as FIFO (first-in-first-out), exactly as in
+ * an {@link ArrayBlockingDroppingQueue}. Rather than guarding the ring buffer
+ * with a single lock, each slot of the buffer carries a sequence number that
+ * records whether it is waiting to be filled or emptied for a given position
+ * in the queue, and producers and consumers claim positions by atomically
+ * advancing the tail and head counters respectively. Non-blocking operations (
+ * {@link #offer(Object)}, {@link #put(Object)}, {@link #poll()} and friends)
+ * therefore never take a lock. A lock is only used to park consumers that
+ * {@link #take()} from an empty queue, and producers only touch it when a
+ * consumer is actually waiting.
+ * 
+ * <p>
+ * What happens when an item is {@link #put(Object)} into a full queue is
+ * determined by the {@link DropPolicy} of the queue. The default is
+ * {@link DropPolicy#OLDEST}, which gives the same behaviour as the
+ * {@link ArrayBlockingDroppingQueue}.
+ * 
+ * <p>
+ * The bulk {@link Collection} operations, iteration and
+ * {@link #remove(Object)} are weakly consistent: they reflect the state of the
+ * queue at some point at or since their creation, and may not reflect
+ * concurrent modifications. Removing an element from the middle of the queue
+ * leaves a placeholder in its slot until it reaches the head of the queue, so
+ * the slot continues to count towards the size of the queue until then.
+ * 
+ * @param <E>
+ *            the type of elements held in this collection
+ */
+public class ConcurrentArrayDroppingQueue<E> extends AbstractQueue<E> implements BlockingDroppingQueue<E> {
+	/**
+	 * Policies determining which item is dropped when an item is
+	 * {@link ConcurrentArrayDroppingQueue#put(Object)} into a full queue.
+	 */
+	public static enum DropPolicy {
+		/**
+		 * Drop the oldest item in the queue (the head) to make room for the
+		 * new item.
+		 */
+		OLDEST,
+		/**
+		 * Drop the new item, leaving the queue unchanged.
+		 */
+		NEWEST,
+		/**
+		 * Whilst the queue remains full, admit each new item with a
+		 * probability of <code>capacity / (capacity + n)</code>, where
+		 * <code>n</code> is the number of items put since the queue became
+		 * full, dropping the oldest item to make room; otherwise the new item
+		 * is dropped. This keeps an approximately uniform sample of a burst of
+		 * items in the queue, rather than just the first or last items of the
+		 * burst.
+		 */
+		SAMPLE
+	}
+
+	/** Marker for an element that has been removed from the middle of the queue */
+	private static final Object REMOVED = new Object();
+
+	/**
+	 * Number of times a consumer retries an empty queue (yielding between
+	 * attempts) before parking
+	 */
+	private static final int SPINS = 64;
+
+	private final int capacity;
+	private final DropPolicy policy;
+
+	/** source of randomness for SAMPLE; null to use ThreadLocalRandom */
+	private final Random random;
+
+	/** capacity - 1 if the capacity is a power of two; -1 otherwise */
+	private final int mask;
+
+	/** The queued items */
+	private final AtomicReferenceArray<Object> items;
+
+	/**
+	 * The state of each slot. For the queue position <code>p</code> mapping to
+	 * a slot, the sequence is <code>2p</code> when the slot is ready to be
+	 * filled and <code>2p+1</code> when it has been filled and is ready to be
+	 * emptied. Using distinct values for the two states allows a capacity of 1.
+	 */
+	private final AtomicLongArray sequences;
+
+	/** position for the next take, poll or remove */
+	private final AtomicLong head = new AtomicLong();
+
+	/** position for the next put, offer, or add. */
+	private final AtomicLong tail = new AtomicLong();
+
+	private final AtomicLong dropCount = new AtomicLong();
+
+	/** number of items put since the queue became full (for SAMPLE) */
+	private final AtomicLong overflowCount = new AtomicLong();
+
+	/** Lock and condition for consumers waiting on an empty queue */
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final AtomicInteger waiting = new AtomicInteger();
+
+	/**
+	 * Creates a <tt>ConcurrentArrayDroppingQueue</tt> with the given (fixed)
+	 * capacity that drops the oldest items when full.
+	 * 
+	 * @param capacity
+	 *            the capacity of this queue
+	 * @throws IllegalArgumentException
+	 *             if <tt>capacity</tt> is less than 1
+	 */
+	public ConcurrentArrayDroppingQueue(int capacity) {
+		this(capacity, DropPolicy.OLDEST);
+	}
+
+	/**
+	 * Creates a <tt>ConcurrentArrayDroppingQueue</tt> with the given (fixed)
+	 * capacity and drop policy.
+	 * 
+	 * @param capacity
+	 *            the capacity of this queue
+	 * @param policy
+	 *            the policy that determines which item is dropped when the
+	 *            queue is full
+	 * @throws IllegalArgumentException
+	 *             if <tt>capacity</tt> is less than 1
+	 */
+	public ConcurrentArrayDroppingQueue(int capacity, DropPolicy policy) {
+		this(capacity, policy, null);
+	}
+
+	/**
+	 * Creates a <tt>ConcurrentArrayDroppingQueue</tt> with the given (fixed)
+	 * capacity and drop policy, using the given source of randomness to
+	 * choose the items kept by the {@link DropPolicy#SAMPLE} policy. This
+	 * makes the sample reproducible for a single producer, at the cost of the
+	 * producers sharing the random number generator.
+	 * 
+	 * @param capacity
+	 *            the capacity of this queue
+	 * @param policy
+	 *            the policy that determines which item is dropped when the
+	 *            queue is full
+	 * @param random
+	 *            the source of randomness; if null, each thread uses its own
+	 * @throws IllegalArgumentException
+	 *             if <tt>capacity</tt> is less than 1
+	 */
+	public ConcurrentArrayDroppingQueue(int capacity, DropPolicy policy, Random random) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException();
+		if (policy == null)
+			throw new NullPointerException();
+
+		this.capacity = capacity;
+		this.policy = policy;
+		this.random = random;
+		this.mask = (capacity & (capacity - 1)) == 0 ? capacity - 1 : -1;
+		this.items = new AtomicReferenceArray<Object>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++)
+			sequences.set(i, 2L * i);
+	}
+
+	/**
+	 * @return the policy that determines which item is dropped when the queue
+	 *         is full
+	 */
+	public DropPolicy getDropPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Get the slot index for a position
+	 */
+	private int index(long pos) {
+		return mask >= 0 ? (int) pos & mask : (int) (pos % capacity);
+	}
+
+	/**
+	 * Try to insert at the tail without blocking.
+	 * 
+	 * @return true if inserted; false if the queue was full
+	 */
+	private boolean tryInsert(E e) {
+		for (;;) {
+			final long pos = tail.get();
+			final int idx = index(pos);
+			final long diff = sequences.get(idx) - 2 * pos;
+
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					items.lazySet(idx, e);
+					sequences.set(idx, 2 * pos + 1);
+					signalNotEmpty();
+					return true;
+				}
+			} else if (diff < 0) {
+				// the slot still holds the item from the previous lap
+				return false;
+			}
+			// otherwise another producer claimed the position; try again
+		}
+	}
+
+	/**
+	 * Try to remove the head without blocking.
+	 * 
+	 * @return the head item (which might be the {@link #REMOVED} marker) or
+	 *         null if the queue was empty
+	 */
+	private Object tryExtract() {
+		for (;;) {
+			final long pos = head.get();
+			final int idx = index(pos);
+			final long diff = sequences.get(idx) - (2 * pos + 1);
+
+			if (diff == 0) {
+				if (head.compareAndSet(pos, pos + 1)) {
+					final Object x = items.getAndSet(idx, null);
+					sequences.set(idx, 2 * (pos + capacity));
+					return x;
+				}
+			} else if (diff < 0) {
+				// the slot hasn't been filled yet
+				return null;
+			}
+			// otherwise another consumer claimed the position; try again
+		}
+	}
+
+	/**
+	 * Poll, retrying a few times before giving up if the queue is empty, so
+	 * that a consumer that is keeping up with the producers doesn't need to
+	 * park (and force the producers to wake it).
+	 */
+	private E spinPoll() {
+		for (int i = 0; i < SPINS; i++) {
+			final E x = poll();
+			if (x != null)
+				return x;
+			Thread.yield();
+		}
+		return null;
+	}
+
+	/**
+	 * Wake a consumer blocked in {@link #take()} or
+	 * {@link #poll(long, TimeUnit)}, if there is one.
+	 */
+	private void signalNotEmpty() {
+		if (waiting.get() > 0) {
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private E insertDroppingOldest(E e) {
+		E dropped = null;
+		while (!tryInsert(e)) {
+			final E x = poll();
+			if (x != null) {
+				dropCount.incrementAndGet();
+				if (dropped == null)
+					dropped = x;
+			} else {
+				// the head is part way through being written or read by
+				// another thread; let it finish
+				Thread.yield();
+			}
+		}
+		return dropped;
+	}
+
+	@Override
+	public E put(E e) {
+		if (e == null)
+			throw new NullPointerException();
+
+		switch (policy) {
+		case NEWEST:
+			if (tryInsert(e))
+				return null;
+			dropCount.incrementAndGet();
+			return e;
+		case SAMPLE:
+			if (tryInsert(e)) {
+				if (overflowCount.get() != 0)
+					overflowCount.set(0);
+				return null;
+			}
+
+			final long n = overflowCount.incrementAndGet();
+			final Random rng = random == null ? ThreadLocalRandom.current() : random;
+			if (rng.nextDouble() * (n + capacity) < capacity)
+				return insertDroppingOldest(e);
+
+			dropCount.incrementAndGet();
+			return e;
+		default:
+			return insertDroppingOldest(e);
+		}
+	}
+
+	@Override
+	public boolean offer(E e) {
+		if (e == null)
+			throw new NullPointerException();
+
+		return tryInsert(e);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		for (;;) {
+			final Object x = tryExtract();
+			if (x != REMOVED)
+				return (E) x;
+		}
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		E x = spinPoll();
+		if (x != null)
+			return x;
+
+		waiting.incrementAndGet();
+		try {
+			final ReentrantLock lock = this.lock;
+			lock.lockInterruptibly();
+			try {
+				try {
+					while ((x = poll()) == null)
+						notEmpty.await();
+				} catch (final InterruptedException ie) {
+					notEmpty.signal(); // propagate to non-interrupted thread
+					throw ie;
+				}
+				return x;
+			} finally {
+				lock.unlock();
+			}
+		} finally {
+			waiting.decrementAndGet();
+		}
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		E x = spinPoll();
+		if (x != null)
+			return x;
+
+		long nanos = unit.toNanos(timeout);
+		waiting.incrementAndGet();
+		try {
+			final ReentrantLock lock = this.lock;
+			lock.lockInterruptibly();
+			try {
+				for (;;) {
+					if ((x = poll()) != null)
+						return x;
+					if (nanos <= 0)
+						return null;
+					try {
+						nanos = notEmpty.awaitNanos(nanos);
+					} catch (final InterruptedException ie) {
+						notEmpty.signal(); // propagate to non-interrupted thread
+						throw ie;
+					}
+				}
+			} finally {
+				lock.unlock();
+			}
+		} finally {
+			waiting.decrementAndGet();
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		final long t = tail.get();
+		for (long pos = head.get(); pos < t; pos++) {
+			final int idx = index(pos);
+			if (sequences.get(idx) == 2 * pos + 1) {
+				final Object x = items.get(idx);
+				if (x != null && x != REMOVED)
+					return (E) x;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of elements in this queue. As the queue may be
+	 * concurrently modified, this is only an estimate unless there are no
+	 * other threads accessing the queue.
+	 * 
+	 * @return the number of elements in this queue
+	 */
+	@Override
+	public int size() {
+		final long h = head.get();
+		final long size = tail.get() - h;
+
+		return (int) Math.max(0, Math.min(capacity, size));
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return capacity - size();
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		if (c == null)
+			throw new NullPointerException();
+		if (c == this)
+			throw new IllegalArgumentException();
+
+		int n = 0;
+		E x;
+		while (n < maxElements && (x = poll()) != null) {
+			c.add(x);
+			n++;
+		}
+		return n;
+	}
+
+	@Override
+	public long insertCount() {
+		return tail.get();
+	}
+
+	@Override
+	public long dropCount() {
+		return dropCount.get();
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over the elements in this queue, in
+	 * proper sequence. The iterator reflects the elements in the queue at the
+	 * time of its creation and never throws
+	 * {@link java.util.ConcurrentModificationException}.
+	 * 
+	 * @return an iterator over the elements in this queue in proper sequence
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Itr();
+	}
+
+	/**
+	 * Weakly consistent iterator over a snapshot of the queue
+	 */
+	private class Itr implements Iterator<E> {
+		private final List<Object> elements = new ArrayList<Object>();
+		private final List<Long> positions = new ArrayList<Long>();
+		private int next = 0;
+
+		Itr() {
+			final long t = tail.get();
+			for (long pos = head.get(); pos < t; pos++) {
+				final int idx = index(pos);
+				if (sequences.get(idx) == 2 * pos + 1) {
+					final Object x = items.get(idx);
+					if (x != null && x != REMOVED) {
+						elements.add(x);
+						positions.add(pos);
+					}
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < elements.size();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public E next() {
+			if (next >= elements.size())
+				throw new NoSuchElementException();
+			return (E) elements.get(next++);
+		}
+
+		@Override
+		public void remove() {
+			if (next == 0)
+				throw new IllegalStateException();
+
+			final long pos = positions.get(next - 1);
+			final int idx = index(pos);
+			if (sequences.get(idx) == 2 * pos + 1)
+				items.compareAndSet(idx, elements.get(next - 1), REMOVED);
+		}
+	}
+}
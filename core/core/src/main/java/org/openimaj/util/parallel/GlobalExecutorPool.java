@@ -58,7 +58,23 @@ public class GlobalExecutorPool {
 		}
 	}
 	
-	private static ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new DaemonThreadFactory());
+	/**
+	 * The threads of the global pool; a distinct class so that they can be
+	 * recognised by {@link GlobalExecutorPool#isPoolThread()}.
+	 */
+	private static class PoolThread extends Thread {
+		PoolThread(Runnable runnable) {
+			super(runnable);
+			setDaemon(true);
+		}
+	}
+	
+	private static ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable paramRunnable) {
+			return new PoolThread(paramRunnable);
+		}
+	});
 	
 	/**
 	 * Get the pool.
@@ -67,4 +83,16 @@ public class GlobalExecutorPool {
 	public static ThreadPoolExecutor getPool() {
 		return pool;
 	}
+	
+	/**
+	 * Test whether the calling thread is one of the threads of the global
+	 * pool. Code that submits work to the pool and then blocks waiting for it
+	 * can use this to run the work on the calling thread instead; otherwise
+	 * every pool thread could end up waiting for tasks that will never be run.
+	 * 
+	 * @return true if the calling thread belongs to the global pool
+	 */
+	public static boolean isPoolThread() {
+		return Thread.currentThread() instanceof PoolThread;
+	}
 }
@@ -50,6 +50,13 @@ import org.openimaj.util.stream.Stream;
  * is partitioned using inspiration from <a href=
  * "http://reedcopsey.com/2010/01/26/parallelism-in-net-part-5-partitioning-of-work/"
  * >Reed Copsey's blog</a>.
+ * <p>
+ * All the loops block until every item has been processed. A loop on the
+ * {@link GlobalExecutorPool} started from one of the pool's own threads (for
+ * example from the body of another parallel loop) is run on the calling thread
+ * instead, as otherwise every pool thread could end up waiting for tasks that
+ * can never be scheduled. Loops on other pools must not be nested in the same
+ * way.
  *
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  */
@@ -114,6 +121,14 @@ public class Parallel {
 		}
 	}
 
+	/*
+	 * Loops on the global pool from one of its own threads are run
+	 * sequentially to avoid dead-locking the pool
+	 */
+	private static boolean runInline(final ThreadPoolExecutor pool) {
+		return pool == GlobalExecutorPool.getPool() && GlobalExecutorPool.isPoolThread();
+	}
+
 	/**
 	 * Parallel integer for loop.
 	 *
@@ -131,14 +146,20 @@ public class Parallel {
 	public static void forIndex(final int start, final int stop, final int incr, final Operation<Integer> op,
 			final ThreadPoolExecutor pool)
 	{
+		if (runInline(pool)) {
+			for (int i = start; i < stop; i += incr)
+				op.perform(i);
+			return;
+		}
+
 		int loops = pool.getMaximumPoolSize();
-		final int ops = (stop - start) / incr;
+		final int ops = (stop - start + incr - 1) / incr;
 
-		final double div = ops / (double) loops;
-		int chunksize = (int) div;
-		int remainder = (int) ((div - chunksize) * loops);
+		// integer arithmetic, so the number of chunks always matches the latch
+		int chunksize = ops / loops;
+		int remainder = ops % loops;
 
-		if (div < 1) {
+		if (chunksize < 1) {
 			chunksize = 1;
 			remainder = 0;
 			loops = ops;
@@ -230,14 +251,20 @@ public class Parallel {
 	public static void forRange(final int start, final int stop, final int incr, final Operation<IntRange> op,
 			final ThreadPoolExecutor pool)
 	{
+		if (runInline(pool)) {
+			if (start < stop)
+				op.perform(new IntRange(start, stop, incr));
+			return;
+		}
+
 		int loops = pool.getMaximumPoolSize();
-		final int ops = (stop - start) / incr;
+		final int ops = (stop - start + incr - 1) / incr;
 
-		final double div = ops / (double) loops;
-		int chunksize = (int) div;
-		int remainder = (int) ((div - chunksize) * loops);
+		// integer arithmetic, so the number of chunks always matches the latch
+		int chunksize = ops / loops;
+		int remainder = ops % loops;
 
-		if (div < 1) {
+		if (chunksize < 1) {
 			chunksize = 1;
 			remainder = 0;
 			loops = ops;
@@ -366,6 +393,13 @@ public class Parallel {
 	void
 	forEach(final Partitioner<T> partitioner, final Operation<T> op, final ThreadPoolExecutor pool)
 	{
+		if (runInline(pool)) {
+			final Iterator<Iterator<T>> partitions = partitioner.getPartitions();
+			while (partitions.hasNext())
+				new Task<T>(partitions.next(), op).run();
+			return;
+		}
+
 		final ExecutorCompletionService<Boolean> completion = new ExecutorCompletionService<Boolean>(pool);
 		final Iterator<Iterator<T>> partitions = partitioner.getPartitions();
 		long submitted = 0;
@@ -455,6 +489,12 @@ public class Parallel {
 	void
 	forEachUnpartitioned(final Iterator<T> data, final Operation<T> op, final ThreadPoolExecutor pool)
 	{
+		if (runInline(pool)) {
+			while (data.hasNext())
+				op.perform(data.next());
+			return;
+		}
+
 		final ExecutorCompletionService<Boolean> completion = new ExecutorCompletionService<Boolean>(pool);
 		long submitted = 0;
 
@@ -524,6 +564,13 @@ public class Parallel {
 	forEachPartitioned(final Partitioner<T> partitioner, final Operation<Iterator<T>> op,
 			final ThreadPoolExecutor pool)
 	{
+		if (runInline(pool)) {
+			final Iterator<Iterator<T>> partitions = partitioner.getPartitions();
+			while (partitions.hasNext())
+				op.perform(partitions.next());
+			return;
+		}
+
 		final ExecutorCompletionService<Boolean> completion = new ExecutorCompletionService<Boolean>(pool);
 		final Iterator<Iterator<T>> partitions = partitioner.getPartitions();
 		long submitted = 0;
@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.set;
+
+import java.util.Arrays;
+
+/**
+ * A {@link DisjointSetForest} over the integers <code>0...n-1</code>, stored in
+ * primitive arrays. This avoids the per-element objects and hashing of the
+ * generic forest, which makes it suitable for problems with very large numbers
+ * of elements, such as connected component labelling.
+ * <p>
+ * Finding uses path halving and union uses union by rank. The forest is not
+ * synchronised, however, different threads can safely work on different
+ * subsets concurrently as long as they never touch the same elements.
+ */
+public class IntDisjointSetForest {
+	private int[] parent;
+	private byte[] rank;
+	private int size;
+
+	/**
+	 * Construct an empty forest.
+	 */
+	public IntDisjointSetForest() {
+		this(0);
+	}
+
+	/**
+	 * Construct a forest in which each of the elements <code>0...n-1</code>
+	 * is in its own subset.
+	 * 
+	 * @param n
+	 *            the number of elements
+	 */
+	public IntDisjointSetForest(int n) {
+		parent = new int[Math.max(n, 16)];
+		rank = new byte[parent.length];
+
+		for (int i = 0; i < n; i++)
+			parent[i] = i;
+
+		size = n;
+	}
+
+	/**
+	 * Make a new subset containing a new element, and return the element.
+	 * 
+	 * @return the new element
+	 */
+	public int makeSet() {
+		if (size == parent.length) {
+			parent = Arrays.copyOf(parent, parent.length * 2);
+			rank = Arrays.copyOf(rank, rank.length * 2);
+		}
+
+		parent[size] = size;
+
+		return size++;
+	}
+
+	/**
+	 * Search for the representative of the subset containing the element x.
+	 * 
+	 * @param x
+	 *            the element
+	 * @return the representative element
+	 */
+	public int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+
+		return x;
+	}
+
+	/**
+	 * Join the subsets containing the elements x and y.
+	 * 
+	 * @param x
+	 *            the x element
+	 * @param y
+	 *            the y element
+	 * @return the new root, or -1 if x and y are already in the same set.
+	 */
+	public int union(int x, int y) {
+		final int xRoot = find(x);
+		final int yRoot = find(y);
+
+		if (xRoot == yRoot)
+			return -1;
+
+		if (rank[xRoot] < rank[yRoot]) {
+			parent[xRoot] = yRoot;
+			return yRoot;
+		} else if (rank[xRoot] > rank[yRoot]) {
+			parent[yRoot] = xRoot;
+			return xRoot;
+		} else {
+			parent[yRoot] = xRoot;
+			rank[xRoot]++;
+			return xRoot;
+		}
+	}
+
+	/**
+	 * Label each element with the index of its subset. The subsets are
+	 * numbered <code>0...numSets()-1</code> in order of their smallest
+	 * elements.
+	 * 
+	 * @return the labels of each element
+	 */
+	public int[] labels() {
+		final int[] labels = new int[size];
+		Arrays.fill(labels, -1);
+
+		int next = 0;
+		for (int i = 0; i < size; i++) {
+			final int root = find(i);
+
+			if (labels[root] < 0)
+				labels[root] = next++;
+
+			labels[i] = labels[root];
+		}
+
+		return labels;
+	}
+
+	/**
+	 * @return the number of elements in the forest
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Count the number of subsets in the forest. This takes time proportional
+	 * to the number of elements.
+	 * 
+	 * @return the number of subsets in the forest
+	 */
+	public int numSets() {
+		int count = 0;
+		for (int i = 0; i < size; i++)
+			if (parent[i] == i)
+				count++;
+
+		return count;
+	}
+}
@@ -29,6 +29,7 @@
  */
 package org.openimaj.util.stream;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -190,6 +191,62 @@ public abstract class AbstractStream<T> implements Stream<T> {
 		};
 	}
 
+	@Override
+	public ParallelMapStream<T, T> parallelFilter(Predicate<T> filter) {
+		return new ParallelMapStream<T, T>(this, filterFunction(filter));
+	}
+
+	@Override
+	public ParallelMapStream<T, T> parallelFilter(Predicate<T> filter, ThreadPoolExecutor pool, int maxInFlight,
+			boolean ordered)
+	{
+		return new ParallelMapStream<T, T>(this, filterFunction(filter), pool, maxInFlight, ordered);
+	}
+
+	private static <T> MultiFunction<T, T> filterFunction(final Predicate<T> filter) {
+		return new MultiFunction<T, T>() {
+			@Override
+			public List<T> apply(T in) {
+				if (filter.test(in))
+					return Collections.singletonList(in);
+				return Collections.emptyList();
+			}
+		};
+	}
+
+	@Override
+	public <R> ParallelMapStream<T, R> parallelMap(Function<T, R> mapper) {
+		return new ParallelMapStream<T, R>(this, mapFunction(mapper));
+	}
+
+	@Override
+	public <R> ParallelMapStream<T, R> parallelMap(Function<T, R> mapper, ThreadPoolExecutor pool, int maxInFlight,
+			boolean ordered)
+	{
+		return new ParallelMapStream<T, R>(this, mapFunction(mapper), pool, maxInFlight, ordered);
+	}
+
+	private static <T, R> MultiFunction<T, R> mapFunction(final Function<T, R> mapper) {
+		return new MultiFunction<T, R>() {
+			@Override
+			public List<R> apply(T in) {
+				return Collections.singletonList(mapper.apply(in));
+			}
+		};
+	}
+
+	@Override
+	public <R> ParallelMapStream<T, R> parallelMap(MultiFunction<T, R> mapper) {
+		return new ParallelMapStream<T, R>(this, mapper);
+	}
+
+	@Override
+	public <R> ParallelMapStream<T, R> parallelMap(MultiFunction<T, R> mapper, ThreadPoolExecutor pool,
+			int maxInFlight, boolean ordered)
+	{
+		return new ParallelMapStream<T, R>(this, mapper, pool, maxInFlight, ordered);
+	}
+
 	/**
 	 * Throws an UnsupportedOperationException()
 	 */
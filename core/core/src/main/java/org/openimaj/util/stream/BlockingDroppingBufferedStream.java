@@ -30,6 +30,8 @@
 package org.openimaj.util.stream;
 
 import org.openimaj.util.concurrent.BlockingDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue.DropPolicy;
 
 /**
  * Base for a {@link Stream} with an internal buffer based on a
@@ -38,6 +40,13 @@ import org.openimaj.util.concurrent.BlockingDroppingQueue;
  * enough rate (although this depends on the actual
  * {@link BlockingDroppingQueue}).
  * <p>
+ * Items are added to the buffer with {@link BlockingDroppingQueue#put(Object)},
+ * so the buffer decides which item is dropped when it is full: an
+ * {@link ConcurrentArrayDroppingQueue} applies its {@link DropPolicy}, and an
+ * {@link org.openimaj.util.concurrent.ArrayBlockingDroppingQueue} drops the
+ * oldest item. The number of dropped items is available from
+ * {@link #getDropCount()}.
+ * <p>
  * This class is intended to be used to build {@link Stream} implementations
  * that are connected to external, live data-sources that can potentially
  * produce data at a rate which exceeds the rate at which the stream can be
@@ -52,6 +61,32 @@ public class BlockingDroppingBufferedStream<T> extends AbstractStream<T> {
 	BlockingDroppingQueue<T> buffer;
 	private boolean isClosed = false;
 
+	/**
+	 * Construct with a {@link ConcurrentArrayDroppingQueue} of the given
+	 * capacity that drops new items whilst it is full (see
+	 * {@link DropPolicy#NEWEST}).
+	 * 
+	 * @param capacity
+	 *            the capacity of the buffer
+	 */
+	public BlockingDroppingBufferedStream(int capacity) {
+		this(capacity, DropPolicy.NEWEST);
+	}
+
+	/**
+	 * Construct with a {@link ConcurrentArrayDroppingQueue} of the given
+	 * capacity and drop policy.
+	 * 
+	 * @param capacity
+	 *            the capacity of the buffer
+	 * @param policy
+	 *            the policy that determines which item is dropped when the
+	 *            buffer is full
+	 */
+	public BlockingDroppingBufferedStream(int capacity, DropPolicy policy) {
+		this(new ConcurrentArrayDroppingQueue<T>(capacity, policy));
+	}
+
 	/**
 	 * Construct with the given backing queue
 	 * 
@@ -63,7 +98,7 @@ public class BlockingDroppingBufferedStream<T> extends AbstractStream<T> {
 	}
 
 	protected void register(T obj) throws InterruptedException {
-		buffer.offer(obj);
+		buffer.put(obj);
 	}
 
 	@Override
@@ -96,4 +131,14 @@ public class BlockingDroppingBufferedStream<T> extends AbstractStream<T> {
 	public BlockingDroppingQueue<T> getBuffer() {
 		return buffer;
 	}
+
+	/**
+	 * Get the number of items that have been dropped because the buffer was
+	 * full.
+	 * 
+	 * @return the number of dropped items
+	 */
+	public long getDropCount() {
+		return buffer.dropCount();
+	}
 }
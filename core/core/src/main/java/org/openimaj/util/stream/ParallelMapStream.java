@@ -0,0 +1,441 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.stream;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openimaj.util.function.MultiFunction;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * A {@link Stream} that applies a function to the items of another stream in
+ * parallel. Items are read from the source stream by a dedicated feeder thread
+ * and the function is applied to them using a {@link ThreadPoolExecutor}.
+ * <p>
+ * At most <code>maxInFlight</code> items are read from the source stream and
+ * not yet consumed from this stream at any time; once this limit is reached
+ * the feeder stops reading from the source until the consumer catches up.
+ * This provides back-pressure, so a slow consumer causes a buffered live
+ * source (such as a {@link BlockingDroppingBufferedStream}) to drop items
+ * rather than for unbounded amounts of work to be queued.
+ * <p>
+ * The results can either be returned in the same order as the source items
+ * were read (in which case a slow item holds back the items behind it), or in
+ * the order in which they are completed.
+ * <p>
+ * The function is a {@link MultiFunction}, so it can produce zero or more
+ * outputs per input; this allows the same class to perform both parallel
+ * mapping and filtering (see {@link Stream#parallelMap(MultiFunction)} and
+ * {@link Stream#parallelFilter(org.openimaj.util.function.Predicate)}).
+ * <p>
+ * The function runs on the threads of the pool, so it must not block waiting
+ * for other work submitted to the same pool: if every thread is waiting, the
+ * work it waits for can never be run. Parallel loops from
+ * {@link org.openimaj.util.parallel.Parallel} on the
+ * {@link GlobalExecutorPool} are safe, as they run on the calling thread when
+ * started from a thread of that pool; other blocking uses of the pool the
+ * stage runs on are not, and the stage should be given its own pool instead.
+ * <p>
+ * Statistics on the throughput and latency of the stage are available through
+ * {@link #getStatistics()}.
+ * 
+ * @param <T>
+ *            The type of data item in the source stream
+ * @param <R>
+ *            The type of data item in this stream
+ */
+public class ParallelMapStream<T, R> extends AbstractStream<R> {
+	/**
+	 * Throughput and latency statistics for a {@link ParallelMapStream}. All
+	 * times are in milliseconds.
+	 */
+	public static class Statistics {
+		private final AtomicLong submitted = new AtomicLong();
+		private final AtomicLong completed = new AtomicLong();
+		private final AtomicLong emitted = new AtomicLong();
+		private final AtomicLong processingNanos = new AtomicLong();
+		private final AtomicLong latencyNanos = new AtomicLong();
+		private final AtomicLong maxLatencyNanos = new AtomicLong();
+		private volatile long startTime;
+
+		void record(long submitTime, long startTime, long endTime) {
+			completed.incrementAndGet();
+			processingNanos.addAndGet(endTime - startTime);
+
+			final long latency = endTime - submitTime;
+			latencyNanos.addAndGet(latency);
+
+			long max;
+			while (latency > (max = maxLatencyNanos.get()) && !maxLatencyNanos.compareAndSet(max, latency))
+				;
+		}
+
+		/**
+		 * @return the number of items read from the source stream
+		 */
+		public long getItemsSubmitted() {
+			return submitted.get();
+		}
+
+		/**
+		 * @return the number of items that have been processed
+		 */
+		public long getItemsCompleted() {
+			return completed.get();
+		}
+
+		/**
+		 * @return the number of items that have been returned by the stream
+		 */
+		public long getItemsEmitted() {
+			return emitted.get();
+		}
+
+		/**
+		 * @return the number of items read from the source stream that have
+		 *         not yet been processed
+		 */
+		public long getItemsInFlight() {
+			return submitted.get() - completed.get();
+		}
+
+		/**
+		 * @return the mean time spent applying the function to an item
+		 */
+		public double getMeanProcessingTime() {
+			final long n = completed.get();
+			return n == 0 ? 0 : processingNanos.get() / (n * 1e6);
+		}
+
+		/**
+		 * @return the mean time between an item being read from the source
+		 *         stream and it having been processed, including the time
+		 *         spent waiting for a thread
+		 */
+		public double getMeanLatency() {
+			final long n = completed.get();
+			return n == 0 ? 0 : latencyNanos.get() / (n * 1e6);
+		}
+
+		/**
+		 * @return the maximum time between an item being read from the source
+		 *         stream and it having been processed
+		 */
+		public double getMaxLatency() {
+			return maxLatencyNanos.get() / 1e6;
+		}
+
+		/**
+		 * @return the number of items processed per second since the stream
+		 *         started
+		 */
+		public double getThroughput() {
+			final long start = startTime;
+			if (start == 0)
+				return 0;
+
+			final double seconds = (System.nanoTime() - start) / 1e9;
+			return seconds <= 0 ? 0 : completed.get() / seconds;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("submitted=%d, completed=%d, emitted=%d, throughput=%.1f/s, "
+					+ "mean processing=%.2fms, mean latency=%.2fms, max latency=%.2fms",
+					getItemsSubmitted(), getItemsCompleted(), getItemsEmitted(), getThroughput(),
+					getMeanProcessingTime(), getMeanLatency(), getMaxLatency());
+		}
+	}
+
+	private final Stream<T> source;
+	private final MultiFunction<T, R> function;
+	private final ThreadPoolExecutor pool;
+	private final boolean ordered;
+
+	private final Semaphore inFlight;
+	private final BlockingQueue<Future<List<R>>> results = new LinkedBlockingQueue<Future<List<R>>>();
+	private final Future<List<R>> end = new FutureTask<List<R>>(new Runnable() {
+		@Override
+		public void run() {
+		}
+	}, null);
+	private final Statistics statistics = new Statistics();
+
+	private Thread feeder;
+	private volatile boolean closed = false;
+	private volatile long total = -1;
+	private volatile RuntimeException error;
+
+	private boolean ended = false;
+	private long completed = 0;
+	private List<R> current;
+	private int currentIndex;
+
+	/**
+	 * Construct with the given source stream and function. Results are
+	 * returned in order, and the function is applied using the
+	 * {@link GlobalExecutorPool}, with up to two items per thread in flight.
+	 * The function must not block waiting for other work on the global pool
+	 * (see the class documentation).
+	 * 
+	 * @param source
+	 *            the source stream
+	 * @param function
+	 *            the function to apply
+	 */
+	public ParallelMapStream(Stream<T> source, MultiFunction<T, R> function) {
+		this(source, function, GlobalExecutorPool.getPool());
+	}
+
+	/**
+	 * Construct with the given source stream, function and thread pool.
+	 * Results are returned in order, with up to two items per thread in the
+	 * pool in flight.
+	 * 
+	 * @param source
+	 *            the source stream
+	 * @param function
+	 *            the function to apply
+	 * @param pool
+	 *            the thread pool
+	 */
+	public ParallelMapStream(Stream<T> source, MultiFunction<T, R> function, ThreadPoolExecutor pool) {
+		this(source, function, pool, Math.max(2, 2 * pool.getCorePoolSize()), true);
+	}
+
+	/**
+	 * Construct with the given source stream, function, thread pool, maximum
+	 * number of items in flight and ordering.
+	 * 
+	 * @param source
+	 *            the source stream
+	 * @param function
+	 *            the function to apply
+	 * @param pool
+	 *            the thread pool
+	 * @param maxInFlight
+	 *            the maximum number of items that can have been read from the
+	 *            source stream without having been consumed from this stream
+	 * @param ordered
+	 *            if true the results are returned in the order that the
+	 *            source items were read; if false they are returned in the
+	 *            order they are completed
+	 */
+	public ParallelMapStream(Stream<T> source, MultiFunction<T, R> function, ThreadPoolExecutor pool,
+			int maxInFlight, boolean ordered)
+	{
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException("maxInFlight must be at least 1");
+
+		this.source = source;
+		this.function = function;
+		this.pool = pool;
+		this.ordered = ordered;
+		this.inFlight = new Semaphore(maxInFlight);
+	}
+
+	/**
+	 * Get the statistics for this stream.
+	 * 
+	 * @return the statistics
+	 */
+	public Statistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Stop reading from the source stream. Items that have already been read
+	 * will still be processed and returned.
+	 */
+	public void close() {
+		closed = true;
+		if (feeder != null)
+			feeder.interrupt();
+	}
+
+	private synchronized void start() {
+		if (feeder != null)
+			return;
+
+		statistics.startTime = System.nanoTime();
+		feeder = new Thread("ParallelMapStream feeder") {
+			@Override
+			public void run() {
+				long submitted = 0;
+				try {
+					while (!closed && source.hasNext()) {
+						inFlight.acquire();
+						final T item = source.next();
+
+						// a rejected item is still delivered (as a failure), so
+						// counts towards the total
+						submitted++;
+						submit(item);
+					}
+				} catch (final InterruptedException e) {
+					// closed
+				} catch (final RuntimeException e) {
+					error = e;
+				} finally {
+					total = submitted;
+					results.add(end);
+				}
+			}
+		};
+		feeder.setDaemon(true);
+		feeder.start();
+	}
+
+	/**
+	 * The task applying the function to a single item; completed tasks are
+	 * added to the results queue if the results are unordered.
+	 */
+	private class MapTask extends FutureTask<List<R>> {
+		MapTask(Callable<List<R>> callable) {
+			super(callable);
+		}
+
+		@Override
+		protected void done() {
+			if (!ordered)
+				results.add(this);
+		}
+
+		void fail(Throwable t) {
+			setException(t);
+		}
+	}
+
+	private void submit(final T item) {
+		final long submitTime = System.nanoTime();
+		final MapTask task = new MapTask(new Callable<List<R>>() {
+			@Override
+			public List<R> call() throws Exception {
+				final long startTime = System.nanoTime();
+				try {
+					return function.apply(item);
+				} finally {
+					statistics.record(submitTime, startTime, System.nanoTime());
+				}
+			}
+		});
+
+		statistics.submitted.incrementAndGet();
+		if (ordered)
+			results.add(task);
+
+		try {
+			pool.execute(task);
+		} catch (final RejectedExecutionException e) {
+			// the consumer may already be waiting on this task, so it must
+			// complete; the feeder then stops with the same error
+			task.fail(e);
+			throw e;
+		}
+	}
+
+	private Future<List<R>> take() {
+		while (true) {
+			try {
+				return results.take();
+			} catch (final InterruptedException e) {
+				// retry, as BlockingDroppingBufferedStream#next() does
+			}
+		}
+	}
+
+	private List<R> get(Future<List<R>> future) {
+		while (true) {
+			try {
+				return future.get();
+			} catch (final InterruptedException e) {
+				// retry
+			} catch (final ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (current != null && currentIndex < current.size())
+			return true;
+
+		current = null;
+		start();
+
+		while (!ended || completed < total) {
+			final Future<List<R>> future = take();
+
+			if (future == end) {
+				// the end marker can arrive ahead of unordered results, so
+				// remember that it has been seen across calls
+				ended = true;
+				if (error != null)
+					throw error;
+				continue;
+			}
+
+			completed++;
+			inFlight.release();
+
+			final List<R> list = get(future);
+			if (list != null && list.size() > 0) {
+				current = list;
+				currentIndex = 0;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public R next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		statistics.emitted.incrementAndGet();
+		return current.get(currentIndex++);
+	}
+}
@@ -169,6 +169,116 @@ public interface Stream<T> extends Iterator<T>, Iterable<T> {
 	 */
 	public <R> Stream<R> map(MultiFunction<T, R> mapper);
 
+	/**
+	 * Transform the stream by creating a view that consists of only the items
+	 * that match the given {@link Predicate}, testing the items in parallel
+	 * using the {@link org.openimaj.util.parallel.GlobalExecutorPool}. The
+	 * order of the items is preserved.
+	 *
+	 * @see ParallelMapStream
+	 *
+	 * @param filter
+	 *            the predicate
+	 * @return a new stream consisting of the matched items from this stream
+	 */
+	public ParallelMapStream<T, T> parallelFilter(Predicate<T> filter);
+
+	/**
+	 * Transform the stream by creating a view that consists of only the items
+	 * that match the given {@link Predicate}, testing the items in parallel
+	 * using the given pool.
+	 *
+	 * @see ParallelMapStream
+	 *
+	 * @param filter
+	 *            the predicate
+	 * @param pool
+	 *            the thread pool
+	 * @param maxInFlight
+	 *            the maximum number of items that can be read from this
+	 *            stream without having been consumed from the new stream
+	 * @param ordered
+	 *            true if the order of the items should be preserved; false if
+	 *            they should be returned as soon as they have been tested
+	 * @return a new stream consisting of the matched items from this stream
+	 */
+	public ParallelMapStream<T, T> parallelFilter(Predicate<T> filter, ThreadPoolExecutor pool, int maxInFlight,
+			boolean ordered);
+
+	/**
+	 * Transform the stream by creating a new stream that transforms the items
+	 * in this stream with the given {@link Function}, applying the function to
+	 * the items in parallel using the
+	 * {@link org.openimaj.util.parallel.GlobalExecutorPool}. The order of the
+	 * items is preserved.
+	 *
+	 * @see ParallelMapStream
+	 *
+	 * @param mapper
+	 *            the function to apply
+	 * @return a new stream with transformed items from this stream
+	 */
+	public <R> ParallelMapStream<T, R> parallelMap(Function<T, R> mapper);
+
+	/**
+	 * Transform the stream by creating a new stream that transforms the items
+	 * in this stream with the given {@link Function}, applying the function to
+	 * the items in parallel using the given pool.
+	 *
+	 * @see ParallelMapStream
+	 *
+	 * @param mapper
+	 *            the function to apply
+	 * @param pool
+	 *            the thread pool
+	 * @param maxInFlight
+	 *            the maximum number of items that can be read from this
+	 *            stream without having been consumed from the new stream
+	 * @param ordered
+	 *            true if the order of the items should be preserved; false if
+	 *            they should be returned as soon as they have been transformed
+	 * @return a new stream with transformed items from this stream
+	 */
+	public <R> ParallelMapStream<T, R> parallelMap(Function<T, R> mapper, ThreadPoolExecutor pool, int maxInFlight,
+			boolean ordered);
+
+	/**
+	 * Transform the stream by creating a new stream that transforms the items
+	 * in this stream with the given {@link MultiFunction}, applying the
+	 * function to the items in parallel using the
+	 * {@link org.openimaj.util.parallel.GlobalExecutorPool}. The order of the
+	 * items is preserved.
+	 *
+	 * @see ParallelMapStream
+	 *
+	 * @param mapper
+	 *            the function to apply
+	 * @return a new stream with transformed items from this stream
+	 */
+	public <R> ParallelMapStream<T, R> parallelMap(MultiFunction<T, R> mapper);
+
+	/**
+	 * Transform the stream by creating a new stream that transforms the items
+	 * in this stream with the given {@link MultiFunction}, applying the
+	 * function to the items in parallel using the given pool.
+	 *
+	 * @see ParallelMapStream
+	 *
+	 * @param mapper
+	 *            the function to apply
+	 * @param pool
+	 *            the thread pool
+	 * @param maxInFlight
+	 *            the maximum number of items that can be read from this
+	 *            stream without having been consumed from the new stream
+	 * @param ordered
+	 *            true if the order of the items should be preserved; false if
+	 *            they should be returned as soon as they have been transformed
+	 * @return a new stream with transformed items from this stream
+	 */
+	public <R> ParallelMapStream<T, R> parallelMap(MultiFunction<T, R> mapper, ThreadPoolExecutor pool,
+			int maxInFlight, boolean ordered);
+
 	/**
 	 * Transform the stream using the given function to transform the items in
 	 * this stream.
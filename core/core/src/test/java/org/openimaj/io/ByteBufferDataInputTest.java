@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openimaj.io.wrappers.Readable2DArrayBinary;
+import org.openimaj.io.wrappers.Writeable2DArrayBinary;
+
+/**
+ * Tests for {@link ByteBufferDataInput} and the buffer based reading methods
+ * of {@link IOUtils}.
+ */
+public class ByteBufferDataInputTest {
+	/**
+	 * Temporary directory for IO tests
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Test that everything written by a {@link DataOutputStream} can be read
+	 * back
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testPrimitives() throws IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final DataOutputStream dos = new DataOutputStream(baos);
+		dos.writeBoolean(true);
+		dos.writeByte(-3);
+		dos.writeByte(200);
+		dos.writeShort(-1234);
+		dos.writeShort(60000);
+		dos.writeChar('é');
+		dos.writeInt(123456789);
+		dos.writeLong(-9876543210L);
+		dos.writeFloat(1.5f);
+		dos.writeDouble(Math.PI);
+		dos.writeUTF("héllo wörld");
+		dos.writeBytes("a line\r\nlast");
+		dos.close();
+
+		final ByteBufferDataInput in = new ByteBufferDataInput(baos.toByteArray());
+		assertEquals(true, in.readBoolean());
+		assertEquals(-3, in.readByte());
+		assertEquals(200, in.readUnsignedByte());
+		assertEquals(-1234, in.readShort());
+		assertEquals(60000, in.readUnsignedShort());
+		assertEquals('é', in.readChar());
+		assertEquals(123456789, in.readInt());
+		assertEquals(-9876543210L, in.readLong());
+		assertEquals(1.5f, in.readFloat(), 0);
+		assertEquals(Math.PI, in.readDouble(), 0);
+		assertEquals("héllo wörld", in.readUTF());
+		assertEquals("a line", in.readLine());
+		assertEquals("last", in.readLine());
+		assertNull(in.readLine());
+		assertEquals(0, in.remaining());
+	}
+
+	/**
+	 * Test that reading past the end throws an {@link EOFException}
+	 * 
+	 * @throws IOException
+	 */
+	@Test(expected = EOFException.class)
+	public void testEOF() throws IOException {
+		final ByteBufferDataInput in = new ByteBufferDataInput(new byte[6]);
+		in.readInt();
+		in.readInt();
+	}
+
+	/**
+	 * Test that the bulk array reads give the same values as reading one at a
+	 * time, for both buffers and streams
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testBulkReads() throws IOException {
+		final Random rng = new Random(1);
+		final int n = 5000;
+		final short[] s = new short[n];
+		final int[] i = new int[n];
+		final long[] l = new long[n];
+		final float[] f = new float[n];
+		final double[] d = new double[n];
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final DataOutputStream dos = new DataOutputStream(baos);
+		for (int j = 0; j < n; j++) {
+			s[j] = (short) rng.nextInt();
+			i[j] = rng.nextInt();
+			l[j] = rng.nextLong();
+			f[j] = rng.nextFloat();
+			d[j] = rng.nextDouble();
+		}
+		for (int j = 0; j < n; j++)
+			dos.writeShort(s[j]);
+		for (int j = 0; j < n; j++)
+			dos.writeInt(i[j]);
+		for (int j = 0; j < n; j++)
+			dos.writeLong(l[j]);
+		for (int j = 0; j < n; j++)
+			dos.writeFloat(f[j]);
+		for (int j = 0; j < n; j++)
+			dos.writeDouble(d[j]);
+		dos.writeInt(42);
+		dos.close();
+		final byte[] bytes = baos.toByteArray();
+
+		final DataInput[] inputs = {
+				new ByteBufferDataInput(bytes),
+				new DataInputStream(new ByteArrayInputStream(bytes))
+		};
+		for (final DataInput in : inputs) {
+			final short[] s2 = new short[n];
+			IOUtils.readFully(in, s2);
+			assertArrayEquals(s, s2);
+
+			final int[] i2 = new int[n];
+			IOUtils.readFully(in, i2);
+			assertArrayEquals(i, i2);
+
+			final long[] l2 = new long[n];
+			IOUtils.readFully(in, l2);
+			assertArrayEquals(l, l2);
+
+			final float[] f2 = new float[n + 2];
+			IOUtils.readFully(in, f2, 1, n);
+			for (int j = 0; j < n; j++)
+				assertEquals(f[j], f2[j + 1], 0);
+
+			final double[] d2 = new double[n];
+			IOUtils.readFully(in, d2);
+			assertArrayEquals(d, d2, 0);
+
+			assertEquals(42, in.readInt());
+		}
+	}
+
+	/**
+	 * Test reading a binary object from a memory-mapped file and from a byte
+	 * array
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testReadMapped() throws IOException {
+		final Random rng = new Random(2);
+		final double[][] data = new double[50][30];
+		for (final double[] row : data)
+			for (int j = 0; j < row.length; j++)
+				row[j] = rng.nextGaussian();
+
+		final File file = folder.newFile("matrix.bin");
+		IOUtils.writeBinary(file, new Writeable2DArrayBinary(data));
+
+		final Readable2DArrayBinary mapped = IOUtils.readMapped(file, new Readable2DArrayBinary(new double[0][0]));
+		final Readable2DArrayBinary deserialized = IOUtils.deserialize(
+				IOUtils.serialize(new Writeable2DArrayBinary(data)), new Readable2DArrayBinary(new double[0][0]));
+
+		assertEquals(data.length, mapped.value.length);
+		assertEquals(data.length, deserialized.value.length);
+		for (int j = 0; j < data.length; j++) {
+			assertArrayEquals(data[j], mapped.value[j], 0);
+			assertArrayEquals(data[j], deserialized.value[j], 0);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ReadAheadInputStream}
+ */
+public class ReadAheadInputStreamTest {
+	/**
+	 * A stream that returns the given bytes and then fails
+	 */
+	private static class FailingInputStream extends InputStream {
+		private final byte[] data;
+		private final IOException error;
+		private int pos;
+
+		FailingInputStream(byte[] data, IOException error) {
+			this.data = data;
+			this.error = error;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (pos >= data.length)
+				throw error;
+			return data[pos++] & 0xff;
+		}
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buf = new byte[7];
+		int n;
+		while ((n = in.read(buf, 0, buf.length)) >= 0)
+			out.write(buf, 0, n);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Test that the data is read unchanged across block boundaries and when
+	 * it ends exactly on a block boundary
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testRead() throws IOException {
+		final Random rng = new Random(0);
+		for (final int length : new int[] { 0, 1, 16, 100 }) {
+			final byte[] data = new byte[length];
+			rng.nextBytes(data);
+
+			final ReadAheadInputStream in = new ReadAheadInputStream(new ByteArrayInputStream(data), 4, 2);
+			assertArrayEquals(data, readFully(in));
+			assertEquals(-1, in.read());
+			in.close();
+		}
+	}
+
+	/**
+	 * Test that the bytes read before an error are returned, and that every
+	 * read after that rethrows the error rather than blocking
+	 * 
+	 * @throws IOException
+	 */
+	@Test(timeout = 10000)
+	public void testErrorIsSticky() throws IOException {
+		final byte[] data = new byte[10];
+		new Random(0).nextBytes(data);
+		final IOException error = new IOException("failed");
+
+		final ReadAheadInputStream in = new ReadAheadInputStream(new FailingInputStream(data, error), 4, 2);
+		final byte[] read = new byte[data.length];
+		for (int i = 0; i < read.length; i++)
+			read[i] = (byte) in.read();
+		assertArrayEquals(data, read);
+
+		for (int i = 0; i < 3; i++) {
+			try {
+				in.read(read, 0, read.length);
+				fail();
+			} catch (final IOException e) {
+				assertSame(error, e);
+			}
+		}
+		in.close();
+	}
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.concurrent;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue.DropPolicy;
+
+/**
+ * Tests for {@link ConcurrentArrayDroppingQueue}
+ */
+public class ConcurrentArrayDroppingQueueTest {
+	/**
+	 * Test that the oldest items are dropped, as with
+	 * {@link ArrayBlockingDroppingQueue}
+	 * 
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testDropOldest() throws InterruptedException {
+		final ConcurrentArrayDroppingQueue<Integer> q = new ConcurrentArrayDroppingQueue<Integer>(3);
+		final ArrayBlockingDroppingQueue<Integer> ref = new ArrayBlockingDroppingQueue<Integer>(3);
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals(ref.put(i), q.put(i));
+			if (i % 4 == 0)
+				assertEquals(ref.poll(), q.poll());
+		}
+
+		assertEquals(ref.insertCount(), q.insertCount());
+		assertEquals(ref.dropCount(), q.dropCount());
+		assertEquals(ref.size(), q.size());
+		assertEquals(ref.peek(), q.peek());
+		assertArrayEquals(ref.toArray(), q.toArray());
+		assertFalse(q.offer(100));
+		assertEquals(0, q.remainingCapacity());
+	}
+
+	/**
+	 * Test a queue with a capacity of 1
+	 * 
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testSingleCapacity() throws InterruptedException {
+		final ConcurrentArrayDroppingQueue<String> q = new ConcurrentArrayDroppingQueue<String>(1);
+
+		assertNull(q.put("a"));
+		assertEquals("a", q.put("b"));
+		assertFalse(q.offer("c"));
+		assertEquals("b", q.take());
+		assertNull(q.poll());
+		assertTrue(q.offer("c"));
+		assertEquals("c", q.poll(10, TimeUnit.MILLISECONDS));
+		assertNull(q.poll(10, TimeUnit.MILLISECONDS));
+		assertEquals(1, q.dropCount());
+		assertEquals(3, q.insertCount());
+	}
+
+	/**
+	 * Test the other drop policies
+	 * 
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testDropPolicies() throws InterruptedException {
+		final ConcurrentArrayDroppingQueue<Integer> newest = new ConcurrentArrayDroppingQueue<Integer>(2,
+				DropPolicy.NEWEST);
+		final ConcurrentArrayDroppingQueue<Integer> sample = new ConcurrentArrayDroppingQueue<Integer>(10,
+				DropPolicy.SAMPLE, new Random(42));
+		final ConcurrentArrayDroppingQueue<Integer> sample2 = new ConcurrentArrayDroppingQueue<Integer>(10,
+				DropPolicy.SAMPLE, new Random(42));
+
+		for (int i = 0; i < 1000; i++) {
+			newest.put(i);
+			sample.put(i);
+			sample2.put(i);
+		}
+
+		assertEquals(0, (int) newest.poll());
+		assertEquals(1, (int) newest.poll());
+		assertEquals(998, newest.dropCount());
+
+		final List<Integer> sampled = new ArrayList<Integer>();
+		sample.drainTo(sampled);
+		assertEquals(10, sampled.size());
+		assertEquals(990, sample.dropCount());
+
+		// the sample should be spread over the burst rather than just the
+		// first or last items
+		assertTrue(sampled.get(0) < 900);
+		assertTrue(sampled.get(9) >= 10);
+		final List<Integer> sorted = new ArrayList<Integer>(sampled);
+		Collections.sort(sorted);
+		assertEquals(sorted, sampled);
+
+		// with the same seed the sample is reproducible
+		final List<Integer> sampled2 = new ArrayList<Integer>();
+		sample2.drainTo(sampled2);
+		assertEquals(sampled, sampled2);
+	}
+
+	/**
+	 * Test removal from the middle of the queue
+	 */
+	@Test
+	public void testRemove() {
+		final ConcurrentArrayDroppingQueue<Integer> q = new ConcurrentArrayDroppingQueue<Integer>(5);
+		for (int i = 0; i < 5; i++)
+			q.offer(i);
+
+		assertTrue(q.remove(2));
+		assertFalse(q.contains(2));
+		assertTrue(q.contains(3));
+
+		final List<Integer> remaining = new ArrayList<Integer>();
+		q.drainTo(remaining);
+		assertEquals(4, remaining.size());
+		assertEquals(3, (int) remaining.get(2));
+		assertTrue(q.isEmpty());
+	}
+
+	/**
+	 * Test with many producers and consumers that every item is either taken
+	 * exactly once or counted as dropped
+	 * 
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testConcurrent() throws InterruptedException {
+		final int nProducers = 4;
+		final int nConsumers = 4;
+		final int perProducer = 50000;
+		final ConcurrentArrayDroppingQueue<Integer> q = new ConcurrentArrayDroppingQueue<Integer>(16);
+		final ConcurrentLinkedQueue<Integer> taken = new ConcurrentLinkedQueue<Integer>();
+		final CountDownLatch produced = new CountDownLatch(nProducers);
+		final CountDownLatch consumed = new CountDownLatch(nConsumers);
+
+		for (int p = 0; p < nProducers; p++) {
+			final int offset = p * perProducer;
+			new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < perProducer; i++)
+						q.put(offset + i);
+					produced.countDown();
+				}
+			}.start();
+		}
+
+		for (int c = 0; c < nConsumers; c++) {
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						while (true) {
+							final Integer x = q.poll(10, TimeUnit.MILLISECONDS);
+							if (x != null)
+								taken.add(x);
+							else if (produced.getCount() == 0 && q.isEmpty())
+								break;
+						}
+					} catch (final InterruptedException e) {
+					}
+					consumed.countDown();
+				}
+			}.start();
+		}
+
+		assertTrue(consumed.await(60, TimeUnit.SECONDS));
+
+		final boolean[] seen = new boolean[nProducers * perProducer];
+		for (final int x : taken) {
+			assertFalse(seen[x]);
+			seen[x] = true;
+		}
+		assertEquals(nProducers * perProducer, q.insertCount());
+		assertEquals(q.insertCount(), taken.size() + q.dropCount());
+	}
+}
@@ -36,9 +36,13 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel.IntRange;
 import org.openimaj.util.parallel.partition.GrowingChunkPartitioner;
 import org.openimaj.util.parallel.partition.RangePartitioner;
 
@@ -96,4 +100,73 @@ public class ParallelTest {
 
 		assertEquals(intsList.size(), out.size());
 	}
+
+	/**
+	 * Test that the for-index loop has completed every index when it returns,
+	 * including when the range doesn't divide evenly between the threads
+	 */
+	@Test
+	public void testForIndex() {
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			for (final int[] range : new int[][] { { 0, 64, 1 }, { 0, 10, 3 }, { 5, 6, 1 }, { 0, 100, 7 } }) {
+				final Set<Integer> out = Collections.synchronizedSet(new HashSet<Integer>());
+
+				Parallel.forIndex(range[0], range[1], range[2], new Operation<Integer>() {
+					@Override
+					public void perform(Integer object) {
+						try {
+							Thread.sleep(object % 2);
+						} catch (final InterruptedException e) {
+						}
+						out.add(object);
+					}
+				}, pool);
+
+				final Set<Integer> expected = new HashSet<Integer>();
+				for (int i = range[0]; i < range[1]; i += range[2])
+					expected.add(i);
+
+				assertEquals(expected, out);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test that loops on the global pool can be nested without dead-locking,
+	 * even when the outer loop occupies every thread of the pool
+	 */
+	@Test(timeout = 10000)
+	public void testNestedGlobalLoops() {
+		final int n = GlobalExecutorPool.getPool().getMaximumPoolSize() + 1;
+		final List<Integer> items = new ArrayList<Integer>();
+		for (int i = 0; i < 10; i++)
+			items.add(i);
+
+		final AtomicInteger count = new AtomicInteger();
+		Parallel.forIndex(0, n, 1, new Operation<Integer>() {
+			@Override
+			public void perform(Integer object) {
+				Parallel.forRange(0, 10, 1, new Operation<IntRange>() {
+					@Override
+					public void perform(IntRange range) {
+						for (int i = range.start; i < range.stop; i += range.incr)
+							count.incrementAndGet();
+					}
+				});
+
+				Parallel.forEach(items, new Operation<Integer>() {
+					@Override
+					public void perform(Integer item) {
+						count.incrementAndGet();
+					}
+				});
+			}
+		});
+
+		assertEquals(n * 20, count.get());
+	}
 }
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link IntDisjointSetForest}
+ */
+public class IntDisjointSetForestTest {
+	/**
+	 * Test making, joining and labelling sets
+	 */
+	@Test
+	public void test1() {
+		final IntDisjointSetForest set = new IntDisjointSetForest(3);
+
+		assertEquals(3, set.size());
+		assertEquals(3, set.numSets());
+
+		for (int i = 0; i < 20; i++)
+			assertEquals(3 + i, set.makeSet());
+		assertEquals(23, set.numSets());
+
+		final int r = set.union(22, 1);
+		assertEquals(r, set.find(1));
+		assertEquals(r, set.find(22));
+		assertEquals(-1, set.union(1, 22));
+
+		set.union(5, 4);
+		set.union(4, 22);
+		assertEquals(20, set.numSets());
+		assertEquals(set.find(5), set.find(1));
+
+		final int[] labels = set.labels();
+		assertEquals(23, labels.length);
+		assertArrayEquals(new int[] { 0, 1, 2, 3, 1 }, new int[] { labels[0], labels[1], labels[2], labels[3],
+				labels[5] });
+		assertEquals(1, labels[22]);
+		assertEquals(19, labels[21]);
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.stream;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.openimaj.util.concurrent.ArrayBlockingDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue.DropPolicy;
+
+/**
+ * Tests for {@link BlockingDroppingBufferedStream}
+ */
+public class BlockingDroppingBufferedStreamTest {
+	/**
+	 * By default new items are dropped whilst the buffer is full, and the drops
+	 * are counted
+	 * 
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testDefaultDropsNewest() throws InterruptedException {
+		final BlockingDroppingBufferedStream<Integer> stream = new BlockingDroppingBufferedStream<Integer>(2);
+
+		for (int i = 0; i < 5; i++)
+			stream.register(i);
+
+		assertEquals(3, stream.getDropCount());
+		assertEquals(0, (int) stream.next());
+		assertEquals(1, (int) stream.next());
+	}
+
+	/**
+	 * The drop policy chosen at construction is applied to registered items
+	 * 
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testDropsOldest() throws InterruptedException {
+		final BlockingDroppingBufferedStream<Integer> stream = new BlockingDroppingBufferedStream<Integer>(2,
+				DropPolicy.OLDEST);
+
+		for (int i = 0; i < 5; i++)
+			stream.register(i);
+
+		assertEquals(3, stream.getDropCount());
+		assertEquals(3, (int) stream.next());
+		assertEquals(4, (int) stream.next());
+	}
+
+	/**
+	 * A supplied buffer applies its own policy and counts its drops
+	 * 
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testSuppliedBuffer() throws InterruptedException {
+		final BlockingDroppingBufferedStream<Integer> stream = new BlockingDroppingBufferedStream<Integer>(
+				new ArrayBlockingDroppingQueue<Integer>(1));
+
+		stream.register(0);
+		stream.register(1);
+
+		assertEquals(1, stream.getDropCount());
+		assertEquals(1, (int) stream.next());
+	}
+}
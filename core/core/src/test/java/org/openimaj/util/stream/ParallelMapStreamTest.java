@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.openimaj.util.function.Function;
+import org.openimaj.util.function.MultiFunction;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.function.Predicate;
+import org.openimaj.util.parallel.Parallel;
+
+/**
+ * Tests for {@link ParallelMapStream}
+ */
+public class ParallelMapStreamTest {
+	private static List<Integer> range(int n) {
+		final List<Integer> list = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++)
+			list.add(i);
+		return list;
+	}
+
+	private static <T> List<T> collect(Stream<T> stream) {
+		final List<T> list = new ArrayList<T>();
+		stream.forEach(new Operation<T>() {
+			@Override
+			public void perform(T object) {
+				list.add(object);
+			}
+		});
+		return list;
+	}
+
+	private final Function<Integer, Integer> square = new Function<Integer, Integer>() {
+		@Override
+		public Integer apply(Integer in) {
+			// make the later items faster so they complete out of order
+			try {
+				Thread.sleep(in % 3);
+			} catch (final InterruptedException e) {
+			}
+			return in * in;
+		}
+	};
+
+	/**
+	 * Test that an ordered parallel map gives the same result as a sequential
+	 * map
+	 */
+	@Test
+	public void testOrderedMap() {
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
+
+		final List<Integer> expected = collect(new CollectionStream<Integer>(range(200)).map(square));
+		final List<Integer> actual = collect(new CollectionStream<Integer>(range(200))
+				.parallelMap(square, pool, 8, true));
+
+		assertEquals(expected, actual);
+		pool.shutdown();
+	}
+
+	/**
+	 * Test that an unordered parallel map gives the same items as a
+	 * sequential map
+	 */
+	@Test
+	public void testUnorderedMap() {
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
+
+		final List<Integer> expected = collect(new CollectionStream<Integer>(range(200)).map(square));
+		final List<Integer> actual = collect(new CollectionStream<Integer>(range(200))
+				.parallelMap(square, pool, 8, false));
+
+		Collections.sort(actual);
+		assertEquals(expected, actual);
+		pool.shutdown();
+	}
+
+	/**
+	 * Test parallel filtering and multi-functions
+	 */
+	@Test
+	public void testFilterAndMultiMap() {
+		final Stream<Integer> evens = new CollectionStream<Integer>(range(100)).parallelFilter(new Predicate<Integer>() {
+			@Override
+			public boolean test(Integer object) {
+				return object % 2 == 0;
+			}
+		});
+
+		final List<Integer> actual = collect(evens.parallelMap(new MultiFunction<Integer, Integer>() {
+			@Override
+			public List<Integer> apply(Integer in) {
+				if (in % 4 == 0)
+					return null;
+				return range(2);
+			}
+		}));
+
+		// 25 of the even numbers aren't divisible by 4
+		assertEquals(50, actual.size());
+		assertEquals(0, (int) actual.get(0));
+		assertEquals(1, (int) actual.get(1));
+	}
+
+	/**
+	 * Test that no more than the given number of items are read from the
+	 * source ahead of the consumer
+	 */
+	@Test
+	public void testBoundedInFlight() {
+		final AtomicInteger read = new AtomicInteger();
+		final Stream<Integer> source = new CollectionStream<Integer>(range(100)).map(new Function<Integer, Integer>() {
+			@Override
+			public Integer apply(Integer in) {
+				read.incrementAndGet();
+				return in;
+			}
+		});
+
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
+		final ParallelMapStream<Integer, Integer> stream = source.parallelMap(square, pool, 5, true);
+
+		int consumed = 0;
+		while (stream.hasNext()) {
+			stream.next();
+			consumed++;
+
+			try {
+				Thread.sleep(1);
+			} catch (final InterruptedException e) {
+			}
+			assertTrue(read.get() - consumed <= 5);
+		}
+
+		assertEquals(100, consumed);
+		assertEquals(100, stream.getStatistics().getItemsCompleted());
+		assertEquals(100, stream.getStatistics().getItemsEmitted());
+		assertEquals(0, stream.getStatistics().getItemsInFlight());
+		pool.shutdown();
+	}
+
+	/**
+	 * Test that exceptions thrown by the function reach the consumer
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testException() {
+		collect(new CollectionStream<Integer>(range(10)).parallelMap(new Function<Integer, Integer>() {
+			@Override
+			public Integer apply(Integer in) {
+				if (in == 5)
+					throw new IllegalStateException();
+				return in;
+			}
+		}));
+	}
+
+	/**
+	 * Test that tasks rejected by the pool fail rather than leaving the
+	 * consumer waiting forever
+	 */
+	@Test(timeout = 10000)
+	public void testRejected() {
+		for (final boolean ordered : new boolean[] { true, false }) {
+			final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+			pool.shutdown();
+
+			try {
+				collect(new CollectionStream<Integer>(range(10)).parallelMap(square, pool, 5, ordered));
+				fail("the rejection should have reached the consumer");
+			} catch (final RejectedExecutionException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 * Test that a stage on the global pool can itself use parallel loops on
+	 * the global pool without dead-locking
+	 */
+	@Test(timeout = 10000)
+	public void testNestedParallelLoop() {
+		final Function<Integer, Integer> sumTo = new Function<Integer, Integer>() {
+			@Override
+			public Integer apply(Integer in) {
+				final AtomicInteger sum = new AtomicInteger();
+				Parallel.forIndex(0, in, 1, new Operation<Integer>() {
+					@Override
+					public void perform(Integer i) {
+						sum.addAndGet(i);
+					}
+				});
+				return sum.get();
+			}
+		};
+
+		final List<Integer> actual = collect(new CollectionStream<Integer>(range(50)).parallelMap(sumTo));
+		for (int i = 0; i < 50; i++)
+			assertEquals(i * (i - 1) / 2, (int) actual.get(i));
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.audio.benchmark;
+
+import org.openimaj.audio.AudioFormat;
+import org.openimaj.audio.SampleChunk;
+import org.openimaj.audio.filters.EQFilter;
+import org.openimaj.audio.filters.EQFilter.EQType;
+import org.openimaj.audio.filters.HanningAudioProcessor;
+import org.openimaj.audio.samples.SampleBuffer;
+import org.openimaj.audio.samples.SampleBufferFactory;
+import org.openimaj.math.matrix.MeanVector;
+import org.openimaj.time.Timer;
+
+/**
+ * Benchmark of a typical filter chain (low-pass EQ followed by a Hanning
+ * window) over 16-bit stereo sample chunks. The chain is timed against an
+ * equivalent implementation that goes through the per-sample
+ * {@link SampleBuffer#get(int)} and {@link SampleBuffer#set(int, float)}
+ * methods.
+ */
+public class AudioFilterChainBenchmark {
+	private static final int CHUNK_SIZE = 4096;
+	private static final int N_CHUNKS = 2000;
+
+	private static SampleChunk[] makeChunks(AudioFormat af) {
+		final SampleChunk[] chunks = new SampleChunk[N_CHUNKS];
+		for (int i = 0; i < N_CHUNKS; i++) {
+			final SampleBuffer sb = SampleBufferFactory.createSampleBuffer(af, CHUNK_SIZE * af.getNumChannels());
+			for (int j = 0; j < sb.size(); j++)
+				sb.set(j, (float) ((Math.random() - 0.5) * Integer.MAX_VALUE));
+			chunks[i] = sb.getSampleChunk();
+		}
+		return chunks;
+	}
+
+	private static void perSample(SampleChunk sample, double[] weights) {
+		final SampleBuffer sb = sample.getSampleBuffer();
+		final int nc = sample.getFormat().getNumChannels();
+		for (int c = 0; c < nc; c++) {
+			double xm1 = 0, ym1 = 0;
+			for (int n = c; n < sb.size(); n += nc) {
+				final double x = sb.get(n);
+				final double y = 0.1 * x + 0.1 * xm1 + 0.8 * ym1;
+				xm1 = x;
+				ym1 = y;
+				sb.set(n, (float) y);
+			}
+		}
+		for (int i = 0; i < sb.size(); i++)
+			sb.set(i, (float) (sb.get(i) * weights[i]));
+	}
+
+	/**
+	 * Main method
+	 *
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		final AudioFormat af = new AudioFormat(16, 44.1, 2);
+		final SampleChunk[] chunks = makeChunks(af);
+
+		final double[] weights = new double[CHUNK_SIZE * af.getNumChannels()];
+		for (int i = 0; i < weights.length; i++)
+			weights[i] = 0.5 * (1 - Math.cos((2 * Math.PI * (i / 2)) / CHUNK_SIZE));
+
+		final MeanVector bulk = new MeanVector();
+		final MeanVector single = new MeanVector();
+		for (int r = 0; r < 10; r++) {
+			final EQFilter eq = new EQFilter(EQType.LPF, 5000);
+			final HanningAudioProcessor hanning = new HanningAudioProcessor(CHUNK_SIZE);
+
+			Timer t = Timer.timer();
+			for (final SampleChunk sc : chunks)
+				hanning.process(eq.process(sc));
+			bulk.update(new double[] { t.duration() });
+
+			t = Timer.timer();
+			for (final SampleChunk sc : chunks)
+				perSample(sc, weights);
+			single.update(new double[] { t.duration() });
+
+			System.out.println("bulk chain: " + bulk.vec()[0] + "ms; per-sample chain: " + single.vec()[0] + "ms");
+		}
+	}
+}
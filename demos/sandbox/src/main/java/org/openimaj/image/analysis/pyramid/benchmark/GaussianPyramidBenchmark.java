@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.analysis.pyramid.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.analysis.pyramid.gaussian.GaussianPyramid;
+import org.openimaj.image.analysis.pyramid.gaussian.GaussianPyramidOptions;
+import org.openimaj.time.Timer;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * Compare the time taken to build SIFT-style {@link GaussianPyramid}s for a
+ * sequence of 640x480 frames with freshly allocated images, with reused
+ * buffers, with octaves built concurrently, and when only the first two
+ * octaves are wanted.
+ */
+public class GaussianPyramidBenchmark {
+	private static final int FRAMES = 10;
+
+	private static long time(FImage[] frames, GaussianPyramidOptions<FImage> options, ThreadPoolExecutor pool) {
+		final GaussianPyramid<FImage> pyramid = new GaussianPyramid<FImage>(options, pool);
+
+		final Timer t = Timer.timer();
+		for (final FImage frame : frames)
+			pyramid.process(frame);
+		return t.duration() / frames.length;
+	}
+
+	/**
+	 * @param args
+	 *            ignored
+	 */
+	public static void main(String[] args) {
+		final Random rng = new Random(0);
+		final FImage[] frames = new FImage[FRAMES];
+		for (int i = 0; i < FRAMES; i++) {
+			frames[i] = new FImage(640, 480);
+			for (int y = 0; y < 480; y++)
+				for (int x = 0; x < 640; x++)
+					frames[i].pixels[y][x] = rng.nextFloat();
+		}
+
+		final GaussianPyramidOptions<FImage> plain = new GaussianPyramidOptions<FImage>();
+
+		final GaussianPyramidOptions<FImage> reuse = new GaussianPyramidOptions<FImage>();
+		reuse.setReuseBuffers(true);
+
+		final GaussianPyramidOptions<FImage> range = new GaussianPyramidOptions<FImage>();
+		range.setReuseBuffers(true);
+		range.setOctaveRange(0, 1);
+
+		// warm up
+		time(frames, plain, null);
+		time(frames, reuse, GlobalExecutorPool.getPool());
+
+		System.out.format("per frame: fresh %dms, reused %dms, reused+concurrent %dms, octaves 0-1 %dms%n",
+				time(frames, plain, null), time(frames, reuse, null),
+				time(frames, reuse, GlobalExecutorPool.getPool()), time(frames, range, null));
+	}
+}
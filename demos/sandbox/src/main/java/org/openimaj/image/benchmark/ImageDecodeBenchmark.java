@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.openimaj.image.ImageUtilities;
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.colour.RGBColour;
+import org.openimaj.image.renderer.MBFImageRenderer;
+import org.openimaj.math.geometry.shape.Circle;
+import org.openimaj.time.Timer;
+
+/**
+ * Compare the time taken to decode a batch of JPEG images into
+ * {@link MBFImage}s through the packed ARGB pixels (the way
+ * {@link ImageUtilities#createMBFImage(BufferedImage, boolean)} used to work),
+ * through the direct raster conversion, at reduced resolution and in parallel.
+ */
+public class ImageDecodeBenchmark {
+	private static final int REPEATS = 5;
+	private static final int IMAGES = 20;
+
+	/**
+	 * @param args
+	 *            ignored
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		final List<File> files = new ArrayList<File>();
+		for (int i = 0; i < IMAGES; i++) {
+			final MBFImage image = new MBFImage(1600, 1200);
+			image.fill(RGBColour.randomColour());
+			final MBFImageRenderer renderer = image.createRenderer();
+			for (int j = 0; j < 50; j++)
+				renderer.drawShapeFilled(new Circle(
+						(float) Math.random() * 1600, (float) Math.random() * 1200, (float) Math.random() * 300),
+						RGBColour.randomColour());
+
+			final File file = File.createTempFile("image", ".jpg");
+			file.deleteOnExit();
+			ImageUtilities.write(image, file);
+			files.add(file);
+		}
+
+		double argb = Double.MAX_VALUE, direct = Double.MAX_VALUE, reduced = Double.MAX_VALUE;
+		double batch = Double.MAX_VALUE;
+		for (int i = 0; i < REPEATS; i++) {
+			Timer t = Timer.timer();
+			for (final File f : files) {
+				final BufferedImage bimg = ImageUtilities.createWorkingImage(ImageIO.read(f));
+				final int[] data = bimg.getRGB(0, 0, bimg.getWidth(), bimg.getHeight(), null, 0, bimg.getWidth());
+				new MBFImage(data, bimg.getWidth(), bimg.getHeight());
+			}
+			argb = Math.min(argb, t.duration());
+
+			t = Timer.timer();
+			for (final File f : files)
+				ImageUtilities.createMBFImage(ImageIO.read(f), false);
+			direct = Math.min(direct, t.duration());
+
+			t = Timer.timer();
+			for (final File f : files)
+				ImageUtilities.readMBF(f, 400);
+			reduced = Math.min(reduced, t.duration());
+
+			t = Timer.timer();
+			ImageUtilities.readMBF(files, 0);
+			batch = Math.min(batch, t.duration());
+		}
+
+		System.out.format("%d images: via ARGB %.0fms, direct raster %.0fms, reduced (400px) %.0fms, "
+				+ "parallel batch %.0fms%n", IMAGES, argb, direct, reduced, batch);
+	}
+}
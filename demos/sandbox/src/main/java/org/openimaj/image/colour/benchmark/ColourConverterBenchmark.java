@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.colour.benchmark;
+
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.colour.ColourConverter;
+import org.openimaj.image.colour.ColourSpace;
+import org.openimaj.time.Timer;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * Compare the time taken to convert a 1280x720 RGB frame to, and back from,
+ * each {@link ColourSpace} using {@link ColourSpace#convertFromRGB(MBFImage)}
+ * and {@link ColourSpace#convertToRGB(MBFImage)} with the time taken by the
+ * {@link ColourConverter}, both sequentially and in parallel, writing into a
+ * preallocated image.
+ */
+public class ColourConverterBenchmark {
+	private static final int REPEATS = 5;
+
+	private static long timeTransforms(MBFImage rgb, ColourSpace cs) {
+		final Timer t = Timer.timer();
+		for (int i = 0; i < REPEATS; i++)
+			cs.convertToRGB(cs.convertFromRGB(rgb));
+		return t.duration() / REPEATS;
+	}
+
+	private static long timeConverter(MBFImage rgb, ColourSpace cs, boolean parallel) {
+		final MBFImage converted = new MBFImage(rgb.getWidth(), rgb.getHeight(), cs);
+		final MBFImage back = new MBFImage(rgb.getWidth(), rgb.getHeight(), ColourSpace.RGB);
+
+		final Timer t = Timer.timer();
+		for (int i = 0; i < REPEATS; i++) {
+			ColourConverter.convert(rgb, cs, converted, parallel ? GlobalExecutorPool.getPool() : null);
+			ColourConverter.convert(converted, ColourSpace.RGB, back, parallel ? GlobalExecutorPool.getPool() : null);
+		}
+		return t.duration() / REPEATS;
+	}
+
+	/**
+	 * @param args
+	 *            ignored
+	 */
+	public static void main(String[] args) {
+		final MBFImage rgb = MBFImage.randomImage(1280, 720);
+
+		// warm up
+		for (final ColourSpace cs : ColourSpace.values()) {
+			if (ColourConverter.isAccelerated(ColourSpace.RGB, cs) && cs.getNumBands() == 3) {
+				timeTransforms(rgb, cs);
+				timeConverter(rgb, cs, false);
+			}
+		}
+
+		for (final ColourSpace cs : ColourSpace.values()) {
+			if (cs == ColourSpace.RGB || !ColourConverter.isAccelerated(ColourSpace.RGB, cs) || cs.getNumBands() != 3)
+				continue;
+
+			final long transforms = timeTransforms(rgb, cs);
+			final long converter = timeConverter(rgb, cs, false);
+			final long parallel = timeConverter(rgb, cs, true);
+
+			System.out.format("%s round trip: Transforms %dms, ColourConverter %dms, parallel %dms%n", cs, transforms,
+					converter, parallel);
+		}
+	}
+}
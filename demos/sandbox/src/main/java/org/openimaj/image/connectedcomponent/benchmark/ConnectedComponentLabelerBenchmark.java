@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.connectedcomponent.benchmark;
+
+import java.util.List;
+import java.util.Random;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.connectedcomponent.ConnectedComponentLabeler;
+import org.openimaj.image.connectedcomponent.RunLengthLabeler;
+import org.openimaj.image.pixel.ConnectedComponent;
+import org.openimaj.image.pixel.ConnectedComponent.ConnectMode;
+import org.openimaj.time.Timer;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * Compare the time and memory taken to label a synthetic document-like image
+ * containing many small blobs with the two-pass and run-length labellers.
+ */
+public class ConnectedComponentLabelerBenchmark {
+	private static long usedMemory() {
+		final Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	private static void report(String name, long time, long memory, List<ConnectedComponent> components) {
+		System.out.format("%s: %d components, %dms, ~%dKB retained%n", name, components.size(), time,
+				memory / 1024);
+	}
+
+	/**
+	 * @param args
+	 *            ignored
+	 */
+	public static void main(String[] args) {
+		// blobs of ink, like the characters on a scanned page
+		final Random rng = new Random(0);
+		final FImage image = new FImage(2480, 1754);
+		for (int i = 0; i < 60000; i++) {
+			final int x = rng.nextInt(image.width - 12);
+			final int y = rng.nextInt(image.height - 12);
+			final int w = 2 + rng.nextInt(6);
+			final int h = 2 + rng.nextInt(6);
+			for (int yy = y; yy < y + h; yy++)
+				for (int xx = x; xx < x + w; xx++)
+					if (rng.nextFloat() < 0.8)
+						image.pixels[yy][xx] = 1;
+		}
+
+		// warm up
+		RunLengthLabeler.findComponents(image, 0, ConnectMode.CONNECT_8);
+
+		long before = usedMemory();
+		Timer t = Timer.timer();
+		List<ConnectedComponent> components = ConnectedComponentLabeler.Algorithm.TWO_PASS.findComponents(image, 0,
+				ConnectMode.CONNECT_8);
+		long time = t.duration();
+		report("TWO_PASS", time, usedMemory() - before, components);
+		components = null;
+
+		before = usedMemory();
+		t = Timer.timer();
+		components = RunLengthLabeler.findComponents(image, 0, ConnectMode.CONNECT_8);
+		time = t.duration();
+		report("RUN_LENGTH", time, usedMemory() - before, components);
+		components = null;
+
+		t = Timer.timer();
+		components = RunLengthLabeler.findComponents(image, 0, ConnectMode.CONNECT_8, GlobalExecutorPool.getPool());
+		time = t.duration();
+		System.out.format("RUN_LENGTH (parallel): %d components, %dms%n", components.size(), time);
+	}
+}
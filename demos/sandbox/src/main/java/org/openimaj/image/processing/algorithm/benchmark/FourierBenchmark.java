@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm.benchmark;
+
+import java.util.Random;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.analysis.algorithm.FourierTemplateMatcher;
+import org.openimaj.image.feature.global.Gist;
+import org.openimaj.image.processing.algorithm.FourierTransform;
+import org.openimaj.image.processing.convolution.FourierConvolve;
+import org.openimaj.time.Timer;
+
+import edu.emory.mathcs.jtransforms.fft.FloatFFT_2D;
+
+/**
+ * Compare the time taken for FFT based convolution using a freshly planned
+ * complex transform for every image (as was previously done) against the
+ * cached real-to-complex transform with a reused kernel spectrum, and report
+ * the time taken by the FFT-heavy {@link FourierTemplateMatcher} and
+ * {@link Gist}.
+ */
+public class FourierBenchmark {
+	private static final int FRAMES = 20;
+
+	private static FImage randomImage(Random rng, int width, int height) {
+		final FImage img = new FImage(width, height);
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				img.pixels[y][x] = rng.nextFloat();
+		return img;
+	}
+
+	private static FImage complexConvolve(FImage image, float[][] kernel) {
+		final int cols = image.getCols();
+		final int rows = image.getRows();
+
+		final FloatFFT_2D fft = new FloatFFT_2D(rows, cols);
+
+		final float[][] preparedImage = FourierTransform.prepareData(image.pixels, rows, cols, false);
+		fft.complexForward(preparedImage);
+
+		final float[][] preparedKernel = FourierTransform.prepareData(kernel, rows, cols, false);
+		fft.complexForward(preparedKernel);
+
+		for (int y = 0; y < rows; y++) {
+			for (int x = 0; x < cols; x++) {
+				final float reImage = preparedImage[y][x * 2];
+				final float imImage = preparedImage[y][1 + x * 2];
+				final float reKernel = preparedKernel[y][x * 2];
+				final float imKernel = preparedKernel[y][1 + x * 2];
+
+				preparedImage[y][x * 2] = reImage * reKernel - imImage * imKernel;
+				preparedImage[y][1 + x * 2] = reImage * imKernel + imImage * reKernel;
+			}
+		}
+
+		fft.complexInverse(preparedImage, true);
+
+		final FImage out = new FImage(cols, rows);
+		FourierTransform.unprepareData(preparedImage, out, false);
+		return out;
+	}
+
+	private static long[] run(FImage[] frames, FImage kernel) {
+		final FourierConvolve convolve = new FourierConvolve(kernel);
+		final FourierTemplateMatcher matcher = new FourierTemplateMatcher(kernel,
+				FourierTemplateMatcher.Mode.NORM_CORRELATION_COEFFICIENT);
+		final Gist<FImage> gist = new Gist<FImage>(256, 256);
+
+		final long[] times = new long[4];
+
+		Timer t = Timer.timer();
+		for (final FImage f : frames)
+			complexConvolve(f, kernel.pixels);
+		times[0] = t.duration();
+
+		t = Timer.timer();
+		for (final FImage f : frames)
+			f.process(convolve);
+		times[1] = t.duration();
+
+		t = Timer.timer();
+		for (final FImage f : frames)
+			matcher.analyseImage(f);
+		times[2] = t.duration();
+
+		t = Timer.timer();
+		for (final FImage f : frames)
+			gist.analyseImage(f);
+		times[3] = t.duration();
+
+		return times;
+	}
+
+	/**
+	 * @param args
+	 *            ignored
+	 */
+	public static void main(String[] args) {
+		final Random rng = new Random(0);
+		final FImage[] frames = new FImage[FRAMES];
+		for (int i = 0; i < FRAMES; i++)
+			frames[i] = randomImage(rng, 640, 480);
+		final FImage kernel = randomImage(rng, 32, 32);
+
+		// warm up
+		run(frames, kernel);
+
+		final long[] times = run(frames, kernel);
+		System.out.format("%d frames: complex convolve %dms, real convolve %dms, template matching %dms, gist %dms%n",
+				FRAMES, times[0], times[1], times[2], times[3]);
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm.benchmark;
+
+import java.util.Random;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.processing.algorithm.BlockMaxFilter;
+import org.openimaj.image.processing.algorithm.BlockMinFilter;
+import org.openimaj.image.processing.algorithm.FilterSupport;
+import org.openimaj.image.processing.algorithm.HistogramMedianFilter;
+import org.openimaj.image.processing.algorithm.MaxFilter;
+import org.openimaj.image.processing.algorithm.MedianFilter;
+import org.openimaj.image.processing.algorithm.MinFilter;
+import org.openimaj.image.processor.SinglebandImageProcessor;
+import org.openimaj.time.Timer;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * Compare the time taken by the {@link MedianFilter}, {@link MinFilter} and
+ * {@link MaxFilter} with the {@link HistogramMedianFilter},
+ * {@link BlockMinFilter} and {@link BlockMaxFilter} on an 8-bit 640x480 frame
+ * for a range of window sizes.
+ */
+public class RankFilterBenchmark {
+	private static long time(FImage image, SinglebandImageProcessor<Float, FImage> proc) {
+		final Timer t = Timer.timer();
+		image.process(proc);
+		return t.duration();
+	}
+
+	/**
+	 * @param args
+	 *            ignored
+	 */
+	public static void main(String[] args) {
+		final Random rng = new Random(0);
+		final FImage image = new FImage(640, 480);
+		for (int y = 0; y < image.height; y++)
+			for (int x = 0; x < image.width; x++)
+				image.pixels[y][x] = rng.nextInt(256) / 255f;
+
+		// warm up
+		time(image, new HistogramMedianFilter(2));
+		time(image, new BlockMinFilter(5, 5));
+
+		for (final int radius : new int[] { 1, 3, 7, 15 }) {
+			final int size = 2 * radius + 1;
+
+			final long median = time(image, new MedianFilter(FilterSupport.createBlockSupport(size, size)));
+			final long histogram = time(image, new HistogramMedianFilter(radius));
+			final long parallel = time(image, new HistogramMedianFilter(radius, true, GlobalExecutorPool.getPool()));
+			final long continuous = time(image.clone().add(1e-4f * rng.nextFloat()), new HistogramMedianFilter(radius, false));
+
+			System.out.format("median %dx%d: MedianFilter %dms, histogram %dms, parallel %dms, quantised %dms%n",
+					size, size, median, histogram, parallel, continuous);
+
+			final long min = time(image, new MinFilter(FilterSupport.createBlockSupport(size, size)));
+			final long blockMin = time(image, new BlockMinFilter(size, size));
+			final long max = time(image, new MaxFilter(FilterSupport.createBlockSupport(size, size)));
+			final long blockMax = time(image, new BlockMaxFilter(size, size, GlobalExecutorPool.getPool()));
+
+			System.out.format("min/max %dx%d: MinFilter %dms, BlockMinFilter %dms, MaxFilter %dms, "
+					+ "parallel BlockMaxFilter %dms%n", size, size, min, blockMin, max, blockMax);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.morphology.benchmark;
+
+import java.util.Random;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.processing.morphology.Dilate;
+import org.openimaj.image.processing.morphology.Erode;
+import org.openimaj.image.processing.morphology.HitAndMiss;
+import org.openimaj.image.processing.morphology.StructuringElement;
+import org.openimaj.time.Timer;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * Compare the time taken to apply binary morphology operators as
+ * {@link org.openimaj.image.processor.KernelProcessor}s with the time taken by
+ * the bit-packed {@link org.openimaj.image.processing.morphology.BinaryMorphology}
+ * engine, sequentially and in parallel.
+ */
+public class BinaryMorphologyBenchmark {
+	private static final int REPEATS = 5;
+
+	/**
+	 * @param args
+	 *            ignored
+	 */
+	public static void main(String[] args) {
+		final Random rng = new Random(0);
+		final FImage image = new FImage(1024, 768);
+		for (int y = 0; y < image.height; y++)
+			for (int x = 0; x < image.width; x++)
+				image.pixels[y][x] = rng.nextFloat() < 0.3 ? 1 : 0;
+
+		final StructuringElement[] elements = { StructuringElement.BOX, StructuringElement.CROSS,
+				StructuringElement.disk(5), StructuringElement.disk(15) };
+		final String[] names = { "BOX", "CROSS", "disk(5)", "disk(15)" };
+
+		for (int i = 0; i < elements.length; i++) {
+			final Dilate dilate = new Dilate(elements[i]);
+			final Erode erode = new Erode(elements[i]);
+
+			Timer t = Timer.timer();
+			for (int j = 0; j < REPEATS; j++) {
+				image.process(dilate, true);
+				image.process(erode, true);
+			}
+			final long kernel = t.duration();
+
+			t = Timer.timer();
+			for (int j = 0; j < REPEATS; j++) {
+				dilate.process(image, true);
+				erode.process(image, true);
+			}
+			final long packed = t.duration();
+
+			t = Timer.timer();
+			for (int j = 0; j < REPEATS; j++) {
+				dilate.process(image, true, GlobalExecutorPool.getPool());
+				erode.process(image, true, GlobalExecutorPool.getPool());
+			}
+			final long parallel = t.duration();
+
+			System.out.format("dilate+erode %s x%d: kernel %dms, bit-packed %dms, parallel %dms%n", names[i],
+					REPEATS, kernel, packed, parallel);
+		}
+
+		Timer t = Timer.timer();
+		for (int j = 0; j < REPEATS; j++)
+			image.process(HitAndMiss.CONVEX_CORNERS, true);
+		final long kernel = t.duration();
+
+		t = Timer.timer();
+		for (int j = 0; j < REPEATS; j++)
+			HitAndMiss.CONVEX_CORNERS.process(image, true);
+		final long packed = t.duration();
+
+		System.out.format("hit-and-miss CONVEX_CORNERS x%d: kernel %dms, bit-packed %dms%n", REPEATS, kernel, packed);
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.resize.benchmark;
+
+import java.util.Random;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.processing.resize.ResizePlan;
+import org.openimaj.image.processing.resize.ResizeProcessor;
+import org.openimaj.image.processing.resize.filters.Lanczos3Filter;
+import org.openimaj.time.Timer;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * Compare the time taken to resize a sequence of same-sized frames by
+ * building a new {@link ResizePlan} for every frame, reusing a plan, and
+ * reusing a plan in parallel.
+ */
+public class ResizePlanBenchmark {
+	private static final int FRAMES = 50;
+
+	/**
+	 * @param args
+	 *            ignored
+	 */
+	public static void main(String[] args) {
+		final Random rng = new Random(0);
+		final MBFImage frame = new MBFImage(1280, 720);
+		for (final FImage band : frame.bands)
+			for (int y = 0; y < band.height; y++)
+				for (int x = 0; x < band.width; x++)
+					band.pixels[y][x] = rng.nextFloat();
+
+		final Lanczos3Filter filter = new Lanczos3Filter();
+		for (final int[] size : new int[][] { { 320, 180 }, { 640, 360 }, { 1920, 1080 } }) {
+			Timer t = Timer.timer();
+			for (int i = 0; i < FRAMES; i++)
+				ResizePlan.create(1280, 720, size[0], size[1], filter).zoom(frame);
+			final long rebuild = t.duration();
+
+			final ResizePlan plan = ResizePlan.getPlan(1280, 720, size[0], size[1], filter);
+			t = Timer.timer();
+			for (int i = 0; i < FRAMES; i++)
+				plan.zoom(frame);
+			final long reuse = t.duration();
+
+			t = Timer.timer();
+			for (int i = 0; i < FRAMES; i++)
+				plan.zoom(frame, GlobalExecutorPool.getPool());
+			final long parallel = t.duration();
+
+			t = Timer.timer();
+			for (int i = 0; i < FRAMES; i++)
+				frame.process(new ResizeProcessor(size[0], size[1], false, filter));
+			final long processor = t.duration();
+
+			System.out.format("1280x720 -> %dx%d, %d frames: new plan %dms, reused plan %dms, parallel %dms, "
+					+ "ResizeProcessor %dms%n", size[0], size[1], FRAMES, rebuild, reuse, parallel, processor);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processor.benchmark;
+
+import java.util.Random;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.processing.convolution.FSobelMagnitude;
+import org.openimaj.image.processing.morphology.Dilate;
+import org.openimaj.image.processing.morphology.Erode;
+import org.openimaj.image.processing.morphology.HitAndMiss;
+import org.openimaj.image.processing.morphology.StructuringElement;
+import org.openimaj.image.processor.FKernelProcessor;
+import org.openimaj.image.processor.KernelProcessor;
+import org.openimaj.image.processor.ProcessorUtilities;
+import org.openimaj.time.Timer;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * Compare the time taken to apply the built-in {@link KernelProcessor}s to
+ * copies of each patch with the time taken to apply them through a sliding
+ * {@link org.openimaj.image.processor.FKernelWindow}, sequentially and in
+ * parallel.
+ */
+public class FKernelProcessorBenchmark {
+	private static final int REPEATS = 5;
+
+	private static KernelProcessor<Float, FImage> patchwise(final KernelProcessor<Float, FImage> p) {
+		return new KernelProcessor<Float, FImage>() {
+			@Override
+			public int getKernelHeight() {
+				return p.getKernelHeight();
+			}
+
+			@Override
+			public int getKernelWidth() {
+				return p.getKernelWidth();
+			}
+
+			@Override
+			public Float processKernel(FImage patch) {
+				return p.processKernel(patch);
+			}
+		};
+	}
+
+	/**
+	 * @param args
+	 *            ignored
+	 */
+	public static void main(String[] args) {
+		final Random rng = new Random(0);
+		final FImage image = new FImage(1024, 768);
+		for (int y = 0; y < image.height; y++)
+			for (int x = 0; x < image.width; x++)
+				image.pixels[y][x] = rng.nextFloat() < 0.3 ? 1 : 0;
+
+		final FKernelProcessor[] procs = { new FSobelMagnitude(), new Dilate(StructuringElement.BOX),
+				new Erode(StructuringElement.disk(5)), HitAndMiss.CONVEX_CORNERS };
+		final String[] names = { "FSobelMagnitude", "Dilate(BOX)", "Erode(disk(5))", "HitAndMiss(CONVEX_CORNERS)" };
+
+		for (int i = 0; i < procs.length; i++) {
+			final KernelProcessor<Float, FImage> patch = patchwise(procs[i]);
+
+			// warm up
+			image.process(patch, true);
+			ProcessorUtilities.process(image, procs[i], true, null);
+
+			Timer t = Timer.timer();
+			for (int j = 0; j < REPEATS; j++)
+				image.process(patch, true);
+			final long patches = t.duration();
+
+			t = Timer.timer();
+			for (int j = 0; j < REPEATS; j++)
+				ProcessorUtilities.process(image, procs[i], true, null);
+			final long window = t.duration();
+
+			t = Timer.timer();
+			for (int j = 0; j < REPEATS; j++)
+				ProcessorUtilities.process(image, procs[i], true, GlobalExecutorPool.getPool());
+			final long parallel = t.duration();
+
+			System.out.format("%s x%d: patches %dms, window %dms, parallel window %dms%n", names[i], REPEATS,
+					patches, window, parallel);
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processor.benchmark;
+
+import java.util.Random;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.colour.ColourSpace;
+import org.openimaj.image.processing.algorithm.FilterSupport;
+import org.openimaj.image.processing.algorithm.GammaCorrection;
+import org.openimaj.image.processing.algorithm.HistogramMedianFilter;
+import org.openimaj.image.processing.algorithm.LocalContrastFilter;
+import org.openimaj.image.processing.algorithm.MaxFilter;
+import org.openimaj.image.processing.algorithm.MedianFilter;
+import org.openimaj.image.processing.convolution.AverageBoxFilter;
+import org.openimaj.image.processing.convolution.FGaussianConvolve;
+import org.openimaj.image.processor.SinglebandImageProcessor;
+import org.openimaj.image.processor.TiledExecutor;
+import org.openimaj.time.Timer;
+
+/**
+ * Compare the time taken to apply a suite of the standard
+ * {@link SinglebandImageProcessor}s to the bands of a 1024x768 colour image
+ * sequentially (with {@link MBFImage#process(SinglebandImageProcessor)})
+ * against the {@link TiledExecutor}, and check that the results agree.
+ * <p>
+ * {@link MedianFilter} and {@link LocalContrastFilter} ignore the last row and
+ * column of their input, so they are given an extra pixel of halo. The
+ * {@link AverageBoxFilter} results differ by rounding error, as the summed area
+ * table accumulates over each tile rather than the whole image.
+ */
+public class TiledExecutorBenchmark {
+	private static final int REPEATS = 5;
+
+	private static float maxDifference(MBFImage a, MBFImage b) {
+		float max = 0;
+		for (int i = 0; i < a.numBands(); i++) {
+			final FImage ab = a.getBand(i);
+			final FImage bb = b.getBand(i);
+			for (int y = 0; y < ab.height; y++)
+				for (int x = 0; x < ab.width; x++)
+					max = Math.max(max, Math.abs(ab.pixels[y][x] - bb.pixels[y][x]));
+		}
+		return max;
+	}
+
+	private static void run(String name, MBFImage image, SinglebandImageProcessor<Float, FImage> p, int halo) {
+		final TiledExecutor executor = new TiledExecutor(halo);
+
+		// warm up
+		final MBFImage expected = image.process(p);
+		final MBFImage actual = executor.process(image, p);
+
+		Timer t = Timer.timer();
+		for (int i = 0; i < REPEATS; i++)
+			image.process(p);
+		final long sequential = t.duration() / REPEATS;
+
+		t = Timer.timer();
+		for (int i = 0; i < REPEATS; i++)
+			executor.process(image, p);
+		final long tiled = t.duration() / REPEATS;
+
+		System.out.format("%-24s sequential %5dms, tiled %5dms, speedup %5.2fx, max difference %g%n", name,
+				sequential, tiled, (double) sequential / Math.max(1, tiled), maxDifference(expected, actual));
+	}
+
+	private static void run(String name, MBFImage image, GammaCorrection p) {
+		final TiledExecutor executor = new TiledExecutor();
+
+		// warm up
+		final MBFImage expected = image.clone();
+		for (final FImage band : expected.bands)
+			band.processInplace(p);
+		final MBFImage actual = image.clone();
+		for (final FImage band : actual.bands)
+			executor.processInplace(band, p);
+
+		Timer t = Timer.timer();
+		for (int i = 0; i < REPEATS; i++)
+			for (final FImage band : image.clone().bands)
+				band.processInplace(p);
+		final long sequential = t.duration() / REPEATS;
+
+		t = Timer.timer();
+		for (int i = 0; i < REPEATS; i++)
+			for (final FImage band : image.clone().bands)
+				executor.processInplace(band, p);
+		final long tiled = t.duration() / REPEATS;
+
+		System.out.format("%-24s sequential %5dms, tiled %5dms, speedup %5.2fx, max difference %g%n", name,
+				sequential, tiled, (double) sequential / Math.max(1, tiled), maxDifference(expected, actual));
+	}
+
+	/**
+	 * @param args
+	 *            ignored
+	 */
+	public static void main(String[] args) {
+		final Random rng = new Random(0);
+		final MBFImage image = new MBFImage(1024, 768, ColourSpace.RGB);
+		for (final FImage band : image.bands)
+			for (int y = 0; y < band.height; y++)
+				for (int x = 0; x < band.width; x++)
+					band.pixels[y][x] = rng.nextInt(256) / 255f;
+
+		run("FGaussianConvolve(2)", image, new FGaussianConvolve(2f), FGaussianConvolve.makeKernel(2f).length / 2);
+		run("AverageBoxFilter(9)", image, new AverageBoxFilter(9), 4);
+		run("MedianFilter(3x3)", image, new MedianFilter(FilterSupport.BLOCK_3x3), 2);
+		run("MaxFilter(5x5)", image, new MaxFilter(FilterSupport.createBlockSupport(5, 5)), 2);
+		run("LocalContrastFilter(3x3)", image, new LocalContrastFilter(FilterSupport.BLOCK_3x3), 2);
+		run("HistogramMedianFilter(5)", image, new HistogramMedianFilter(5), 5);
+		run("GammaCorrection(2.2)", image, new GammaCorrection(2.2));
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.io.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.openimaj.feature.local.list.MemoryLocalFeatureList;
+import org.openimaj.image.feature.local.keypoints.Keypoint;
+import org.openimaj.io.IOUtils;
+import org.openimaj.io.wrappers.Readable2DArrayBinary;
+import org.openimaj.io.wrappers.Writeable2DArrayBinary;
+import org.openimaj.time.Timer;
+
+/**
+ * Compare the throughput of reading binary files through the stream based
+ * {@link IOUtils#read(InputStream, org.openimaj.io.InternalReadable)} and the
+ * memory-mapped {@link IOUtils#readMapped(File, Class)} for dense matrices
+ * (which are read in the same way as cluster centroids) and lists of SIFT
+ * {@link Keypoint}s of a range of sizes.
+ */
+public class BinaryReadBenchmark {
+	private static final int REPEATS = 5;
+
+	/**
+	 * @param args
+	 *            ignored
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		final Random rng = new Random(0);
+
+		for (final int mb : new int[] { 1, 16, 128 }) {
+			final int cols = 128;
+			final int rows = (mb << 20) / (8 * cols);
+			final double[][] data = new double[rows][cols];
+			for (final double[] row : data)
+				for (int j = 0; j < cols; j++)
+					row[j] = rng.nextDouble();
+
+			final File file = File.createTempFile("matrix", ".bin");
+			file.deleteOnExit();
+			IOUtils.writeBinary(file, new Writeable2DArrayBinary(data));
+
+			double stream = Double.MAX_VALUE, mapped = Double.MAX_VALUE;
+			for (int i = 0; i < REPEATS; i++) {
+				Timer t = Timer.timer();
+				final InputStream is = new FileInputStream(file);
+				IOUtils.read(is, new Readable2DArrayBinary(data));
+				is.close();
+				stream = Math.min(stream, t.duration());
+
+				t = Timer.timer();
+				IOUtils.readMapped(file, new Readable2DArrayBinary(data));
+				mapped = Math.min(mapped, t.duration());
+			}
+			print("matrix", file, stream, mapped);
+			file.delete();
+		}
+
+		for (final int n : new int[] { 10000, 100000, 500000 }) {
+			final MemoryLocalFeatureList<Keypoint> keypoints = new MemoryLocalFeatureList<Keypoint>(128, n);
+			for (int i = 0; i < n; i++) {
+				final Keypoint kp = new Keypoint(128);
+				kp.x = rng.nextFloat() * 640;
+				kp.y = rng.nextFloat() * 480;
+				kp.scale = rng.nextFloat() * 10;
+				kp.ori = rng.nextFloat();
+				rng.nextBytes(kp.ivec);
+				keypoints.add(kp);
+			}
+
+			final File file = File.createTempFile("keypoints", ".bin");
+			file.deleteOnExit();
+			IOUtils.writeBinary(file, keypoints);
+
+			double stream = Double.MAX_VALUE, mapped = Double.MAX_VALUE;
+			for (int i = 0; i < REPEATS; i++) {
+				Timer t = Timer.timer();
+				final InputStream is = new BufferedInputStream(new FileInputStream(file));
+				MemoryLocalFeatureList.read(is, Keypoint.class);
+				is.close();
+				stream = Math.min(stream, t.duration());
+
+				t = Timer.timer();
+				MemoryLocalFeatureList.read(file, Keypoint.class);
+				mapped = Math.min(mapped, t.duration());
+			}
+			print("keypoints", file, stream, mapped);
+			file.delete();
+		}
+	}
+
+	private static void print(String what, File file, double stream, double mapped) {
+		final double mb = file.length() / (1024.0 * 1024.0);
+		System.out.format("%s %.1fMB: stream %.0fms (%.0fMB/s), mapped %.0fms (%.0fMB/s)%n", what, mb,
+				stream, 1000 * mb / Math.max(1, stream), mapped, 1000 * mb / Math.max(1, mapped));
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.math.benchmark;
+
+import no.uib.cipr.matrix.DenseMatrix;
+
+import org.openimaj.math.matrix.BlockedMatrixMultiplication;
+import org.openimaj.time.Timer;
+
+import Jama.Matrix;
+
+/**
+ * Compare the dense matrix products of Jama, MTJ and
+ * {@link BlockedMatrixMultiplication} for a range of square matrix sizes.
+ */
+public class DenseMatrixMultiplyBenchmark {
+	/**
+	 * @param args
+	 *            optionally the sizes to test
+	 */
+	public static void main(String[] args) {
+		int[] sizes = { 64, 128, 256, 512, 1024 };
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++)
+				sizes[i] = Integer.parseInt(args[i]);
+		}
+
+		for (final int n : sizes) {
+			final Matrix a = Matrix.random(n, n);
+			final Matrix b = Matrix.random(n, n);
+			final DenseMatrix am = new DenseMatrix(a.getArray());
+			final DenseMatrix bm = new DenseMatrix(b.getArray());
+			final DenseMatrix cm = new DenseMatrix(n, n);
+			final double[][] c = new double[n][n];
+
+			final int repeats = Math.max(1, (1 << 28) / (n * n * n));
+
+			// warm up
+			a.times(b);
+			am.mult(bm, cm);
+			BlockedMatrixMultiplication.multiply(a.getArray(), false, b.getArray(), false, c);
+
+			Timer t = Timer.timer();
+			for (int i = 0; i < repeats; i++)
+				a.times(b);
+			final double jama = t.duration() / (double) repeats;
+
+			t = Timer.timer();
+			for (int i = 0; i < repeats; i++)
+				am.mult(bm, cm);
+			final double mtj = t.duration() / (double) repeats;
+
+			t = Timer.timer();
+			for (int i = 0; i < repeats; i++)
+				BlockedMatrixMultiplication.multiply(a.getArray(), false, b.getArray(), false, c);
+			final double blocked = t.duration() / (double) repeats;
+
+			System.out.format("%5d: Jama %8.2fms, MTJ %8.2fms, blocked %8.2fms%n", n, jama, mtj, blocked);
+		}
+	}
+}
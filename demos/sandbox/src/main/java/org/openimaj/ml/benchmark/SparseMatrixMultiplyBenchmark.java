@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.ml.benchmark;
+
+import java.util.Random;
+
+import org.openimaj.math.matrix.MeanVector;
+import org.openimaj.time.Timer;
+
+import ch.akuhn.matrix.CompressedSparseRowMatrix;
+import ch.akuhn.matrix.SparseMatrix;
+import ch.akuhn.matrix.Vector;
+
+/**
+ * Compare the matrix-vector products of {@link SparseMatrix} and
+ * {@link CompressedSparseRowMatrix} on a random symmetric k-nearest-neighbour
+ * style similarity graph (one million nodes by default).
+ */
+public class SparseMatrixMultiplyBenchmark {
+	/**
+	 * @param args
+	 *            optionally the number of nodes and neighbours per node
+	 */
+	public static void main(String[] args) {
+		final int nNodes = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		final Random rng = new Random(1);
+		final int n = nNodes * k * 2;
+		final int[] r = new int[n];
+		final int[] c = new int[n];
+		final double[] v = new double[n];
+		int idx = 0;
+		for (int i = 0; i < nNodes; i++) {
+			for (int j = 0; j < k; j++) {
+				final int nn = rng.nextInt(nNodes);
+				final double sim = rng.nextDouble();
+				r[idx] = i; c[idx] = nn; v[idx++] = sim;
+				r[idx] = nn; c[idx] = i; v[idx++] = sim;
+			}
+		}
+
+		Timer t = Timer.timer();
+		final CompressedSparseRowMatrix csr = CompressedSparseRowMatrix.fromTriplets(nNodes, nNodes, r, c, v, n);
+		System.out.println("Built CSR matrix with " + csr.used() + " non-zeros in " + t.duration() + "ms");
+
+		t = Timer.timer();
+		final SparseMatrix sparse = csr.toSparseMatrix();
+		System.out.println("Converted to SparseMatrix in " + t.duration() + "ms");
+
+		t = Timer.timer();
+		csr.transpose();
+		System.out.println("Built CSR transpose in " + t.duration() + "ms");
+
+		final double[] xv = new double[nNodes];
+		for (int i = 0; i < nNodes; i++)
+			xv[i] = rng.nextDouble();
+		final Vector x = Vector.wrap(xv);
+
+		final MeanVector sparseMult = new MeanVector();
+		final MeanVector csrMult = new MeanVector();
+		final MeanVector sparseTMult = new MeanVector();
+		final MeanVector csrTMult = new MeanVector();
+		for (int i = 0; i < 10; i++) {
+			t = Timer.timer();
+			sparse.mult(x);
+			sparseMult.update(new double[] { t.duration() });
+
+			t = Timer.timer();
+			csr.mult(x);
+			csrMult.update(new double[] { t.duration() });
+
+			t = Timer.timer();
+			sparse.transposeMultiply(x);
+			sparseTMult.update(new double[] { t.duration() });
+
+			t = Timer.timer();
+			csr.transposeMultiply(x);
+			csrTMult.update(new double[] { t.duration() });
+
+			System.out.format("mult: SparseMatrix %.1fms, CSR %.1fms; transposeMultiply: SparseMatrix %.1fms, CSR %.1fms\n",
+					sparseMult.vec()[0], csrMult.vec()[0], sparseTMult.vec()[0], csrTMult.vec()[0]);
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.text.nlp.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.openimaj.text.nlp.EntityTweetTokeniser;
+import org.openimaj.text.nlp.namedentity.EntityGazetteer;
+import org.openimaj.text.nlp.namedentity.NamedEntity;
+import org.openimaj.text.nlp.namedentity.YagoEntityCandidateFinderFactory;
+import org.openimaj.text.nlp.namedentity.YagoEntityCandidateFinderFactory.YagoEntityCandidateFinder;
+import org.openimaj.time.Timer;
+
+/**
+ * Measure the throughput of finding candidate named entities in tweets, in
+ * tweets per second, looking up every n-gram in the alias map and with the
+ * compiled {@link EntityGazetteer} (one tweet at a time and as a batch).
+ * Without arguments a synthetic alias file is generated from the words of the
+ * test tweets.
+ */
+public class EntityCandidateBenchmark {
+	/**
+	 * @param args
+	 *            optionally an alias file (see
+	 *            {@link YagoEntityCandidateFinderFactory#createFromAliasFile(String)})
+	 *            and a file with one tweet per line
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	public static void main(String[] args) throws IOException {
+		final List<String> texts;
+		if (args.length > 1) {
+			texts = FileUtils.readLines(new File(args[1]), "UTF-8");
+		} else {
+			final InputStream is = EntityCandidateBenchmark.class.getResourceAsStream("/org/openimaj/twitter/tweets.txt");
+			texts = IOUtils.readLines(is, "UTF-8");
+			is.close();
+		}
+
+		Timer t = Timer.timer();
+		final List<List<String>> tokens = EntityTweetTokeniser.tokenise(texts);
+		System.out.format("tokenised %d tweets in %dms%n", texts.size(), t.duration());
+
+		final File aliases;
+		if (args.length > 0) {
+			aliases = new File(args[0]);
+		} else {
+			aliases = File.createTempFile("aliases", ".txt");
+			aliases.deleteOnExit();
+			writeAliases(tokens, aliases);
+		}
+
+		t = Timer.timer();
+		final YagoEntityCandidateFinder finder = YagoEntityCandidateFinderFactory.createFromAliasFile(aliases
+				.getAbsolutePath());
+		System.out.format("loaded aliases in %dms%n", t.duration());
+
+		// warm up
+		for (int i = 0; i < 3; i++) {
+			run(finder, tokens, false);
+			run(finder, tokens, true);
+			finder.getCandidatesForAll(tokens);
+		}
+
+		final double map = run(finder, tokens, false);
+		final double compiled = run(finder, tokens, true);
+		t = Timer.timer();
+		finder.getCandidatesForAll(tokens);
+		final double batch = t.duration();
+
+		System.out.format("%d tweets: alias map %.0f tweets/sec, gazetteer %.0f tweets/sec, batch %.0f tweets/sec%n",
+				tokens.size(), 1000 * tokens.size() / map, 1000 * tokens.size() / compiled, 1000 * tokens.size()
+						/ batch);
+	}
+
+	private static double run(YagoEntityCandidateFinder finder, List<List<String>> tokens, boolean compiled) {
+		finder.setCompiled(compiled);
+		final Timer t = Timer.timer();
+		int found = 0;
+		for (final List<String> tweet : tokens) {
+			for (final List<NamedEntity> candidates : finder.getCandidates(tweet))
+				found += candidates.size();
+		}
+		final double duration = t.duration();
+		if (found < 0)
+			System.out.println(found);
+		return duration;
+	}
+
+	/*
+	 * Every 5th word, and random pairs and triples of words, as aliases of
+	 * made up entities
+	 */
+	private static void writeAliases(List<List<String>> tokens, File file) throws IOException {
+		final List<String> words = new ArrayList<String>();
+		for (final List<String> tweet : tokens)
+			words.addAll(tweet);
+
+		final Random rng = new Random(1);
+		final PrintWriter pw = new PrintWriter(file, "UTF-8");
+		for (int i = 0; i < 100000; i++) {
+			pw.println("+Entity_" + i);
+			final int n = 1 + rng.nextInt(3);
+			final int start = rng.nextInt(words.size() - n);
+			final StringBuilder alias = new StringBuilder(words.get(start));
+			for (int j = 1; j < n; j++)
+				alias.append(' ').append(words.get(start + j));
+			pw.println("." + alias);
+			if (i % 5 == 0)
+				pw.println("." + words.get(i % words.size()));
+		}
+		pw.close();
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.text.nlp.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.openimaj.text.nlp.language.LanguageDetector;
+import org.openimaj.time.Timer;
+
+/**
+ * Measure the throughput of the {@link LanguageDetector} in texts per second,
+ * both classifying one text at a time and through the batch
+ * {@link LanguageDetector#classify(List)} method.
+ */
+public class LanguageDetectorBenchmark {
+	private static final String[] SAMPLES = {
+			"This is an english sentence",
+			"The uninstaller it downloads for you is 33.4MB ! For an *un*installer? #wtf",
+			"in der josefstadt scheint es offenbar sehr knapp zu werden",
+			"das erlebnis im wahllokal im bezirk um im österreich ticker ist heftig",
+			"@yuekoo おはよー。地デジ",
+			"je suis allé au marché ce matin pour acheter du pain",
+			"hoy hace mucho calor en la ciudad, vamos a la playa"
+	};
+
+	/**
+	 * @param args
+	 *            optionally a file with one text (e.g. tweet) per line
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		final List<String> texts = new ArrayList<String>();
+		if (args.length > 0) {
+			texts.addAll(FileUtils.readLines(new File(args[0]), "UTF-8"));
+		} else {
+			for (int i = 0; i < 20000; i++)
+				texts.add(SAMPLES[i % SAMPLES.length]);
+		}
+
+		final LanguageDetector detector = new LanguageDetector();
+
+		// warm up
+		for (int i = 0; i < 3; i++) {
+			for (final String text : texts)
+				detector.classify(text);
+			detector.classify(texts);
+		}
+
+		Timer t = Timer.timer();
+		for (final String text : texts)
+			detector.classify(text);
+		final double single = t.duration();
+
+		t = Timer.timer();
+		detector.classify(texts);
+		final double batch = t.duration();
+
+		System.out.format("%d texts: single %.0f texts/sec, batch %.0f texts/sec%n", texts.size(),
+				1000 * texts.size() / single, 1000 * texts.size() / batch);
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.text.nlp.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.openimaj.text.nlp.TweetTokenScanner;
+import org.openimaj.text.nlp.TweetTokeniser;
+import org.openimaj.text.nlp.TweetTokeniserException;
+import org.openimaj.time.Timer;
+
+/**
+ * Measure the throughput of the {@link TweetTokeniser} in tweets per second,
+ * using both the original protect regex and the compiled
+ * {@link TweetTokenScanner}.
+ */
+public class TweetTokeniserBenchmark {
+	/**
+	 * @param args
+	 *            optionally a file with one tweet per line
+	 * @throws IOException
+	 * @throws TweetTokeniserException
+	 */
+	@SuppressWarnings("unchecked")
+	public static void main(String[] args) throws IOException, TweetTokeniserException {
+		final List<String> texts;
+		if (args.length > 0) {
+			texts = FileUtils.readLines(new File(args[0]), "UTF-8");
+		} else {
+			final InputStream is = TweetTokeniserBenchmark.class.getResourceAsStream("/org/openimaj/twitter/tweets.txt");
+			texts = IOUtils.readLines(is, "UTF-8");
+			is.close();
+		}
+
+		// warm up
+		for (int i = 0; i < 3; i++) {
+			run(texts, true);
+			run(texts, false);
+		}
+
+		final double regex = run(texts, true);
+		final double scanner = run(texts, false);
+
+		System.out.format("%d tweets: regex %.0f tweets/sec, scanner %.0f tweets/sec%n", texts.size(),
+				1000 * texts.size() / regex, 1000 * texts.size() / scanner);
+	}
+
+	private static double run(List<String> texts, boolean regex) throws IOException, TweetTokeniserException {
+		final Timer t = Timer.timer();
+		for (final String text : texts)
+			new TweetTokeniser(text, regex);
+		return t.duration();
+	}
+}
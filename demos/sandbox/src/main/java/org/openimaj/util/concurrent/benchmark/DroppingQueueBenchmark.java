@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.concurrent.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openimaj.time.Timer;
+import org.openimaj.util.concurrent.ArrayBlockingDroppingQueue;
+import org.openimaj.util.concurrent.BlockingDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue;
+
+/**
+ * Measure the throughput of the {@link ArrayBlockingDroppingQueue} and the
+ * {@link ConcurrentArrayDroppingQueue} under contention from varying numbers
+ * of producer and consumer threads, in the way that a live stream buffer is
+ * used (producers {@link BlockingDroppingQueue#put(Object)} and consumers
+ * {@link BlockingDroppingQueue#take()}).
+ */
+public class DroppingQueueBenchmark {
+	private static final int ITEMS_PER_PRODUCER = 1000000;
+	private static final int CAPACITY = 1024;
+
+	/**
+	 * @param args
+	 *            ignored
+	 * @throws InterruptedException
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		final int[][] threads = { { 1, 1 }, { 2, 2 }, { 4, 4 }, { 8, 1 }, { 1, 8 } };
+
+		// warm up
+		for (int i = 0; i < 3; i++) {
+			run(new ArrayBlockingDroppingQueue<Integer>(CAPACITY), 2, 2);
+			run(new ConcurrentArrayDroppingQueue<Integer>(CAPACITY), 2, 2);
+		}
+
+		for (final int[] t : threads) {
+			final double locked = run(new ArrayBlockingDroppingQueue<Integer>(CAPACITY), t[0], t[1]);
+			final double lockFree = run(new ConcurrentArrayDroppingQueue<Integer>(CAPACITY), t[0], t[1]);
+
+			System.out.format("%d producers, %d consumers: locked %.2fM ops/sec, lock-free %.2fM ops/sec%n", t[0], t[1],
+					locked, lockFree);
+		}
+	}
+
+	private static double run(final BlockingDroppingQueue<Integer> queue, int nProducers, int nConsumers)
+			throws InterruptedException
+	{
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch produced = new CountDownLatch(nProducers);
+		final CountDownLatch consumed = new CountDownLatch(nConsumers);
+		final AtomicLong taken = new AtomicLong();
+		final Integer item = 42;
+
+		for (int i = 0; i < nProducers; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int j = 0; j < ITEMS_PER_PRODUCER; j++)
+							queue.put(item);
+					} catch (final InterruptedException e) {
+					}
+					produced.countDown();
+				}
+			}.start();
+		}
+
+		for (int i = 0; i < nConsumers; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+					long count = 0;
+					try {
+						start.await();
+						while (produced.getCount() > 0 || !queue.isEmpty()) {
+							if (queue.poll(1, TimeUnit.MILLISECONDS) != null)
+								count++;
+						}
+					} catch (final InterruptedException e) {
+					}
+					taken.addAndGet(count);
+					consumed.countDown();
+				}
+			}.start();
+		}
+
+		final Timer timer = Timer.timer();
+		start.countDown();
+		consumed.await();
+		final double seconds = timer.duration() / 1000.0;
+
+		// each item is put once and either taken or dropped
+		return (queue.insertCount() + taken.get()) / seconds / 1e6;
+	}
+}
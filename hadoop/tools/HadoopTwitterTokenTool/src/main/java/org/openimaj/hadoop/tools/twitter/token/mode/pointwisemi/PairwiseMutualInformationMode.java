@@ -60,12 +60,14 @@ public class PairwiseMutualInformationMode implements TwitterTokenMode {
 	double minp = 0;
 	@Option(name="--min-pair-count", aliases="-minpc", required=false, usage="The minimum number of times a pair must occur")
 	int minPairCount = 0;
+	@Option(name="--combine-max-entries", aliases="-cme", required=false, usage="The maximum number of pair counts each mapper combines in memory before emitting them (0 disables in-mapper combining)")
+	int combineMaxEntries = PairMutualInformation.DEFAULT_COMBINE_MAX_ENTRIES;
 
 	@Override
 	public void perform(final HadoopTwitterTokenToolOptions opts) throws Exception {
 		Path outpath = HadoopToolsUtil.getOutputPath(opts);
 		this.stages = new MultiStagedJob(HadoopToolsUtil.getInputPaths(opts),outpath,opts.getArgs());
-		stages.queueStage(new PairMutualInformation(opts.getNonHadoopArgs(),timeDelta));
+		stages.queueStage(new PairMutualInformation(opts.getNonHadoopArgs(),timeDelta,combineMaxEntries));
 		stages.queueStage(new PMIPairSort(minp, minPairCount, outpath));
 		stages.runAll();
 	}
@@ -33,6 +33,7 @@ import java.io.IOException;
 import java.util.List;
 
 import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
@@ -40,11 +41,17 @@ import org.apache.log4j.Logger;
 import org.joda.time.DateTime;
 import org.kohsuke.args4j.CmdLineException;
 import org.openimaj.hadoop.tools.twitter.HadoopTwitterTokenToolOptions;
-import org.openimaj.io.IOUtils;
 import org.openimaj.twitter.USMFStatus;
 
 /**
- * For each pair of tokens in a given document emit a count. Also defines a combiner
+ * For each pair of tokens in a given document emit a count. Also defines a combiner.
+ * <p>
+ * Unless disabled (see {@link PairMutualInformation#COMBINE_MAX_ENTRIES}) the counts
+ * are combined in the mapper using a {@link TokenPairCountAccumulator} which is
+ * flushed when it fills and when the mapper finishes. Each count is emitted with
+ * the compact encoding of {@link TokenPairCount#writeIdentifierBinary(java.io.DataOutput, long)}
+ * as the key and the count as a variable length long in the value.
+ * 
  * @author Sina Samangooei (ss@ecs.soton.ac.uk)
  *
  */
@@ -58,6 +65,12 @@ public class PairEmit extends Mapper<LongWritable, Text, BytesWritable, BytesWri
 	private static long timeDeltaMillis = DEFAULT_TIME;
 	Logger logger = Logger.getLogger(PairEmit.class);
 
+	private TokenPairCountAccumulator accumulator;
+	private final DataOutputBuffer keyBuffer = new DataOutputBuffer();
+	private final DataOutputBuffer valueBuffer = new DataOutputBuffer();
+	private final BytesWritable keyWritable = new BytesWritable();
+	private final BytesWritable valueWritable = new BytesWritable();
+
 	protected static synchronized void loadOptions(Mapper<LongWritable, Text, BytesWritable, BytesWritable>.Context context) throws IOException {
 		if (options == null) {
 			try {
@@ -76,6 +89,9 @@ public class PairEmit extends Mapper<LongWritable, Text, BytesWritable, BytesWri
 	@Override
 	protected void setup(Mapper<LongWritable, Text, BytesWritable, BytesWritable>.Context context) throws IOException, InterruptedException {
 		loadOptions(context);
+		final int maxEntries = context.getConfiguration().getInt(PairMutualInformation.COMBINE_MAX_ENTRIES, PairMutualInformation.DEFAULT_COMBINE_MAX_ENTRIES);
+		if (maxEntries > 0)
+			accumulator = new TokenPairCountAccumulator(maxEntries);
 	}
 	
 	@Override
@@ -93,30 +109,69 @@ public class PairEmit extends Mapper<LongWritable, Text, BytesWritable, BytesWri
 		long timeIndex = DEFAULT_TIME;
 		if(timeDeltaMillis > 0)
 			timeIndex = (time.getMillis() / timeDeltaMillis) * timeDeltaMillis;
-		for (int i = 0; i < tokens.size(); i++) 
-		{
-			String tok1 = tokens.get(i);
-			String tok2;
-			for (int j = i+1; j < tokens.size(); j++) {
-				tok2 = tokens.get(j);
-				TokenPairCount tpc = null;
-				int cmp = tok1.compareTo(tok2);
-				if(cmp > 0){
-					tpc = new TokenPairCount(tok2, tok1);
+
+		final int ntokens = tokens.size();
+		if (accumulator != null) {
+			final int[] ids = new int[ntokens];
+			for (int i = 0; i < ntokens; i++)
+				ids[i] = accumulator.index(tokens.get(i));
+
+			for (int i = 0; i < ntokens; i++) {
+				String tok1 = tokens.get(i);
+				for (int j = i+1; j < ntokens; j++) {
+					if(tok1.compareTo(tokens.get(j)) > 0)
+						accumulator.addPair(timeIndex, ids[j], ids[i], 1);
+					else
+						accumulator.addPair(timeIndex, ids[i], ids[j], 1);
 				}
-				else{
-					tpc = new TokenPairCount(tok1, tok2);
+				accumulator.addSingle(timeIndex, ids[i], ntokens - 1);
+			}
+
+			if (accumulator.isFull())
+				flush(context);
+		} else {
+			for (int i = 0; i < ntokens; i++) {
+				String tok1 = tokens.get(i);
+				String tok2;
+				for (int j = i+1; j < ntokens; j++) {
+					tok2 = tokens.get(j);
+					if(tok1.compareTo(tok2) > 0)
+						write(context, timeIndex, tok2, tok1, 1);
+					else
+						write(context, timeIndex, tok1, tok2, 1);
 				}
-				tpc.paircount = 1;
-				BytesWritable keywrite = new BytesWritable(tpc.identifierBinary(timeIndex));
-				context.write(keywrite, new BytesWritable(IOUtils.serialize(tpc)));
-				context.getCounter(PairEnum.PAIR).increment(1);
+				write(context, timeIndex, tok1, null, ntokens - 1);
 			}
-			TokenPairCount tpc = new TokenPairCount(tok1);
-			tpc.paircount = tokens.size() - 1;
-			context.write(new BytesWritable(tpc.identifierBinary(timeIndex)), new BytesWritable(IOUtils.serialize(tpc)));
-			context.getCounter(PairEnum.UNARY).increment(1);
 		}
-		
+		context.getCounter(PairEnum.PAIR).increment((long)ntokens * (ntokens - 1) / 2);
+		context.getCounter(PairEnum.UNARY).increment(ntokens);
 	};
+
+	@Override
+	protected void cleanup(Mapper<LongWritable, Text, BytesWritable, BytesWritable>.Context context) throws IOException, InterruptedException {
+		if (accumulator != null)
+			flush(context);
+	}
+
+	private void flush(final Mapper<LongWritable, Text, BytesWritable, BytesWritable>.Context context) throws IOException, InterruptedException {
+		context.getCounter(PairEnum.MAPPER_FLUSH).increment(1);
+		accumulator.flush(new TokenPairCountAccumulator.Emitter() {
+			@Override
+			public void emit(long time, String tok1, String tok2, long count) throws IOException, InterruptedException {
+				write(context, time, tok1, tok2, count);
+			}
+		});
+	}
+
+	private void write(Mapper<LongWritable, Text, BytesWritable, BytesWritable>.Context context, long time, String tok1, String tok2, long count) throws IOException, InterruptedException {
+		keyBuffer.reset();
+		TokenPairCount.writeIdentifierBinary(keyBuffer, time, tok1, tok2);
+		keyWritable.set(keyBuffer.getData(), 0, keyBuffer.getLength());
+
+		valueBuffer.reset();
+		TokenPairCount.writeCountBinary(valueBuffer, count);
+		valueWritable.set(valueBuffer.getData(), 0, valueBuffer.getLength());
+
+		context.write(keyWritable, valueWritable);
+	}
 }
@@ -32,14 +32,14 @@ package org.openimaj.hadoop.tools.twitter.token.mode.pointwisemi.count;
 import java.io.IOException;
 
 import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.log4j.Logger;
-import org.openimaj.io.IOUtils;
 
 /**
  * Assumes each key is a timeperiod split set of words ordered by single/pair words then by word order.
- * The key is only used to get time.
- * Using this time the values are combined and used to construct new keys
+ * Hadoop updates the key as the values are iterated, so the tokens of each count
+ * are read from the key and the count itself from the value.
  * 
  * Emit for the given time a combined version of the word's count. 
  * The word might be a pair or a unary count.
@@ -50,30 +50,39 @@ import org.openimaj.io.IOUtils;
 public class PairEmitCombiner extends Reducer<BytesWritable, BytesWritable, BytesWritable, BytesWritable> {
 	
 	Logger logger = Logger.getLogger(PairEmitCombiner.class);
+	private final DataOutputBuffer keyBuffer = new DataOutputBuffer();
+	private final DataOutputBuffer valueBuffer = new DataOutputBuffer();
+	private final BytesWritable keyWritable = new BytesWritable();
+	private final BytesWritable valueWritable = new BytesWritable();
 	
 	@Override
 	protected void reduce(BytesWritable timeword, Iterable<BytesWritable> paircounts, Reducer<BytesWritable,BytesWritable,BytesWritable,BytesWritable>.Context context) throws IOException ,InterruptedException {
 		TokenPairCollector collector = new TokenPairCollector();
-//		
 		long time = TokenPairCount.timeFromBinaryIdentity(timeword.getBytes());
 		
-//		logger.info("Combining time: " + time);
 		for (BytesWritable bytesWritable : paircounts) {
-			TokenPairCount paircount = IOUtils.deserialize(bytesWritable.getBytes(), TokenPairCount.class);
+			TokenPairCount paircount = TokenPairCount.fromBinaryIdentity(timeword.getBytes(), 0, timeword.getLength());
+			paircount.paircount = TokenPairCount.countFromBinary(bytesWritable.getBytes(), bytesWritable.getLength());
 			TokenPairCount collectorRet = collector.add(paircount);
 			if(collectorRet != null){
-				context.write(new BytesWritable(collectorRet.identifierBinary(time)), new BytesWritable(IOUtils.serialize(collectorRet)));
-				if(!collectorRet.isSingle){
-					context.getCounter(PairEnum.PAIR_COMBINED).increment(1);
-				}else{
-					context.getCounter(PairEnum.UNARY_COMBINED).increment(1);
-				}
+				write(time, collectorRet, context);
 			}
 		}
 		// Final write
-		TokenPairCount collectorRet = collector.getCurrent();
-		context.write(new BytesWritable(collectorRet.identifierBinary(time)), new BytesWritable(IOUtils.serialize(collectorRet)));
-		if(!collectorRet.isSingle){
+		write(time, collector.getCurrent(), context);
+	}
+
+	private void write(long time, TokenPairCount count, Reducer<BytesWritable,BytesWritable,BytesWritable,BytesWritable>.Context context) throws IOException, InterruptedException {
+		keyBuffer.reset();
+		count.writeIdentifierBinary(keyBuffer, time);
+		keyWritable.set(keyBuffer.getData(), 0, keyBuffer.getLength());
+
+		valueBuffer.reset();
+		TokenPairCount.writeCountBinary(valueBuffer, count.paircount);
+		valueWritable.set(valueBuffer.getData(), 0, valueBuffer.getLength());
+
+		context.write(keyWritable, valueWritable);
+		if(!count.isSingle){
 			context.getCounter(PairEnum.PAIR_COMBINED).increment(1);
 		}else{
 			context.getCounter(PairEnum.UNARY_COMBINED).increment(1);
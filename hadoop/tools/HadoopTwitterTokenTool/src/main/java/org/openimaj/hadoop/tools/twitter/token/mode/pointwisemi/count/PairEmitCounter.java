@@ -48,6 +48,9 @@ import org.openimaj.io.IOUtils;
  * Then for all pairs, combine pair instances for a given pair then emit onces a new pair or the end is reached
  * 
  * Once the first non unary word is found, start counting for a particular word
+ * 
+ * The tokens of each count are read from the key and the count from the value,
+ * as written by {@link PairEmit} and {@link PairEmitCombiner}
  * @author Sina Samangooei (ss@ecs.soton.ac.uk)
  *
  */
@@ -75,7 +78,7 @@ public class PairEmitCounter extends Reducer<BytesWritable, BytesWritable, Bytes
 		// Start with unary count
 		TokenPairCollector collector = new TokenPairCollector();
 		for (BytesWritable bytesWritable : paircounts) {
-			TokenPairCount newcount = IOUtils.deserialize(bytesWritable.getBytes(), TokenPairCount.class);
+			TokenPairCount newcount = readCount(timeB, bytesWritable);
 			TokenPairCount count = collector.add(newcount);
 			if(count!=null){
 				pairsCount += count.paircount;
@@ -91,7 +94,7 @@ public class PairEmitCounter extends Reducer<BytesWritable, BytesWritable, Bytes
 		writeTimeperiodCount(timeperiodCountOutput,pairsCount);
 		
 		for (BytesWritable bytesWritable : paircounts) {
-			TokenPairCount newcount = IOUtils.deserialize(bytesWritable.getBytes(), TokenPairCount.class);
+			TokenPairCount newcount = readCount(timeB, bytesWritable);
 			if(newcount.isSingle){
 				// The list was not sorted!
 				throw new IOException("List of TokenPairCounts was not sorted such that ALL singles appeared before pairs");
@@ -103,6 +106,16 @@ public class PairEmitCounter extends Reducer<BytesWritable, BytesWritable, Bytes
 		}
 		emitPairCount(time,collector.getCurrent(),context);
 	}
+	/*
+	 * Hadoop updates the key as the values are iterated, so the tokens are read
+	 * from the current key and the count from the value
+	 */
+	private TokenPairCount readCount(BytesWritable key, BytesWritable value) throws IOException {
+		TokenPairCount count = TokenPairCount.fromBinaryIdentity(key.getBytes(), 0, key.getLength());
+		count.paircount = TokenPairCount.countFromBinary(value.getBytes(), value.getLength());
+		return count;
+	}
+
 	private void writeTimeperiodCount(Path timeperiodCountOutput,long pairsCount) throws IOException {
 		FileSystem fs = HadoopToolsUtil.getFileSystem(timeperiodCountOutput);
 		PrintWriter writer = new PrintWriter(fs.create(timeperiodCountOutput));
@@ -51,5 +51,9 @@ public enum PairEnum {
 	 * Number of unary counts emitted by combiners
 	 */
 	UNARY_COMBINED,
+	/**
+	 * Number of times mappers flushed their in-memory counts
+	 */
+	MAPPER_FLUSH,
 
 }
@@ -76,8 +76,18 @@ public class PairMutualInformation extends TextByteByteStage {
 	 * Name of the timeperiod count directory
 	 */
 	public static final String TIMEPERIOD_OUTPUT_NAME = "timeperiod_counts";
+	/**
+	 * The maximum number of distinct counts each mapper holds in memory before
+	 * emitting them; 0 disables in-mapper combining
+	 */
+	public static final String COMBINE_MAX_ENTRIES = "org.openimaj.hadoop.tools.twitter.token.mode.pairwisemi.combinemaxentries";
+	/**
+	 * The default value of {@link #COMBINE_MAX_ENTRIES}
+	 */
+	public static final int DEFAULT_COMBINE_MAX_ENTRIES = 500000;
 	private String[] nonHadoopArgs;
 	private long timedelta;
+	private int combineMaxEntries;
 	private Path actualOutputLocation;
 
 	/**
@@ -86,14 +96,28 @@ public class PairMutualInformation extends TextByteByteStage {
 	 * @param timedelta
 	 */
 	public PairMutualInformation(String[] nonHadoopArgs, long timedelta) {
+		this(nonHadoopArgs, timedelta, DEFAULT_COMBINE_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param nonHadoopArgs
+	 *            the arguments for configuration
+	 * @param timedelta
+	 * @param combineMaxEntries
+	 *            the maximum number of counts each mapper combines in memory
+	 *            before emitting them; 0 disables in-mapper combining
+	 */
+	public PairMutualInformation(String[] nonHadoopArgs, long timedelta, int combineMaxEntries) {
 		this.nonHadoopArgs = nonHadoopArgs;
 		this.timedelta = timedelta;
+		this.combineMaxEntries = combineMaxEntries;
 	}
 
 	@Override
 	public void setup(Job job) throws IOException {
 		job.getConfiguration().setStrings(HadoopTwitterTokenToolOptions.ARGS_KEY, nonHadoopArgs);
 		job.getConfiguration().setLong(TIMEDELTA, timedelta);
+		job.getConfiguration().setInt(COMBINE_MAX_ENTRIES, combineMaxEntries);
 		final Path tpcOutRoot = new Path(this.actualOutputLocation, TIMEPERIOD_OUTPUT_NAME);
 		job.getConfiguration().set(TIMEPERIOD_COUNT_OUTPUT_ROOT, tpcOutRoot.toString());
 		if (timedelta != -1) {
@@ -37,23 +37,18 @@ package org.openimaj.hadoop.tools.twitter.token.mode.pointwisemi.count;
  */
 class TokenPairCollector{
 	private TokenPairCount currentToken;
-	private String currentString;
 
 	public TokenPairCollector(){
 		this.currentToken = null;
-		this.currentString = null;
 	}
 	
 	public TokenPairCount add(TokenPairCount count){
 		if(this.currentToken == null){
 			this.currentToken = count;
-			this.currentString = count.identifier();
-//			System.out.println("Starting with: " + currentString);
 			return null;
 		}
 		
-		String nextid = count.identifier();
-		if(this.currentString.equals(nextid)){
+		if(this.currentToken.sameTokens(count)){
 			this.currentToken.add(count);
 			return null;
 		}
@@ -61,8 +56,6 @@ class TokenPairCollector{
 		{
 			TokenPairCount toRet = this.currentToken;
 			this.currentToken = count;
-			this.currentString = count.identifier();
-//			System.out.println("Switching to: " + currentString);
 			return toRet;
 		}
 		
@@ -44,6 +44,8 @@ import java.util.Scanner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.WritableUtils;
 import org.openimaj.io.IOUtils;
 import org.openimaj.io.ReadWriteable;
 import org.openimaj.util.pair.IndependentPair;
@@ -204,6 +206,109 @@ public class TokenPairCount extends Pair<String> implements ReadWriteable{
 		return baos.toByteArray();
 	}
 
+	/**
+	 * Write the compact identity of this pair used as a shuffle key: the time,
+	 * the single flag and the tokens, but not the count. The count travels in
+	 * the value (see {@link #writeCountBinary(DataOutput, long)}). Keys written
+	 * this way are ordered by {@link TokenPairKeyComparator} in the same way as
+	 * those from {@link #identifierBinary(long)}.
+	 * 
+	 * @param out
+	 *            the output
+	 * @param time
+	 *            the time period
+	 * @throws IOException
+	 */
+	public void writeIdentifierBinary(DataOutput out, long time) throws IOException {
+		writeIdentifierBinary(out, time, firstObject(), secondObject());
+	}
+
+	/**
+	 * Write the compact identity of a pair (or a single token if tok2 is null)
+	 * 
+	 * @see #writeIdentifierBinary(DataOutput, long)
+	 * 
+	 * @param out
+	 *            the output
+	 * @param time
+	 *            the time period
+	 * @param tok1
+	 *            the first token
+	 * @param tok2
+	 *            the second token, or null for a single token
+	 * @throws IOException
+	 */
+	public static void writeIdentifierBinary(DataOutput out, long time, String tok1, String tok2) throws IOException {
+		out.writeLong(time);
+		out.writeBoolean(tok2 == null);
+		out.writeUTF(tok1);
+		if (tok2 != null)
+			out.writeUTF(tok2);
+	}
+
+	/**
+	 * Read a {@link TokenPairCount} (with a zero count) from an identity
+	 * written by {@link #writeIdentifierBinary(DataOutput, long)} or
+	 * {@link #identifierBinary(long)}
+	 * 
+	 * @param bytes
+	 *            the data
+	 * @param start
+	 *            the start offset
+	 * @param length
+	 *            the length of the data
+	 * @return the token pair
+	 * @throws IOException
+	 */
+	public static TokenPairCount fromBinaryIdentity(byte[] bytes, int start, int length) throws IOException {
+		final DataInputBuffer in = new DataInputBuffer();
+		in.reset(bytes, start, length);
+		in.readLong();
+
+		final boolean single = in.readBoolean();
+		final String tok1 = in.readUTF();
+		return single ? new TokenPairCount(tok1) : new TokenPairCount(tok1, in.readUTF());
+	}
+
+	/**
+	 * Write a count as a variable length long
+	 * 
+	 * @param out
+	 *            the output
+	 * @param count
+	 *            the count
+	 * @throws IOException
+	 */
+	public static void writeCountBinary(DataOutput out, long count) throws IOException {
+		WritableUtils.writeVLong(out, count);
+	}
+
+	/**
+	 * Read a count written by {@link #writeCountBinary(DataOutput, long)}
+	 * 
+	 * @param bytes
+	 *            the data
+	 * @param length
+	 *            the length of the data
+	 * @return the count
+	 * @throws IOException
+	 */
+	public static long countFromBinary(byte[] bytes, int length) throws IOException {
+		final DataInputBuffer in = new DataInputBuffer();
+		in.reset(bytes, length);
+		return WritableUtils.readVLong(in);
+	}
+
+	/**
+	 * @param that
+	 * @return true if the two have the same tokens
+	 */
+	public boolean sameTokens(TokenPairCount that) {
+		if (this.isSingle != that.isSingle || !this.firstObject().equals(that.firstObject()))
+			return false;
+		return this.isSingle || this.secondObject().equals(that.secondObject());
+	}
+
 	public static long timeFromBinaryIdentity(byte[] bytes) throws IOException {
 		return timeFromBinaryIdentity(bytes,0,bytes.length);
 	}
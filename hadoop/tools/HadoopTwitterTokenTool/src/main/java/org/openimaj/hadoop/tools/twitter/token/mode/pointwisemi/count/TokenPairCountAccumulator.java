@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.hadoop.tools.twitter.token.mode.pointwisemi.count;
+
+import gnu.trove.iterator.TLongLongIterator;
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounded, in-memory table of token pair and single token counts used for
+ * in-mapper combining. Tokens are mapped to integer ids so that each pair in a
+ * time period is held as a single primitive long key. The table reports itself
+ * as full when it holds a maximum number of counts, or when the JVM is running
+ * low on memory, at which point it should be flushed.
+ */
+public class TokenPairCountAccumulator {
+	/**
+	 * Receives the counts when the accumulator is flushed
+	 */
+	public interface Emitter {
+		/**
+		 * @param time
+		 *            the time period
+		 * @param tok1
+		 *            the first token
+		 * @param tok2
+		 *            the second token, or null for a single token count
+		 * @param count
+		 *            the count
+		 * @throws IOException
+		 * @throws InterruptedException
+		 */
+		public void emit(long time, String tok1, String tok2, long count) throws IOException, InterruptedException;
+	}
+
+	private static final long SINGLE = 0xffffffffL;
+	private static final int MEMORY_CHECK_INTERVAL = 4096;
+	private static final int MIN_ENTRIES_BEFORE_MEMORY_FLUSH = 10000;
+
+	private final int maxEntries;
+	private final TObjectIntHashMap<String> vocabulary;
+	private final List<String> words;
+	private final TLongObjectHashMap<TLongLongHashMap> counts;
+	private int size;
+	private int additions;
+
+	/**
+	 * @param maxEntries
+	 *            the maximum number of distinct counts to hold before
+	 *            {@link #isFull()} returns true
+	 */
+	public TokenPairCountAccumulator(int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.vocabulary = new TObjectIntHashMap<String>(10000, 0.5f, -1);
+		this.words = new ArrayList<String>();
+		this.counts = new TLongObjectHashMap<TLongLongHashMap>();
+	}
+
+	/**
+	 * Get the id of a token, assigning a new one if it has not been seen since
+	 * the last flush
+	 * 
+	 * @param token
+	 *            the token
+	 * @return the id
+	 */
+	public int index(String token) {
+		int id = vocabulary.get(token);
+		if (id == -1) {
+			id = words.size();
+			vocabulary.put(token, id);
+			words.add(token);
+		}
+		return id;
+	}
+
+	/**
+	 * Add to the count of a pair of tokens. The caller is responsible for
+	 * ordering the pair.
+	 * 
+	 * @param time
+	 *            the time period
+	 * @param id1
+	 *            the id of the first token
+	 * @param id2
+	 *            the id of the second token
+	 * @param count
+	 *            the count to add
+	 */
+	public void addPair(long time, int id1, int id2, long count) {
+		add(time, ((long) id1 << 32) | (id2 & 0xffffffffL), count);
+	}
+
+	/**
+	 * Add to the count of a single token
+	 * 
+	 * @param time
+	 *            the time period
+	 * @param id
+	 *            the id of the token
+	 * @param count
+	 *            the count to add
+	 */
+	public void addSingle(long time, int id, long count) {
+		add(time, ((long) id << 32) | SINGLE, count);
+	}
+
+	private void add(long time, long key, long count) {
+		TLongLongHashMap timeCounts = counts.get(time);
+		if (timeCounts == null) {
+			timeCounts = new TLongLongHashMap();
+			counts.put(time, timeCounts);
+		}
+
+		if (timeCounts.adjustOrPutValue(key, count, count) == count)
+			size++;
+		additions++;
+	}
+
+	/**
+	 * @return the number of distinct counts held
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if the maximum number of counts is held or memory is
+	 *         running low
+	 */
+	public boolean isFull() {
+		if (size >= maxEntries)
+			return true;
+
+		if (additions >= MEMORY_CHECK_INTERVAL) {
+			additions = 0;
+
+			if (size >= MIN_ENTRIES_BEFORE_MEMORY_FLUSH) {
+				final Runtime rt = Runtime.getRuntime();
+				final long free = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+				return free < rt.maxMemory() / 10;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Emit all the counts held and clear the accumulator
+	 * 
+	 * @param emitter
+	 *            the destination of the counts
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public void flush(Emitter emitter) throws IOException, InterruptedException {
+		for (final TLongObjectIterator<TLongLongHashMap> times = counts.iterator(); times.hasNext();) {
+			times.advance();
+			final long time = times.key();
+
+			for (final TLongLongIterator it = times.value().iterator(); it.hasNext();) {
+				it.advance();
+				final long key = it.key();
+				final String tok1 = words.get((int) (key >>> 32));
+				final long second = key & 0xffffffffL;
+				final String tok2 = second == SINGLE ? null : words.get((int) second);
+
+				emitter.emit(time, tok1, tok2, it.value());
+			}
+		}
+
+		counts.clear();
+		vocabulary.clear();
+		words.clear();
+		size = 0;
+		additions = 0;
+	}
+}
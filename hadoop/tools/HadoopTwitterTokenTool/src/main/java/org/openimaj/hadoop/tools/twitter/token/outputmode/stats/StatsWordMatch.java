@@ -37,6 +37,9 @@ import java.util.HashMap;
 import java.util.Map.Entry;
 import java.util.regex.Pattern;
 
+import org.openimaj.ml.sketch.countmin.CountMin;
+import org.openimaj.ml.sketch.countmin.HeavyHitters;
+import org.openimaj.ml.sketch.hyperloglog.HyperLogLog;
 import org.openimaj.text.nlp.patterns.EdgePunctuationPatternProvider;
 import org.openimaj.text.nlp.patterns.EmoticonPatternProvider;
 import org.openimaj.text.nlp.patterns.PatternProvider;
@@ -44,10 +47,13 @@ import org.openimaj.text.nlp.patterns.PunctuationPatternProvider;
 import org.openimaj.text.nlp.patterns.TimePatternProvider;
 import org.openimaj.text.nlp.patterns.TwitterStuffPatternProvider;
 import org.openimaj.text.nlp.patterns.URLPatternProvider;
+import org.openimaj.util.pair.ObjectLongPair;
 
 public class StatsWordMatch {
 	private HashMap<String, Pattern> available;
 	private TObjectLongMap<String> counts;
+	private HashMap<String, HyperLogLog> distinct;
+	private HeavyHitters topWords;
 
 	public StatsWordMatch() {
 		this.available = new HashMap<String,Pattern>();
@@ -61,6 +67,8 @@ public class StatsWordMatch {
 		addAvail("TwitterStuff.username", tpp.usernamePatternString());
 		addAvail("EdgePunctuation",EdgePunctuationPatternProvider.edgePuncPattern());
 		this.counts = new TObjectLongHashMap<String>();
+		this.distinct = new HashMap<String, HyperLogLog>();
+		this.topWords = new HeavyHitters(CountMin.withErrorBounds(0.0001, 0.01, true), 20);
 	}
 
 	private void addAvail(PatternProvider pp) {
@@ -89,13 +97,25 @@ public class StatsWordMatch {
 			Pattern pp = spp.getValue();
 			if(pp.matcher(formattedWord).find()){
 				this.counts.adjustOrPutValue(name,count,count);
+				distinct(name).offer(word);
 				added=true;
 			}
 		}
 		if(!added){
 //			System.out.println("Adding to other: '" + word + "'");
 			this.counts.adjustOrPutValue("Other", count, count);
+			distinct("Other").offer(word);
 		}
+		this.topWords.add(word, count);
+	}
+
+	private HyperLogLog distinct(String name) {
+		HyperLogLog hll = this.distinct.get(name);
+		if(hll == null){
+			hll = new HyperLogLog(12);
+			this.distinct.put(name, hll);
+		}
+		return hll;
 	}
 	
 	@Override
@@ -110,6 +130,14 @@ public class StatsWordMatch {
 				return true;
 			}			
 		});
+		buffer.append("Distinct Words:\n");
+		for (Entry<String, HyperLogLog> stat : this.distinct.entrySet()) {
+			buffer.append(String.format("%s: ~%d\n",stat.getKey(),stat.getValue().cardinality()));
+		}
+		buffer.append("Top Words:\n");
+		for (ObjectLongPair<String> word : this.topWords.getTopK()) {
+			buffer.append(String.format("%s: ~%d\n",word.first,word.second));
+		}
 		return buffer.toString();
 	}
 }
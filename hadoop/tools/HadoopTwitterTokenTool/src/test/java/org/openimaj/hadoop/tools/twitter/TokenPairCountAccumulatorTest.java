@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.hadoop.tools.twitter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+import org.openimaj.hadoop.tools.twitter.token.mode.pointwisemi.count.TokenPairCount;
+import org.openimaj.hadoop.tools.twitter.token.mode.pointwisemi.count.TokenPairCountAccumulator;
+import org.openimaj.hadoop.tools.twitter.token.mode.pointwisemi.count.TokenPairKeyComparator;
+
+/**
+ * Test the in-mapper combining of token pair counts and their compact binary
+ * encoding
+ */
+public class TokenPairCountAccumulatorTest {
+	/**
+	 * Counts of the same pair in the same time period are combined, and
+	 * everything is emitted and cleared on flush
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testAccumulate() throws Exception {
+		final TokenPairCountAccumulator acc = new TokenPairCountAccumulator(5);
+		final int a = acc.index("a");
+		final int b = acc.index("b");
+		assertEquals(a, acc.index("a"));
+
+		acc.addPair(0, a, b, 1);
+		acc.addPair(0, a, b, 2);
+		acc.addPair(60, a, b, 1);
+		acc.addSingle(0, a, 4);
+		acc.addSingle(0, b, 1);
+		assertEquals(4, acc.size());
+		assertFalse(acc.isFull());
+		acc.addSingle(60, b, 1);
+		assertTrue(acc.isFull());
+
+		final Map<String, Long> emitted = new HashMap<String, Long>();
+		acc.flush(new TokenPairCountAccumulator.Emitter() {
+			@Override
+			public void emit(long time, String tok1, String tok2, long count) {
+				emitted.put(time + ":" + tok1 + ":" + tok2, count);
+			}
+		});
+
+		assertEquals(5, emitted.size());
+		assertEquals(3L, (long) emitted.get("0:a:b"));
+		assertEquals(1L, (long) emitted.get("60:a:b"));
+		assertEquals(4L, (long) emitted.get("0:a:null"));
+		assertEquals(1L, (long) emitted.get("0:b:null"));
+		assertEquals(1L, (long) emitted.get("60:b:null"));
+		assertEquals(0, acc.size());
+	}
+
+	/**
+	 * The compact encoding round trips and sorts singles before pairs
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testEncoding() throws IOException {
+		final DataOutputBuffer pair = new DataOutputBuffer();
+		TokenPairCount.writeIdentifierBinary(pair, 60, "hello", "world");
+		final DataOutputBuffer single = new DataOutputBuffer();
+		TokenPairCount.writeIdentifierBinary(single, 60, "zebra", null);
+
+		final TokenPairCount p = TokenPairCount.fromBinaryIdentity(pair.getData(), 0, pair.getLength());
+		assertFalse(p.isSingle);
+		assertEquals("hello", p.firstObject());
+		assertEquals("world", p.secondObject());
+		assertEquals(60, TokenPairCount.timeFromBinaryIdentity(pair.getData(), 0, pair.getLength()));
+
+		final TokenPairCount s = TokenPairCount.fromBinaryIdentity(single.getData(), 0, single.getLength());
+		assertTrue(s.isSingle);
+		assertEquals("zebra", s.firstObject());
+		assertNull(s.secondObject());
+
+		final TokenPairKeyComparator cmp = new TokenPairKeyComparator();
+		assertTrue(cmp.compare(single.getData(), -4, single.getLength() + 4, pair.getData(), -4, pair.getLength() + 4) < 0);
+
+		final DataOutputBuffer count = new DataOutputBuffer();
+		TokenPairCount.writeCountBinary(count, 1);
+		assertEquals(1, count.getLength());
+		assertEquals(1, TokenPairCount.countFromBinary(count.getData(), count.getLength()));
+		count.reset();
+		TokenPairCount.writeCountBinary(count, 123456789L);
+		assertEquals(123456789L, TokenPairCount.countFromBinary(count.getData(), count.getLength()));
+	}
+}
@@ -289,6 +289,17 @@ public class ConnectedComponentLabeler implements ImageAnalyser<FImage> {
 				// 13. Return.
 				return cc;
 			}
+		},
+		/**
+		 * Run-length based labelling with a union-find over the runs (see
+		 * {@link RunLengthLabeler}). The components store their pixels as
+		 * {@link org.openimaj.image.pixel.RunLengthEncodedPixels}.
+		 */
+		RUN_LENGTH {
+			@Override
+			public List<ConnectedComponent> findComponents(FImage image, float bgThreshold, ConnectMode mode) {
+				return RunLengthLabeler.findComponents(image, bgThreshold, mode);
+			}
 		};
 
 		/**
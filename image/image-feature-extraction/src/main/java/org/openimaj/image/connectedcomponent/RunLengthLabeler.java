@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.connectedcomponent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.pixel.ConnectedComponent;
+import org.openimaj.image.pixel.ConnectedComponent.ConnectMode;
+import org.openimaj.image.pixel.RunLengthEncodedPixels;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+import org.openimaj.util.set.IntDisjointSetForest;
+
+/**
+ * Connected component labelling based on runs of foreground pixels. Each row
+ * of the image is split into horizontal runs of pixels above the background
+ * threshold, and runs on adjacent rows that touch (according to the
+ * {@link ConnectMode}) are joined in an {@link IntDisjointSetForest}. The
+ * work is proportional to the number of runs rather than the number of
+ * pixels, and the resultant {@link ConnectedComponent}s store their pixels as
+ * {@link RunLengthEncodedPixels}, which are much more compact than sets of
+ * {@link org.openimaj.image.pixel.Pixel} objects.
+ * <p>
+ * Optionally the image can be processed in parallel strips of rows, which are
+ * labelled independently and then merged along their boundaries. The
+ * components are returned in raster order of their first pixel.
+ */
+public class RunLengthLabeler {
+	private RunLengthLabeler() {
+	}
+
+	/**
+	 * Find the connected components in an image.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param bgThreshold
+	 *            the threshold at or below which pixels are considered to be
+	 *            background
+	 * @param mode
+	 *            the {@link ConnectMode}
+	 * @return the connected components
+	 */
+	public static List<ConnectedComponent> findComponents(FImage image, float bgThreshold, ConnectMode mode) {
+		return findComponents(image, bgThreshold, mode, null);
+	}
+
+	/**
+	 * Find the connected components in an image, processing strips of rows in
+	 * parallel with the given thread pool.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param bgThreshold
+	 *            the threshold at or below which pixels are considered to be
+	 *            background
+	 * @param mode
+	 *            the {@link ConnectMode}
+	 * @param pool
+	 *            the thread pool; can be null to work on the calling thread.
+	 * @return the connected components
+	 */
+	public static List<ConnectedComponent> findComponents(final FImage image, final float bgThreshold,
+			ConnectMode mode, ThreadPoolExecutor pool)
+	{
+		final int height = image.height;
+		final int slack = mode == ConnectMode.CONNECT_8 ? 1 : 0;
+
+		// the runs of each row, as pairs of first and last x-ordinates
+		final int[][] runs = new int[height][];
+
+		// the index of the first run of each row
+		final int[] offsets = new int[height + 1];
+
+		final List<Integer> strips = Collections.synchronizedList(new ArrayList<Integer>());
+		final IntDisjointSetForest forest;
+
+		if (pool == null) {
+			findRuns(image, bgThreshold, runs, 0, height);
+			forest = new IntDisjointSetForest(countRuns(runs, offsets));
+			linkRows(runs, offsets, forest, slack, 0, height);
+		} else {
+			Parallel.forRange(0, height, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					findRuns(image, bgThreshold, runs, range.start, range.stop);
+				}
+			}, pool);
+
+			forest = new IntDisjointSetForest(countRuns(runs, offsets));
+
+			// each strip only joins its own runs, so the strips can't interfere
+			Parallel.forRange(0, height, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					linkRows(runs, offsets, forest, slack, range.start, range.stop);
+					strips.add(range.start);
+				}
+			}, pool);
+
+			for (final int start : strips) {
+				if (start > 0)
+					linkRow(runs, offsets, forest, slack, start);
+			}
+		}
+
+		return buildComponents(runs, offsets, forest);
+	}
+
+	private static void findRuns(FImage image, float bgThreshold, int[][] runs, int y0, int y1) {
+		final int[] buffer = new int[image.width + 1];
+
+		for (int y = y0; y < y1; y++) {
+			final float[] row = image.pixels[y];
+			int n = 0;
+
+			for (int x = 0; x < image.width; x++) {
+				if (row[x] > bgThreshold) {
+					buffer[n++] = x;
+					while (x + 1 < image.width && row[x + 1] > bgThreshold)
+						x++;
+					buffer[n++] = x;
+				}
+			}
+
+			final int[] r = new int[n];
+			System.arraycopy(buffer, 0, r, 0, n);
+			runs[y] = r;
+		}
+	}
+
+	private static int countRuns(int[][] runs, int[] offsets) {
+		for (int y = 0; y < runs.length; y++)
+			offsets[y + 1] = offsets[y] + runs[y].length / 2;
+
+		return offsets[runs.length];
+	}
+
+	private static void linkRows(int[][] runs, int[] offsets, IntDisjointSetForest forest, int slack, int y0, int y1) {
+		for (int y = y0 + 1; y < y1; y++)
+			linkRow(runs, offsets, forest, slack, y);
+	}
+
+	/**
+	 * Join the runs of row y with the runs of row y-1 that they touch
+	 */
+	private static void linkRow(int[][] runs, int[] offsets, IntDisjointSetForest forest, int slack, int y) {
+		final int[] above = runs[y - 1];
+		final int[] row = runs[y];
+		final int na = above.length / 2;
+		final int nb = row.length / 2;
+
+		int i = 0, j = 0;
+		while (i < na && j < nb) {
+			final int aStart = above[2 * i], aEnd = above[2 * i + 1];
+			final int bStart = row[2 * j], bEnd = row[2 * j + 1];
+
+			if (aStart <= bEnd + slack && bStart <= aEnd + slack)
+				forest.union(offsets[y - 1] + i, offsets[y] + j);
+
+			// move on from whichever run finishes first
+			if (aEnd < bEnd)
+				i++;
+			else
+				j++;
+		}
+	}
+
+	private static List<ConnectedComponent> buildComponents(int[][] runs, int[] offsets, IntDisjointSetForest forest)
+	{
+		final int[] labels = forest.labels();
+		final List<ConnectedComponent> components = new ArrayList<ConnectedComponent>();
+
+		for (int y = 0; y < runs.length; y++) {
+			final int[] row = runs[y];
+
+			for (int k = 0; k < row.length / 2; k++) {
+				final int label = labels[offsets[y] + k];
+
+				if (label == components.size()) {
+					final ConnectedComponent cc = new ConnectedComponent();
+					cc.pixels = new RunLengthEncodedPixels();
+					components.add(cc);
+				}
+
+				((RunLengthEncodedPixels) components.get(label).pixels).addRun(y, row[2 * k], row[2 * k + 1]);
+			}
+		}
+
+		return components;
+	}
+}
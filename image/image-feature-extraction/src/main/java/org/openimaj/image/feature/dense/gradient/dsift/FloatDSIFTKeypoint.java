@@ -37,6 +37,7 @@ import java.util.Scanner;
 import java.util.StringTokenizer;
 
 import org.openimaj.feature.FloatFV;
+import org.openimaj.io.IOUtils;
 
 /**
  * Dense SIFT keypoint with a location and float feature vector. Also includes
@@ -126,8 +127,7 @@ public class FloatDSIFTKeypoint
 		x = in.readFloat();
 		y = in.readFloat();
 		energy = in.readFloat();
-		for (int i = 0; i < descriptor.length; i++)
-			descriptor[i] = in.readFloat();
+		IOUtils.readFully(in, descriptor);
 	}
 
 	@Override
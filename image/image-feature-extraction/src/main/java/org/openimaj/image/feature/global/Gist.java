@@ -29,6 +29,11 @@
  */
 package org.openimaj.image.feature.global;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.openimaj.citation.annotation.Reference;
 import org.openimaj.citation.annotation.ReferenceType;
 import org.openimaj.feature.FloatFV;
@@ -39,6 +44,7 @@ import org.openimaj.image.analyser.ImageAnalyser;
 import org.openimaj.image.colour.ColourMap;
 import org.openimaj.image.colour.ColourSpace;
 import org.openimaj.image.colour.RGBColour;
+import org.openimaj.image.processing.algorithm.FFTPlanCache;
 import org.openimaj.image.processing.algorithm.FourierTransform;
 import org.openimaj.image.processing.convolution.FourierConvolve;
 import org.openimaj.image.processing.convolution.GaborFilters;
@@ -158,8 +164,26 @@ ImageAnalyser<IMAGE>
 	 */
 	public static final int DEFAULT_SIZE = 128;
 
+	/**
+	 * The maximum number of bytes of Gabor jets shared between all instances.
+	 * A jet for the default size takes about 10MB; jets for large variable
+	 * size images can take hundreds of megabytes, so the cache is bounded by
+	 * size rather than by count.
+	 */
+	private static final long GABOR_CACHE_BYTES = 64L * 1024 * 1024;
+
+	private static final Map<String, FImage[]> GABOR_CACHE = new LinkedHashMap<String, FImage[]>(16, 0.75f, true);
+
+	private static long gaborCacheBytes;
+
 	protected FImage[] gaborFilters;
 	protected FloatFV response;
+
+	private FImage prefilterKernel;
+	private int prefilterKernelFC;
+	private float[][] preparedImage;
+	private float[][] workingSpace;
+	private FImage filterResponse;
 	protected int[] orientationsPerScale;
 	protected boolean fixedSize;
 	protected int imageWidth;
@@ -245,10 +269,49 @@ ImageAnalyser<IMAGE>
 		this.imageHeight = height;
 
 		if (fixedSize)
-			this.gaborFilters = GaborFilters.createGaborJets(width + 2 * this.boundaryExtension, height + 2
+			this.gaborFilters = getGaborJets(width + 2 * this.boundaryExtension, height + 2
 					* this.boundaryExtension, orientationsPerScale);
 	}
 
+	/*
+	 * Get the (frequency domain) Gabor jets for the given padded image size.
+	 * The jets are expensive to compute, so they are shared between all
+	 * instances; they must not be modified. The least recently used jets are
+	 * dropped from the cache once it holds more than GABOR_CACHE_BYTES, and
+	 * jets larger than that are never cached.
+	 */
+	private static FImage[] getGaborJets(int width, int height, int[] orientationsPerScale) {
+		final String key = width + "x" + height + Arrays.toString(orientationsPerScale);
+
+		synchronized (GABOR_CACHE) {
+			FImage[] jets = GABOR_CACHE.get(key);
+			if (jets != null)
+				return jets;
+
+			jets = GaborFilters.createGaborJets(width, height, orientationsPerScale);
+
+			final long bytes = sizeOf(jets);
+			if (bytes <= GABOR_CACHE_BYTES) {
+				GABOR_CACHE.put(key, jets);
+				gaborCacheBytes += bytes;
+
+				final Iterator<FImage[]> iter = GABOR_CACHE.values().iterator();
+				while (gaborCacheBytes > GABOR_CACHE_BYTES) {
+					gaborCacheBytes -= sizeOf(iter.next());
+					iter.remove();
+				}
+			}
+			return jets;
+		}
+	}
+
+	private static long sizeOf(FImage[] jets) {
+		long bytes = 0;
+		for (final FImage jet : jets)
+			bytes += 4L * jet.width * jet.height;
+		return bytes;
+	}
+
 	@Override
 	public void analyseImage(IMAGE image) {
 		if (fixedSize) {
@@ -259,11 +322,13 @@ ImageAnalyser<IMAGE>
 			final IMAGE roi = resized.extractCenter(imageWidth, imageHeight);
 			extractGist(roi);
 		} else {
-			if (gaborFilters == null || gaborFilters[0].width != image.getWidth()
-					|| gaborFilters[0].height != image.getHeight())
+			final int width = image.getWidth() + 2 * this.boundaryExtension;
+			final int height = image.getHeight() + 2 * this.boundaryExtension;
+
+			// the jets are complex, so twice the width of the padded image
+			if (gaborFilters == null || gaborFilters[0].width != 2 * width || gaborFilters[0].height != height)
 			{
-				gaborFilters = GaborFilters.createGaborJets(image.getWidth() + 2 * this.boundaryExtension,
-						image.getHeight() + 2 * this.boundaryExtension, orientationsPerScale);
+				gaborFilters = getGaborJets(width, height, orientationsPerScale);
 			}
 
 			extractGist(image.clone()); // clone to stop side effects from
@@ -300,16 +365,21 @@ ImageAnalyser<IMAGE>
 		n = n + n % 2;
 		img = img.paddingSymmetric(w, w, w + n - sw, w + n - sh);
 
-		final FImage filter = new FImage(2 * n, n);
-		for (int j = 0; j < n; j++) {
-			final int fy = j - n / 2;
+		if (prefilterKernel == null || prefilterKernel.height != n || prefilterKernelFC != prefilterFC) {
+			prefilterKernel = new FImage(2 * n, n);
+			prefilterKernelFC = prefilterFC;
 
-			for (int i = 0; i < n * 2; i += 2) {
-				final int fx = (i / 2) - n / 2;
+			for (int j = 0; j < n; j++) {
+				final int fy = j - n / 2;
 
-				filter.pixels[j][i] = (float) Math.exp(-(fx * fx + fy * fy) / (s1 * s1));
+				for (int i = 0; i < n * 2; i += 2) {
+					final int fx = (i / 2) - n / 2;
+
+					prefilterKernel.pixels[j][i] = (float) Math.exp(-(fx * fx + fy * fy) / (s1 * s1));
+				}
 			}
 		}
+		final FImage filter = prefilterKernel;
 
 		final MBFImage output = new MBFImage();
 		for (int b = 0; b < img.numBands(); b++) {
@@ -347,28 +417,30 @@ ImageAnalyser<IMAGE>
 
 		final int cols = img.getCols();
 		final int rows = img.getRows();
-		final FloatFFT_2D fft = new FloatFFT_2D(rows, cols);
+		final FloatFFT_2D fft = FFTPlanCache.getFloatFFT_2D(rows, cols);
+
+		if (workingSpace == null || workingSpace.length != rows || workingSpace[0].length != cols * 2) {
+			preparedImage = new float[rows][cols * 2];
+			workingSpace = new float[rows][cols * 2];
+		}
+
+		final int roiWidth = cols - 2 * boundaryExtension;
+		final int roiHeight = rows - 2 * boundaryExtension;
+		if (filterResponse == null || filterResponse.width != roiWidth || filterResponse.height != roiHeight)
+			filterResponse = new FImage(roiWidth, roiHeight);
 
-		final float[][] workingSpace = new float[rows][cols * 2];
 		final FloatFV fv = new FloatFV(nFeaturesPerBand * img.numBands());
 
 		for (int b = 0; b < img.numBands(); b++) {
 			final FImage band = img.bands.get(b);
 
-			final float[][] preparedImage =
-					FourierTransform.prepareData(band.pixels, rows, cols, true);
-			fft.complexForward(preparedImage);
+			FFTPlanCache.getRealFFT2D(rows, cols).forwardFull(band.pixels, true, preparedImage);
 
 			for (int i = 0; i < nFilters; i++) {
-				// convolve with the filter
-				FImage ig = performConv(fft, preparedImage, workingSpace, this.gaborFilters[i], rows, cols);
-
-				// remove padding
-				ig = ig.extractROI(boundaryExtension, boundaryExtension, band.width - 2 * boundaryExtension, band.height
-						- 2
-						* boundaryExtension);
+				// convolve with the filter and remove the padding
+				performConv(fft, this.gaborFilters[i], rows, cols, filterResponse);
 
-				sampleResponses(ig, fv.values, b * nFeaturesPerBand + i * blocksPerFilter);
+				sampleResponses(filterResponse, fv.values, b * nFeaturesPerBand + i * blocksPerFilter);
 			}
 		}
 
@@ -430,11 +502,10 @@ ImageAnalyser<IMAGE>
 
 	/*
 	 * Perform convolution in the frequency domain an reconstruct the resultant
-	 * image as the magnitudes of the complex components from the ifft.
+	 * image as the magnitudes of the complex components from the ifft. Only
+	 * the region inside the boundary extension is written to the output.
 	 */
-	private FImage performConv(FloatFFT_2D fft, float[][] preparedImage, float[][] workingSpace, FImage filterfft,
-			int rows, int cols)
-	{
+	private void performConv(FloatFFT_2D fft, FImage filterfft, int rows, int cols, FImage out) {
 		final float[][] preparedKernel = filterfft.pixels;
 
 		for (int y = 0; y < rows; y++) {
@@ -455,15 +526,15 @@ ImageAnalyser<IMAGE>
 
 		fft.complexInverse(workingSpace, true);
 
-		final FImage out = new FImage(cols, rows);
-		for (int r = 0; r < rows; r++) {
-			for (int c = 0; c < cols; c++) {
-				out.pixels[r][c] = (float) Math.sqrt(workingSpace[r][c * 2] * workingSpace[r][c * 2]
-						+ workingSpace[r][1 + c * 2]
-								* workingSpace[r][1 + c * 2]);
+		for (int r = 0; r < out.height; r++) {
+			final float[] ws = workingSpace[r + boundaryExtension];
+			final float[] op = out.pixels[r];
+
+			for (int c = 0; c < out.width; c++) {
+				final int cc = 2 * (c + boundaryExtension);
+				op[c] = (float) Math.sqrt(ws[cc] * ws[cc] + ws[cc + 1] * ws[cc + 1]);
 			}
 		}
-		return out;
 	}
 
 	/**
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.connectedcomponent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.pixel.ConnectedComponent;
+import org.openimaj.image.pixel.ConnectedComponent.ConnectMode;
+import org.openimaj.image.pixel.Pixel;
+import org.openimaj.image.pixel.RunLengthEncodedPixels;
+
+/**
+ * Tests for the {@link RunLengthLabeler}
+ */
+public class RunLengthLabelerTest {
+	private static Set<Set<Pixel>> pixelSets(List<ConnectedComponent> components) {
+		final Set<Set<Pixel>> sets = new HashSet<Set<Pixel>>();
+		for (final ConnectedComponent cc : components)
+			sets.add(new HashSet<Pixel>(cc.pixels));
+		return sets;
+	}
+
+	/**
+	 * Test that the components are the same as the ones found by the two-pass
+	 * algorithm, sequentially and in parallel
+	 */
+	@Test
+	public void testAgainstTwoPass() {
+		final Random rng = new Random(0);
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			for (int i = 0; i < 20; i++) {
+				final FImage image = new FImage(1 + rng.nextInt(80), 1 + rng.nextInt(80));
+				final float density = rng.nextFloat();
+				for (int y = 0; y < image.height; y++)
+					for (int x = 0; x < image.width; x++)
+						image.pixels[y][x] = rng.nextFloat() < density ? 1 : 0;
+
+				for (final ConnectMode mode : ConnectMode.values()) {
+					final Set<Set<Pixel>> expected = pixelSets(ConnectedComponentLabeler.Algorithm.TWO_PASS
+							.findComponents(image, 0, mode));
+
+					final List<ConnectedComponent> components = ConnectedComponentLabeler.Algorithm.RUN_LENGTH
+							.findComponents(image, 0, mode);
+					assertEquals(expected.size(), components.size());
+					assertEquals(expected, pixelSets(components));
+					assertEquals(expected, pixelSets(RunLengthLabeler.findComponents(image, 0, mode, pool)));
+
+					for (final ConnectedComponent cc : components) {
+						final ConnectedComponent copy = new ConnectedComponent(new HashSet<Pixel>(cc.pixels));
+						assertEquals(copy.calculateArea(), cc.calculateArea());
+						assertEquals(copy.calculateRegularBoundingBox(), cc.calculateRegularBoundingBox());
+						assertEquals(copy.calculateMoment(1, 2), cc.calculateMoment(1, 2), 1e-6);
+					}
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static FImage image(String... rows) {
+		final FImage image = new FImage(rows[0].length(), rows.length);
+		for (int y = 0; y < image.height; y++)
+			for (int x = 0; x < image.width; x++)
+				image.pixels[y][x] = rows[y].charAt(x) == '#' ? 1 : 0;
+		return image;
+	}
+
+	/**
+	 * Test shapes whose runs only join through diagonals or through later
+	 * rows, empty and full images, and the raster ordering of the components
+	 */
+	@Test
+	public void testShapes() {
+		final FImage checkerboard = image("#.#.#", ".#.#.", "#.#.#", ".#.#.", "#.#.#");
+		assertEquals(13, RunLengthLabeler.findComponents(checkerboard, 0, ConnectMode.CONNECT_4).size());
+		assertEquals(1, RunLengthLabeler.findComponents(checkerboard, 0, ConnectMode.CONNECT_8).size());
+
+		// the arms are separate runs until they are joined by the bottom row
+		final FImage comb = image("#.#.#", "#.#.#", "#####");
+		final List<ConnectedComponent> combComponents = RunLengthLabeler.findComponents(comb, 0,
+				ConnectMode.CONNECT_4);
+		assertEquals(1, combComponents.size());
+		assertEquals(11, combComponents.get(0).calculateArea());
+
+		assertEquals(0, RunLengthLabeler.findComponents(image("...", "..."), 0, ConnectMode.CONNECT_8).size());
+		final List<ConnectedComponent> full = RunLengthLabeler.findComponents(image("###", "###"), 0,
+				ConnectMode.CONNECT_4);
+		assertEquals(1, full.size());
+		assertEquals(6, full.get(0).calculateArea());
+
+		final List<ConnectedComponent> ordered = RunLengthLabeler.findComponents(image("...#", "#...", "..#."), 0,
+				ConnectMode.CONNECT_4);
+		assertEquals(3, ordered.size());
+		assertTrue(ordered.get(0).pixels.contains(new Pixel(3, 0)));
+		assertTrue(ordered.get(1).pixels.contains(new Pixel(0, 1)));
+		assertTrue(ordered.get(2).pixels.contains(new Pixel(2, 2)));
+	}
+
+	/**
+	 * Test that components crossing the boundaries between strips are merged
+	 * when labelling in parallel, including through diagonal steps at a
+	 * boundary
+	 */
+	@Test
+	public void testStripBoundaries() {
+		final FImage image = new FImage(5, 200);
+		for (int y = 0; y < image.height; y++)
+			image.pixels[y][(y / 3) % 2 == 0 ? 1 : 3] = 1;
+		for (int y = 0; y < image.height; y += 3)
+			image.pixels[y][2] = 1;
+
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+		try {
+			for (final ConnectMode mode : ConnectMode.values()) {
+				final Set<Set<Pixel>> expected = pixelSets(RunLengthLabeler.findComponents(image, 0, mode));
+				assertEquals(expected, pixelSets(RunLengthLabeler.findComponents(image, 0, mode, pool)));
+			}
+			assertEquals(1, RunLengthLabeler.findComponents(image, 0, ConnectMode.CONNECT_8, pool).size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test that the run-length encoded pixels can be modified
+	 */
+	@Test
+	public void testModifyPixels() {
+		final RunLengthEncodedPixels pixels = new RunLengthEncodedPixels();
+		pixels.addRun(2, 0, 4);
+		pixels.addRun(3, 1, 1);
+
+		assertEquals(6, pixels.size());
+		assertTrue(pixels.remove(new Pixel(2, 2)));
+		assertFalse(pixels.contains(new Pixel(2, 2)));
+		assertTrue(pixels.contains(new Pixel(3, 2)));
+
+		assertTrue(pixels.add(new Pixel(2, 2)));
+		assertFalse(pixels.add(new Pixel(4, 2)));
+		assertTrue(pixels.add(new Pixel(-1, 0)));
+		assertEquals(7, pixels.size());
+
+		final Set<Pixel> keep = new HashSet<Pixel>();
+		keep.add(new Pixel(1, 3));
+		keep.add(new Pixel(-1, 0));
+		pixels.retainAll(keep);
+		assertEquals(keep, pixels);
+	}
+}
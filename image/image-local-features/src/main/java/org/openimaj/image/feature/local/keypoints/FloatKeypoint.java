@@ -42,6 +42,7 @@ import java.util.StringTokenizer;
 import org.openimaj.feature.FloatFV;
 import org.openimaj.feature.local.LocalFeature;
 import org.openimaj.feature.local.list.MemoryLocalFeatureList;
+import org.openimaj.io.IOUtils;
 import org.openimaj.io.VariableLength;
 import org.openimaj.math.geometry.point.Point2d;
 import org.openimaj.math.geometry.point.ScaleSpacePoint;
@@ -298,8 +299,7 @@ Cloneable
 		setLocation(l);
 
 		vector = new float[in.readInt()];
-		for (int i = 0; i < vector.length; i++)
-			vector[i] = in.readFloat();
+		IOUtils.readFully(in, vector);
 	}
 
 	@Override
@@ -409,7 +409,8 @@ public class FourierTemplateMatcher implements ImageAnalyser<FImage> {
 					height
 			);
 		} else {
-			subImage = image.clone();
+			// process() below works on a copy, so there is no need to clone
+			subImage = image;
 		}
 
 		responseMap = subImage.process(correlation);
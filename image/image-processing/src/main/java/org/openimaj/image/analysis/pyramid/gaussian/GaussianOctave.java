@@ -80,32 +80,67 @@ public class GaussianOctave<IMAGE extends Image<?, IMAGE> & SinglebandImageProce
 	 * .image.Image)
 	 */
 	@Override
-	@SuppressWarnings("unchecked")
 	public void process(IMAGE image) {
-		images = (IMAGE[]) Array.newInstance(image.getClass(), options.scales + options.extraScaleSteps + 1);
+		initialise(image, false);
+		blurLevels(1, images.length);
+		applyOctaveProcessor();
+	}
 
-		// we want to each level to be separated by a constant factor
-		// k=2^(1/scales)
-		final float k = (float) Math.pow(2.0, 1.0 / options.scales);
+	/**
+	 * Set up the image stack with the given image as images[0]. If reuse is
+	 * true and the octave already has a stack of images of the same size,
+	 * they are kept so they can be overwritten by
+	 * {@link #blurLevels(int, int)}.
+	 * 
+	 * @param image
+	 *            the initial image
+	 * @param reuse
+	 *            should the existing images be reused
+	 */
+	@SuppressWarnings("unchecked")
+	void initialise(IMAGE image, boolean reuse) {
+		final int nlevels = options.scales + options.extraScaleSteps + 1;
+
+		if (!reuse || images == null || images.length != nlevels || images[nlevels - 1] == null
+				|| images[nlevels - 1].getClass() != image.getClass()
+				|| images[nlevels - 1].getWidth() != image.getWidth()
+				|| images[nlevels - 1].getHeight() != image.getHeight())
+		{
+			images = (IMAGE[]) Array.newInstance(image.getClass(), nlevels);
+		}
 
 		// image[0] of the octave is the input image
 		images[0] = image;
+	}
 
-		// the intial (input) image is considered to have sigma initialSigma.
-		float prevSigma = options.initialSigma;
-
-		for (int i = 1; i < options.scales + options.extraScaleSteps + 1; i++) {
-			images[i] = images[i - 1].clone();
-
-			// compute the amount to increase from prevSigma to prevSigma*k
-			final float increase = prevSigma * (float) Math.sqrt(k * k - 1.0);
+	/**
+	 * Construct images[from] to images[to - 1] by incrementally blurring the
+	 * previous level. Each level is separated by a constant factor of
+	 * k=2^(1/scales) in sigma, with the (cached) blurs coming from
+	 * {@link GaussianPyramidOptions#getLevelBlurs()}.
+	 * 
+	 * @param from
+	 *            the first level to construct; must be at least 1
+	 * @param to
+	 *            one more than the last level to construct
+	 */
+	void blurLevels(int from, int to) {
+		final SinglebandImageProcessor<Float, FImage>[] blurs = options.getLevelBlurs();
 
-			images[i].processInplace(options.createGaussianBlur(increase));
+		for (int i = from; i < to; i++) {
+			if (images[i] == null)
+				images[i] = images[i - 1].clone();
+			else
+				images[i].internalCopy(images[i - 1]);
 
-			prevSigma *= k;
+			images[i].processInplace(blurs[i]);
 		}
+	}
 
-		// if a processor is defined, apply it
+	/**
+	 * If a processor is defined, apply it
+	 */
+	void applyOctaveProcessor() {
 		if (options.getOctaveProcessor() != null)
 			options.getOctaveProcessor().process(this);
 	}
@@ -29,9 +29,21 @@
  */
 package org.openimaj.image.analysis.pyramid.gaussian;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
 import org.openimaj.image.FImage;
 import org.openimaj.image.Image;
+import org.openimaj.image.MBFImage;
 import org.openimaj.image.analyser.ImageAnalyser;
+import org.openimaj.image.analysis.pyramid.OctaveProcessor;
 import org.openimaj.image.analysis.pyramid.Pyramid;
 import org.openimaj.image.processing.resize.ResizeProcessor;
 import org.openimaj.image.processor.SinglebandImageProcessor;
@@ -61,6 +73,17 @@ public class GaussianPyramid<I extends Image<?, I> & SinglebandImageProcessor.Pr
 		implements
 		ImageAnalyser<I>, Iterable<GaussianOctave<I>>
 {
+	/**
+	 * The octaves from the previous image, kept so that their buffers can be
+	 * reused.
+	 */
+	private List<GaussianOctave<I>> workspace;
+
+	/**
+	 * The pool used to build octaves concurrently; may be null.
+	 */
+	private ThreadPoolExecutor pool;
+
 	/**
 	 * Construct a Pyramid with the given options.
 	 * 
@@ -71,6 +94,27 @@ public class GaussianPyramid<I extends Image<?, I> & SinglebandImageProcessor.Pr
 		super(options);
 	}
 
+	/**
+	 * Construct a Pyramid with the given options that builds its octaves
+	 * concurrently using the given thread pool. Each octave only depends on
+	 * the level of the previous octave with twice the initial sigma, so the
+	 * extra scale steps of one octave are built on the pool at the same time as
+	 * the following octaves. The octaves are passed to the
+	 * {@link OctaveProcessor} in order on the calling thread as they are
+	 * completed, so the processor does not need to be thread-safe; the blurs
+	 * created by {@link GaussianPyramidOptions#createGaussianBlur(float)} are
+	 * however shared between threads.
+	 * 
+	 * @param options
+	 *            the options
+	 * @param pool
+	 *            the thread pool; can be null to work on the calling thread.
+	 */
+	public GaussianPyramid(GaussianPyramidOptions<I> options, ThreadPoolExecutor pool) {
+		super(options);
+		this.pool = pool;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -83,6 +127,13 @@ public class GaussianPyramid<I extends Image<?, I> & SinglebandImageProcessor.Pr
 		if (img.getWidth() <= 1 || img.getHeight() <= 1)
 			throw new IllegalArgumentException("Image is too small");
 
+		// buffers can only be reused if the octaves are not retained
+		final boolean reuse = options.reuseBuffers && octaves == null;
+		if (!reuse)
+			workspace = null;
+		else if (workspace == null)
+			workspace = new ArrayList<GaussianOctave<I>>();
+
 		// the octave image size: 1 means same as input, 0.5 is twice as big as
 		// input, 2 is half input, 4 is quarter input, etc
 		float octaveSize = 1.0f;
@@ -92,55 +143,233 @@ public class GaussianPyramid<I extends Image<?, I> & SinglebandImageProcessor.Pr
 		// twice its original size and the
 		I image;
 		if (options.doubleInitialImage) {
-			image = ResizeProcessor.doubleSize(img);
+			image = doubleSize(img, reusableStart(0));
 			octaveSize *= 0.5;
-		} else
-			image = img.clone();
-
-		// Lowe's IJCV paper (P.10) suggests that if you double the size of the
-		// initial image then it has a sigma of 1.0; if the image is not doubled
-		// the sigma is 0.5
-		final float currentSigma = (options.doubleInitialImage ? 1.0f : 0.5f);
-		if (options.initialSigma > currentSigma) {
-			// we now need to bring the starting image to a sigma of
-			// initialSigma
-			// in order to start building the pyramid (every octave starts at
-			// initialSigma sigmas).
-			final float sigma = (float) Math.sqrt(options.initialSigma * options.initialSigma - currentSigma
-					* currentSigma);
-			image.processInplace(this.options.createGaussianBlur(sigma));
+		} else {
+			final I dest = reusableStart(0);
+			image = dest != null && sameSize(dest, img) ? dest.internalCopy(img) : img.clone();
 		}
 
-		// the minimum size image in the pyramid must be bigger than
-		// two pixels + whatever border is required by the options
-		// (on both sides).
+		// bring the starting image to a sigma of initialSigma in order to
+		// start building the pyramid (every octave starts at initialSigma
+		// sigmas); see GaussianPyramidOptions#getLevelBlurs()
+		final SinglebandImageProcessor<Float, FImage>[] blurs = options.getLevelBlurs();
+		if (blurs[0] != null)
+			image.processInplace(blurs[0]);
+
+		if (pool == null)
+			processSequential(image, octaveSize, reuse);
+		else
+			processConcurrent(image, octaveSize, reuse);
+
+		// if a PyramidProcessor was specified in the options it should
+		// be applied now all the octaves are complete.
+		if (options.getPyramidProcessor() != null) {
+			options.getPyramidProcessor().process(this);
+		}
+	}
+
+	private void processSequential(I image, float octaveSize, boolean reuse) {
 		final int minImageSize = 2 + (2 * options.getBorderPixels());
 
-		while (image.getHeight() > minImageSize && image.getWidth() > minImageSize) {
-			// construct empty octave
-			final GaussianOctave<I> currentOctave = new GaussianOctave<I>(this, octaveSize);
+		for (int o = 0; hasOctave(o, image, minImageSize); o++) {
+			// construct empty octave (or reuse the one from the last image)
+			final GaussianOctave<I> currentOctave = octave(o, octaveSize, reuse);
 
 			// populate the octave with images; once the octave
 			// is complete any OctaveProcessor specified in the
-			// options will be applied.
-			currentOctave.process(image);
+			// options will be applied. Octaves before the first
+			// requested one only need to be built up to the image
+			// that starts the next octave.
+			currentOctave.initialise(image, reuse);
+			if (o < options.firstOctave) {
+				currentOctave.blurLevels(1, options.scales + 1);
+			} else {
+				currentOctave.blurLevels(1, currentOctave.images.length);
+				currentOctave.applyOctaveProcessor();
+
+				// if the octaves array is not null we want to retain each
+				// octave.
+				if (octaves != null)
+					octaves.add(currentOctave);
+			}
 
 			// get the image with 2*sigma from the octave and
 			// half its size ready for the next octave
-			image = ResizeProcessor.halfSize(currentOctave.getNextOctaveImage());
+			image = halfSize(currentOctave.getNextOctaveImage(), reusableStart(o + 1));
 
 			octaveSize *= 2.0; // the size of the octave increases by a factor
 								// of two each iteration
+		}
+	}
+
+	private void processConcurrent(final I start, final float startSize, final boolean reuse) {
+		final BlockingQueue<Future<GaussianOctave<I>>> built = new LinkedBlockingQueue<Future<GaussianOctave<I>>>();
+		final FutureTask<GaussianOctave<I>> end = new FutureTask<GaussianOctave<I>>(new Callable<GaussianOctave<I>>() {
+			@Override
+			public GaussianOctave<I> call() {
+				return null;
+			}
+		});
+		end.run();
+
+		// build the chain of octaves up to the image that starts the next one
+		// on a pool thread, handing the extra scale steps off to other pool
+		// threads
+		final FutureTask<Void> chain = new FutureTask<Void>(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				try {
+					final int minImageSize = 2 + (2 * options.getBorderPixels());
+					final int nscales = options.scales;
+					I image = start;
+					float octaveSize = startSize;
+
+					for (int o = 0; hasOctave(o, image, minImageSize); o++) {
+						final GaussianOctave<I> octave = octave(o, octaveSize, reuse);
+						octave.initialise(image, reuse);
+						octave.blurLevels(1, nscales + 1);
+
+						if (o >= options.firstOctave) {
+							final FutureTask<GaussianOctave<I>> extra = new FutureTask<GaussianOctave<I>>(
+									new Callable<GaussianOctave<I>>() {
+										@Override
+										public GaussianOctave<I> call() {
+											octave.blurLevels(nscales + 1, octave.images.length);
+											return octave;
+										}
+									});
+							pool.execute(extra);
+							built.put(extra);
+						}
+
+						image = halfSize(octave.getNextOctaveImage(), reusableStart(o + 1));
+						octaveSize *= 2.0;
+					}
+				} finally {
+					built.put(end);
+				}
+				return null;
+			}
+		});
+		pool.execute(chain);
 
-			// if the octaves array is not null we want to retain each octave.
-			if (octaves != null)
-				octaves.add(currentOctave);
+		try {
+			// process the octaves in order as they are completed
+			for (GaussianOctave<I> octave = built.take().get(); octave != null; octave = built.take().get()) {
+				octave.applyOctaveProcessor();
+
+				if (octaves != null)
+					octaves.add(octave);
+			}
+
+			chain.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
 		}
+	}
 
-		// if a PyramidProcessor was specified in the options it should
-		// be applied now all the octaves are complete.
-		if (options.getPyramidProcessor() != null) {
-			options.getPyramidProcessor().process(this);
+	private boolean hasOctave(int o, I image, int minImageSize) {
+		// the minimum size image in the pyramid must be bigger than
+		// two pixels + whatever border is required by the options
+		// (on both sides).
+		if (image.getHeight() <= minImageSize || image.getWidth() <= minImageSize)
+			return false;
+
+		return options.lastOctave < 0 || o <= options.lastOctave;
+	}
+
+	private GaussianOctave<I> octave(int o, float octaveSize, boolean reuse) {
+		if (!reuse)
+			return new GaussianOctave<I>(this, octaveSize);
+
+		synchronized (workspace) {
+			if (o < workspace.size()) {
+				final GaussianOctave<I> octave = workspace.get(o);
+				octave.octaveSize = octaveSize;
+				octave.options = options;
+				return octave;
+			}
+
+			final GaussianOctave<I> octave = new GaussianOctave<I>(this, octaveSize);
+			workspace.add(octave);
+			return octave;
 		}
 	}
+
+	/**
+	 * Get the image that started octave o of the previous image if buffers are
+	 * being reused, or null.
+	 */
+	private I reusableStart(int o) {
+		if (workspace == null)
+			return null;
+
+		synchronized (workspace) {
+			if (o < workspace.size() && workspace.get(o).images != null)
+				return workspace.get(o).images[0];
+		}
+		return null;
+	}
+
+	private static boolean sameSize(Image<?, ?> a, Image<?, ?> b) {
+		return a.getClass() == b.getClass() && a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight();
+	}
+
+	/**
+	 * Double the size of the image, writing into dest if it is of the right
+	 * type and size.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <I extends Image<?, I> & SinglebandImageProcessor.Processable<Float, FImage, I>> I doubleSize(
+			I image, I dest)
+	{
+		if (dest != null && dest.getClass() == image.getClass() && dest.getWidth() == 2 * image.getWidth() - 2
+				&& dest.getHeight() == 2 * image.getHeight() - 2)
+		{
+			if (image instanceof FImage) {
+				ResizeProcessor.doubleSize((FImage) image, (FImage) dest);
+				return dest;
+			} else if (image instanceof MBFImage) {
+				final MBFImage in = (MBFImage) image;
+				final MBFImage out = (MBFImage) dest;
+				for (int b = 0; b < in.numBands(); b++)
+					ResizeProcessor.doubleSize(in.getBand(b), out.getBand(b));
+				return (I) out;
+			}
+		}
+
+		return ResizeProcessor.doubleSize(image);
+	}
+
+	/**
+	 * Halve the size of the image, writing into dest if it is of the right type
+	 * and size.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <I extends Image<?, I> & SinglebandImageProcessor.Processable<Float, FImage, I>> I halfSize(
+			I image, I dest)
+	{
+		if (dest != null && dest.getClass() == image.getClass() && dest.getWidth() == image.getWidth() / 2
+				&& dest.getHeight() == image.getHeight() / 2)
+		{
+			if (image instanceof FImage) {
+				ResizeProcessor.halfSize((FImage) image, (FImage) dest);
+				return dest;
+			} else if (image instanceof MBFImage) {
+				final MBFImage in = (MBFImage) image;
+				final MBFImage out = (MBFImage) dest;
+				for (int b = 0; b < in.numBands(); b++)
+					ResizeProcessor.halfSize(in.getBand(b), out.getBand(b));
+				return (I) out;
+			}
+		}
+
+		return ResizeProcessor.halfSize(image);
+	}
 }
@@ -29,8 +29,11 @@
  */
 package org.openimaj.image.analysis.pyramid.gaussian;
 
+import java.util.Arrays;
+
 import org.openimaj.image.FImage;
 import org.openimaj.image.Image;
+import org.openimaj.image.analysis.pyramid.OctaveProcessor;
 import org.openimaj.image.analysis.pyramid.PyramidOptions;
 import org.openimaj.image.processing.convolution.FGaussianConvolve;
 import org.openimaj.image.processor.SinglebandImageProcessor;
@@ -77,6 +80,29 @@ public class GaussianPyramidOptions<IMAGE extends Image<?, IMAGE> & SinglebandIm
 	 */
 	protected int scales = 3;
 
+	/**
+	 * The index of the first octave to be processed and retained.
+	 */
+	protected int firstOctave = 0;
+
+	/**
+	 * The index of the last octave to be built, or -1 to build octaves until
+	 * the images get too small.
+	 */
+	protected int lastOctave = -1;
+
+	/**
+	 * Should the pyramid reuse its image buffers between images?
+	 */
+	protected boolean reuseBuffers = false;
+
+	/**
+	 * Cached blurs for each level of an octave, and the parameters they were
+	 * created with.
+	 */
+	private SinglebandImageProcessor<Float, FImage>[] levelBlurs;
+	private float levelBlursKey[];
+
 	/**
 	 * Default constructor.
 	 */
@@ -98,6 +124,9 @@ public class GaussianPyramidOptions<IMAGE extends Image<?, IMAGE> & SinglebandIm
 		this.initialSigma = options.initialSigma;
 		this.keepOctaves = options.keepOctaves;
 		this.scales = options.scales;
+		this.firstOctave = options.firstOctave;
+		this.lastOctave = options.lastOctave;
+		this.reuseBuffers = options.reuseBuffers;
 	}
 
 	/**
@@ -141,6 +170,38 @@ public class GaussianPyramidOptions<IMAGE extends Image<?, IMAGE> & SinglebandIm
 		return scales;
 	}
 
+	/**
+	 * Get the index of the first octave to be processed and retained. Octaves
+	 * before this one are only built as far as is needed to start the next
+	 * octave.
+	 * 
+	 * @return the index of the first octave
+	 */
+	public int getFirstOctave() {
+		return firstOctave;
+	}
+
+	/**
+	 * Get the index of the last octave to be built, or -1 if octaves are built
+	 * until the images get too small.
+	 * 
+	 * @return the index of the last octave
+	 */
+	public int getLastOctave() {
+		return lastOctave;
+	}
+
+	/**
+	 * Should the pyramid reuse its image buffers between images?
+	 * 
+	 * @see #setReuseBuffers(boolean)
+	 * 
+	 * @return the reuseBuffers
+	 */
+	public boolean isReuseBuffers() {
+		return reuseBuffers;
+	}
+
 	/**
 	 * Should the starting image of the pyramid be stretched to twice its size?
 	 * 
@@ -164,6 +225,41 @@ public class GaussianPyramidOptions<IMAGE extends Image<?, IMAGE> & SinglebandIm
 		this.borderPixels = borderPixels;
 	}
 
+	/**
+	 * Set the range of octaves that the pyramid will build. Octaves before
+	 * firstOctave are only built as far as is needed to start the next octave
+	 * (the extra scale steps are skipped), and are neither processed nor
+	 * retained. Octaves after lastOctave are not built at all.
+	 * 
+	 * @param firstOctave
+	 *            the index of the first octave to process
+	 * @param lastOctave
+	 *            the index of the last octave to build, or -1 to build octaves
+	 *            until the images get too small
+	 */
+	public void setOctaveRange(int firstOctave, int lastOctave) {
+		if (firstOctave < 0 || (lastOctave >= 0 && lastOctave < firstOctave))
+			throw new IllegalArgumentException("Invalid octave range");
+
+		this.firstOctave = firstOctave;
+		this.lastOctave = lastOctave;
+	}
+
+	/**
+	 * Set whether the pyramid should reuse its image buffers between images.
+	 * If true, processing a second image of the same size as the first
+	 * overwrites the images of the first pyramid rather than allocating new
+	 * ones, so {@link OctaveProcessor}s must not hold onto the images of an
+	 * octave after processing it. Buffers are never reused if the pyramid is
+	 * retaining its octaves.
+	 * 
+	 * @param reuseBuffers
+	 *            the reuseBuffers to set
+	 */
+	public void setReuseBuffers(boolean reuseBuffers) {
+		this.reuseBuffers = reuseBuffers;
+	}
+
 	/**
 	 * Set whether starting image of the pyramid be stretched to twice its size?
 	 * 
@@ -216,6 +312,12 @@ public class GaussianPyramidOptions<IMAGE extends Image<?, IMAGE> & SinglebandIm
 	 * the {@link GaussianOctave} and {@link GaussianPyramid} to create filters
 	 * for performing the blurring. By overriding in subclasses, you can control
 	 * the exact filter implementation (i.e. for speed).
+	 * <p>
+	 * The returned processors are cached by {@link #getLevelBlurs()} and
+	 * shared between all the pyramids built with these options, including
+	 * octaves being processed concurrently by a thread pool. Implementations
+	 * must therefore return processors that are thread-safe (i.e. that keep
+	 * no per-image state).
 	 * 
 	 * @param sigma
 	 *            the gaussian standard deviation
@@ -224,4 +326,46 @@ public class GaussianPyramidOptions<IMAGE extends Image<?, IMAGE> & SinglebandIm
 	public SinglebandImageProcessor<Float, FImage> createGaussianBlur(float sigma) {
 		return new FGaussianConvolve(sigma);
 	}
+
+	/**
+	 * Get the blurs used to build the pyramid. Element 0 is the blur that
+	 * brings the starting image up to the initialSigma (or null if none is
+	 * required), and element i &gt; 0 is the incremental blur that takes level
+	 * i-1 of an octave to level i. The blurs are created with
+	 * {@link #createGaussianBlur(float)} and cached until the options that
+	 * determine them change.
+	 * 
+	 * @return the blurs
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized SinglebandImageProcessor<Float, FImage>[] getLevelBlurs() {
+		final float[] key = { scales, extraScaleSteps, initialSigma, doubleInitialImage ? 1 : 0 };
+
+		if (levelBlurs != null && Arrays.equals(key, levelBlursKey))
+			return levelBlurs;
+
+		levelBlurs = new SinglebandImageProcessor[scales + extraScaleSteps + 1];
+		levelBlursKey = key;
+
+		// Lowe's IJCV paper (P.10) suggests that if you double the size of the
+		// initial image then it has a sigma of 1.0; if the image is not doubled
+		// the sigma is 0.5
+		final float currentSigma = (doubleInitialImage ? 1.0f : 0.5f);
+		if (initialSigma > currentSigma) {
+			final float sigma = (float) Math.sqrt(initialSigma * initialSigma - currentSigma * currentSigma);
+			levelBlurs[0] = createGaussianBlur(sigma);
+		}
+
+		// each level is separated by a constant factor k=2^(1/scales)
+		final float k = (float) Math.pow(2.0, 1.0 / scales);
+		float prevSigma = initialSigma;
+		for (int i = 1; i < levelBlurs.length; i++) {
+			// the amount to increase from prevSigma to prevSigma*k
+			final float increase = prevSigma * (float) Math.sqrt(k * k - 1.0);
+			levelBlurs[i] = createGaussianBlur(increase);
+			prevSigma *= k;
+		}
+
+		return levelBlurs;
+	}
 }
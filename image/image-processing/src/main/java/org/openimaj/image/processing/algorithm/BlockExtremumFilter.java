@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.processor.SinglebandImageProcessor;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+
+/**
+ * Base for the {@link BlockMinFilter} and {@link BlockMaxFilter}. The block
+ * is applied separably, first along the rows and then down the columns, and
+ * each pass uses a monotone deque of the indices of the candidate extrema of
+ * the current window, so each pixel is pushed and popped at most once whatever
+ * the size of the block.
+ */
+abstract class BlockExtremumFilter implements SinglebandImageProcessor<Float, FImage> {
+	private int blockWidth;
+	private int blockHeight;
+	private boolean max;
+	private ThreadPoolExecutor pool;
+
+	BlockExtremumFilter(int blockWidth, int blockHeight, boolean max, ThreadPoolExecutor pool) {
+		if (blockWidth < 1 || blockHeight < 1)
+			throw new IllegalArgumentException("block size must be positive");
+
+		this.blockWidth = blockWidth;
+		this.blockHeight = blockHeight;
+		this.max = max;
+		this.pool = pool;
+	}
+
+	@Override
+	public void processImage(final FImage image) {
+		final float[][] rows = new float[image.height][];
+
+		if (pool == null) {
+			filterRows(image, rows, 0, image.height);
+			filterColumns(image, rows, 0, image.width);
+		} else {
+			Parallel.forRange(0, image.height, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					filterRows(image, rows, range.start, range.stop);
+				}
+			}, pool);
+			Parallel.forRange(0, image.width, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					filterColumns(image, rows, range.start, range.stop);
+				}
+			}, pool);
+		}
+	}
+
+	private void filterRows(FImage image, float[][] rows, int y0, int y1) {
+		final int[] deque = new int[image.width];
+
+		for (int y = y0; y < y1; y++) {
+			rows[y] = new float[image.width];
+			filter(image.pixels[y], rows[y], image.width, blockWidth, max, deque);
+		}
+	}
+
+	private void filterColumns(FImage image, float[][] rows, int x0, int x1) {
+		final int[] deque = new int[image.height];
+		final float[] src = new float[image.height];
+		final float[] dst = new float[image.height];
+
+		for (int x = x0; x < x1; x++) {
+			for (int y = 0; y < image.height; y++)
+				src[y] = rows[y][x];
+
+			filter(src, dst, image.height, blockHeight, max, deque);
+
+			for (int y = 0; y < image.height; y++)
+				image.pixels[y][x] = dst[y];
+		}
+	}
+
+	/**
+	 * Set each element of dst to the extremum of the elements of src in a
+	 * window of the given size, centred in the same way as
+	 * {@link FilterSupport#createBlockSupport(int, int)}, and clipped to the
+	 * ends of the array.
+	 * 
+	 * @param src
+	 *            the input
+	 * @param dst
+	 *            the output
+	 * @param n
+	 *            the number of elements
+	 * @param size
+	 *            the window size
+	 * @param max
+	 *            true for the maximum; false for the minimum
+	 * @param deque
+	 *            working space of at least n elements
+	 */
+	static void filter(float[] src, float[] dst, int n, int size, boolean max, int[] deque) {
+		final int before = size / 2;
+		final int after = size - 1 - before;
+
+		// the deque holds indices of decreasing (increasing for the minimum)
+		// values
+		int head = 0, tail = 0;
+		for (int i = 0; i < n + after; i++) {
+			if (i < n) {
+				final float v = src[i];
+				if (max) {
+					while (tail > head && src[deque[tail - 1]] <= v)
+						tail--;
+				} else {
+					while (tail > head && src[deque[tail - 1]] >= v)
+						tail--;
+				}
+				deque[tail++] = i;
+			}
+
+			final int p = i - after;
+			if (p >= 0) {
+				while (deque[head] < p - before)
+					head++;
+				dst[p] = src[deque[head]];
+			}
+		}
+	}
+}
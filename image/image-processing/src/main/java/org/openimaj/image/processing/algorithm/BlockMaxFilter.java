@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Max filter over a rectangular block; replaces each pixel with the
+ * maximum of the pixels in the block around it. This is equivalent to
+ * greyscale morphological dilation with a flat rectangular structuring element.
+ * Unlike the {@link MaxFilter}, the cost per pixel is constant whatever the size of
+ * the block, and rows and columns can be processed in parallel. The block is
+ * clipped at the edges of the image.
+ */
+public class BlockMaxFilter extends BlockExtremumFilter {
+	/**
+	 * Construct with the given block size
+	 * 
+	 * @param blockWidth
+	 *            the width of the block
+	 * @param blockHeight
+	 *            the height of the block
+	 */
+	public BlockMaxFilter(int blockWidth, int blockHeight) {
+		super(blockWidth, blockHeight, true, null);
+	}
+
+	/**
+	 * Construct with the given block size, processing the rows and columns
+	 * in parallel with the given thread pool.
+	 * 
+	 * @param blockWidth
+	 *            the width of the block
+	 * @param blockHeight
+	 *            the height of the block
+	 * @param pool
+	 *            the thread pool; can be null to work on the calling thread.
+	 */
+	public BlockMaxFilter(int blockWidth, int blockHeight, ThreadPoolExecutor pool) {
+		super(blockWidth, blockHeight, true, pool);
+	}
+}
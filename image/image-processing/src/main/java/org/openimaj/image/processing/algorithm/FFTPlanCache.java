@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
+import edu.emory.mathcs.jtransforms.fft.FloatFFT_2D;
+
+/**
+ * A cache of FFT plans keyed by transform size. Creating a JTransforms plan
+ * computes twiddle factors and allocates work buffers, which can easily cost
+ * more than the transform itself when many images of the same size are
+ * processed.
+ * <p>
+ * The JTransforms plans (and {@link RealFFT2D}) hold mutable state and are not
+ * safe for concurrent use, so each thread has its own small least-recently-used
+ * cache. Plans obtained from this class must only be used by the thread that
+ * requested them.
+ */
+public final class FFTPlanCache {
+	/**
+	 * The maximum number of plans of each type cached per thread
+	 */
+	public static final int CACHE_SIZE = 8;
+
+	private static final ThreadLocal<Map<Long, FloatFFT_1D>> FFT_1D = new ThreadLocal<Map<Long, FloatFFT_1D>>() {
+		@Override
+		protected Map<Long, FloatFFT_1D> initialValue() {
+			return createLRU();
+		}
+	};
+
+	private static final ThreadLocal<Map<Long, FloatFFT_2D>> FFT_2D = new ThreadLocal<Map<Long, FloatFFT_2D>>() {
+		@Override
+		protected Map<Long, FloatFFT_2D> initialValue() {
+			return createLRU();
+		}
+	};
+
+	private static final ThreadLocal<Map<Long, RealFFT2D>> REAL_FFT_2D = new ThreadLocal<Map<Long, RealFFT2D>>() {
+		@Override
+		protected Map<Long, RealFFT2D> initialValue() {
+			return createLRU();
+		}
+	};
+
+	private FFTPlanCache() {
+	}
+
+	private static <V> Map<Long, V> createLRU() {
+		return new LinkedHashMap<Long, V>(CACHE_SIZE * 2, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+				return size() > CACHE_SIZE;
+			}
+		};
+	}
+
+	private static Long key(int rows, int cols) {
+		return ((long) rows << 32) | (cols & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Get a 1D FFT plan for data of the given length. The plan must only be
+	 * used by the calling thread.
+	 * 
+	 * @param n
+	 *            the length of the data
+	 * @return the plan
+	 */
+	public static FloatFFT_1D getFloatFFT_1D(int n) {
+		final Map<Long, FloatFFT_1D> cache = FFT_1D.get();
+		final Long key = key(0, n);
+
+		FloatFFT_1D fft = cache.get(key);
+		if (fft == null) {
+			fft = new FloatFFT_1D(n);
+			cache.put(key, fft);
+		}
+		return fft;
+	}
+
+	/**
+	 * Get a complex 2D FFT plan for data of the given size. The plan must only
+	 * be used by the calling thread.
+	 * 
+	 * @param rows
+	 *            the number of rows
+	 * @param cols
+	 *            the number of columns
+	 * @return the plan
+	 */
+	public static FloatFFT_2D getFloatFFT_2D(int rows, int cols) {
+		final Map<Long, FloatFFT_2D> cache = FFT_2D.get();
+		final Long key = key(rows, cols);
+
+		FloatFFT_2D fft = cache.get(key);
+		if (fft == null) {
+			fft = new FloatFFT_2D(rows, cols);
+			cache.put(key, fft);
+		}
+		return fft;
+	}
+
+	/**
+	 * Get a real-to-complex 2D FFT plan for data of the given size. The plan
+	 * must only be used by the calling thread.
+	 * 
+	 * @param rows
+	 *            the number of rows
+	 * @param cols
+	 *            the number of columns
+	 * @return the plan
+	 */
+	public static RealFFT2D getRealFFT2D(int rows, int cols) {
+		final Map<Long, RealFFT2D> cache = REAL_FFT_2D.get();
+		final Long key = key(rows, cols);
+
+		RealFFT2D fft = cache.get(key);
+		if (fft == null) {
+			fft = new RealFFT2D(rows, cols);
+			cache.put(key, fft);
+		}
+		return fft;
+	}
+}
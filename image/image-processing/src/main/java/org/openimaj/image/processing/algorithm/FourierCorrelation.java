@@ -32,10 +32,12 @@ package org.openimaj.image.processing.algorithm;
 import org.openimaj.image.FImage;
 import org.openimaj.image.processor.SinglebandImageProcessor;
 
-import edu.emory.mathcs.jtransforms.fft.FloatFFT_2D;
-
 /**
- * {@link FImage} correlation performed using an FFT.
+ * {@link FImage} correlation performed using an FFT. When used as a processor,
+ * the spectrum of the template is computed once for each image size and reused
+ * for subsequent images of the same size (as long as the {@link #template} is
+ * not replaced); the pixels of the template should not be modified in place
+ * after the first use.
  * 
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  *
@@ -45,6 +47,22 @@ public class FourierCorrelation implements SinglebandImageProcessor<Float, FImag
 	 * The template image
 	 */
 	public FImage template;
+
+	private static final class TemplateSpectrum {
+		final float[][] pixels;
+		final int rows;
+		final int cols;
+		final float[][] spectrum;
+
+		TemplateSpectrum(float[][] pixels, int rows, int cols, float[][] spectrum) {
+			this.pixels = pixels;
+			this.rows = rows;
+			this.cols = cols;
+			this.spectrum = spectrum;
+		}
+	}
+
+	private volatile TemplateSpectrum templateSpectrum;
 	
 	/**
 	 * Construct the correlation operator with the given template
@@ -56,7 +74,19 @@ public class FourierCorrelation implements SinglebandImageProcessor<Float, FImag
 	
 	@Override
 	public void processImage(FImage image) {
-		correlate(image, template, true);
+		final int cols = image.getCols();
+		final int rows = image.getRows();
+		final RealFFT2D fft = FFTPlanCache.getRealFFT2D(rows, cols);
+
+		TemplateSpectrum ts = templateSpectrum;
+		if (ts == null || ts.pixels != template.pixels || ts.rows != rows || ts.cols != cols) {
+			ts = new TemplateSpectrum(template.pixels, rows, cols, fft.forward(template.pixels, false));
+			templateSpectrum = ts;
+		}
+
+		final float[][] spectrum = fft.forward(image.pixels, false);
+		RealFFT2D.multiply(spectrum, ts.spectrum, true, spectrum);
+		fft.inverse(spectrum, image.pixels, false);
 	}
 
 	/**
@@ -70,37 +100,16 @@ public class FourierCorrelation implements SinglebandImageProcessor<Float, FImag
 		final int cols = image.getCols();
 		final int rows = image.getRows();
 
-		FloatFFT_2D fft = new FloatFFT_2D(rows, cols);
-
-		float[][] preparedImage = FourierTransform.prepareData(image.pixels, rows, cols, false);
-		fft.complexForward(preparedImage);
-
-		float[][] preparedKernel = FourierTransform.prepareData(template.pixels, rows, cols, false);
-		fft.complexForward(preparedKernel);
-
-		for(int y = 0; y < rows; y++) {
-			for(int x = 0; x < cols; x++) {
-				float reImage = preparedImage[y][x*2];
-				float imImage = preparedImage[y][1 + x*2];
-
-				float reKernel = preparedKernel[y][x*2];
-				float imKernelConj = -1 * preparedKernel[y][1 + x*2];
-
-				float re = reImage * reKernel - imImage * imKernelConj;
-				float im = reImage * imKernelConj + imImage * reKernel;
-
-				preparedImage[y][x*2] = re;
-				preparedImage[y][1 + x*2] = im;
-			}
-		}
+		final RealFFT2D fft = FFTPlanCache.getRealFFT2D(rows, cols);
 
-		fft.complexInverse(preparedImage, true);
+		final float[][] spectrum = fft.forward(image.pixels, false);
+		RealFFT2D.multiply(spectrum, fft.forward(template.pixels, false), true, spectrum);
 
 		FImage out = image;
 		if (!inplace) 
 			out = new FImage(cols, rows);
 
-		FourierTransform.unprepareData(preparedImage, out, false);
+		fft.inverse(spectrum, out.pixels, false);
 		
 		return out;
 	}
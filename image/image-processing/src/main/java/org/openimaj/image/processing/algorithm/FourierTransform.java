@@ -292,15 +292,24 @@ public class FourierTransform {
 		phase = new FImage(cs, rs);
 		magnitude = new FImage(cs, rs);
 
-		final FloatFFT_2D fft = new FloatFFT_2D(rs, cs);
-		final float[][] prepared = prepareData(image.pixels, rs, cs, centre);
-
-		fft.complexForward(prepared);
+		final RealFFT2D fft = FFTPlanCache.getRealFFT2D(rs, cs);
+		final float[][] spectrum = fft.forward(image.pixels, centre);
+		final int sc = fft.getSpectrumCols();
 
 		for (int y = 0; y < rs; y++) {
+			final float[] row = spectrum[y];
+			final float[] mirror = spectrum[(rs - y) % rs];
+
 			for (int x = 0; x < cs; x++) {
-				final float re = prepared[y][x * 2];
-				final float im = prepared[y][1 + x * 2];
+				final float re, im;
+				if (x < sc) {
+					re = row[x * 2];
+					im = row[1 + x * 2];
+				} else {
+					// Hermitian symmetry: X[y][x] = conj(X[-y][-x])
+					re = mirror[(cs - x) * 2];
+					im = -mirror[1 + (cs - x) * 2];
+				}
 
 				phase.pixels[y][x] = (float) Math.atan2(im, re);
 				magnitude.pixels[y][x] = (float) Math.sqrt(re * re + im * im);
@@ -318,7 +327,7 @@ public class FourierTransform {
 		final int cs = magnitude.getCols();
 		final int rs = magnitude.getRows();
 
-		final FloatFFT_2D fft = new FloatFFT_2D(rs, cs);
+		final FloatFFT_2D fft = FFTPlanCache.getFloatFFT_2D(rs, cs);
 		final float[][] prepared = new float[rs][cs * 2];
 		for (int y = 0; y < rs; y++) {
 			for (int x = 0; x < cs; x++) {
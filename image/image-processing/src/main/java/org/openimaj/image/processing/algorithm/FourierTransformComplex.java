@@ -88,10 +88,8 @@ public class FourierTransformComplex {
 		real = new FImage(cs, rs);
 		imaginary = new FImage(cs, rs);
 
-		final FloatFFT_2D fft = new FloatFFT_2D(rs, cs);
-		final float[][] prepared = FourierTransform.prepareData(image.pixels, rs, cs, centre);
-
-		fft.complexForward(prepared);
+		final float[][] prepared = new float[rs][cs * 2];
+		FFTPlanCache.getRealFFT2D(rs, cs).forwardFull(image.pixels, centre, prepared);
 
 		for (int y = 0; y < rs; y++) {
 			for (int x = 0; x < cs; x++) {
@@ -111,7 +109,7 @@ public class FourierTransformComplex {
 		final int cs = real.getCols();
 		final int rs = real.getRows();
 
-		final FloatFFT_2D fft = new FloatFFT_2D(rs, cs);
+		final FloatFFT_2D fft = FFTPlanCache.getFloatFFT_2D(rs, cs);
 		final float[][] prepared = new float[rs][cs * 2];
 		for (int y = 0; y < rs; y++) {
 			for (int x = 0; x < cs; x++) {
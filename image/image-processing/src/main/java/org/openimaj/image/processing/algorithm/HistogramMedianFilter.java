@@ -0,0 +1,372 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.processor.SinglebandImageProcessor;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+
+/**
+ * Median filter over a square window, using the constant time algorithm of
+ * Perreault and Hébert. Each column of the image keeps a histogram of the
+ * pixels in the rows of the window, and the histogram of the window is
+ * updated by adding and removing whole columns as the window slides along a
+ * row; the histograms have two tiers (16 coarse bins, each with 16 fine bins)
+ * so that only the fine bins containing the median need to be kept up to
+ * date. The cost per pixel is therefore independent of the window size.
+ * <p>
+ * The histograms have 256 bins. If the image has at most 256 distinct values
+ * (for example, an image loaded from an 8-bit file), the bins are the values
+ * themselves and the result is exact. Otherwise the result is either computed
+ * exactly with a (slower) sorted window, or approximated by quantising the
+ * values into 256 levels between the minimum and maximum, depending on
+ * whether the filter was constructed to be exact.
+ * <p>
+ * The window is clipped at the edges of the image, so the output at the edges
+ * is the median of the pixels of the window that are inside the image. For
+ * windows with an even number of pixels the median is the mean of the two
+ * middle values.
+ * 
+ * @see "S. Perreault and P. Hébert, \"Median Filtering in Constant Time\", IEEE Transactions on Image Processing 16(9), 2007"
+ */
+public class HistogramMedianFilter implements SinglebandImageProcessor<Float, FImage> {
+	private static final int NBINS = 256;
+	private static final int NCOARSE = 16;
+
+	private int radius;
+	private boolean exact;
+	private ThreadPoolExecutor pool;
+
+	/**
+	 * Construct an exact filter with the given radius. The window is
+	 * <code>2 * radius + 1</code> pixels square.
+	 * 
+	 * @param radius
+	 *            the radius of the window
+	 */
+	public HistogramMedianFilter(int radius) {
+		this(radius, true, null);
+	}
+
+	/**
+	 * Construct with the given radius. The window is
+	 * <code>2 * radius + 1</code> pixels square.
+	 * 
+	 * @param radius
+	 *            the radius of the window
+	 * @param exact
+	 *            if true, images with more than 256 distinct values are
+	 *            filtered exactly; if false they are quantised into 256
+	 *            levels.
+	 */
+	public HistogramMedianFilter(int radius, boolean exact) {
+		this(radius, exact, null);
+	}
+
+	/**
+	 * Construct with the given radius, processing bands of rows in parallel
+	 * with the given thread pool. The window is <code>2 * radius + 1</code>
+	 * pixels square.
+	 * 
+	 * @param radius
+	 *            the radius of the window
+	 * @param exact
+	 *            if true, images with more than 256 distinct values are
+	 *            filtered exactly; if false they are quantised into 256
+	 *            levels.
+	 * @param pool
+	 *            the thread pool; can be null to work on the calling thread.
+	 */
+	public HistogramMedianFilter(int radius, boolean exact, ThreadPoolExecutor pool) {
+		if (radius < 0)
+			throw new IllegalArgumentException("radius must be non-negative");
+
+		this.radius = radius;
+		this.exact = exact;
+		this.pool = pool;
+	}
+
+	@Override
+	public void processImage(final FImage image) {
+		final FImage output = new FImage(image.width, image.height);
+
+		float[] levels = distinctValues(image);
+		final byte[][] bins;
+		if (levels != null) {
+			bins = new byte[image.height][image.width];
+			for (int y = 0; y < image.height; y++)
+				for (int x = 0; x < image.width; x++)
+					bins[y][x] = (byte) Arrays.binarySearch(levels, image.pixels[y][x]);
+		} else if (!exact) {
+			final float min = image.min();
+			final float max = image.max();
+			final float scale = (NBINS - 1) / (max - min);
+
+			levels = new float[NBINS];
+			for (int i = 0; i < NBINS; i++)
+				levels[i] = min + i * (max - min) / (NBINS - 1);
+
+			bins = new byte[image.height][image.width];
+			for (int y = 0; y < image.height; y++)
+				for (int x = 0; x < image.width; x++)
+					bins[y][x] = (byte) Math.round((image.pixels[y][x] - min) * scale);
+		} else {
+			bins = null;
+		}
+
+		final float[] values = levels;
+		if (pool == null) {
+			processRows(image, bins, values, output, 0, image.height);
+		} else {
+			Parallel.forRange(0, image.height, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					processRows(image, bins, values, output, range.start, range.stop);
+				}
+			}, pool);
+		}
+
+		image.internalAssign(output);
+	}
+
+	private void processRows(FImage image, byte[][] bins, float[] levels, FImage output, int y0, int y1) {
+		if (bins != null)
+			histogramRows(bins, levels, image.width, image.height, output, y0, y1);
+		else
+			sortedRows(image, output, y0, y1);
+	}
+
+	/**
+	 * Get the sorted distinct values of the image, or null if there are more
+	 * than {@link #NBINS}.
+	 */
+	private static float[] distinctValues(FImage image) {
+		final float[] values = new float[NBINS];
+		int count = 0;
+
+		for (int y = 0; y < image.height; y++) {
+			for (int x = 0; x < image.width; x++) {
+				final float v = image.pixels[y][x];
+				int pos = Arrays.binarySearch(values, 0, count, v);
+
+				if (pos < 0) {
+					if (count == NBINS)
+						return null;
+
+					pos = -pos - 1;
+					System.arraycopy(values, pos, values, pos + 1, count - pos);
+					values[pos] = v;
+					count++;
+				}
+			}
+		}
+
+		return Arrays.copyOf(values, count);
+	}
+
+	private void histogramRows(byte[][] bins, float[] levels, int width, int height, FImage output, int y0, int y1)
+	{
+		final int r = radius;
+
+		// column histograms; fine bins are column * NBINS + bin
+		final int[] colFine = new int[width * NBINS];
+		final int[] colCoarse = new int[width * NCOARSE];
+
+		// window histograms; fine bins for each coarse bin are updated lazily
+		final int[] fine = new int[NBINS];
+		final int[] coarse = new int[NCOARSE];
+		final int[] updated = new int[NCOARSE];
+
+		for (int y = y0; y < y1; y++) {
+			if (y == y0) {
+				for (int yy = Math.max(0, y - r); yy <= Math.min(height - 1, y + r); yy++)
+					updateColumns(bins[yy], colFine, colCoarse, 1);
+			} else {
+				if (y - r - 1 >= 0)
+					updateColumns(bins[y - r - 1], colFine, colCoarse, -1);
+				if (y + r < height)
+					updateColumns(bins[y + r], colFine, colCoarse, 1);
+			}
+
+			final int nrows = Math.min(height - 1, y + r) - Math.max(0, y - r) + 1;
+
+			Arrays.fill(coarse, 0);
+			// far enough back that the fine bins get recomputed
+			Arrays.fill(updated, -2 * r - 2);
+			for (int x = 0; x <= Math.min(width - 1, r); x++)
+				for (int c = 0; c < NCOARSE; c++)
+					coarse[c] += colCoarse[x * NCOARSE + c];
+
+			final float[] out = output.pixels[y];
+			for (int x = 0; x < width; x++) {
+				if (x > 0) {
+					if (x + r < width)
+						for (int c = 0; c < NCOARSE; c++)
+							coarse[c] += colCoarse[(x + r) * NCOARSE + c];
+					if (x - r - 1 >= 0)
+						for (int c = 0; c < NCOARSE; c++)
+							coarse[c] -= colCoarse[(x - r - 1) * NCOARSE + c];
+				}
+
+				final int n = nrows * (Math.min(width - 1, x + r) - Math.max(0, x - r) + 1);
+				final int lo = findRank((n - 1) / 2, x, width, colFine, fine, coarse, updated);
+
+				if ((n & 1) == 1) {
+					out[x] = levels[lo];
+				} else {
+					final int hi = findRank(n / 2, x, width, colFine, fine, coarse, updated);
+					out[x] = (levels[lo] + levels[hi]) / 2f;
+				}
+			}
+		}
+	}
+
+	private static void updateColumns(byte[] row, int[] colFine, int[] colCoarse, int delta) {
+		for (int x = 0; x < row.length; x++) {
+			final int b = row[x] & 0xFF;
+			colFine[x * NBINS + b] += delta;
+			colCoarse[x * NCOARSE + (b >>> 4)] += delta;
+		}
+	}
+
+	/**
+	 * Find the bin containing the value of the given rank in the window
+	 * centred on x.
+	 */
+	private int findRank(int rank, int x, int width, int[] colFine, int[] fine, int[] coarse, int[] updated) {
+		int acc = 0;
+		int c = 0;
+		while (acc + coarse[c] <= rank)
+			acc += coarse[c++];
+
+		updateFine(c, x, width, colFine, fine, updated);
+
+		int b = c * NCOARSE;
+		while (acc + fine[b] <= rank)
+			acc += fine[b++];
+
+		return b;
+	}
+
+	/**
+	 * Bring the fine bins of the window histogram for the given coarse bin up
+	 * to date with the window centred on x
+	 */
+	private void updateFine(int c, int x, int width, int[] colFine, int[] fine, int[] updated) {
+		final int r = radius;
+		final int last = updated[c];
+		final int off = c * NCOARSE;
+
+		if (last == x)
+			return;
+
+		if (x - last > 2 * r + 1) {
+			Arrays.fill(fine, off, off + NCOARSE, 0);
+			for (int xx = Math.max(0, x - r); xx <= Math.min(width - 1, x + r); xx++) {
+				final int col = xx * NBINS + off;
+				for (int i = 0; i < NCOARSE; i++)
+					fine[off + i] += colFine[col + i];
+			}
+		} else {
+			for (int xx = last + 1; xx <= x; xx++) {
+				if (xx + r < width) {
+					final int col = (xx + r) * NBINS + off;
+					for (int i = 0; i < NCOARSE; i++)
+						fine[off + i] += colFine[col + i];
+				}
+				if (xx - r - 1 >= 0) {
+					final int col = (xx - r - 1) * NBINS + off;
+					for (int i = 0; i < NCOARSE; i++)
+						fine[off + i] -= colFine[col + i];
+				}
+			}
+		}
+
+		updated[c] = x;
+	}
+
+	/**
+	 * Exact filtering by keeping a sorted copy of the window, which is updated
+	 * column by column
+	 */
+	private void sortedRows(FImage image, FImage output, int y0, int y1) {
+		final int r = radius;
+		final float[] window = new float[(2 * r + 1) * (2 * r + 1)];
+
+		for (int y = y0; y < y1; y++) {
+			final int ya = Math.max(0, y - r);
+			final int yb = Math.min(image.height - 1, y + r);
+			int n = 0;
+
+			for (int x = 0; x <= Math.min(image.width - 1, r); x++)
+				for (int yy = ya; yy <= yb; yy++)
+					n = insert(window, n, image.pixels[yy][x]);
+
+			final float[] out = output.pixels[y];
+			for (int x = 0; x < image.width; x++) {
+				if (x > 0) {
+					if (x - r - 1 >= 0)
+						for (int yy = ya; yy <= yb; yy++)
+							n = remove(window, n, image.pixels[yy][x - r - 1]);
+					if (x + r < image.width)
+						for (int yy = ya; yy <= yb; yy++)
+							n = insert(window, n, image.pixels[yy][x + r]);
+				}
+
+				if ((n & 1) == 1)
+					out[x] = window[n / 2];
+				else
+					out[x] = (window[n / 2 - 1] + window[n / 2]) / 2f;
+			}
+		}
+	}
+
+	private static int insert(float[] window, int n, float v) {
+		int pos = Arrays.binarySearch(window, 0, n, v);
+		if (pos < 0)
+			pos = -pos - 1;
+
+		System.arraycopy(window, pos, window, pos + 1, n - pos);
+		window[pos] = v;
+		return n + 1;
+	}
+
+	private static int remove(float[] window, int n, float v) {
+		final int pos = Arrays.binarySearch(window, 0, n, v);
+
+		System.arraycopy(window, pos + 1, window, pos, n - pos - 1);
+		return n - 1;
+	}
+}
@@ -0,0 +1,326 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
+
+/**
+ * A 2D real-to-complex FFT. The spectrum of real data is Hermitian symmetric,
+ * so only the <code>cols / 2 + 1</code> non-redundant columns need to be
+ * computed and stored; this halves both the memory and the work compared to
+ * transforming a zero-imaginary complex array with a full complex FFT.
+ * <p>
+ * Spectra are stored as <code>float[rows][2 * (cols / 2 + 1)]</code> arrays
+ * with the real and imaginary components interlaced across the rows (i.e. the
+ * left-hand part of the layout produced by
+ * {@link FourierTransform#prepareData(float[][], int, int, boolean)} followed
+ * by a complex forward transform).
+ * <p>
+ * Instances hold work buffers and are not thread-safe; use
+ * {@link FFTPlanCache#getRealFFT2D(int, int)} to obtain a per-thread instance.
+ */
+public final class RealFFT2D {
+	private final int rows;
+	private final int cols;
+	private final int spectrumCols;
+	private final FloatFFT_1D rowFFT;
+	private final FloatFFT_1D colFFT;
+	private final float[] rowBuffer;
+	private final float[] colBuffer;
+	private float[][] halfSpectrum;
+
+	/**
+	 * Construct a transform for data of the given size.
+	 * 
+	 * @param rows
+	 *            the number of rows
+	 * @param cols
+	 *            the number of columns
+	 */
+	public RealFFT2D(int rows, int cols) {
+		if (rows < 1 || cols < 1)
+			throw new IllegalArgumentException("rows and cols must be greater than 0");
+
+		this.rows = rows;
+		this.cols = cols;
+		this.spectrumCols = cols / 2 + 1;
+		this.rowFFT = new FloatFFT_1D(cols);
+		this.colFFT = new FloatFFT_1D(rows);
+		this.rowBuffer = new float[cols];
+		this.colBuffer = new float[2 * rows];
+	}
+
+	/**
+	 * @return the number of rows in the spatial domain
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return the number of columns in the spatial domain
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * @return the number of complex columns in the spectrum
+	 */
+	public int getSpectrumCols() {
+		return spectrumCols;
+	}
+
+	/**
+	 * @return a new, zeroed, array capable of holding a spectrum
+	 */
+	public float[][] newSpectrum() {
+		return new float[rows][2 * spectrumCols];
+	}
+
+	/**
+	 * Compute the spectrum of the given data. The data is cropped or
+	 * zero-padded to the size of the transform.
+	 * 
+	 * @param input
+	 *            the input data
+	 * @param centre
+	 *            if true, then the spectrum will have its DC component
+	 *            centred.
+	 * @return the spectrum
+	 */
+	public float[][] forward(float[][] input, boolean centre) {
+		final float[][] spectrum = newSpectrum();
+		forward(input, centre, spectrum);
+		return spectrum;
+	}
+
+	/**
+	 * Compute the spectrum of the given data. The data is cropped or
+	 * zero-padded to the size of the transform.
+	 * 
+	 * @param input
+	 *            the input data
+	 * @param centre
+	 *            if true, then the spectrum will have its DC component
+	 *            centred.
+	 * @param spectrum
+	 *            the array to write the spectrum to (see
+	 *            {@link #newSpectrum()}).
+	 */
+	public void forward(float[][] input, boolean centre, float[][] spectrum) {
+		final int inRows = Math.min(rows, input.length);
+		final int inCols = inRows == 0 ? 0 : Math.min(cols, input[0].length);
+
+		for (int r = 0; r < rows; r++) {
+			if (r < inRows) {
+				final float[] in = input[r];
+				if (centre) {
+					for (int c = 0; c < inCols; c++)
+						rowBuffer[c] = ((r + c) & 1) == 0 ? in[c] : -in[c];
+				} else {
+					System.arraycopy(in, 0, rowBuffer, 0, inCols);
+				}
+				for (int c = inCols; c < cols; c++)
+					rowBuffer[c] = 0;
+
+				rowFFT.realForward(rowBuffer);
+				unpack(rowBuffer, spectrum[r]);
+			} else {
+				final float[] out = spectrum[r];
+				for (int c = 0; c < out.length; c++)
+					out[c] = 0;
+			}
+		}
+
+		for (int k = 0; k < spectrumCols; k++) {
+			final int re = 2 * k, im = re + 1;
+
+			for (int r = 0; r < rows; r++) {
+				colBuffer[2 * r] = spectrum[r][re];
+				colBuffer[2 * r + 1] = spectrum[r][im];
+			}
+
+			colFFT.complexForward(colBuffer);
+
+			for (int r = 0; r < rows; r++) {
+				spectrum[r][re] = colBuffer[2 * r];
+				spectrum[r][im] = colBuffer[2 * r + 1];
+			}
+		}
+	}
+
+	/**
+	 * Compute the full complex spectrum of the given data using the
+	 * real-to-complex transform, and expand it using the Hermitian symmetry of
+	 * the spectrum. The result is laid out exactly as a complex forward
+	 * transform of the data produced by
+	 * {@link FourierTransform#prepareData(float[][], int, int, boolean)}.
+	 * 
+	 * @param input
+	 *            the input data
+	 * @param centre
+	 *            if true, then the spectrum will have its DC component
+	 *            centred.
+	 * @param output
+	 *            the output array; must be <code>rows</code> by
+	 *            <code>2 * cols</code>.
+	 */
+	public void forwardFull(float[][] input, boolean centre, float[][] output) {
+		if (halfSpectrum == null)
+			halfSpectrum = newSpectrum();
+
+		forward(input, centre, halfSpectrum);
+
+		for (int r = 0; r < rows; r++) {
+			final float[] half = halfSpectrum[r];
+			final float[] mirror = halfSpectrum[(rows - r) % rows];
+			final float[] out = output[r];
+
+			System.arraycopy(half, 0, out, 0, 2 * spectrumCols);
+
+			// X[r][c] = conj(X[-r][-c])
+			for (int c = spectrumCols; c < cols; c++) {
+				out[2 * c] = mirror[2 * (cols - c)];
+				out[2 * c + 1] = -mirror[2 * (cols - c) + 1];
+			}
+		}
+	}
+
+	/**
+	 * Compute the inverse transform of the given spectrum. The spectrum is
+	 * overwritten in the process. The output is cropped to the size of the
+	 * output array if it is smaller than the transform.
+	 * 
+	 * @param spectrum
+	 *            the spectrum; this will be destroyed.
+	 * @param output
+	 *            the output array
+	 * @param centre
+	 *            true if the spectrum has its DC component centred.
+	 */
+	public void inverse(float[][] spectrum, float[][] output, boolean centre) {
+		for (int k = 0; k < spectrumCols; k++) {
+			final int re = 2 * k, im = re + 1;
+
+			for (int r = 0; r < rows; r++) {
+				colBuffer[2 * r] = spectrum[r][re];
+				colBuffer[2 * r + 1] = spectrum[r][im];
+			}
+
+			colFFT.complexInverse(colBuffer, true);
+
+			for (int r = 0; r < rows; r++) {
+				spectrum[r][re] = colBuffer[2 * r];
+				spectrum[r][im] = colBuffer[2 * r + 1];
+			}
+		}
+
+		final int outRows = Math.min(rows, output.length);
+		final int outCols = outRows == 0 ? 0 : Math.min(cols, output[0].length);
+
+		for (int r = 0; r < outRows; r++) {
+			pack(spectrum[r], rowBuffer);
+			rowFFT.realInverse(rowBuffer, true);
+
+			final float[] out = output[r];
+			if (centre) {
+				for (int c = 0; c < outCols; c++)
+					out[c] = ((r + c) & 1) == 0 ? rowBuffer[c] : -rowBuffer[c];
+			} else {
+				System.arraycopy(rowBuffer, 0, out, 0, outCols);
+			}
+		}
+	}
+
+	/**
+	 * Multiply two spectra element-wise. The output may be the same array as
+	 * either of the inputs.
+	 * 
+	 * @param a
+	 *            the first spectrum
+	 * @param b
+	 *            the second spectrum
+	 * @param conjugateB
+	 *            if true, the complex conjugate of <code>b</code> is used
+	 *            (giving correlation rather than convolution).
+	 * @param out
+	 *            the output spectrum
+	 */
+	public static void multiply(float[][] a, float[][] b, boolean conjugateB, float[][] out) {
+		final float sign = conjugateB ? -1 : 1;
+
+		for (int y = 0; y < a.length; y++) {
+			final float[] arow = a[y];
+			final float[] brow = b[y];
+			final float[] orow = out[y];
+
+			for (int x = 0; x < arow.length; x += 2) {
+				final float reA = arow[x];
+				final float imA = arow[x + 1];
+				final float reB = brow[x];
+				final float imB = sign * brow[x + 1];
+
+				orow[x] = reA * reB - imA * imB;
+				orow[x + 1] = reA * imB + imA * reB;
+			}
+		}
+	}
+
+	/*
+	 * Convert the packed output of FloatFFT_1D.realForward into the first
+	 * cols/2+1 complex coefficients.
+	 */
+	private void unpack(float[] packed, float[] out) {
+		out[0] = packed[0];
+		out[1] = 0;
+
+		if (cols > 1) {
+			System.arraycopy(packed, 2, out, 2, cols - 2);
+
+			// packed[1] holds Re[n/2] for even n, and Im[(n-1)/2] for odd n
+			out[cols] = packed[1];
+			if ((cols & 1) == 0)
+				out[cols + 1] = 0;
+		}
+	}
+
+	/*
+	 * Inverse of unpack
+	 */
+	private void pack(float[] in, float[] packed) {
+		packed[0] = in[0];
+
+		if (cols > 1) {
+			System.arraycopy(in, 2, packed, 2, cols - 2);
+			packed[1] = in[cols];
+		}
+	}
+}
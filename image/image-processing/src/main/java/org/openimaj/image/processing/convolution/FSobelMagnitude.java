@@ -30,6 +30,8 @@
 package org.openimaj.image.processing.convolution;
 
 import org.openimaj.image.FImage;
+import org.openimaj.image.processor.FKernelProcessor;
+import org.openimaj.image.processor.FKernelWindow;
 import org.openimaj.image.processor.SinglebandKernelProcessor;
 
 /**
@@ -40,7 +42,7 @@ import org.openimaj.image.processor.SinglebandKernelProcessor;
  * @author Sina Samangooei (ss@ecs.soton.ac.uk)
  *
  */
-public class FSobelMagnitude implements SinglebandKernelProcessor<Float, FImage> {
+public class FSobelMagnitude implements SinglebandKernelProcessor<Float, FImage>, FKernelProcessor {
 
 	/**
 	 * The 3x3 derivative of a gaussian of sigma 1 in the x direction
@@ -82,5 +84,24 @@ public class FSobelMagnitude implements SinglebandKernelProcessor<Float, FImage>
 		}
 
 		return (float)Math.sqrt((sumx*sumx) + (sumy*sumy));
-	}	
+	}
+
+	@Override
+	public float processWindow(FKernelWindow window) {
+		final boolean inside = window.isInside();
+		final float[][] pix = window.getPixels();
+		final int x = window.getX();
+		final int y = window.getY();
+		float sumx=0, sumy=0;
+
+		for (int r=0; r<3; r++) {
+			for (int c=0; c<3; c++) {
+				final float v = inside ? pix[y + r][x + c] : window.get(c, r);
+				sumx += (KERNEL_X.pixels[2-r][2-c] * v);
+				sumy += (KERNEL_Y.pixels[2-r][2-c] * v);
+			}
+		}
+
+		return (float)Math.sqrt((sumx*sumx) + (sumy*sumy));
+	}
 }
@@ -30,19 +30,36 @@
 package org.openimaj.image.processing.convolution;
 
 import org.openimaj.image.FImage;
+import org.openimaj.image.processing.algorithm.FFTPlanCache;
 import org.openimaj.image.processing.algorithm.FourierTransform;
+import org.openimaj.image.processing.algorithm.RealFFT2D;
 import org.openimaj.image.processor.SinglebandImageProcessor;
 
 import edu.emory.mathcs.jtransforms.fft.FloatFFT_2D;
 
 /**
- * {@link FImage} convolution performed in the fourier domain.
+ * {@link FImage} convolution performed in the fourier domain. When used as a
+ * processor, the spectrum of the kernel is computed once for each image size
+ * and reused for subsequent images of the same size.
  * 
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  * 
  */
 public class FourierConvolve implements SinglebandImageProcessor<Float, FImage> {
+	private static final class KernelSpectrum {
+		final int rows;
+		final int cols;
+		final float[][] spectrum;
+
+		KernelSpectrum(int rows, int cols, float[][] spectrum) {
+			this.rows = rows;
+			this.cols = cols;
+			this.spectrum = spectrum;
+		}
+	}
+
 	private float[][] kernel;
+	private volatile KernelSpectrum kernelSpectrum;
 
 	/**
 	 * Construct the convolution operator with the given kernel
@@ -66,7 +83,19 @@ public class FourierConvolve implements SinglebandImageProcessor<Float, FImage>
 
 	@Override
 	public void processImage(FImage image) {
-		convolve(image, kernel, true);
+		final int cols = image.getCols();
+		final int rows = image.getRows();
+		final RealFFT2D fft = FFTPlanCache.getRealFFT2D(rows, cols);
+
+		KernelSpectrum ks = kernelSpectrum;
+		if (ks == null || ks.rows != rows || ks.cols != cols) {
+			ks = new KernelSpectrum(rows, cols, fft.forward(kernel, false));
+			kernelSpectrum = ks;
+		}
+
+		final float[][] spectrum = fft.forward(image.pixels, false);
+		RealFFT2D.multiply(spectrum, ks.spectrum, false, spectrum);
+		fft.inverse(spectrum, image.pixels, false);
 	}
 
 	/**
@@ -85,37 +114,16 @@ public class FourierConvolve implements SinglebandImageProcessor<Float, FImage>
 		final int cols = image.getCols();
 		final int rows = image.getRows();
 
-		final FloatFFT_2D fft = new FloatFFT_2D(rows, cols);
-
-		final float[][] preparedImage = FourierTransform.prepareData(image.pixels, rows, cols, false);
-		fft.complexForward(preparedImage);
+		final RealFFT2D fft = FFTPlanCache.getRealFFT2D(rows, cols);
 
-		final float[][] preparedKernel = FourierTransform.prepareData(kernel, rows, cols, false);
-		fft.complexForward(preparedKernel);
-
-		for (int y = 0; y < rows; y++) {
-			for (int x = 0; x < cols; x++) {
-				final float reImage = preparedImage[y][x * 2];
-				final float imImage = preparedImage[y][1 + x * 2];
-
-				final float reKernel = preparedKernel[y][x * 2];
-				final float imKernel = preparedKernel[y][1 + x * 2];
-
-				final float re = reImage * reKernel - imImage * imKernel;
-				final float im = reImage * imKernel + imImage * reKernel;
-
-				preparedImage[y][x * 2] = re;
-				preparedImage[y][1 + x * 2] = im;
-			}
-		}
-
-		fft.complexInverse(preparedImage, true);
+		final float[][] spectrum = fft.forward(image.pixels, false);
+		RealFFT2D.multiply(spectrum, fft.forward(kernel, false), false, spectrum);
 
 		FImage out = image;
 		if (!inplace)
 			out = new FImage(cols, rows);
 
-		FourierTransform.unprepareData(preparedImage, out, false);
+		fft.inverse(spectrum, out.pixels, false);
 
 		return out;
 	}
@@ -139,11 +147,10 @@ public class FourierConvolve implements SinglebandImageProcessor<Float, FImage>
 		final int cols = image.getCols();
 		final int rows = image.getRows();
 
-		final FloatFFT_2D fft = new FloatFFT_2D(rows, cols);
+		final FloatFFT_2D fft = FFTPlanCache.getFloatFFT_2D(rows, cols);
 
-		final float[][] preparedImage =
-				FourierTransform.prepareData(image.pixels, rows, cols, centered);
-		fft.complexForward(preparedImage);
+		final float[][] preparedImage = new float[rows][cols * 2];
+		FFTPlanCache.getRealFFT2D(rows, cols).forwardFull(image.pixels, centered, preparedImage);
 
 		final float[][] preparedKernel = filter.pixels;
 
@@ -0,0 +1,526 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.morphology;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.pixel.Pixel;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+
+/**
+ * Fast binary morphology on (assumed binary) {@link FImage}s. The
+ * {@link StructuringElement}s are compiled to flat arrays of pixel offsets,
+ * and the image is packed into bitsets with one bit per pixel, so 64 pixels
+ * are tested against each element pixel at a time. Rectangular (and line)
+ * elements are applied separably: horizontally by repeated doubling of the
+ * run length, and vertically using the van Herk/Gil-Werman algorithm, which
+ * needs a constant number of operations per pixel whatever the height of the
+ * element.
+ * <p>
+ * The results are exactly the same as applying {@link Dilate}, {@link Erode}
+ * or {@link HitAndMiss} as a {@link org.openimaj.image.processor.KernelProcessor}
+ * using {@link FImage#process(org.openimaj.image.processor.KernelProcessor, boolean)}:
+ * pixels equal to 1 are foreground, pixels equal to 0 (or outside the image)
+ * are background, the element is placed in a kernel window of the same size,
+ * and element pixels that fall outside of the window are ignored. Optionally
+ * the image can be processed in parallel bands of rows.
+ */
+public class BinaryMorphology {
+	/**
+	 * A structuring element compiled to image offsets
+	 */
+	static class CompiledElement {
+		final int[] posDx;
+		final int[] posDy;
+		final int[] negDx;
+		final int[] negDy;
+
+		/** true if all the element pixels lie in the kernel window */
+		final boolean complete;
+
+		/** true if the positive pixels are a full rectangle, with no negatives */
+		final boolean rectangle;
+		final int rx, ry, rw, rh;
+
+		CompiledElement(StructuringElement se, int sw, int sh, int cx, int cy) {
+			final List<int[]> pos = new ArrayList<int[]>();
+			final List<int[]> neg = new ArrayList<int[]>();
+
+			final boolean posComplete = compile(se.positive, pos, sw, sh, cx, cy);
+			final boolean negComplete = compile(se.negative, neg, sw, sh, cx, cy);
+			complete = posComplete && negComplete;
+
+			posDx = new int[pos.size()];
+			posDy = new int[pos.size()];
+			for (int i = 0; i < pos.size(); i++) {
+				posDx[i] = pos.get(i)[0];
+				posDy[i] = pos.get(i)[1];
+			}
+
+			negDx = new int[neg.size()];
+			negDy = new int[neg.size()];
+			for (int i = 0; i < neg.size(); i++) {
+				negDx[i] = neg.get(i)[0];
+				negDy[i] = neg.get(i)[1];
+			}
+
+			if (complete && negDx.length == 0 && posDx.length > 0) {
+				int minx = Integer.MAX_VALUE, maxx = Integer.MIN_VALUE;
+				int miny = Integer.MAX_VALUE, maxy = Integer.MIN_VALUE;
+				for (int i = 0; i < posDx.length; i++) {
+					minx = Math.min(minx, posDx[i]);
+					maxx = Math.max(maxx, posDx[i]);
+					miny = Math.min(miny, posDy[i]);
+					maxy = Math.max(maxy, posDy[i]);
+				}
+
+				rx = minx;
+				ry = miny;
+				rw = 1 + maxx - minx;
+				rh = 1 + maxy - miny;
+
+				// the element pixels are distinct, so this means every pixel
+				// of the bounding box is present
+				rectangle = rw * rh == posDx.length;
+			} else {
+				rx = ry = rw = rh = 0;
+				rectangle = false;
+			}
+		}
+
+		/*
+		 * Add the offsets of the pixels that lie in the kernel window to out,
+		 * returning false if any of them don't
+		 */
+		private static boolean compile(Iterable<Pixel> pixels, List<int[]> out, int sw, int sh, int cx, int cy) {
+			boolean complete = true;
+			for (final Pixel p : pixels) {
+				final int px = cx - p.x;
+				final int py = cy - p.y;
+
+				if (px >= 0 && py >= 0 && px < sw && py < sh)
+					out.add(new int[] { px - sw / 2, py - sh / 2 });
+				else
+					complete = false;
+			}
+			return complete;
+		}
+
+		int maxAbsDx() {
+			int max = 0;
+			for (final int dx : posDx)
+				max = Math.max(max, Math.abs(dx));
+			for (final int dx : negDx)
+				max = Math.max(max, Math.abs(dx));
+			return max;
+		}
+
+		int maxAbsDy() {
+			int max = 0;
+			for (final int dy : posDy)
+				max = Math.max(max, Math.abs(dy));
+			for (final int dy : negDy)
+				max = Math.max(max, Math.abs(dy));
+			return max;
+		}
+	}
+
+	/**
+	 * An image packed into rows of 64-bit words, with a border of padding
+	 * pixels around it.
+	 */
+	static class PackedImage {
+		final long[][] rows;
+		final int padX;
+		final int padY;
+		final long fill;
+
+		/**
+		 * Pack the pixels of the given image that are equal to value; padding
+		 * pixels are set if fill is true.
+		 */
+		PackedImage(FImage image, float value, boolean fill, int padX, int padY) {
+			this.padX = padX;
+			this.padY = padY;
+			this.fill = fill ? -1L : 0L;
+
+			final int stride = (image.width + 2 * padX + 63) / 64 + 2;
+			rows = new long[image.height + 2 * padY][stride];
+
+			for (int r = 0; r < rows.length; r++) {
+				final long[] row = rows[r];
+				final int y = r - padY;
+
+				if (fill)
+					Arrays.fill(row, -1L);
+
+				if (y < 0 || y >= image.height)
+					continue;
+
+				final float[] src = image.pixels[y];
+				for (int x = 0, b = padX; x < image.width; x++, b++) {
+					if (src[x] == value)
+						row[b >>> 6] |= 1L << b;
+					else
+						row[b >>> 6] &= ~(1L << b);
+				}
+			}
+		}
+
+		/**
+		 * Get the 64 bits starting at the given bit position of the given row
+		 */
+		static long read(long[] row, int bit, long fill) {
+			final int w = bit >> 6;
+			final int s = bit & 63;
+
+			final long lo = w >= 0 && w < row.length ? row[w] : fill;
+			if (s == 0)
+				return lo;
+
+			final long hi = w + 1 >= 0 && w + 1 < row.length ? row[w + 1] : fill;
+			return (lo >>> s) | (hi << (64 - s));
+		}
+
+		/**
+		 * Get the 64 bits for the pixels starting at x = 64 * word, offset by
+		 * the given amount.
+		 */
+		long read(int y, int word, int dx, int dy) {
+			return read(rows[y + dy + padY], (word << 6) + dx + padX, fill);
+		}
+	}
+
+	private static final int OP_DILATE = 0;
+	private static final int OP_ERODE = 1;
+	private static final int OP_HIT_AND_MISS = 2;
+
+	final CompiledElement[] elements;
+	private final int sw;
+	private final int sh;
+	private final int padX;
+	private final int padY;
+	private final boolean needOnes;
+	private final boolean needZeros;
+
+	/**
+	 * Construct with the given structuring elements, placed in a kernel window
+	 * of the given size with the element origin at the given position in the
+	 * window.
+	 * 
+	 * @param ses
+	 *            the structuring elements
+	 * @param sw
+	 *            the width of the kernel window
+	 * @param sh
+	 *            the height of the kernel window
+	 * @param cx
+	 *            the x-ordinate of the origin of the element in the window
+	 * @param cy
+	 *            the y-ordinate of the origin of the element in the window
+	 */
+	public BinaryMorphology(StructuringElement[] ses, int sw, int sh, int cx, int cy) {
+		this.sw = sw;
+		this.sh = sh;
+		this.elements = new CompiledElement[ses.length];
+
+		int px = 0, py = 0;
+		boolean ones = false, zeros = false;
+		for (int i = 0; i < ses.length; i++) {
+			elements[i] = new CompiledElement(ses[i], sw, sh, cx, cy);
+			px = Math.max(px, elements[i].maxAbsDx());
+			py = Math.max(py, elements[i].maxAbsDy());
+			ones |= elements[i].posDx.length > 0;
+			zeros |= elements[i].negDx.length > 0;
+		}
+		this.padX = px;
+		this.padY = py;
+		this.needOnes = ones;
+		this.needZeros = zeros;
+	}
+
+	/**
+	 * Construct with the given structuring element, placed in the centre of a
+	 * kernel window that is the size of the element (as {@link Dilate} and
+	 * {@link Erode} do).
+	 * 
+	 * @param se
+	 *            the structuring element
+	 */
+	public BinaryMorphology(StructuringElement se) {
+		this(new StructuringElement[] { se }, se.size()[0], se.size()[1], se.size()[0] / 2, se.size()[1] / 2);
+	}
+
+	/**
+	 * Dilate the image with the first structuring element. See
+	 * {@link Dilate#processKernel(FImage)}.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param pad
+	 *            if true the kernel window is allowed to extend beyond the
+	 *            edges of the image (which is treated as being zero padded);
+	 *            if false the pixels that the window can't be placed over are
+	 *            set to zero.
+	 * @param pool
+	 *            the thread pool to process bands of rows with; can be null to
+	 *            work on the calling thread.
+	 * @return a new image containing the result
+	 */
+	public FImage dilate(FImage image, boolean pad, ThreadPoolExecutor pool) {
+		return apply(image, pad, pool, OP_DILATE);
+	}
+
+	/**
+	 * Erode the image with the first structuring element. See
+	 * {@link Erode#processKernel(FImage)}.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param pad
+	 *            if true the kernel window is allowed to extend beyond the
+	 *            edges of the image (which is treated as being zero padded);
+	 *            if false the pixels that the window can't be placed over are
+	 *            set to zero.
+	 * @param pool
+	 *            the thread pool to process bands of rows with; can be null to
+	 *            work on the calling thread.
+	 * @return a new image containing the result
+	 */
+	public FImage erode(FImage image, boolean pad, ThreadPoolExecutor pool) {
+		return apply(image, pad, pool, OP_ERODE);
+	}
+
+	/**
+	 * Apply the hit-and-miss transform with all the structuring elements. The
+	 * result is 1 where any of the elements match, and 0 elsewhere. See
+	 * {@link HitAndMiss#processKernel(FImage)}.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param pad
+	 *            if true the kernel window is allowed to extend beyond the
+	 *            edges of the image (which is treated as being zero padded);
+	 *            if false the pixels that the window can't be placed over are
+	 *            set to zero.
+	 * @param pool
+	 *            the thread pool to process bands of rows with; can be null to
+	 *            work on the calling thread.
+	 * @return a new image containing the result
+	 */
+	public FImage hitAndMiss(FImage image, boolean pad, ThreadPoolExecutor pool) {
+		return apply(image, pad, pool, OP_HIT_AND_MISS);
+	}
+
+	private FImage apply(final FImage image, boolean pad, ThreadPoolExecutor pool, final int op) {
+		final FImage output = new FImage(image.width, image.height);
+
+		final int hw = sw / 2;
+		final int hh = sh / 2;
+		final int x0 = pad ? 0 : hw;
+		final int x1 = pad ? image.width : image.width - (sw - hw);
+		final int y0 = pad ? 0 : hh;
+		final int y1 = pad ? image.height : image.height - (sh - hh);
+
+		if (x1 <= x0 || y1 <= y0)
+			return output;
+
+		final PackedImage ones = needOnes ? new PackedImage(image, 1f, false, padX, padY) : null;
+		final PackedImage zeros = needZeros ? new PackedImage(image, 0f, true, padX, padY) : null;
+
+		if (pool == null) {
+			applyRows(image, output, ones, zeros, op, x0, x1, y0, y1);
+		} else {
+			Parallel.forRange(y0, y1, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					applyRows(image, output, ones, zeros, op, x0, x1, range.start, range.stop);
+				}
+			}, pool);
+		}
+
+		return output;
+	}
+
+	private void applyRows(FImage image, FImage output, PackedImage ones, PackedImage zeros, int op, int x0,
+			int x1, int y0, int y1)
+	{
+		final int nwords = (image.width + 63) / 64;
+
+		final long[][] result;
+		if (op != OP_HIT_AND_MISS && elements[0].rectangle)
+			result = applyRectangle(ones, elements[0], op == OP_DILATE, nwords, y0, y1);
+		else
+			result = applyGeneral(ones, zeros, op, nwords, y0, y1);
+
+		for (int y = y0; y < y1; y++) {
+			final long[] bits = result[y - y0];
+			final float[] src = image.pixels[y];
+			final float[] dst = output.pixels[y];
+
+			for (int x = x0; x < x1; x++) {
+				final boolean bit = (bits[x >>> 6] & (1L << x)) != 0;
+
+				switch (op) {
+				case OP_DILATE:
+					dst[x] = bit ? 1f : src[x];
+					break;
+				case OP_ERODE:
+					dst[x] = bit ? src[x] : 0f;
+					break;
+				default:
+					dst[x] = bit ? 1f : 0f;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test every (compiled) element pixel against 64 image pixels at a time
+	 */
+	private long[][] applyGeneral(PackedImage ones, PackedImage zeros, int op, int nwords, int y0, int y1) {
+		final long[][] result = new long[y1 - y0][nwords];
+
+		for (int y = y0; y < y1; y++) {
+			final long[] row = result[y - y0];
+
+			for (int k = 0; k < nwords; k++) {
+				if (op == OP_DILATE) {
+					final CompiledElement e = elements[0];
+					long acc = 0;
+					for (int i = 0; i < e.posDx.length; i++)
+						acc |= ones.read(y, k, e.posDx[i], e.posDy[i]);
+					for (int i = 0; i < e.negDx.length; i++)
+						acc |= zeros.read(y, k, e.negDx[i], e.negDy[i]);
+					row[k] = acc;
+				} else {
+					final int nel = op == OP_ERODE ? 1 : elements.length;
+
+					long any = 0;
+					for (int j = 0; j < nel; j++) {
+						final CompiledElement e = elements[j];
+						if (!e.complete)
+							continue;
+
+						long acc = -1L;
+						for (int i = 0; i < e.posDx.length && acc != 0; i++)
+							acc &= ones.read(y, k, e.posDx[i], e.posDy[i]);
+						for (int i = 0; i < e.negDx.length && acc != 0; i++)
+							acc &= zeros.read(y, k, e.negDx[i], e.negDy[i]);
+						any |= acc;
+					}
+					row[k] = any;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Apply a rectangular element separably. Each packed row is first
+	 * combined with itself shifted by 1, 2, 4, ... pixels until the runs
+	 * cover the width of the rectangle; the rows are then combined in columns
+	 * of words with the van Herk/Gil-Werman algorithm, which uses blocks of
+	 * the rectangle height with running combinations forwards and backwards
+	 * through each block, so that any window of rows is the combination of
+	 * one backwards and one forwards value.
+	 */
+	private long[][] applyRectangle(PackedImage ones, CompiledElement e, boolean dilate, int nwords, int y0, int y1) {
+		// rows of the packed image that are needed, relative to y0
+		final int nrows = (y1 - y0) + e.rh - 1;
+		final long[][] horiz = new long[nrows][];
+
+		for (int r = 0; r < nrows; r++) {
+			long[] run = ones.rows[y0 + e.ry + r + ones.padY];
+
+			// combine until each bit represents a run of e.rw pixels
+			int len = 1;
+			while (len < e.rw) {
+				final int shift = Math.min(len, e.rw - len);
+				final long[] next = new long[run.length];
+				for (int w = 0; w < run.length; w++) {
+					final long shifted = PackedImage.read(run, (w << 6) + shift, ones.fill);
+					next[w] = dilate ? run[w] | shifted : run[w] & shifted;
+				}
+				run = next;
+				len += shift;
+			}
+
+			final long[] row = new long[nwords];
+			for (int k = 0; k < nwords; k++)
+				row[k] = PackedImage.read(run, (k << 6) + e.rx + ones.padX, ones.fill);
+			horiz[r] = row;
+		}
+
+		final int h = e.rh;
+		final long[][] result = new long[y1 - y0][];
+		if (h == 1) {
+			for (int y = 0; y < result.length; y++)
+				result[y] = horiz[y];
+			return result;
+		}
+
+		// van Herk/Gil-Werman over the rows
+		final long[][] forward = new long[nrows][];
+		final long[][] backward = new long[nrows][];
+		for (int start = 0; start < nrows; start += h) {
+			final int end = Math.min(start + h, nrows);
+
+			forward[start] = horiz[start];
+			for (int r = start + 1; r < end; r++)
+				forward[r] = combine(forward[r - 1], horiz[r], dilate);
+
+			backward[end - 1] = horiz[end - 1];
+			for (int r = end - 2; r >= start; r--)
+				backward[r] = combine(backward[r + 1], horiz[r], dilate);
+		}
+
+		for (int y = 0; y < result.length; y++) {
+			// window is rows y to y + h - 1
+			result[y] = combine(backward[y], forward[y + h - 1], dilate);
+		}
+
+		return result;
+	}
+
+	private static long[] combine(long[] a, long[] b, boolean or) {
+		final long[] out = new long[a.length];
+		for (int i = 0; i < a.length; i++)
+			out[i] = or ? a[i] | b[i] : a[i] & b[i];
+		return out;
+	}
+}
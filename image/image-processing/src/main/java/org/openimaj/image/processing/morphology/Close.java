@@ -70,7 +70,7 @@ public class Close implements ConnectedComponentProcessor, ImageProcessor<FImage
 	 */
 	@Override
 	public void processImage(FImage image) {
-		image.processInplace(dilate, true);
-		image.processInplace(erode, true);
+		image.internalAssign(dilate.process(image, true));
+		image.internalAssign(erode.process(image, true));
 	}
 }
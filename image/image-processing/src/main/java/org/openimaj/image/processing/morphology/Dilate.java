@@ -31,11 +31,14 @@ package org.openimaj.image.processing.morphology;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.openimaj.image.FImage;
 import org.openimaj.image.pixel.ConnectedComponent;
 import org.openimaj.image.pixel.Pixel;
 import org.openimaj.image.processing.algorithm.MaxFilter;
+import org.openimaj.image.processor.FKernelProcessor;
+import org.openimaj.image.processor.FKernelWindow;
 import org.openimaj.image.processor.KernelProcessor;
 import org.openimaj.image.processor.connectedcomponent.ConnectedComponentProcessor;
 import org.openimaj.math.geometry.shape.Rectangle;
@@ -46,13 +49,15 @@ import org.openimaj.math.geometry.shape.Rectangle;
  *
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  */
-public class Dilate implements ConnectedComponentProcessor, KernelProcessor<Float, FImage> {
+public class Dilate implements ConnectedComponentProcessor, FKernelProcessor {
 	protected StructuringElement element;
 	protected int cx;
 	protected int cy;
 	protected int sw;
 	protected int sh;
 
+	private final BinaryMorphology engine;
+
 	/**
 	 * Construct the dilate operator with the given structuring element
 	 *
@@ -67,6 +72,8 @@ public class Dilate implements ConnectedComponentProcessor, KernelProcessor<Floa
 		sh = sz[1];
 		cx = sw / 2;
 		cy = sh / 2;
+
+		engine = new BinaryMorphology(new StructuringElement[] { element }, sw, sh, cx, cy);
 	}
 
 	/**
@@ -125,6 +132,57 @@ public class Dilate implements ConnectedComponentProcessor, KernelProcessor<Floa
 		return patch.pixels[cy][cx];
 	}
 
+	@Override
+	public float processWindow(FKernelWindow window) {
+		final BinaryMorphology.CompiledElement e = engine.elements[0];
+		final int hw = sw / 2;
+		final int hh = sh / 2;
+
+		for (int i = 0; i < e.posDx.length; i++)
+			if (window.get(e.posDx[i] + hw, e.posDy[i] + hh) == 1)
+				return 1f;
+
+		for (int i = 0; i < e.negDx.length; i++)
+			if (window.get(e.negDx[i] + hw, e.negDy[i] + hh) == 0)
+				return 1f;
+
+		return window.get(cx, cy);
+	}
+
+	/**
+	 * Dilate the image using the bit-packed {@link BinaryMorphology} engine,
+	 * which is much faster than applying this as a {@link KernelProcessor}. The
+	 * result is the same as <code>image.process(this, pad)</code>.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param pad
+	 *            should the image be zero padded so the kernel reaches into
+	 *            the border?
+	 * @return a new image containing the dilated image
+	 */
+	public FImage process(FImage image, boolean pad) {
+		return process(image, pad, null);
+	}
+
+	/**
+	 * Dilate the image using the bit-packed {@link BinaryMorphology} engine,
+	 * processing bands of rows in parallel with the given thread pool. The
+	 * result is the same as <code>image.process(this, pad)</code>.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param pad
+	 *            should the image be zero padded so the kernel reaches into
+	 *            the border?
+	 * @param pool
+	 *            the thread pool; can be null to work on the calling thread
+	 * @return a new image containing the dilated image
+	 */
+	public FImage process(FImage image, boolean pad, ThreadPoolExecutor pool) {
+		return engine.dilate(image, pad, pool);
+	}
+
 	/**
 	 * Apply dilation some number of times to an image with the default
 	 * {@link StructuringElement#BOX} element
@@ -137,6 +195,6 @@ public class Dilate implements ConnectedComponentProcessor, KernelProcessor<Floa
 	public static void dilate(FImage img, int times) {
 		final Dilate d = new Dilate();
 		for (int i = 0; i < times; i++)
-			img.processInplace(d);
+			img.internalAssign(d.process(img, false));
 	}
 }
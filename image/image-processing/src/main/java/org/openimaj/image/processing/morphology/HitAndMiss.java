@@ -31,10 +31,13 @@ package org.openimaj.image.processing.morphology;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.openimaj.image.FImage;
 import org.openimaj.image.pixel.ConnectedComponent;
 import org.openimaj.image.pixel.Pixel;
+import org.openimaj.image.processor.FKernelProcessor;
+import org.openimaj.image.processor.FKernelWindow;
 import org.openimaj.image.processor.KernelProcessor;
 import org.openimaj.image.processor.connectedcomponent.ConnectedComponentProcessor;
 import org.openimaj.math.geometry.shape.Rectangle;
@@ -45,7 +48,7 @@ import org.openimaj.math.geometry.shape.Rectangle;
  * 
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  */
-public class HitAndMiss implements ConnectedComponentProcessor, KernelProcessor<Float, FImage> {
+public class HitAndMiss implements ConnectedComponentProcessor, FKernelProcessor {
 	/**
 	 * Hit and miss operator for detecting convex corners
 	 */
@@ -74,6 +77,8 @@ public class HitAndMiss implements ConnectedComponentProcessor, KernelProcessor<
 	protected int sw=0;
 	protected int sh=0;
 
+	private final BinaryMorphology engine;
+
 	/**
 	 * Construct a hit and miss operator with the given
 	 * structuring elements.
@@ -90,6 +95,8 @@ public class HitAndMiss implements ConnectedComponentProcessor, KernelProcessor<
 		}
 		cx = sw/2;
 		cy = sw/2;
+
+		engine = new BinaryMorphology(elements, sw, sh, cx, cy);
 	}
 
 	@Override
@@ -155,4 +162,61 @@ public class HitAndMiss implements ConnectedComponentProcessor, KernelProcessor<
 
 		return 0f;
 	}
+
+	@Override
+	public float processWindow(FKernelWindow window) {
+		final int hw = sw / 2;
+		final int hh = sh / 2;
+
+		next: for (final BinaryMorphology.CompiledElement e : engine.elements) {
+			if (!e.complete)
+				continue;
+
+			for (int i = 0; i < e.posDx.length; i++)
+				if (window.get(e.posDx[i] + hw, e.posDy[i] + hh) != 1)
+					continue next;
+
+			for (int i = 0; i < e.negDx.length; i++)
+				if (window.get(e.negDx[i] + hw, e.negDy[i] + hh) != 0)
+					continue next;
+
+			return 1f;
+		}
+
+		return 0f;
+	}
+
+	/**
+	 * Apply the hit-and-miss transform to the image using the bit-packed {@link BinaryMorphology} engine,
+	 * which is much faster than applying this as a {@link KernelProcessor}. The
+	 * result is the same as <code>image.process(this, pad)</code>.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param pad
+	 *            should the image be zero padded so the kernel reaches into
+	 *            the border?
+	 * @return a new image containing the result
+	 */
+	public FImage process(FImage image, boolean pad) {
+		return process(image, pad, null);
+	}
+
+	/**
+	 * Apply the hit-and-miss transform to the image using the bit-packed {@link BinaryMorphology} engine,
+	 * processing bands of rows in parallel with the given thread pool. The
+	 * result is the same as <code>image.process(this, pad)</code>.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param pad
+	 *            should the image be zero padded so the kernel reaches into
+	 *            the border?
+	 * @param pool
+	 *            the thread pool; can be null to work on the calling thread
+	 * @return a new image containing the result
+	 */
+	public FImage process(FImage image, boolean pad, ThreadPoolExecutor pool) {
+		return engine.hitAndMiss(image, pad, pool);
+	}
 }
@@ -70,7 +70,7 @@ public class Open implements ConnectedComponentProcessor, ImageProcessor<FImage>
 	 */
 	@Override
 	public void processImage(FImage image) {
-		image.processInplace(erode, true);
-		image.processInplace(dilate, true);
+		image.internalAssign(erode.process(image, true));
+		image.internalAssign(dilate.process(image, true));
 	}
 }
@@ -80,7 +80,7 @@ public class SequentialThin implements ConnectedComponentProcessor, ImageProcess
 	@Override
 	public void processImage(FImage image) {
 		for (int i=niter; i!=0; i--) {
-			FImage newImage = image.process(hitAndMiss, true);
+			FImage newImage = hitAndMiss.process(image, true);
 			
 			int count = 0;
 			for (int y=0; y<newImage.height; y++) {
@@ -62,7 +62,7 @@ public class Thin implements ConnectedComponentProcessor, ImageProcessor<FImage>
 	 */
 	@Override
 	public void processImage(FImage image) {
-		FImage newImage = image.process(hitAndMiss, true);
+		FImage newImage = hitAndMiss.process(image, true);
 		
 		for (int y=0; y<newImage.height; y++) {
 			for (int x=0; x<newImage.width; x++) {
@@ -0,0 +1,563 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.resize;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.MBFImage;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+
+/**
+ * A precomputed plan for resizing images of a given size to another given size
+ * with a {@link ResizeFilterFunction}. The filter contributions that
+ * {@link ResizeProcessor#zoom(FImage, FImage, ResizeFilterFunction)} needs are
+ * computed once and stored in flat primitive tables, so the plan can be
+ * applied to any number of images (or to all the bands of an
+ * {@link MBFImage}) without recomputing or reallocating them. Applying a plan
+ * gives exactly the same result as
+ * {@link ResizeProcessor#zoom(FImage, FImage, ResizeFilterFunction)}.
+ * <p>
+ * Plans are immutable and thread-safe. Recently used plans are cached, and can
+ * be obtained through {@link #getPlan(int, int, int, int, ResizeFilterFunction)}.
+ * Plans can optionally be applied in parallel, in which case the rows of the
+ * horizontal and vertical passes are shared across the threads of a pool.
+ */
+public class ResizePlan {
+	private static final int CACHE_SIZE = 16;
+
+	private static final Map<ResizePlan, ResizePlan> cache = new LinkedHashMap<ResizePlan, ResizePlan>(CACHE_SIZE, 0.75f,
+			true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ResizePlan, ResizePlan> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private final int srcWidth;
+	private final int srcHeight;
+	private final int dstWidth;
+	private final int dstHeight;
+	private final ResizeFilterFunction filter;
+
+	/*
+	 * The contributions for dst column i are xPixels/xWeights[xOffsets[i]]
+	 * until xOffsets[i+1]; the same for the rows
+	 */
+	private int[] xOffsets;
+	private int[] xPixels;
+	private double[] xWeights;
+	private int[] yOffsets;
+	private int[] yPixels;
+	private double[] yWeights;
+
+	private ResizePlan(int srcWidth, int srcHeight, int dstWidth, int dstHeight, ResizeFilterFunction filter) {
+		this.srcWidth = srcWidth;
+		this.srcHeight = srcHeight;
+		this.dstWidth = dstWidth;
+		this.dstHeight = dstHeight;
+		this.filter = filter;
+	}
+
+	/**
+	 * Construct a plan for resizing images of the given size to the given size
+	 * with the given filter.
+	 * 
+	 * @param srcWidth
+	 *            the width of the source images
+	 * @param srcHeight
+	 *            the height of the source images
+	 * @param dstWidth
+	 *            the width of the resized images
+	 * @param dstHeight
+	 *            the height of the resized images
+	 * @param filterf
+	 *            the filter function
+	 * @return the plan
+	 */
+	public static ResizePlan create(int srcWidth, int srcHeight, int dstWidth, int dstHeight,
+			ResizeFilterFunction filterf)
+	{
+		final ResizePlan plan = new ResizePlan(srcWidth, srcHeight, dstWidth, dstHeight, filterf);
+		plan.computeXContributions();
+		plan.computeYContributions();
+		return plan;
+	}
+
+	/**
+	 * Get a plan for resizing images of the given size to the given size with
+	 * the given filter, reusing a cached plan if possible. Filters are compared
+	 * by identity.
+	 * 
+	 * @param srcWidth
+	 *            the width of the source images
+	 * @param srcHeight
+	 *            the height of the source images
+	 * @param dstWidth
+	 *            the width of the resized images
+	 * @param dstHeight
+	 *            the height of the resized images
+	 * @param filterf
+	 *            the filter function
+	 * @return the plan
+	 */
+	public static ResizePlan getPlan(int srcWidth, int srcHeight, int dstWidth, int dstHeight,
+			ResizeFilterFunction filterf)
+	{
+		final ResizePlan key = new ResizePlan(srcWidth, srcHeight, dstWidth, dstHeight, filterf);
+
+		synchronized (cache) {
+			final ResizePlan plan = cache.get(key);
+			if (plan != null)
+				return plan;
+		}
+
+		final ResizePlan plan = create(srcWidth, srcHeight, dstWidth, dstHeight, filterf);
+		synchronized (cache) {
+			cache.put(plan, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * Compute the horizontal contributions in the same way as
+	 * <code>ResizeProcessor#calc_x_contrib</code>
+	 */
+	private void computeXContributions() {
+		final double xscale = (double) dstWidth / (double) srcWidth;
+		final double fwidth = filter.getSupport();
+
+		xOffsets = new int[dstWidth + 1];
+		xPixels = new int[dstWidth * ((int) (Math.max(fwidth, fwidth / xscale) * 2.0 + 1.0) + 1)];
+		xWeights = new double[xPixels.length];
+
+		int count = 0;
+		for (int i = 0; i < dstWidth; i++) {
+			xOffsets[i] = count;
+
+			if (xscale < 1.0) {
+				/* Shrinking image */
+				double width = fwidth / xscale;
+				double fscale = 1.0 / xscale;
+
+				if (width <= .5) {
+					// Reduce to point sampling.
+					width = .5 + 1.0e-6;
+					fscale = 1.0;
+				}
+
+				final double center = i / xscale;
+				final int left = (int) Math.ceil(center - width);
+				final int right = (int) Math.floor(center + width);
+
+				double density = 0.0;
+				for (int j = left; j <= right; j++) {
+					final double weight = filter.filter((center - j) / fscale) / fscale;
+
+					xPixels[count] = reflect(j, srcWidth);
+					xWeights[count++] = weight;
+					density += weight;
+				}
+
+				if ((density != 0.0) && (density != 1.0)) {
+					// Normalize.
+					density = 1.0 / density;
+					for (int k = xOffsets[i]; k < count; k++)
+						xWeights[k] *= density;
+				}
+			} else {
+				/* Expanding image */
+				final double center = i / xscale;
+				final int left = (int) Math.ceil(center - fwidth);
+				final int right = (int) Math.floor(center + fwidth);
+
+				for (int j = left; j <= right; j++) {
+					xPixels[count] = reflect(j, srcWidth);
+					xWeights[count++] = filter.filter(center - j);
+				}
+			}
+		}
+		xOffsets[dstWidth] = count;
+	}
+
+	/**
+	 * Compute the vertical contributions in the same way as
+	 * {@link ResizeProcessor#zoom(FImage, FImage, ResizeFilterFunction)}
+	 */
+	private void computeYContributions() {
+		final double yscale = (double) dstHeight / (double) srcHeight;
+		final double fwidth = filter.getSupport();
+
+		yOffsets = new int[dstHeight + 1];
+
+		if (yscale < 1.0) {
+			double width = fwidth / yscale;
+			double fscale = 1.0 / yscale;
+
+			if (width <= .5) {
+				// Reduce to point sampling.
+				width = .5 + 1.0e-6;
+				fscale = 1.0;
+			}
+
+			final int n = (int) (width * 2.0 + 1);
+			yPixels = new int[dstHeight * n];
+			yWeights = new double[dstHeight * n];
+
+			for (int i = 0, count = 0; i < dstHeight; i++) {
+				yOffsets[i] = count;
+
+				final double center = i / yscale;
+				final int left = (int) Math.ceil(center - width);
+				final int right = left + n - 1;
+
+				double density = 0.0;
+				for (int j = left; j <= right; j++) {
+					final double weight = filter.filter((center - j) / fscale) / fscale;
+
+					yPixels[count] = reflect(j, srcHeight);
+					yWeights[count++] = weight;
+					density += weight;
+				}
+
+				if ((density != 0.0) && (density != 1.0)) {
+					// Normalize.
+					density = 1.0 / density;
+					for (int k = yOffsets[i]; k < count; k++)
+						yWeights[k] *= density;
+				}
+			}
+		} else {
+			final int n = (int) (fwidth * 2 + 1);
+			yPixels = new int[dstHeight * n];
+			yWeights = new double[dstHeight * n];
+
+			for (int i = 0, count = 0; i < dstHeight; ++i) {
+				yOffsets[i] = count;
+
+				final double center = i / yscale;
+				final int left = (int) Math.ceil(center - fwidth);
+				final int right = left + n - 1;
+
+				for (int j = left; j <= right; ++j) {
+					yPixels[count] = reflect(j, srcHeight);
+					yWeights[count++] = filter.filter(center - j);
+				}
+			}
+		}
+		yOffsets[dstHeight] = yPixels.length;
+	}
+
+	private static int reflect(int j, int size) {
+		int n;
+		if (j < 0) {
+			n = -j;
+		} else if (j >= size) {
+			n = (size - j) + size - 1;
+		} else {
+			n = j;
+		}
+
+		if (n >= size) {
+			n = n % size;
+		} else if (n < 0) {
+			n = size - 1;
+		}
+
+		return n;
+	}
+
+	/**
+	 * @return the width of the source images
+	 */
+	public int getSourceWidth() {
+		return srcWidth;
+	}
+
+	/**
+	 * @return the height of the source images
+	 */
+	public int getSourceHeight() {
+		return srcHeight;
+	}
+
+	/**
+	 * @return the width of the resized images
+	 */
+	public int getTargetWidth() {
+		return dstWidth;
+	}
+
+	/**
+	 * @return the height of the resized images
+	 */
+	public int getTargetHeight() {
+		return dstHeight;
+	}
+
+	/**
+	 * @return the filter function
+	 */
+	public ResizeFilterFunction getFilter() {
+		return filter;
+	}
+
+	private void checkSize(int width, int height) {
+		if (width != srcWidth || height != srcHeight)
+			throw new IllegalArgumentException("Image size " + width + "x" + height + " does not match the plan ("
+					+ srcWidth + "x" + srcHeight + ")");
+	}
+
+	/**
+	 * Resize the given image.
+	 * 
+	 * @param in
+	 *            the source image; must be the size of the plan's source
+	 * @return a new resized image
+	 */
+	public FImage zoom(FImage in) {
+		return zoom(in, new FImage(dstWidth, dstHeight));
+	}
+
+	/**
+	 * Resize the given image into the given destination image.
+	 * 
+	 * @param in
+	 *            the source image; must be the size of the plan's source
+	 * @param dst
+	 *            the destination image; must be the size of the plan's
+	 *            target
+	 * @return the destination image
+	 */
+	public FImage zoom(FImage in, FImage dst) {
+		checkSize(in.width, in.height);
+
+		final float[][] work = new float[srcHeight][dstWidth];
+		final float maxValue = in.max();
+
+		filterRows(in.pixels, work, maxValue, 0, srcHeight);
+		filterColumns(work, dst.pixels, maxValue, 0, dstHeight);
+
+		return dst;
+	}
+
+	/**
+	 * Resize the given image into the given destination image in parallel
+	 * using the given thread pool.
+	 * 
+	 * @param in
+	 *            the source image; must be the size of the plan's source
+	 * @param dst
+	 *            the destination image; must be the size of the plan's
+	 *            target
+	 * @param pool
+	 *            the thread pool
+	 * @return the destination image
+	 */
+	public FImage zoom(FImage in, FImage dst, ThreadPoolExecutor pool) {
+		return zoom(in, dst, new float[srcHeight][dstWidth], pool);
+	}
+
+	private FImage zoom(final FImage in, final FImage dst, final float[][] work, ThreadPoolExecutor pool) {
+		checkSize(in.width, in.height);
+
+		final float maxValue = in.max();
+
+		Parallel.forRange(0, srcHeight, 1, new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				filterRows(in.pixels, work, maxValue, range.start, range.stop);
+			}
+		}, pool);
+
+		Parallel.forRange(0, dstHeight, 1, new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				filterColumns(work, dst.pixels, maxValue, range.start, range.stop);
+			}
+		}, pool);
+
+		return dst;
+	}
+
+	/**
+	 * Resize all the bands of the given image. Each band is resized
+	 * independently, exactly as with {@link #zoom(FImage)}.
+	 * 
+	 * @param in
+	 *            the source image; must be the size of the plan's source
+	 * @return a new resized image
+	 */
+	public MBFImage zoom(MBFImage in) {
+		final MBFImage dst = new MBFImage(dstWidth, dstHeight, in.getColourSpace());
+
+		final float[][] work = new float[srcHeight][dstWidth];
+		for (int b = 0; b < in.numBands(); b++) {
+			final FImage band = in.getBand(b);
+			checkSize(band.width, band.height);
+
+			final float maxValue = band.max();
+			filterRows(band.pixels, work, maxValue, 0, srcHeight);
+			filterColumns(work, dst.getBand(b).pixels, maxValue, 0, dstHeight);
+		}
+
+		return dst;
+	}
+
+	/**
+	 * Resize all the bands of the given image in parallel using the given
+	 * thread pool. The bands are resized one after another, sharing a single
+	 * work buffer, with the rows of each band split across the pool.
+	 * 
+	 * @param in
+	 *            the source image; must be the size of the plan's source
+	 * @param pool
+	 *            the thread pool
+	 * @return a new resized image
+	 */
+	public MBFImage zoom(MBFImage in, ThreadPoolExecutor pool) {
+		final MBFImage dst = new MBFImage(dstWidth, dstHeight, in.getColourSpace());
+
+		final float[][] work = new float[srcHeight][dstWidth];
+		for (int b = 0; b < in.numBands(); b++)
+			zoom(in.getBand(b), dst.getBand(b), work, pool);
+
+		return dst;
+	}
+
+	/**
+	 * Apply the horizontal filter to rows [start, stop) of the source
+	 */
+	private void filterRows(float[][] src, float[][] work, float maxValue, int start, int stop) {
+		for (int k = start; k < stop; k++) {
+			final float[] srcRow = src[k];
+			final float[] workRow = work[k];
+
+			for (int xx = 0; xx < dstWidth; xx++) {
+				final int from = xOffsets[xx];
+				final int to = xOffsets[xx + 1];
+
+				double weight = 0.0;
+				boolean bPelDelta = false;
+				final double pel = srcRow[xPixels[from]];
+				for (int j = from; j < to; j++) {
+					final double pel2 = j == from ? pel : srcRow[xPixels[j]];
+					if (pel2 != pel) {
+						bPelDelta = true;
+					}
+					weight += pel2 * xWeights[j];
+				}
+				weight = bPelDelta ? Math.round(weight * 255) / 255f : pel;
+
+				if (weight < 0) {
+					weight = 0;
+				}
+				else if (weight > maxValue) {
+					weight = maxValue;
+				}
+
+				workRow[xx] = (float) weight;
+			}
+		}
+	}
+
+	/**
+	 * Apply the vertical filter to make rows [start, stop) of the destination
+	 */
+	private void filterColumns(float[][] work, float[][] dst, float maxValue, int start, int stop) {
+		final double[] acc = new double[dstWidth];
+		final double[] first = new double[dstWidth];
+		final boolean[] delta = new boolean[dstWidth];
+
+		for (int i = start; i < stop; i++) {
+			final int from = yOffsets[i];
+			final int to = yOffsets[i + 1];
+
+			final float[] firstRow = work[yPixels[from]];
+			for (int xx = 0; xx < dstWidth; xx++) {
+				first[xx] = firstRow[xx];
+				acc[xx] = 0;
+				delta[xx] = false;
+			}
+
+			for (int j = from; j < to; j++) {
+				final float[] workRow = work[yPixels[j]];
+				final double w = yWeights[j];
+
+				for (int xx = 0; xx < dstWidth; xx++) {
+					final double pel2 = workRow[xx];
+					if (pel2 != first[xx]) {
+						delta[xx] = true;
+					}
+					acc[xx] += pel2 * w;
+				}
+			}
+
+			final float[] dstRow = dst[i];
+			for (int xx = 0; xx < dstWidth; xx++) {
+				double weight = delta[xx] ? Math.round(acc[xx] * 255) / 255f : first[xx];
+
+				if (weight < 0) {
+					weight = 0;
+				}
+				else if (weight > maxValue) {
+					weight = maxValue;
+				}
+
+				dstRow[xx] = (float) weight;
+			}
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 31 * srcWidth + srcHeight;
+		result = 31 * result + dstWidth;
+		result = 31 * result + dstHeight;
+		return 31 * result + System.identityHashCode(filter);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof ResizePlan))
+			return false;
+
+		final ResizePlan that = (ResizePlan) obj;
+		return srcWidth == that.srcWidth && srcHeight == that.srcHeight && dstWidth == that.dstWidth
+				&& dstHeight == that.dstHeight && filter == that.filter;
+	}
+}
@@ -456,15 +456,25 @@ public class ResizeProcessor implements SinglebandImageProcessor<Float, FImage>
 	 * @return a copy of the original image with twice the size
 	 */
 	public static FImage doubleSize(FImage image) {
-		int nheight, nwidth;
+		return doubleSize(image, new FImage(2 * image.width - 2, 2 * image.height - 2));
+	}
+
+	/**
+	 * Double the size of the image, writing the result into the given
+	 * destination image, which must be (2 * width - 2) by (2 * height - 2)
+	 * pixels.
+	 *
+	 * @param image
+	 *            The image to double in size
+	 * @param dest
+	 *            The destination image
+	 * @return the destination image
+	 */
+	public static FImage doubleSize(FImage image, FImage dest) {
 		float im[][], tmp[][];
-		FImage newimage;
 
-		nheight = 2 * image.height - 2;
-		nwidth = 2 * image.width - 2;
-		newimage = new FImage(nwidth, nheight);
 		im = image.pixels;
-		tmp = newimage.pixels;
+		tmp = dest.pixels;
 
 		for (int y = 0; y < image.height - 1; y++) {
 			for (int x = 0; x < image.width - 1; x++) {
@@ -476,7 +486,7 @@ public class ResizeProcessor implements SinglebandImageProcessor<Float, FImage>
 				tmp[y2 + 1][x2 + 1] = 0.25f * (im[y][x] + im[y + 1][x] + im[y][x + 1] + im[y + 1][x + 1]);
 			}
 		}
-		return newimage;
+		return dest;
 	}
 
 	protected static void internalDoubleSize(FImage image) {
@@ -506,15 +516,29 @@ public class ResizeProcessor implements SinglebandImageProcessor<Float, FImage>
 	 * @return a copy the the image with half the size
 	 */
 	public static FImage halfSize(FImage image) {
+		return halfSize(image, new FImage(image.width / 2, image.height / 2));
+	}
+
+	/**
+	 * Halve the size of the image, writing the result into the given
+	 * destination image, which must be (width / 2) by (height / 2) pixels.
+	 * Note that this method just samples every other pixel and will produce
+	 * aliasing unless the image has been pre-filtered.
+	 *
+	 * @param image
+	 *            The image halve in size
+	 * @param dest
+	 *            The destination image
+	 * @return the destination image
+	 */
+	public static FImage halfSize(FImage image, FImage dest) {
 		int newheight, newwidth;
 		float im[][], tmp[][];
-		FImage newimage;
 
 		newheight = image.height / 2;
 		newwidth = image.width / 2;
-		newimage = new FImage(newwidth, newheight);
 		im = image.pixels;
-		tmp = newimage.pixels;
+		tmp = dest.pixels;
 
 		for (int y = 0, yi = 0; y < newheight; y++, yi += 2) {
 			for (int x = 0, xi = 0; x < newwidth; x++, xi += 2) {
@@ -522,7 +546,7 @@ public class ResizeProcessor implements SinglebandImageProcessor<Float, FImage>
 			}
 		}
 
-		return newimage;
+		return dest;
 	}
 
 	protected static void internalHalfSize(FImage image) {
@@ -806,7 +830,9 @@ public class ResizeProcessor implements SinglebandImageProcessor<Float, FImage>
 	}
 
 	/**
-	 * Resizes bitmaps while resampling them.
+	 * Resizes bitmaps while resampling them. The filter contributions are
+	 * computed by a {@link ResizePlan}, which is cached, so repeatedly resizing
+	 * images between the same sizes doesn't recompute them.
 	 *
 	 * @param dst
 	 *            Destination Image
@@ -818,189 +844,7 @@ public class ResizeProcessor implements SinglebandImageProcessor<Float, FImage>
 	 * @return the destination image
 	 */
 	public static FImage zoom(FImage in, FImage dst, ResizeFilterFunction filterf) {
-		final int dstWidth = dst.getWidth();
-		final int dstHeight = dst.getHeight();
-
-		final int srcWidth = in.getWidth();
-		final int srcHeight = in.getHeight();
-
-		final double xscale = (double) dstWidth / (double) srcWidth;
-		final double yscale = (double) dstHeight / (double) srcHeight;
-
-		/* create intermediate column to hold horizontal dst column zoom */
-		final float[] work = new float[in.height];
-
-		final PixelContributions[] contribY = new PixelContributions[dstHeight];
-		for (int i = 0; i < contribY.length; i++) {
-			contribY[i] = new PixelContributions();
-		}
-
-		final float maxValue = in.max();
-
-		// TODO: What to do when fwidth > srcHeight or dstHeight
-		final double fwidth = filterf.getSupport();
-		if (yscale < 1.0) {
-			double width = fwidth / yscale;
-			double fscale = 1.0 / yscale;
-
-			if (width <= .5) {
-				// Reduce to point sampling.
-				width = .5 + 1.0e-6;
-				fscale = 1.0;
-			}
-
-			for (int i = 0; i < dstHeight; i++) {
-				contribY[i].contributions = new PixelContribution[(int) (width * 2.0 + 1)];
-				contribY[i].numberOfContributors = 0;
-
-				final double center = i / yscale;
-				final int left = (int) Math.ceil(center - width);
-				// final int right = (int) Math.floor(center + width);
-				final int right = left + contribY[i].contributions.length - 1;
-
-				double density = 0.0;
-				for (int j = left; j <= right; j++) {
-					double weight = center - j;
-					weight = filterf.filter(weight / fscale) / fscale;
-					int n;
-					if (j < 0) {
-						n = -j;
-					}
-					else if (j >= srcHeight) {
-						n = (srcHeight - j) + srcHeight - 1;
-					}
-					else {
-						n = j;
-					}
-
-					/**/
-					if (n >= srcHeight) {
-						n = n % srcHeight;
-					}
-					else if (n < 0) {
-						n = srcHeight - 1;
-					}
-					/**/
-
-					final int k = contribY[i].numberOfContributors++;
-					contribY[i].contributions[k] = new PixelContribution();
-					contribY[i].contributions[k].pixel = n;
-					contribY[i].contributions[k].weight = weight;
-
-					density += weight;
-				}
-
-				if ((density != 0.0) && (density != 1.0)) {
-					// Normalize.
-					density = 1.0 / density;
-					for (int k = 0; k < contribY[i].numberOfContributors; k++) {
-						contribY[i].contributions[k].weight *= density;
-					}
-				}
-			}
-		}
-		else {
-			for (int i = 0; i < dstHeight; ++i) {
-				contribY[i].contributions = new PixelContribution[(int) (fwidth * 2 + 1)];
-				contribY[i].numberOfContributors = 0;
-
-				final double center = i / yscale;
-				final double left = Math.ceil(center - fwidth);
-				// final double right = Math.floor(center + fwidth);
-				final double right = left + contribY[i].contributions.length - 1;
-				for (int j = (int) left; j <= right; ++j) {
-					double weight = center - j;
-					weight = filterf.filter(weight);
-					int n;
-					if (j < 0) {
-						n = -j;
-					}
-					else if (j >= srcHeight) {
-						n = (srcHeight - j) + srcHeight - 1;
-					}
-					else {
-						n = j;
-					}
-
-					/**/
-					if (n >= srcHeight) {
-						n = n % srcHeight;
-					}
-					else if (n < 0) {
-						n = srcHeight - 1;
-					}
-					/**/
-
-					final int k = contribY[i].numberOfContributors++;
-					contribY[i].contributions[k] = new PixelContribution();
-					contribY[i].contributions[k].pixel = n;
-					contribY[i].contributions[k].weight = weight;
-				}
-			}
-		}
-
-		for (int xx = 0; xx < dstWidth; xx++) {
-			final PixelContributions contribX = new PixelContributions();
-			calc_x_contrib(contribX, xscale, fwidth, dst.width, in.width, filterf, xx);
-
-			/* Apply horiz filter to make dst column in tmp. */
-			for (int k = 0; k < srcHeight; k++) {
-				double weight = 0.0;
-				boolean bPelDelta = false;
-				// TODO: This line throws index out of bounds, if the image
-				// is smaller than filter.support()
-				final double pel = in.pixels[k][contribX.contributions[0].pixel];
-				for (int j = 0; j < contribX.numberOfContributors; j++) {
-					final double pel2 = j == 0 ? pel : in.pixels[k][contribX.contributions[j].pixel];
-					if (pel2 != pel) {
-						bPelDelta = true;
-					}
-					weight += pel2 * contribX.contributions[j].weight;
-				}
-				weight = bPelDelta ? Math.round(weight * 255) / 255f : pel;
-
-				if (weight < 0) {
-					weight = 0;
-				}
-				else if (weight > maxValue) {
-					weight = maxValue;
-				}
-
-				work[k] = (float) weight;
-			}/* next row in temp column */
-
-			/*
-			 * The temp column has been built. Now stretch it vertically into
-			 * dst column.
-			 */
-			for (int i = 0; i < dstHeight; i++) {
-				double weight = 0.0;
-				boolean bPelDelta = false;
-				final double pel = work[contribY[i].contributions[0].pixel];
-
-				for (int j = 0; j < contribY[i].numberOfContributors; j++) {
-					// TODO: This line throws index out of bounds, if the
-					// image is smaller than filter.support()
-					final double pel2 = j == 0 ? pel : work[contribY[i].contributions[j].pixel];
-					if (pel2 != pel) {
-						bPelDelta = true;
-					}
-					weight += pel2 * contribY[i].contributions[j].weight;
-				}
-				weight = bPelDelta ? Math.round(weight * 255) / 255f : pel;
-
-				if (weight < 0) {
-					weight = 0;
-				}
-				else if (weight > maxValue) {
-					weight = maxValue;
-				}
-
-				dst.pixels[i][xx] = (float) weight;
-			} /* next dst row */
-		} /* next dst column */
-
-		return dst;
+		return ResizePlan.getPlan(in.width, in.height, dst.width, dst.height, filterf).zoom(in, dst);
 	}
 
 	/**
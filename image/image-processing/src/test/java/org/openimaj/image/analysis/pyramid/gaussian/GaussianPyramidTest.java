@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.analysis.pyramid.gaussian;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.analysis.pyramid.OctaveProcessor;
+import org.openimaj.image.processing.convolution.FGaussianConvolve;
+import org.openimaj.image.processing.resize.ResizeProcessor;
+
+/**
+ * Tests for the {@link GaussianPyramid}
+ */
+public class GaussianPyramidTest {
+	/**
+	 * {@link OctaveProcessor} that records copies of the octaves it sees
+	 */
+	private static class Recorder implements OctaveProcessor<GaussianOctave<FImage>, FImage> {
+		List<Float> sizes = new ArrayList<Float>();
+		List<FImage[]> images = new ArrayList<FImage[]>();
+		List<FImage> first = new ArrayList<FImage>();
+
+		@Override
+		public void process(GaussianOctave<FImage> octave) {
+			sizes.add(octave.octaveSize);
+			first.add(octave.images[1]);
+
+			final FImage[] copy = new FImage[octave.images.length];
+			for (int i = 0; i < copy.length; i++)
+				copy[i] = octave.images[i].clone();
+			images.add(copy);
+		}
+	}
+
+	/**
+	 * Build the octaves by blurring freshly allocated images one level at a
+	 * time
+	 */
+	private static List<FImage[]> reference(FImage img, GaussianPyramidOptions<FImage> options) {
+		final List<FImage[]> octaves = new ArrayList<FImage[]>();
+
+		FImage image = ResizeProcessor.doubleSize(img);
+		image.processInplace(new FGaussianConvolve((float) Math.sqrt(1.6f * 1.6f - 1)));
+
+		final float k = (float) Math.pow(2.0, 1.0 / options.scales);
+		while (image.height > 2 + 2 * options.borderPixels && image.width > 2 + 2 * options.borderPixels) {
+			final FImage[] images = new FImage[options.scales + options.extraScaleSteps + 1];
+			images[0] = image;
+
+			float prevSigma = options.initialSigma;
+			for (int i = 1; i < images.length; i++) {
+				images[i] = images[i - 1].clone();
+				images[i].processInplace(new FGaussianConvolve(prevSigma * (float) Math.sqrt(k * k - 1.0)));
+				prevSigma *= k;
+			}
+
+			octaves.add(images);
+			image = ResizeProcessor.halfSize(images[options.scales]);
+		}
+
+		return octaves;
+	}
+
+	private static void assertOctavesEqual(List<FImage[]> expected, List<FImage[]> actual) {
+		assertEquals(expected.size(), actual.size());
+
+		for (int o = 0; o < expected.size(); o++) {
+			assertEquals(expected.get(o).length, actual.get(o).length);
+
+			for (int i = 0; i < expected.get(o).length; i++)
+				assertEquals(expected.get(o)[i], actual.get(o)[i]);
+		}
+	}
+
+	/**
+	 * Test that the pyramid matches blurring each level from freshly
+	 * allocated images, with and without buffer reuse and concurrency
+	 */
+	@Test
+	public void testPyramid() {
+		final Random rng = new Random(0);
+		final FImage[] inputs = { FImage.randomImage(rng, 67, 53), FImage.randomImage(rng, 67, 53),
+				FImage.randomImage(rng, 40, 61) };
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			for (final boolean reuse : new boolean[] { false, true }) {
+				for (final ThreadPoolExecutor p : new ThreadPoolExecutor[] { null, pool }) {
+					final GaussianPyramidOptions<FImage> options = new GaussianPyramidOptions<FImage>();
+					options.setReuseBuffers(reuse);
+
+					final GaussianPyramid<FImage> pyramid = new GaussianPyramid<FImage>(options, p);
+
+					FImage previous = null;
+					for (final FImage input : inputs) {
+						final Recorder recorder = new Recorder();
+						options.setOctaveProcessor(recorder);
+
+						pyramid.process(input);
+
+						assertOctavesEqual(reference(input, options), recorder.images);
+						for (int o = 0; o < recorder.sizes.size(); o++)
+							assertEquals((float) Math.pow(2, o - 1), recorder.sizes.get(o), 0f);
+
+						// same-sized images should share buffers when reusing
+						if (reuse && previous != null && previous.width == input.width)
+							assertSame(previous, recorder.first.get(0));
+						previous = recorder.first.get(0);
+					}
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test that images too small to build an octave from, and octave ranges
+	 * beyond the last octave, produce no octaves rather than blocking or
+	 * failing
+	 */
+	@Test(timeout = 10000)
+	public void testNoOctaves() {
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+
+		try {
+			for (final ThreadPoolExecutor p : new ThreadPoolExecutor[] { null, pool }) {
+				// doubled to 10x10, which is within the default 5 pixel border
+				final GaussianPyramidOptions<FImage> small = new GaussianPyramidOptions<FImage>();
+				final Recorder smallRecorder = new Recorder();
+				small.setOctaveProcessor(smallRecorder);
+				new GaussianPyramid<FImage>(small, p).process(FImage.randomImage(new Random(2), 5, 5));
+				assertEquals(0, smallRecorder.images.size());
+
+				final GaussianPyramidOptions<FImage> beyond = new GaussianPyramidOptions<FImage>();
+				final Recorder beyondRecorder = new Recorder();
+				beyond.setOctaveProcessor(beyondRecorder);
+				beyond.setOctaveRange(20, 30);
+				new GaussianPyramid<FImage>(beyond, p).process(FImage.randomImage(new Random(3), 64, 64));
+				assertEquals(0, beyondRecorder.images.size());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test that retained octaves are not overwritten by the next image, even
+	 * if buffer reuse was requested
+	 */
+	@Test
+	public void testKeptOctavesNotReused() {
+		final Random rng = new Random(4);
+		final GaussianPyramidOptions<FImage> options = new GaussianPyramidOptions<FImage>();
+		options.setReuseBuffers(true);
+		options.setKeepOctaves(true);
+
+		final GaussianPyramid<FImage> pyramid = new GaussianPyramid<FImage>(options);
+		pyramid.process(FImage.randomImage(rng, 48, 40));
+		final FImage kept = pyramid.getOctaves().get(0).images[1];
+		final FImage copy = kept.clone();
+
+		pyramid.process(FImage.randomImage(rng, 48, 40));
+		assertEquals(copy, kept);
+	}
+
+	/**
+	 * Test that only the requested range of octaves is processed
+	 */
+	@Test
+	public void testOctaveRange() {
+		final FImage input = FImage.randomImage(new Random(1), 100, 80);
+		final List<FImage[]> expected = reference(input, new GaussianPyramidOptions<FImage>());
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			for (final ThreadPoolExecutor p : new ThreadPoolExecutor[] { null, pool }) {
+				final GaussianPyramidOptions<FImage> options = new GaussianPyramidOptions<FImage>();
+				final Recorder recorder = new Recorder();
+				options.setOctaveProcessor(recorder);
+				options.setOctaveRange(1, 2);
+				options.setKeepOctaves(true);
+
+				final GaussianPyramid<FImage> pyramid = new GaussianPyramid<FImage>(options, p);
+				pyramid.process(input);
+
+				assertOctavesEqual(expected.subList(1, 3), recorder.images);
+				assertEquals(2, pyramid.getOctaves().size());
+				assertEquals(1f, recorder.sizes.get(0), 0f);
+				assertEquals(2f, recorder.sizes.get(1), 0f);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
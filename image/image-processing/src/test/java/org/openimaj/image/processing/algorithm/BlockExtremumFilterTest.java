@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+
+/**
+ * Tests for the {@link BlockMinFilter} and {@link BlockMaxFilter}
+ */
+public class BlockExtremumFilterTest {
+	private static FImage extremum(FImage image, int width, int height, boolean max) {
+		final FImage output = new FImage(image.width, image.height);
+
+		for (int y = 0; y < image.height; y++) {
+			for (int x = 0; x < image.width; x++) {
+				float v = max ? -Float.MAX_VALUE : Float.MAX_VALUE;
+				for (int yy = y - height / 2; yy < y - height / 2 + height; yy++)
+					for (int xx = x - width / 2; xx < x - width / 2 + width; xx++)
+						if (xx >= 0 && yy >= 0 && xx < image.width && yy < image.height)
+							v = max ? Math.max(v, image.pixels[yy][xx]) : Math.min(v, image.pixels[yy][xx]);
+
+				output.pixels[y][x] = v;
+			}
+		}
+
+		return output;
+	}
+
+	/**
+	 * Test the placement of even sized blocks (which extend one pixel further
+	 * before the centre than after it), and the monotone runs and plateaus
+	 * that are the best and worst cases for the deque
+	 */
+	@Test
+	public void testRuns() {
+		final FImage rising = new FImage(10, 1);
+		final FImage falling = new FImage(10, 1);
+		for (int x = 0; x < 10; x++) {
+			rising.pixels[0][x] = x;
+			falling.pixels[0][x] = 9 - x;
+		}
+
+		// a block of 4 covers x - 2 to x + 1
+		final FImage risingMax = new FImage(10, 1);
+		final FImage risingMin = new FImage(10, 1);
+		final FImage fallingMax = new FImage(10, 1);
+		final FImage fallingMin = new FImage(10, 1);
+		for (int x = 0; x < 10; x++) {
+			risingMax.pixels[0][x] = Math.min(9, x + 1);
+			risingMin.pixels[0][x] = Math.max(0, x - 2);
+			fallingMax.pixels[0][x] = 9 - Math.max(0, x - 2);
+			fallingMin.pixels[0][x] = 9 - Math.min(9, x + 1);
+		}
+		assertEquals(risingMax, rising.process(new BlockMaxFilter(4, 1)));
+		assertEquals(risingMin, rising.process(new BlockMinFilter(4, 1)));
+		assertEquals(fallingMax, falling.process(new BlockMaxFilter(4, 1)));
+		assertEquals(fallingMin, falling.process(new BlockMinFilter(4, 1)));
+
+		final FImage plateaus = new FImage(new float[][] { { 1, 1, 1, 0, 0, 1, 1, 2, 2, 2, 0 } });
+		for (final int size : new int[] { 2, 3, 4 }) {
+			assertEquals(extremum(plateaus, size, 1, false), plateaus.process(new BlockMinFilter(size, 1)));
+			assertEquals(extremum(plateaus, size, 1, true), plateaus.process(new BlockMaxFilter(size, 1)));
+		}
+
+		// blocks covering the whole image
+		final FImage column = new FImage(new float[][] { { 3 }, { 1 }, { 4 }, { 1 }, { 5 } });
+		final FImage expected = new FImage(1, 5);
+		expected.fill(1);
+		assertEquals(expected, column.process(new BlockMinFilter(1, 9)));
+		expected.fill(5);
+		assertEquals(expected, column.process(new BlockMaxFilter(3, 10)));
+	}
+
+	/**
+	 * Test against a naive implementation for a range of odd and even block
+	 * sizes
+	 */
+	@Test
+	public void testFilters() {
+		final Random rng = new Random(0);
+		final FImage image = FImage.randomImage(rng, 71, 53);
+
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+		try {
+			for (final int[] size : new int[][] { { 1, 1 }, { 3, 3 }, { 4, 7 }, { 15, 2 }, { 100, 9 } }) {
+				final FImage min = extremum(image, size[0], size[1], false);
+				assertEquals(min, image.process(new BlockMinFilter(size[0], size[1])));
+				assertEquals(min, image.process(new BlockMinFilter(size[0], size[1], pool)));
+
+				final FImage max = extremum(image, size[0], size[1], true);
+				assertEquals(max, image.process(new BlockMaxFilter(size[0], size[1])));
+				assertEquals(max, image.process(new BlockMaxFilter(size[0], size[1], pool)));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
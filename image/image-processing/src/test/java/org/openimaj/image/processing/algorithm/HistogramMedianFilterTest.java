@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+
+/**
+ * Tests for the {@link HistogramMedianFilter}
+ */
+public class HistogramMedianFilterTest {
+	private static FImage median(FImage image, int radius) {
+		final FImage output = new FImage(image.width, image.height);
+		final float[] window = new float[(2 * radius + 1) * (2 * radius + 1)];
+
+		for (int y = 0; y < image.height; y++) {
+			for (int x = 0; x < image.width; x++) {
+				int n = 0;
+				for (int yy = Math.max(0, y - radius); yy <= Math.min(image.height - 1, y + radius); yy++)
+					for (int xx = Math.max(0, x - radius); xx <= Math.min(image.width - 1, x + radius); xx++)
+						window[n++] = image.pixels[yy][xx];
+
+				Arrays.sort(window, 0, n);
+				output.pixels[y][x] = (n & 1) == 1 ? window[n / 2] : (window[n / 2 - 1] + window[n / 2]) / 2f;
+			}
+		}
+
+		return output;
+	}
+
+	/**
+	 * Test an image with 8-bit values, which uses the histograms directly
+	 */
+	@Test
+	public void testQuantised() {
+		final Random rng = new Random(0);
+		final FImage image = new FImage(83, 61);
+		for (int y = 0; y < image.height; y++)
+			for (int x = 0; x < image.width; x++)
+				image.pixels[y][x] = rng.nextInt(256) / 255f;
+
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+		try {
+			for (final int radius : new int[] { 0, 1, 4, 11 }) {
+				final FImage expected = median(image, radius);
+				assertEquals(expected, image.process(new HistogramMedianFilter(radius)));
+				assertEquals(expected, image.process(new HistogramMedianFilter(radius, true, pool)));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test windows with an even number of pixels (where the window is clipped
+	 * by the edges of the image), including where the two middle values fall
+	 * in different coarse bins of the histograms
+	 */
+	@Test
+	public void testEvenWindows() {
+		final FImage pair = new FImage(new float[][] { { 0.25f, 0.75f } });
+		assertEquals(new FImage(new float[][] { { 0.5f, 0.5f } }), pair.process(new HistogramMedianFilter(1)));
+
+		final FImage square = new FImage(new float[][] { { 0, 0.25f }, { 0.5f, 0.75f } });
+		final FImage expected = new FImage(2, 2);
+		expected.fill(0.375f);
+		assertEquals(expected, square.process(new HistogramMedianFilter(5)));
+
+		// a single row and column of 34 distinct values; with a radius of 20
+		// the window at x = 11 holds values 0..31, whose middle values (15
+		// and 16) are in different coarse bins
+		final FImage row = new FImage(34, 1);
+		final FImage column = new FImage(1, 34);
+		for (int i = 0; i < 34; i++)
+			row.pixels[0][i] = column.pixels[i][0] = i / 33f;
+
+		for (final int radius : new int[] { 1, 2, 20, 40 }) {
+			assertEquals(median(row, radius), row.process(new HistogramMedianFilter(radius)));
+			assertEquals(median(column, radius), column.process(new HistogramMedianFilter(radius)));
+		}
+	}
+
+	/**
+	 * Test that images with 256 distinct values (the histogram path) and 257
+	 * distinct values (the sorted path) are both filtered exactly
+	 */
+	@Test
+	public void testDistinctValueLimit() {
+		for (final int distinct : new int[] { 256, 257 }) {
+			final Random rng = new Random(distinct);
+			final FImage image = new FImage(31, 29);
+			for (int y = 0; y < image.height; y++)
+				for (int x = 0; x < image.width; x++)
+					image.pixels[y][x] = (y * image.width + x) % distinct;
+
+			// shuffle the pixels so the windows hold arbitrary values
+			for (int i = image.width * image.height - 1; i > 0; i--) {
+				final int j = rng.nextInt(i + 1);
+				final float tmp = image.pixels[i / image.width][i % image.width];
+				image.pixels[i / image.width][i % image.width] = image.pixels[j / image.width][j % image.width];
+				image.pixels[j / image.width][j % image.width] = tmp;
+			}
+
+			for (final int radius : new int[] { 1, 3 })
+				assertEquals(median(image, radius), image.process(new HistogramMedianFilter(radius)));
+		}
+	}
+
+	/**
+	 * Test an image with arbitrary values, exactly and approximately
+	 */
+	@Test
+	public void testContinuous() {
+		final Random rng = new Random(1);
+		final FImage image = FImage.randomImage(rng, 57, 40);
+
+		for (final int radius : new int[] { 1, 6 }) {
+			final FImage expected = median(image, radius);
+			assertEquals(expected, image.process(new HistogramMedianFilter(radius)));
+
+			// within a quantisation level
+			final float tol = (image.max() - image.min()) / 255;
+			assertTrue(expected.equalsThresh(image.process(new HistogramMedianFilter(radius, false)), tol));
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.processing.convolution.FourierConvolve;
+import org.openimaj.image.processor.SinglebandImageProcessor;
+
+import edu.emory.mathcs.jtransforms.fft.FloatFFT_2D;
+
+/**
+ * Tests for {@link RealFFT2D}, checking it against the full complex FFT.
+ */
+public class RealFFT2DTest {
+	private static final int[][] SIZES = { { 16, 16 }, { 20, 33 }, { 31, 24 }, { 7, 9 }, { 1, 6 }, { 5, 1 } };
+
+	private static float[][] complexForward(float[][] data, int rows, int cols, boolean centre) {
+		final float[][] prepared = FourierTransform.prepareData(data, rows, cols, centre);
+		new FloatFFT_2D(rows, cols).complexForward(prepared);
+		return prepared;
+	}
+
+	private static void assertEquals(float[][] expected, float[][] actual, int width, float tol) {
+		for (int y = 0; y < expected.length; y++) {
+			final float[] e = new float[width];
+			final float[] a = new float[width];
+			System.arraycopy(expected[y], 0, e, 0, width);
+			System.arraycopy(actual[y], 0, a, 0, width);
+			assertArrayEquals(e, a, tol);
+		}
+	}
+
+	/**
+	 * Test that the forward transforms match the complex FFT, and that the
+	 * inverse recovers the data.
+	 */
+	@Test
+	public void testForwardInverse() {
+		final Random rng = new Random(0);
+
+		for (final int[] size : SIZES) {
+			final int rows = size[0], cols = size[1];
+			if (rows < 2 || cols < 2)
+				continue; // FloatFFT_2D doesn't support these
+
+			final FImage img = FImage.randomImage(rng, cols, rows);
+			final RealFFT2D fft = FFTPlanCache.getRealFFT2D(rows, cols);
+
+			for (final boolean centre : new boolean[] { false, true }) {
+				final float[][] expected = complexForward(img.pixels, rows, cols, centre);
+
+				final float[][] spectrum = fft.forward(img.pixels, centre);
+				assertEquals(expected, spectrum, 2 * fft.getSpectrumCols(), 1e-3f);
+
+				final float[][] full = new float[rows][2 * cols];
+				fft.forwardFull(img.pixels, centre, full);
+				assertEquals(expected, full, 2 * cols, 1e-3f);
+
+				final float[][] out = new float[rows][cols];
+				fft.inverse(spectrum, out, centre);
+				assertEquals(img.pixels, out, cols, 1e-5f);
+			}
+		}
+	}
+
+	/**
+	 * Test the spectra of single sinusoids against their analytic values. For
+	 * odd widths the last stored column is an ordinary frequency whose
+	 * conjugate is not stored, whereas for even widths it is the Nyquist
+	 * frequency, which is its own conjugate.
+	 */
+	@Test
+	public void testSinusoids() {
+		final int[][] cases = { { 6, 9, 1, 4 }, { 5, 7, 2, 3 }, { 3, 1, 1, 0 }, { 4, 8, 0, 4 }, { 4, 8, 1, 4 } };
+
+		for (final int[] c : cases) {
+			final int rows = c[0], cols = c[1], ky = c[2], kx = c[3];
+			final RealFFT2D fft = new RealFFT2D(rows, cols);
+			org.junit.Assert.assertEquals(cols / 2 + 1, fft.getSpectrumCols());
+
+			for (final boolean sine : new boolean[] { false, true }) {
+				final float[][] data = new float[rows][cols];
+				for (int y = 0; y < rows; y++) {
+					for (int x = 0; x < cols; x++) {
+						final double phase = 2 * Math.PI * ((double) kx * x / cols + (double) ky * y / rows);
+						data[y][x] = (float) (sine ? Math.sin(phase) : Math.cos(phase));
+					}
+				}
+
+				// cos has N/2 at k and -k; sin has -iN/2 at k and iN/2 at -k
+				final float[][] expected = fft.newSpectrum();
+				final float half = rows * cols / 2f;
+				addComponent(expected, ky % rows, kx, cols, sine ? 0 : half, sine ? -half : 0);
+				addComponent(expected, (rows - ky) % rows, (cols - kx) % cols, cols, sine ? 0 : half, sine ? half : 0);
+
+				assertEquals(expected, fft.forward(data, false), expected[0].length, 1e-3f);
+			}
+		}
+	}
+
+	private static void addComponent(float[][] spectrum, int row, int col, int cols, float re, float im) {
+		if (col <= cols / 2) {
+			spectrum[row][2 * col] += re;
+			spectrum[row][2 * col + 1] += im;
+		}
+	}
+
+	/**
+	 * Test that degenerate sizes round-trip
+	 */
+	@Test
+	public void testDegenerate() {
+		final Random rng = new Random(1);
+
+		for (final int[] size : SIZES) {
+			final FImage img = FImage.randomImage(rng, size[1], size[0]);
+			final RealFFT2D fft = new RealFFT2D(size[0], size[1]);
+
+			final float[][] out = new float[size[0]][size[1]];
+			fft.inverse(fft.forward(img.pixels, false), out, false);
+			assertEquals(img.pixels, out, size[1], 1e-5f);
+		}
+	}
+
+	/**
+	 * Test the convolution and correlation against the complex FFT
+	 */
+	@Test
+	public void testConvolveCorrelate() {
+		final Random rng = new Random(2);
+
+		for (final int[] size : SIZES) {
+			final int rows = size[0], cols = size[1];
+			if (rows < 2 || cols < 2)
+				continue;
+
+			final FImage img = FImage.randomImage(rng, cols, rows);
+			final FImage kernel = FImage.randomImage(rng, Math.max(1, cols / 3), Math.max(1, rows / 3));
+
+			for (final boolean conj : new boolean[] { false, true }) {
+				final float[][] a = complexForward(img.pixels, rows, cols, false);
+				final float[][] b = complexForward(kernel.pixels, rows, cols, false);
+				for (int y = 0; y < rows; y++) {
+					for (int x = 0; x < cols; x++) {
+						final float re = a[y][2 * x], im = a[y][2 * x + 1];
+						final float kr = b[y][2 * x], ki = conj ? -b[y][2 * x + 1] : b[y][2 * x + 1];
+						a[y][2 * x] = re * kr - im * ki;
+						a[y][2 * x + 1] = re * ki + im * kr;
+					}
+				}
+				new FloatFFT_2D(rows, cols).complexInverse(a, true);
+				final FImage expected = new FImage(cols, rows);
+				FourierTransform.unprepareData(a, expected, false);
+
+				final FImage actual = conj ? FourierCorrelation.correlate(img, kernel, false) :
+						FourierConvolve.convolve(img, kernel.pixels, false);
+				assertEquals(expected.pixels, actual.pixels, cols, 1e-3f);
+
+				// the processors cache the kernel spectrum; check it is reused
+				final SinglebandImageProcessor<Float, FImage> processor = conj ? new FourierCorrelation(kernel) :
+						new FourierConvolve(kernel);
+				for (int i = 0; i < 2; i++)
+					assertEquals(expected.pixels, img.process(processor).pixels, cols, 1e-3f);
+			}
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.morphology;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.pixel.Pixel;
+import org.openimaj.image.processor.KernelProcessor;
+
+/**
+ * Tests for the {@link BinaryMorphology} engine against the
+ * {@link org.openimaj.image.processor.KernelProcessor} implementations
+ */
+public class BinaryMorphologyTest {
+	private static final StructuringElement[] ELEMENTS = {
+			StructuringElement.BOX,
+			StructuringElement.CROSS,
+			StructuringElement.HPIT,
+			StructuringElement.disk(4),
+			rectangle(15, 1, 7, 0),
+			rectangle(1, 9, 0, 2),
+			rectangle(70, 5, 30, 1),
+			new StructuringElement(new Pixel[] { new Pixel(0, 0), new Pixel(3, -1), new Pixel(-2, 2) },
+					new Pixel[] { new Pixel(1, 1), new Pixel(-1, 0) })
+	};
+
+	private static StructuringElement rectangle(int width, int height, int x0, int y0) {
+		final Pixel[] pixels = new Pixel[width * height];
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				pixels[y * width + x] = new Pixel(x - x0, y - y0);
+		return new StructuringElement(pixels, new Pixel[0]);
+	}
+
+	private static FImage randomImage(int width, int height, Random rng) {
+		final FImage image = new FImage(width, height);
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				image.pixels[y][x] = rng.nextFloat() < 0.5 ? 1 : 0;
+		return image;
+	}
+
+	/**
+	 * Wrap a processor so that it is applied to a copy of each patch, rather
+	 * than through {@link org.openimaj.image.processor.FKernelProcessor}
+	 */
+	private static KernelProcessor<Float, FImage> patchwise(final KernelProcessor<Float, FImage> p) {
+		return new KernelProcessor<Float, FImage>() {
+			@Override
+			public int getKernelHeight() {
+				return p.getKernelHeight();
+			}
+
+			@Override
+			public int getKernelWidth() {
+				return p.getKernelWidth();
+			}
+
+			@Override
+			public Float processKernel(FImage patch) {
+				return p.processKernel(patch);
+			}
+		};
+	}
+
+	/**
+	 * Test dilation and erosion, with and without padding and a thread pool
+	 */
+	@Test
+	public void testDilateErode() {
+		final Random rng = new Random(0);
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			for (final int[] sz : new int[][] { { 150, 97 }, { 64, 3 }, { 5, 70 } }) {
+				final FImage image = randomImage(sz[0], sz[1], rng);
+
+				for (final StructuringElement se : ELEMENTS) {
+					final Dilate dilate = new Dilate(se);
+					final Erode erode = new Erode(se);
+
+					for (final boolean pad : new boolean[] { true, false }) {
+						final FImage dilated = image.process(patchwise(dilate), pad);
+						assertEquals(dilated, image.process(dilate, pad));
+						assertEquals(dilated, dilate.process(image, pad));
+						assertEquals(dilated, dilate.process(image, pad, pool));
+
+						final FImage eroded = image.process(patchwise(erode), pad);
+						assertEquals(eroded, image.process(erode, pad));
+						assertEquals(eroded, erode.process(image, pad));
+						assertEquals(eroded, erode.process(image, pad, pool));
+					}
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test single pixels dilated across the boundaries of the 64-pixel words
+	 * the rows are packed into (including by an element wider than a word),
+	 * and erosion of a full image at its edges
+	 */
+	@Test
+	public void testWordBoundaries() {
+		final Dilate box = new Dilate(StructuringElement.BOX);
+		final Dilate line = new Dilate(rectangle(69, 1, 34, 0));
+
+		for (final int width : new int[] { 63, 64, 65, 128, 129, 200 }) {
+			for (final int x : new int[] { 0, 62, 63, 64, 65, 127, 128, width - 1 }) {
+				if (x >= width)
+					continue;
+
+				final FImage image = new FImage(width, 3);
+				image.pixels[1][x] = 1;
+
+				final FImage expected = new FImage(width, 3);
+				for (int y = 0; y < 3; y++)
+					for (int xx = Math.max(0, x - 1); xx <= Math.min(width - 1, x + 1); xx++)
+						expected.pixels[y][xx] = 1;
+				assertEquals(expected, box.process(image, true));
+
+				// a run of 69 pixels, clipped by the edges of the image
+				final FImage run = line.process(image, true);
+				int count = 0, first = -1, last = -1;
+				for (int xx = 0; xx < width; xx++) {
+					if (run.pixels[1][xx] == 1) {
+						count++;
+						last = xx;
+						if (first < 0)
+							first = xx;
+					}
+				}
+				assertEquals(Math.max(0, x - 34), first);
+				assertEquals(Math.min(width - 1, x + 34), last);
+				assertEquals(last - first + 1, count);
+			}
+		}
+
+		final FImage full = new FImage(65, 4);
+		full.fill(1);
+		final FImage eroded = new FImage(65, 4);
+		for (int y = 1; y < 3; y++)
+			for (int x = 1; x < 64; x++)
+				eroded.pixels[y][x] = 1;
+		assertEquals(eroded, new Erode(StructuringElement.BOX).process(full, true));
+	}
+
+	/**
+	 * Test the hit-and-miss transform
+	 */
+	@Test
+	public void testHitAndMiss() {
+		final FImage image = randomImage(130, 60, new Random(1));
+
+		for (final HitAndMiss hm : new HitAndMiss[] { HitAndMiss.CONVEX_CORNERS, new HitAndMiss(GolayAlphabet.L),
+				new HitAndMiss(GolayAlphabet.E) })
+		{
+			for (final boolean pad : new boolean[] { true, false }) {
+				final FImage expected = image.process(patchwise(hm), pad);
+				assertEquals(expected, image.process(hm, pad));
+				assertEquals(expected, hm.process(image, pad));
+			}
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.resize;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.processing.resize.filters.BSplineFilter;
+import org.openimaj.image.processing.resize.filters.Lanczos3Filter;
+
+/**
+ * Tests for the {@link ResizePlan}
+ */
+public class ResizePlanTest {
+	/**
+	 * Test that the parallel and multiband paths give the same result as the
+	 * sequential single band one
+	 */
+	@Test
+	public void testParallelAndMultiband() {
+		final Random rng = new Random(0);
+		final ResizeFilterFunction[] filters = { ResizeProcessor.DEFAULT_FILTER, new BSplineFilter(),
+				new Lanczos3Filter() };
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+
+		try {
+			for (final ResizeFilterFunction filter : filters) {
+				for (final int[] sz : new int[][] { { 97, 53, 40, 21 }, { 30, 40, 91, 77 }, { 64, 64, 64, 32 } }) {
+					final ResizePlan plan = ResizePlan.create(sz[0], sz[1], sz[2], sz[3], filter);
+					final MBFImage image = new MBFImage(FImage.randomImage(rng, sz[0], sz[1]),
+							FImage.randomImage(rng, sz[0], sz[1]), FImage.randomImage(rng, sz[0], sz[1]));
+
+					final MBFImage sequential = plan.zoom(image);
+					final MBFImage parallel = plan.zoom(image, pool);
+
+					for (int b = 0; b < 3; b++) {
+						final FImage expected = plan.zoom(image.getBand(b));
+						assertEquals(expected, sequential.getBand(b));
+						assertEquals(expected, parallel.getBand(b));
+					}
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test that the filter weights are normalised, including at the edges of
+	 * the image and for extreme and single pixel sizes, by resizing a constant
+	 * image
+	 */
+	@Test
+	public void testConstant() {
+		final ResizeFilterFunction[] filters = { ResizeProcessor.DEFAULT_FILTER, new BSplineFilter(),
+				new Lanczos3Filter() };
+		final int[][] sizes = { { 40, 30, 40, 30 }, { 200, 3, 1, 1 }, { 1, 1, 17, 5 }, { 1, 9, 4, 1 }, { 7, 7, 500, 2 } };
+
+		for (final ResizeFilterFunction filter : filters) {
+			for (final int[] sz : sizes) {
+				final FImage image = new FImage(sz[0], sz[1]);
+				image.fill(0.7f);
+
+				final FImage expected = new FImage(sz[2], sz[3]);
+				expected.fill(0.7f);
+
+				final FImage actual = ResizePlan.create(sz[0], sz[1], sz[2], sz[3], filter).zoom(image);
+				assertTrue(expected.equalsThresh(actual, 1e-5f));
+			}
+		}
+	}
+
+	/**
+	 * Test that plans are cached and that zoom uses them
+	 */
+	@Test
+	public void testCache() {
+		final ResizeFilterFunction filter = new BSplineFilter();
+		final ResizePlan plan = ResizePlan.getPlan(120, 80, 60, 40, filter);
+
+		assertSame(plan, ResizePlan.getPlan(120, 80, 60, 40, filter));
+		assertEquals(60, plan.getTargetWidth());
+
+		final FImage image = FImage.randomImage(new Random(1), 120, 80);
+		assertEquals(plan.zoom(image), ResizeProcessor.zoom(image, new FImage(60, 40), filter));
+	}
+
+	/**
+	 * Test that images of the wrong size are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongSize() {
+		ResizePlan.create(120, 80, 60, 40, ResizeProcessor.DEFAULT_FILTER).zoom(new FImage(80, 120));
+	}
+}
@@ -29,6 +29,7 @@
  */
 package org.openimaj.ml.clustering.dbscan;
 
+import org.openimaj.math.matrix.similarity.SparseSimilarityMatrix;
 import org.openimaj.ml.clustering.SimilarityClusterer;
 
 import ch.akuhn.matrix.SparseMatrix;
@@ -60,4 +61,19 @@ public class SimilarityDBSCAN extends SparseMatrixDBSCAN implements SimilarityCl
 		return dbscan(s);
 	}
 
+	/**
+	 * Cluster the stored entries of a {@link SparseSimilarityMatrix} (for
+	 * example, one built by a
+	 * {@link org.openimaj.math.matrix.similarity.SimilarityMatrixBuilder}).
+	 * Only the stored similarities are read, so the matrix is never made
+	 * dense.
+	 * 
+	 * @param sim
+	 *            the similarity matrix
+	 * @return the clusters
+	 */
+	public DoubleDBSCANClusters clusterSimilarity(SparseSimilarityMatrix sim) {
+		return this.clusterSimilarity(sim.getMatrix());
+	}
+
 }
@@ -116,12 +116,7 @@ public abstract class GraphLaplacian{
 				if(Double.isNaN(degree.get(i, i)) || Double.isInfinite(degree.get(i, i)) ) 
 					invSqrtDegree.put(i, i, 0); 
 			}
-			SparseMatrix ret = MatlibMatrixUtils.times(
-				MatlibMatrixUtils.times(
-					invSqrtDegree, adj
-				),
-				invSqrtDegree
-			);
+			SparseMatrix ret = MatlibMatrixUtils.times(invSqrtDegree, adj, invSqrtDegree);
 			return ret;
 		}
 
@@ -147,12 +142,7 @@ public abstract class GraphLaplacian{
 				if(Double.isNaN(degree.get(i, i)) || Double.isInfinite(degree.get(i, i)) ) 
 					invDegree.put(i, i, 0); 
 			}
-			SparseMatrix ret = MatlibMatrixUtils.times(
-				MatlibMatrixUtils.times(
-					invDegree, adj
-				),
-				invDegree
-			);
+			SparseMatrix ret = MatlibMatrixUtils.times(invDegree, adj, invDegree);
 			return ret;
 		}
 
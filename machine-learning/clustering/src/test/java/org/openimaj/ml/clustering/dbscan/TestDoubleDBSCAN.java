@@ -39,6 +39,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.openimaj.io.FileUtils;
 import org.openimaj.knn.DoubleNearestNeighboursExact;
+import org.openimaj.math.matrix.similarity.SparseSimilarityMatrix;
 import org.openimaj.ml.clustering.dbscan.ClusterTestDataLoader.TestStats;
 
 import ch.akuhn.matrix.SparseMatrix;
@@ -113,6 +114,36 @@ public class TestDoubleDBSCAN {
 			assertTrue(toSet(this.testClusters[i]).equals(toSet(res.clusters()[i])));
 		}
 	}
+
+	/**
+	 * Cluster a {@link SparseSimilarityMatrix} holding only the similarities
+	 * of the points that are neighbours
+	 */
+	@Test
+	public void testSparseSimilarityMatrix(){
+		String[] index = new String[testData.length];
+		for (int i = 0; i < index.length; i++) {
+			index[i] = Integer.toString(i);
+		}
+		SparseSimilarityMatrix sim = new SparseSimilarityMatrix(index);
+		for (int i = 0; i < testData.length; i++) {
+			for (int j = i + 1; j < testData.length; j++) {
+				double d = DoubleNearestNeighboursExact.distanceFunc(testData[i], testData[j]);
+				if(d>=this.testStats.eps) continue;
+				sim.set(i, j, 1 / (1 + d));
+				sim.set(j, i, 1 / (1 + d));
+			}
+		}
+		SimilarityDBSCAN dbscan = new SimilarityDBSCAN(
+			1 / (1 + this.testStats.eps),
+			this.testStats.minpts
+		);
+		DoubleDBSCANClusters res = dbscan.clusterSimilarity(sim);
+		assertTrue(res.getNoise().length == this.testStats.noutliers);
+		for (int i = 0; i < this.testClusters.length; i++) {
+			assertTrue(toSet(this.testClusters[i]).equals(toSet(res.clusters()[i])));
+		}
+	}
 	private Set<Integer> toSet(int[] is) {
 		Set<Integer> set = new HashSet<Integer>();
 		for (int i = 0; i < is.length; i++) {
@@ -31,9 +31,11 @@ package org.openimaj.ml.pca;
 
 import java.util.Collection;
 
+import org.openimaj.data.DataSource;
 import org.openimaj.feature.DoubleFV;
 import org.openimaj.feature.FeatureVector;
 import org.openimaj.math.matrix.algorithm.pca.PrincipalComponentAnalysis;
+import org.openimaj.math.matrix.algorithm.pca.RandomisedPrincipalComponentAnalysis;
 import org.openimaj.math.matrix.algorithm.pca.SvdPrincipalComponentAnalysis;
 
 import Jama.Matrix;
@@ -96,6 +98,29 @@ public class FeatureVectorPCA extends PrincipalComponentAnalysis {
 		learnBasis(d);
 	}
 
+	/**
+	 * Learn the PCA basis of the vectors in the given {@link DataSource}. If
+	 * the underlying algorithm is a {@link RandomisedPrincipalComponentAnalysis}
+	 * the data is streamed through in batches; otherwise it is first loaded
+	 * into memory.
+	 * 
+	 * @param data
+	 *            the vectors to apply PCA to.
+	 */
+	public void learnBasis(DataSource<double[]> data) {
+		if (inner instanceof RandomisedPrincipalComponentAnalysis) {
+			((RandomisedPrincipalComponentAnalysis) inner).learnBasis(data);
+			this.basis = inner.getBasis();
+			this.eigenvalues = inner.getEigenValues();
+			this.mean = inner.getMean();
+		} else {
+			final double[][] d = data.createTemporaryArray(data.size());
+			data.getData(0, d.length, d);
+
+			learnBasis(d);
+		}
+	}
+
 	/**
 	 * Project a vector by the basis. The vector is normalised by subtracting
 	 * the mean and then multiplied by the basis.
@@ -38,8 +38,9 @@ import java.util.regex.Pattern;
 
 import org.openimaj.stream.provider.WikipediaEditsDataset.WikipediaEdit;
 import org.openimaj.stream.provider.irc.AbstractIRCStreamDataset;
-import org.openimaj.util.concurrent.ArrayBlockingDroppingQueue;
 import org.openimaj.util.concurrent.BlockingDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue.DropPolicy;
 
 /**
  * Streaming dataset based on the Wikipedia/Wikimedia edits published in
@@ -86,8 +87,8 @@ public class WikipediaEditsDataset extends AbstractIRCStreamDataset<WikipediaEdi
 	}
 
 	/**
-	 * Construct the edit stream with an {@link ArrayBlockingDroppingQueue} of
-	 * capacity 1.
+	 * Construct the edit stream with an {@link ConcurrentArrayDroppingQueue} of
+	 * capacity 1 that drops new edits whilst it is full.
 	 * 
 	 * @param lang
 	 *            the language id; currently only English "en" is supported
@@ -95,7 +96,7 @@ public class WikipediaEditsDataset extends AbstractIRCStreamDataset<WikipediaEdi
 	 *             if there is a problem connecting
 	 */
 	public WikipediaEditsDataset(String lang) throws IOException {
-		this(new ArrayBlockingDroppingQueue<WikipediaEdit>(1), lang);
+		this(new ConcurrentArrayDroppingQueue<WikipediaEdit>(1, DropPolicy.NEWEST), lang);
 	}
 
 	/**
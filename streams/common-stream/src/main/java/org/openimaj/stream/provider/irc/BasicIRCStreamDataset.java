@@ -31,8 +31,9 @@ package org.openimaj.stream.provider.irc;
 
 import java.io.IOException;
 
-import org.openimaj.util.concurrent.ArrayBlockingDroppingQueue;
 import org.openimaj.util.concurrent.BlockingDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue.DropPolicy;
 import org.openimaj.util.data.Context;
 
 /**
@@ -67,8 +68,8 @@ public class BasicIRCStreamDataset extends AbstractIRCStreamDataset<Context> {
 
 	/**
 	 * Connect to the given host and channel. Internally a
-	 * {@link ArrayBlockingDroppingQueue} with size of 1 is created to
-	 * buffer/drop messages.
+	 * {@link ConcurrentArrayDroppingQueue} with size of 1 is created to
+	 * buffer/drop messages; new messages are dropped whilst it is full.
 	 * 
 	 * @param hostname
 	 *            the host
@@ -79,7 +80,7 @@ public class BasicIRCStreamDataset extends AbstractIRCStreamDataset<Context> {
 	public BasicIRCStreamDataset(String hostname, String channel)
 			throws IOException
 	{
-		this(new ArrayBlockingDroppingQueue<Context>(1), hostname, channel);
+		this(new ConcurrentArrayDroppingQueue<Context>(1, DropPolicy.NEWEST), hostname, channel);
 	}
 
 	/**
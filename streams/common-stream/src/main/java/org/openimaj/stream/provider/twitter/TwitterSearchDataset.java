@@ -30,8 +30,9 @@
 package org.openimaj.stream.provider.twitter;
 
 import org.openimaj.util.api.auth.common.TwitterAPIToken;
-import org.openimaj.util.concurrent.ArrayBlockingDroppingQueue;
 import org.openimaj.util.concurrent.BlockingDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue.DropPolicy;
 
 import twitter4j.Query;
 import twitter4j.Status;
@@ -46,8 +47,8 @@ import twitter4j.Status;
 public class TwitterSearchDataset extends AbstractTwitterSearchDataset<Status> {
 	/**
 	 * Construct the dataset from the given API token and query. The stream is
-	 * backed by an {@link ArrayBlockingDroppingQueue} with a single item
-	 * capacity.
+	 * backed by an {@link ConcurrentArrayDroppingQueue} with a single item
+	 * capacity that drops new statuses whilst it is full.
 	 * 
 	 * @param query
 	 *            the Twitter search query
@@ -55,7 +56,7 @@ public class TwitterSearchDataset extends AbstractTwitterSearchDataset<Status> {
 	 *            the Twitter api authentication credentials
 	 */
 	public TwitterSearchDataset(Query query, final TwitterAPIToken token) {
-		this(query, token, new ArrayBlockingDroppingQueue<Status>(1));
+		this(query, token, new ConcurrentArrayDroppingQueue<Status>(1, DropPolicy.NEWEST));
 	}
 
 	/**
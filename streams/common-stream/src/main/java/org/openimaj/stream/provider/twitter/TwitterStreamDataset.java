@@ -30,8 +30,9 @@
 package org.openimaj.stream.provider.twitter;
 
 import org.openimaj.util.api.auth.common.TwitterAPIToken;
-import org.openimaj.util.concurrent.ArrayBlockingDroppingQueue;
 import org.openimaj.util.concurrent.BlockingDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue.DropPolicy;
 
 import twitter4j.Status;
 
@@ -44,13 +45,14 @@ import twitter4j.Status;
 public class TwitterStreamDataset extends AbstractTwitterStreamDataset<Status> {
 	/**
 	 * Construct the dataset from the given API token. The stream is backed by
-	 * an {@link ArrayBlockingDroppingQueue} with a single item capacity.
+	 * an {@link ConcurrentArrayDroppingQueue} with a single item capacity
+	 * that drops new statuses whilst it is full.
 	 * 
 	 * @param token
 	 *            the Twitter api authentication credentials
 	 */
 	public TwitterStreamDataset(final TwitterAPIToken token) {
-		this(token, new ArrayBlockingDroppingQueue<Status>(1));
+		this(token, new ConcurrentArrayDroppingQueue<Status>(1, DropPolicy.NEWEST));
 	}
 
 	/**
@@ -30,8 +30,9 @@
 package org.openimaj.stream.provider.twitter;
 
 import org.openimaj.util.api.auth.common.TwitterAPIToken;
-import org.openimaj.util.concurrent.ArrayBlockingDroppingQueue;
 import org.openimaj.util.concurrent.BlockingDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue;
+import org.openimaj.util.concurrent.ConcurrentArrayDroppingQueue.DropPolicy;
 
 import twitter4j.FilterQuery;
 import twitter4j.Status;
@@ -45,7 +46,8 @@ import twitter4j.Status;
 public class TwitterStreamFilterDataset extends AbstractTwitterStatusesFilterDataset<Status> {
 	/**
 	 * Construct the dataset from the given API token. The stream is backed by
-	 * an {@link ArrayBlockingDroppingQueue} with a single item capacity.
+	 * an {@link ConcurrentArrayDroppingQueue} with a single item capacity
+	 * that drops new statuses whilst it is full.
 	 * 
 	 * @param query
 	 *            the query
@@ -53,12 +55,13 @@ public class TwitterStreamFilterDataset extends AbstractTwitterStatusesFilterDat
 	 *            the Twitter api authentication credentials
 	 */
 	public TwitterStreamFilterDataset(FilterQuery query, final TwitterAPIToken token) {
-		this(query, token, new ArrayBlockingDroppingQueue<Status>(1));
+		this(query, token, new ConcurrentArrayDroppingQueue<Status>(1, DropPolicy.NEWEST));
 	}
 
 	/**
 	 * Construct the dataset from the given API token. The stream is backed by
-	 * an {@link ArrayBlockingDroppingQueue} with a single item capacity.
+	 * an {@link ConcurrentArrayDroppingQueue} with a single item capacity
+	 * that drops new statuses whilst it is full.
 	 * 
 	 * @param words
 	 *            the query terms
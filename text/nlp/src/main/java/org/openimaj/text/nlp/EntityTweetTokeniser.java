@@ -34,6 +34,7 @@ import gov.sandia.cognition.text.token.Token;
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -53,6 +54,9 @@ import org.openimaj.text.nlp.patterns.TimePatternProvider;
 import org.openimaj.text.nlp.patterns.TwitterStuffPatternProvider;
 import org.openimaj.text.nlp.patterns.URLPatternProvider;
 import org.openimaj.text.util.RegexUtil;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
 
 
 
@@ -154,6 +158,9 @@ public class EntityTweetTokeniser implements Iterable<Token>{
 	};
 	static String oredProtect = RegexUtil.regex_or_match(ProtectThese);
 	static Pattern Protect_RE = Pattern.compile(oredProtect,Pattern.UNICODE_CASE|Pattern.CASE_INSENSITIVE);
+	static TweetTokenScanner Protect_Scanner = new TweetTokenScanner(ProtectThese, Pattern.UNICODE_CASE | Pattern.CASE_INSENSITIVE)
+			.requireBeforeSpace(Arrays.asList(ProtectThese).indexOf(email.patternString()), "@")
+			.requireFollowedBy(Arrays.asList(ProtectThese).indexOf(abbrev.patternString()), '.');
 //	static Pattern Protect_RE = twitterPart.pattern();
 	
 	
@@ -163,13 +170,59 @@ public class EntityTweetTokeniser implements Iterable<Token>{
 	 * @throws TweetTokeniserException
 	 */
 	public EntityTweetTokeniser(String s) throws UnsupportedEncodingException, TweetTokeniserException{
+		this(s, false);
+	}
+	
+	/**
+	 * @param s Tokenise this string
+	 * @param regex if true the text is tokenised by repeatedly matching the single protect regex; otherwise
+	 * the (much faster) compiled {@link TweetTokenScanner} is used. The tokens produced are identical.
+	 * @throws UnsupportedEncodingException
+	 * @throws TweetTokeniserException
+	 */
+	public EntityTweetTokeniser(String s, boolean regex) throws UnsupportedEncodingException, TweetTokeniserException{
 //		System.out.println(EdgePunct);
 //		System.out.println(new String(""));
 		this.text = new String(s);
 //		System.out.println("TWEET:" + text);
-		fixEncoding();
-		squeeze_whitespace();
-		simple_tokenize();
+		if (regex) {
+			fixEncoding();
+			squeeze_whitespace();
+			simple_tokenize();
+		} else {
+			this.text = TweetTokeniser.squeezeSpaces(TweetTokeniser.repairEncoding(this.text));
+			this.tokenize = new ArrayList<Token>();
+			this.protectedTokens = new ArrayList<Token>();
+			this.unprotectedTokens = new ArrayList<Token>();
+			Protect_Scanner.tokenise(this.text, this.tokenize, this.protectedTokens, this.unprotectedTokens);
+		}
+	}
+	
+	/**
+	 * Tokenise each of the given texts. The texts are tokenised in parallel.
+	 * @param texts the texts
+	 * @return the string tokens of each text, in the same order
+	 */
+	public static List<List<String>> tokenise(final List<String> texts) {
+		@SuppressWarnings("unchecked")
+		final List<String>[] tokens = new List[texts.size()];
+		
+		Parallel.forRange(0, tokens.length, 1, new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				for (int i = range.start; i < range.stop; i += range.incr) {
+					try {
+						tokens[i] = new EntityTweetTokeniser(texts.get(i)).getStringTokens();
+					} catch (UnsupportedEncodingException e) {
+						throw new RuntimeException(e);
+					} catch (TweetTokeniserException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			}
+		});
+		
+		return Arrays.asList(tokens);
 	}
 	
 	private void simple_tokenize() throws TweetTokeniserException {
@@ -0,0 +1,295 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.text.nlp;
+
+import gov.sandia.cognition.text.token.DefaultToken;
+import gov.sandia.cognition.text.token.Token;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A single pass scanner which splits text into protected and unprotected
+ * tokens exactly as a {@link Matcher#find()} loop over the alternation
+ * <code>(A|B|...)</code> of a set of protect patterns would, but without
+ * attempting every alternative at every character.
+ * <p>
+ * The scanner is compiled from the individual alternatives. For every
+ * character it lazily works out (using the regex engine itself, by checking
+ * whether an attempt starting at that character failed before reaching the end
+ * of a short probe) which alternatives could possibly begin with it; the
+ * answer is cached in a table indexed by the character. While scanning only
+ * those alternatives are attempted, in their original order, so the first
+ * alternative to match wins just as it does in the alternation. Expensive
+ * alternatives can additionally be guarded by cheap necessary conditions (see
+ * {@link #requireBeforeSpace(int, String)} and
+ * {@link #requireFollowedBy(int, char)}) which let the scanner skip them
+ * without running the regex at all.
+ * <p>
+ * The alternatives are still confirmed by their own patterns, so lookaround,
+ * backtracking and the case folding flags behave exactly as in the original
+ * alternation. Instances are thread safe; each thread keeps its own reusable
+ * matchers and scanning state.
+ */
+public class TweetTokenScanner {
+	private static final int KNOWN = 1 << 31;
+	private static final String[] CONTEXTS = { "", "a", " " };
+
+	private final Pattern[] alternatives;
+	private final String[] beforeSpace;
+	private final char[] followedBy;
+	private final int[] candidates = new int[Character.MAX_VALUE + 1];
+	private final int emptyCandidates;
+
+	private final ThreadLocal<State> state = new ThreadLocal<State>() {
+		@Override
+		protected State initialValue() {
+			return new State();
+		}
+	};
+
+	private class State {
+		final Matcher[] matchers = new Matcher[alternatives.length];
+		final int[] nextRequired = new int[alternatives.length];
+		int nextSpace;
+
+		State() {
+			for (int k = 0; k < alternatives.length; k++) {
+				matchers[k] = alternatives[k].matcher("");
+				matchers[k].useTransparentBounds(true);
+				matchers[k].useAnchoringBounds(false);
+			}
+		}
+
+		void reset(String text) {
+			for (final Matcher m : matchers)
+				m.reset(text);
+			Arrays.fill(nextRequired, -1);
+			nextSpace = -1;
+		}
+	}
+
+	/**
+	 * Compile a scanner for the alternation of the given patterns
+	 *
+	 * @param alternatives
+	 *            the alternatives, in order of precedence (at most 31)
+	 * @param flags
+	 *            the {@link Pattern} flags the alternation was compiled with
+	 */
+	public TweetTokenScanner(String[] alternatives, int flags) {
+		if (alternatives.length > 31)
+			throw new IllegalArgumentException("At most 31 alternatives are supported");
+
+		this.alternatives = new Pattern[alternatives.length];
+		for (int k = 0; k < alternatives.length; k++)
+			this.alternatives[k] = Pattern.compile(alternatives[k], flags);
+		this.beforeSpace = new String[alternatives.length];
+		this.followedBy = new char[alternatives.length];
+
+		int empty = 0;
+		for (int k = 0; k < alternatives.length; k++) {
+			for (final String context : CONTEXTS) {
+				final Matcher m = probe(k, context, context.length());
+				if (m.lookingAt())
+					empty |= 1 << k;
+			}
+		}
+		this.emptyCandidates = empty;
+	}
+
+	/**
+	 * Declare that any match of the given alternative must contain one of the
+	 * given characters before the next space character. The alternative is not
+	 * attempted where this is not the case.
+	 *
+	 * @param alternative
+	 *            the index of the alternative
+	 * @param chars
+	 *            the characters, one of which must be present
+	 * @return this scanner
+	 */
+	public TweetTokenScanner requireBeforeSpace(int alternative, String chars) {
+		this.beforeSpace[alternative] = chars;
+		return this;
+	}
+
+	/**
+	 * Declare that any match of the given alternative must start with a
+	 * (non-surrogate) character followed by the given character. The
+	 * alternative is not attempted where this is not the case.
+	 *
+	 * @param alternative
+	 *            the index of the alternative
+	 * @param c
+	 *            the second character of every match
+	 * @return this scanner
+	 */
+	public TweetTokenScanner requireFollowedBy(int alternative, char c) {
+		this.followedBy[alternative] = c;
+		return this;
+	}
+
+	/**
+	 * Tokenise the text. Protected tokens are added to both the
+	 * <code>all</code> and <code>protectedTokens</code> lists; the space
+	 * separated words in between are added to <code>all</code> and
+	 * <code>unprotectedTokens</code>. The text is assumed to have already had
+	 * its whitespace squeezed to single spaces.
+	 *
+	 * @param text
+	 *            the text
+	 * @param all
+	 *            all tokens in order
+	 * @param protectedTokens
+	 *            the protected tokens
+	 * @param unprotectedTokens
+	 *            the unprotected tokens
+	 */
+	public void tokenise(String text, List<Token> all, List<Token> protectedTokens, List<Token> unprotectedTokens) {
+		final State s = state.get();
+		s.reset(text);
+
+		final int n = text.length();
+		int last = 0;
+		int p = 0;
+		while (p <= n) {
+			final int mask = p < n ? candidates(text.charAt(p)) : emptyCandidates;
+			int end = -1;
+			for (int k = 0; k < alternatives.length; k++) {
+				if ((mask & (1 << k)) == 0 || !possible(s, text, k, p))
+					continue;
+
+				final Matcher m = s.matchers[k];
+				m.region(p, n);
+				if (m.lookingAt()) {
+					end = m.end();
+					break;
+				}
+			}
+
+			if (end < 0) {
+				p++;
+				continue;
+			}
+
+			split(text, last, p, all, unprotectedTokens);
+			final Token tok = new DefaultToken(text.substring(p, end), 0);
+			all.add(tok);
+			protectedTokens.add(tok);
+			last = end;
+			p = end == p ? end + 1 : end;
+		}
+		split(text, last, n, all, unprotectedTokens);
+	}
+
+	private static void split(String text, int from, int to, List<Token> all, List<Token> unprotectedTokens) {
+		int start = from;
+		for (int i = from; i <= to; i++) {
+			if (i == to || text.charAt(i) == ' ') {
+				if (i > start) {
+					final Token tok = new DefaultToken(text.substring(start, i), 0);
+					all.add(tok);
+					unprotectedTokens.add(tok);
+				}
+				start = i + 1;
+			}
+		}
+	}
+
+	private boolean possible(State s, String text, int k, int p) {
+		if (p == text.length() || Character.isSurrogate(text.charAt(p)))
+			return true;
+
+		if (followedBy[k] != 0 && (p + 1 >= text.length() || text.charAt(p + 1) != followedBy[k]))
+			return false;
+
+		final String required = beforeSpace[k];
+		if (required != null) {
+			if (s.nextSpace < p)
+				s.nextSpace = next(text, p, " ");
+			if (s.nextRequired[k] < p)
+				s.nextRequired[k] = next(text, p, required);
+			if (s.nextRequired[k] >= s.nextSpace)
+				return false;
+		}
+		return true;
+	}
+
+	private static int next(String text, int from, String chars) {
+		final int n = text.length();
+		for (int i = from; i < n; i++) {
+			if (chars.indexOf(text.charAt(i)) >= 0)
+				return i;
+		}
+		return n;
+	}
+
+	/*
+	 * The set of alternatives which could start with the given character. An
+	 * alternative is ruled out only if an attempt at the character fails
+	 * without the engine needing to look beyond it, in any of the preceding
+	 * contexts a word boundary can distinguish. Lone surrogates can't be
+	 * probed in isolation so they are never ruled out.
+	 */
+	private int candidates(char c) {
+		int mask = candidates[c];
+		if (mask != 0)
+			return mask;
+
+		mask = KNOWN;
+		for (int k = 0; k < alternatives.length; k++) {
+			if (Character.isSurrogate(c)) {
+				mask |= 1 << k;
+				continue;
+			}
+
+			for (final String context : CONTEXTS) {
+				final Matcher m = probe(k, context + c, context.length());
+				if (m.lookingAt() || m.hitEnd()) {
+					mask |= 1 << k;
+					break;
+				}
+			}
+		}
+		candidates[c] = mask;
+		return mask;
+	}
+
+	private Matcher probe(int k, String input, int start) {
+		final Matcher m = alternatives[k].matcher(input);
+		m.useTransparentBounds(true);
+		m.useAnchoringBounds(false);
+		m.region(start, input.length());
+		return m;
+	}
+}
@@ -34,6 +34,7 @@ import gov.sandia.cognition.text.token.Token;
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -158,6 +159,15 @@ public class TweetTokeniser implements Iterable<Token> {
 
 	static String oredProtect = RegexUtil.regex_or_match(ProtectThese);
 	static Pattern Protect_RE = Pattern.compile(oredProtect, Pattern.UNICODE_CASE | Pattern.CASE_INSENSITIVE);
+	static TweetTokenScanner Protect_Scanner = new TweetTokenScanner(ProtectThese, Pattern.UNICODE_CASE
+			| Pattern.CASE_INSENSITIVE)
+			.requireBeforeSpace(protectIndex(email.patternString()), "@")
+			.requireBeforeSpace(protectIndex(embedded.patternString()), "'\u2019\u2018\u201B-")
+			.requireFollowedBy(protectIndex(abbrev.patternString()), '.');
+
+	private static int protectIndex(String pattern) {
+		return Arrays.asList(ProtectThese).indexOf(pattern);
+	}
 
 	// static Pattern Protect_RE = twitterPart.pattern();
 
@@ -168,13 +178,41 @@ public class TweetTokeniser implements Iterable<Token> {
 	 * @throws TweetTokeniserException
 	 */
 	public TweetTokeniser(String s) throws UnsupportedEncodingException, TweetTokeniserException {
+		this(s, false);
+	}
+
+	/**
+	 * @param s
+	 *            Tokenise this string
+	 * @param regex
+	 *            if true the text is tokenised by repeatedly matching the
+	 *            single protect regex; otherwise the (much faster) compiled
+	 *            {@link TweetTokenScanner} is used. The tokens produced are
+	 *            identical.
+	 * @throws UnsupportedEncodingException
+	 * @throws TweetTokeniserException
+	 */
+	public TweetTokeniser(String s, boolean regex) throws UnsupportedEncodingException, TweetTokeniserException {
 		// System.out.println(EdgePunct);
 		// System.out.println(new String(""));
 		this.text = new String(s);
 		// System.out.println("TWEET:" + text);
-		fixEncoding();
-		squeeze_whitespace();
-		simple_tokenize();
+		if (regex) {
+			fixEncoding();
+			squeeze_whitespace();
+			simple_tokenize();
+		} else {
+			fast_fixEncoding();
+			fast_squeeze_whitespace();
+			scan_tokenize();
+		}
+	}
+
+	private void scan_tokenize() {
+		this.tokenize = new ArrayList<Token>();
+		this.protectedTokens = new ArrayList<Token>();
+		this.unprotectedTokens = new ArrayList<Token>();
+		Protect_Scanner.tokenise(this.text, this.tokenize, this.protectedTokens, this.unprotectedTokens);
 	}
 
 	private void simple_tokenize() throws TweetTokeniserException {
@@ -241,6 +279,65 @@ public class TweetTokeniser implements Iterable<Token> {
 		this.text = this.text.replaceAll(spaceRegex, " ");
 	}
 
+	private void fast_fixEncoding() throws UnsupportedEncodingException {
+		this.text = repairEncoding(this.text);
+	}
+
+	private void fast_squeeze_whitespace() {
+		this.text = squeezeSpaces(this.text);
+	}
+
+	/*
+	 * Equivalent to the UTF-8 round trip and html unescaping of fixEncoding().
+	 * The round trip only changes unpaired surrogates, and the unescaping only
+	 * changes text with entities in it.
+	 */
+	static String repairEncoding(String text) throws UnsupportedEncodingException {
+		for (int i = 0; i < text.length(); i++) {
+			if (Character.isSurrogate(text.charAt(i))) {
+				text = new String(text.getBytes("UTF-8"), "UTF-8");
+				break;
+			}
+		}
+		if (text.indexOf('&') >= 0)
+			text = StringEscapeUtils.unescapeHtml(text);
+		return text;
+	}
+
+	/*
+	 * Equivalent to replacing \s+ with a single space
+	 */
+	static String squeezeSpaces(String text) {
+		final int n = text.length();
+		StringBuilder sb = null;
+		for (int i = 0; i < n; i++) {
+			final char c = text.charAt(i);
+			if (!isSpace(c)) {
+				if (sb != null)
+					sb.append(c);
+				continue;
+			}
+
+			int j = i + 1;
+			while (j < n && isSpace(text.charAt(j)))
+				j++;
+			if (sb == null) {
+				if (c == ' ' && j == i + 1)
+					continue;
+				sb = new StringBuilder(n);
+				sb.append(text, 0, i);
+			}
+			sb.append(' ');
+			i = j - 1;
+		}
+		return sb == null ? text : sb.toString();
+	}
+
+	/* the characters matched by \s */
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
 	private void fixEncoding() throws UnsupportedEncodingException {
 		this.text = new String(text.getBytes("UTF-8"), "UTF-8");
 		this.text = StringEscapeUtils.unescapeHtml(this.text);
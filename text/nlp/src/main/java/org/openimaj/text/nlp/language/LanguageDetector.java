@@ -29,15 +29,15 @@
  */
 package org.openimaj.text.nlp.language;
 
-import gnu.trove.map.hash.TIntDoubleHashMap;
-import gnu.trove.map.hash.TIntIntHashMap;
-import gnu.trove.procedure.TIntIntProcedure;
+import gnu.trove.procedure.TIntObjectProcedure;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
@@ -47,6 +47,9 @@ import no.uib.cipr.matrix.DenseMatrix;
 import org.openimaj.citation.annotation.Reference;
 import org.openimaj.citation.annotation.ReferenceType;
 import org.openimaj.io.IOUtils;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -85,6 +88,12 @@ public class LanguageDetector {
 
 	private LanguageModel languageModel;
 
+	private int nClasses;
+	private int nStates;
+	private double[] naiveBayesPC;
+	private double[] naiveBayesPTC;
+	private int[][] stateOutputs;
+
 	/**
 	 * Load a language model from {@value #LANGUAGE_MODEL_BINARY}
 	 * 
@@ -117,6 +126,7 @@ public class LanguageDetector {
 	 */
 	public LanguageDetector(LanguageModel model) {
 		this.languageModel = model;
+		prepare();
 	}
 
 	LanguageDetector(boolean fromJSON) throws IOException {
@@ -126,6 +136,7 @@ public class LanguageDetector {
 		else {
 			loadFromBinary();
 		}
+		prepare();
 	}
 
 	/**
@@ -189,36 +200,116 @@ public class LanguageDetector {
 	}
 
 	/**
-	 * Classify the language using a naive-bayes model
+	 * Classify the language using a naive-bayes model. This method is
+	 * thread-safe; each thread uses its own workspace.
 	 * 
 	 * @param text
 	 * @return the detected language
 	 */
 	public WeightedLocale classify(String text) {
-		final DenseMatrix fv = tokenize(text);
-		final WeightedLocale locale = naiveBayesClassify(fv);
-		return locale;
+		byte[] ords = null;
+		try {
+			ords = text.getBytes("UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+		}
+
+		return naiveBayesClassify(ords, workspace.get());
 	}
 
-	DenseMatrix nbWorkspace = null;
+	/**
+	 * Classify the language of each of the given texts. The texts are
+	 * classified in parallel.
+	 * 
+	 * @param texts
+	 *            the texts
+	 * @return the detected language of each text, in the same order
+	 */
+	public List<WeightedLocale> classify(final List<String> texts) {
+		final WeightedLocale[] locales = new WeightedLocale[texts.size()];
+
+		Parallel.forRange(0, locales.length, 1, new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				for (int i = range.start; i < range.stop; i += range.incr)
+					locales[i] = classify(texts.get(i));
+			}
+		});
 
-	private WeightedLocale naiveBayesClassify(DenseMatrix fv) {
-		if (nbWorkspace == null) {
-			nbWorkspace = new DenseMatrix(1, this.languageModel.naiveBayesPTC.numColumns());
+		return Arrays.asList(locales);
+	}
+
+	/**
+	 * Per-thread scratch space. The feature counts are kept sparse by
+	 * recording which entries were touched so that only those need to be
+	 * cleared afterwards.
+	 */
+	private class Workspace {
+		final int[] stateCounts = new int[nStates];
+		final int[] touchedStates = new int[nStates];
+		final int[] featureCounts = new int[languageModel.naiveBayesNFeats];
+		final int[] touchedFeatures = new int[languageModel.naiveBayesNFeats];
+		final double[] scores = new double[nClasses];
+	}
+
+	private final ThreadLocal<Workspace> workspace = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return new Workspace();
 		}
-		final double logFVSum = sumLogFactorial(fv);
-		fv.mult(this.languageModel.naiveBayesPTC, nbWorkspace);// times(this.languageModel.naiveBayesPTC);
-		final DenseMatrix pdc = nbWorkspace;
-		// multiplied.print(5, 5);
-		// this.languageModel.naiveBayesPTC.print(5, 5);
-		pdc.add(this.languageModel.naiveBayesPC);
-		final double[] pdData = pdc.getData();
+	};
+
+	private WeightedLocale naiveBayesClassify(byte[] ords, Workspace ws) {
+		final int[] stateCounts = ws.stateCounts;
+		final int[] touchedStates = ws.touchedStates;
+		final int[] featureCounts = ws.featureCounts;
+		final int[] touchedFeatures = ws.touchedFeatures;
+		final int[] nextmove = this.languageModel.tk_nextmove;
+
+		// run the tokeniser automaton, counting the states visited
+		int nTouchedStates = 0;
+		int state = 0;
+		for (final byte letter : ords) {
+			state = nextmove[(state << 8) + (letter & 0xff)];
+			if (stateCounts[state]++ == 0)
+				touchedStates[nTouchedStates++] = state;
+		}
+
+		// accumulate the feature counts of the visited states
+		int nTouchedFeatures = 0;
+		for (int i = 0; i < nTouchedStates; i++) {
+			final int s = touchedStates[i];
+			final int count = stateCounts[s];
+			stateCounts[s] = 0;
+
+			final int[] indexes = stateOutputs[s];
+			if (indexes == null)
+				continue;
+			for (final int f : indexes) {
+				if (featureCounts[f] == 0)
+					touchedFeatures[nTouchedFeatures++] = f;
+				featureCounts[f] += count;
+			}
+		}
+
+		// pdc = fv * ptc + pc, using only the rows of the features present
+		final double[] pdData = ws.scores;
+		System.arraycopy(naiveBayesPC, 0, pdData, 0, nClasses);
+		double logFVSum = 0;
+		for (int i = 0; i < nTouchedFeatures; i++) {
+			final int f = touchedFeatures[i];
+			final int count = featureCounts[f];
+			featureCounts[f] = 0;
+
+			logFVSum += logFactorial(count);
+			for (int c = 0, j = f * nClasses; c < nClasses; c++, j++)
+				pdData[c] += count * naiveBayesPTC[j];
+		}
+
 		int bestIndex = -1;
 		double best = 0;
 		double sum = 0;
-		for (int i = 0; i < pdc.numColumns(); i++) {
+		for (int i = 0; i < nClasses; i++) {
 			final double correctedScore = pdData[i] - logFVSum;
-			// System.out.format("%s scores %f \n",this.languageModel.naiveBayesClasses[i],correctedScore);
 			sum += correctedScore;
 			if (bestIndex == -1 || correctedScore > best)
 			{
@@ -230,54 +321,49 @@ public class LanguageDetector {
 		return new WeightedLocale(this.languageModel.naiveBayesClasses[bestIndex], best / sum);
 	}
 
-	// an element wise log-factorial
-	TIntDoubleHashMap logFacCache = new TIntDoubleHashMap();
+	private static final double[] LOG_FACTORIAL = new double[1024];
+	static {
+		for (int i = 2; i < LOG_FACTORIAL.length; i++)
+			LOG_FACTORIAL[i] = LOG_FACTORIAL[i - 1] + Math.log(i);
+	}
 
-	private double sumLogFactorial(DenseMatrix fv) {
-		double sum = 0;
-		final double[] data = fv.getData();
-		for (int i = 0; i < fv.numColumns(); i++) {
-			final int fvi = (int) data[i];
-			if (logFacCache.contains(fvi))
-			{
-				sum += logFacCache.get(fvi);
-			}
-			else {
-				for (int j = 1; j < fvi + 1; j++) {
-					sum += Math.log(j);
-				}
-			}
-		}
+	private static double logFactorial(int n) {
+		if (n < LOG_FACTORIAL.length)
+			return LOG_FACTORIAL[n];
+
+		double sum = LOG_FACTORIAL[LOG_FACTORIAL.length - 1];
+		for (int j = LOG_FACTORIAL.length; j <= n; j++)
+			sum += Math.log(j);
 		return sum;
 	}
 
-	private DenseMatrix tokenize(String text) {
-		byte[] ords = null;
-		try {
-			ords = text.getBytes("UTF-8");
-		} catch (final UnsupportedEncodingException e) {
-		}
-		int state = 0;
-		final TIntIntHashMap statecount = new TIntIntHashMap();
-		for (final byte letter : ords) {
-			state = this.languageModel.tk_nextmove[(state << 8) + (letter & 0xff)];
-			statecount.adjustOrPutValue(state, 1, 1);
-		}
-		final double[][] fv = new double[1][this.languageModel.naiveBayesNFeats];
-		statecount.forEachEntry(new TIntIntProcedure() {
+	/**
+	 * Flatten the parts of the model used for scoring into arrays: the
+	 * feature-class log probabilities in feature-major order (so that the row
+	 * of a single feature is contiguous), and the tokeniser outputs indexed by
+	 * state.
+	 */
+	private void prepare() {
+		nClasses = this.languageModel.naiveBayesClasses.length;
+		nStates = this.languageModel.tk_nextmove.length >> 8;
+
+		naiveBayesPC = this.languageModel.naiveBayesPC.getData().clone();
+
+		final DenseMatrix ptc = this.languageModel.naiveBayesPTC;
+		final int nFeats = this.languageModel.naiveBayesNFeats;
+		naiveBayesPTC = new double[nFeats * nClasses];
+		for (int f = 0; f < nFeats; f++)
+			for (int c = 0; c < nClasses; c++)
+				naiveBayesPTC[f * nClasses + c] = ptc.get(f, c);
+
+		stateOutputs = new int[nStates][];
+		this.languageModel.tk_output.forEachEntry(new TIntObjectProcedure<int[]>() {
 			@Override
-			public boolean execute(int state, final int statecount) {
-				final int[] indexes = LanguageDetector.this.languageModel.tk_output.get(state);
-				if (indexes == null)
-					return true;
-				for (final int i : indexes) {
-
-					fv[0][i] += statecount;
-				}
+			public boolean execute(int state, int[] indexes) {
+				stateOutputs[state] = indexes;
 				return true;
 			}
 		});
-		return new DenseMatrix(fv);
 	}
 
 	/**
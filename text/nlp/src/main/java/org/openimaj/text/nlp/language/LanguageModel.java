@@ -43,6 +43,7 @@ import java.util.Map.Entry;
 
 import no.uib.cipr.matrix.DenseMatrix;
 
+import org.openimaj.io.IOUtils;
 import org.openimaj.io.ReadWriteableBinary;
 import org.openimaj.io.wrappers.Readable2DArrayBinary;
 import org.openimaj.io.wrappers.ReadableArrayBinary;
@@ -191,16 +192,12 @@ public class LanguageModel implements ReadWriteableBinary{
 			int key = in.readInt();
 			int length = in.readInt();
 			int[] data = new int[length];
-			for (int j = 0; j < length; j++) {
-				data[j] = in.readInt();
-			}
+			IOUtils.readFully(in, data);
 			this.tk_output.put(key, data);
 		}
 		int nextMoveLength = in.readInt();
 		this.tk_nextmove = new int[nextMoveLength];
-		for (int i = 0; i < nextMoveLength; i++) {
-			this.tk_nextmove[i] = in.readInt();
-		}
+		IOUtils.readFully(in, this.tk_nextmove);
 	}
 
 	@Override
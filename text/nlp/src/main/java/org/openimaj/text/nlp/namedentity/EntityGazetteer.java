@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.text.nlp.namedentity;
+
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An in-memory gazetteer compiled from an alias map (as read from the alias
+ * file built by {@link EntityExtractionResourceBuilder}). The aliases are
+ * split into space separated tokens and compiled into a trie over token ids,
+ * so a list of tokens can be scanned for every alias match in a single pass
+ * without building (and hashing) the string of each n-gram.
+ * <p>
+ * A gazetteer is immutable once built and can be shared between threads.
+ */
+public class EntityGazetteer {
+	/**
+	 * Receives the matches found by
+	 * {@link EntityGazetteer#scan(List, int, MatchHandler)}
+	 */
+	public static interface MatchHandler {
+		/**
+		 * Called for every match
+		 * 
+		 * @param start
+		 *            the index of the first matched token
+		 * @param length
+		 *            the number of matched tokens
+		 * @param entities
+		 *            the entities with the matching alias
+		 */
+		void match(int start, int length, List<String> entities);
+	}
+
+	private final TObjectIntHashMap<String> vocabulary = new TObjectIntHashMap<String>(10, 0.5f, -1);
+	private final TLongIntHashMap transitions = new TLongIntHashMap(10, 0.5f, -1, -1);
+	private final List<List<String>> entities = new ArrayList<List<String>>();
+
+	/**
+	 * Compile the aliases. Any alias which is an ignore token is left out.
+	 * 
+	 * @param aliases
+	 *            map of alias to the entities it refers to
+	 * @param ignore
+	 *            the ignore tokens; may be null
+	 */
+	public EntityGazetteer(Map<String, ? extends List<String>> aliases, IgnoreTokenStripper ignore) {
+		entities.add(null); // the root
+
+		for (final Entry<String, ? extends List<String>> e : aliases.entrySet()) {
+			final String alias = e.getKey();
+			if (ignore != null && ignore.isIgnoreToken(alias))
+				continue;
+
+			int state = 0;
+			for (final String token : alias.split(" ", -1)) {
+				int id = vocabulary.get(token);
+				if (id < 0) {
+					id = vocabulary.size();
+					vocabulary.put(token, id);
+				}
+
+				final long key = (long) state << 32 | id;
+				int next = transitions.get(key);
+				if (next < 0) {
+					next = entities.size();
+					entities.add(null);
+					transitions.put(key, next);
+				}
+				state = next;
+			}
+			entities.set(state, e.getValue());
+		}
+	}
+
+	/**
+	 * Find all the aliases in the given tokens. An alias matches a run of
+	 * tokens if it is equal to the tokens joined by single spaces (the tokens
+	 * are assumed not to contain spaces themselves). Matches are reported in
+	 * order of their start token, and then of their length.
+	 * 
+	 * @param tokens
+	 *            the tokens
+	 * @param maxLength
+	 *            the maximum number of tokens in a match
+	 * @param handler
+	 *            the handler to receive the matches
+	 */
+	public void scan(List<String> tokens, int maxLength, MatchHandler handler) {
+		final int n = tokens.size();
+		final int[] ids = new int[n];
+		for (int i = 0; i < n; i++)
+			ids[i] = vocabulary.get(tokens.get(i));
+
+		for (int start = 0; start < n; start++) {
+			int state = 0;
+			for (int i = start; i < n && i - start < maxLength; i++) {
+				if (ids[i] < 0)
+					break;
+
+				state = transitions.get((long) state << 32 | ids[i]);
+				if (state < 0)
+					break;
+
+				final List<String> matched = entities.get(state);
+				if (matched != null)
+					handler.match(start, i - start + 1, matched);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of states in the compiled trie
+	 */
+	public int size() {
+		return entities.size();
+	}
+}
@@ -65,8 +65,29 @@ public class YagoEntityCandidateAnnotator
 	@Override
 	public List<ScoredAnnotation<HashMap<String, Object>>> annotate(
 			List<String> tokens) {
+		return toAnnotations(ycf.getCandidates(tokens));
+	}
+
+	/**
+	 * Annotate each of the given token lists (e.g. the tokens of a batch of
+	 * tweets). The lists are annotated in parallel.
+	 * 
+	 * @param tokenLists
+	 * @return the annotations of each token list, in the same order
+	 */
+	public List<List<ScoredAnnotation<HashMap<String, Object>>>> annotateAll(
+			List<List<String>> tokenLists) {
+		List<List<ScoredAnnotation<HashMap<String, Object>>>> annos = new ArrayList<List<ScoredAnnotation<HashMap<String,Object>>>>();
+		for(List<List<NamedEntity>> candidates : ycf.getCandidatesForAll(tokenLists)){
+			annos.add(toAnnotations(candidates));
+		}
+		return annos;
+	}
+
+	private List<ScoredAnnotation<HashMap<String, Object>>> toAnnotations(
+			List<List<NamedEntity>> candidates) {
 		List<ScoredAnnotation<HashMap<String, Object>>> annos = new ArrayList<ScoredAnnotation<HashMap<String,Object>>>();
-		for(List<NamedEntity> entList : ycf.getCandidates(tokens)){
+		for(List<NamedEntity> entList : candidates){
 			for(NamedEntity ent:entList){
 				HashMap<String,Object> annotation = new HashMap<String, Object>();
 				annotation.put(EntityAnnotator.URI, ent.rootName);
@@ -47,6 +47,9 @@ import java.util.Map;
 import org.apache.commons.lang.StringUtils;
 import org.openimaj.text.nlp.namedentity.NGramGenerator.StringNGramGenerator;
 import org.openimaj.text.nlp.textpipe.annotations.TokenAnnotation;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
 
 /**
  * Factory object for : -creating {@link YagoEntityCandidateFinder} in various
@@ -138,14 +141,28 @@ public class YagoEntityCandidateFinderFactory {
 		private HashMap<String, ArrayList<String>> aliasMap;
 		private IgnoreTokenStripper ss;
 		private ArrayList<Integer> ngrams;
+		private EntityGazetteer gazetteer;
+		private boolean compiled = true;
 
 		private YagoEntityCandidateFinder(
 				HashMap<String, ArrayList<String>> aliasMap) {
 			ss = new IgnoreTokenStripper(IgnoreTokenStripper.Language.English);
 			this.aliasMap = aliasMap;
+			this.gazetteer = new EntityGazetteer(aliasMap, ss);
 			this.setNgrams( 1, 2, 3, 4 , 5);
 		};
 
+		/**
+		 * Set whether candidates are found by scanning the tokens with the
+		 * compiled {@link EntityGazetteer} (the default), or by looking up
+		 * every n-gram in the alias map. The candidates found are the same.
+		 * 
+		 * @param compiled
+		 */
+		public void setCompiled(boolean compiled) {
+			this.compiled = compiled;
+		}
+
 		/**
 		 * Set the ngram sizes that the CandidateFinder will search with.
 		 * @param ngrams
@@ -169,10 +186,60 @@ public class YagoEntityCandidateFinderFactory {
 		public List<List<NamedEntity>> getCandidates(List<String> tokens) {
 			// get Ngram entities
 			HashMap<Integer, Map<Integer, List<NamedEntity>>> ngramEntities = new HashMap<Integer, Map<Integer, List<NamedEntity>>>();
-			for (int i = 0; i < ngrams.size(); i++) {
-				ngramEntities.put(ngrams.get(i),
-						getNgramEntities(ngrams.get(i), tokens));
+			if (compiled && canScan(tokens)) {
+				ngramEntities = getNgramEntities(tokens);
+			} else {
+				for (int i = 0; i < ngrams.size(); i++) {
+					ngramEntities.put(ngrams.get(i),
+							getNgramEntities(ngrams.get(i), tokens));
+				}
+			}
+			return resolveCollisions(ngramEntities);
+		}
+
+		/**
+		 * Gets candidate entities for each of the token lists. The lists are
+		 * processed in parallel.
+		 * 
+		 * @param tokenLists
+		 * @return the candidates of each token list, in the same order
+		 * @see #getCandidates(List)
+		 */
+		public List<List<List<NamedEntity>>> getCandidatesForAll(final List<List<String>> tokenLists) {
+			@SuppressWarnings("unchecked")
+			final List<List<NamedEntity>>[] candidates = new List[tokenLists.size()];
+
+			Parallel.forRange(0, candidates.length, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					for (int i = range.start; i < range.stop; i += range.incr)
+						candidates[i] = getCandidates(tokenLists.get(i));
+				}
+			});
+
+			return Arrays.asList(candidates);
+		}
+
+		/*
+		 * The gazetteer matches the n-grams joined with single spaces, so can't
+		 * be used with tokens which contain spaces
+		 */
+		private boolean canScan(List<String> tokens) {
+			if (ngrams.get(0) < 1)
+				return false;
+			for (String token : tokens) {
+				if (token.indexOf(' ') >= 0)
+					return false;
 			}
+			return true;
+		}
+
+		/*
+		 * Keep the entities matched by the largest ngrams, and those matched by
+		 * smaller ngrams which don't overlap a larger match
+		 */
+		private List<List<NamedEntity>> resolveCollisions(
+				HashMap<Integer, Map<Integer, List<NamedEntity>>> ngramEntities) {
 			// Resolve Collisions
 			Map<Integer, List<NamedEntity>> top = ngramEntities.get(ngrams
 					.get(ngrams.size() - 1));
@@ -227,43 +294,7 @@ public class YagoEntityCandidateFinderFactory {
 				ngramEntities.put(ngrams.get(i),
 						getNgramEntitiesFromRTL(ngrams.get(i), tokens));
 			}
-			// Resolve Collisions
-			Map<Integer, List<NamedEntity>> top = ngramEntities.get(ngrams
-					.get(ngrams.size() - 1));
-			// For each map of ngram Entities starting from smallest ngram...
-			for (int i = 0; i < ngrams.size(); i++) {
-				int lowSize = ngrams.get(i);
-				Map<Integer, List<NamedEntity>> lowEnts = ngramEntities
-						.get(lowSize);
-				// ...for each ngram Entity in the map...
-				for (int startTokenLow : lowEnts.keySet()) {
-					int endTokenLow = startTokenLow + lowSize - 1;
-					boolean collision = false;
-					// ...check that it does not collide with a larger ngram
-					// entity...
-					breakLoop: for (int j = i + 1; j < ngrams.size(); j++) {
-
-						int highSize = ngrams.get(j);
-						for (int startTokenHigh : ngramEntities.get(highSize)
-								.keySet()) {
-							int endTokenHigh = startTokenHigh + highSize - 1;
-							if ((startTokenLow <= endTokenHigh && startTokenLow >= startTokenHigh)
-									|| (endTokenLow >= startTokenHigh && endTokenLow <= endTokenHigh)) {
-								collision = true;
-								break breakLoop;
-							}
-						}
-					}
-					if (!collision) {
-						top.put(startTokenLow, lowEnts.get(startTokenLow));
-					}
-				}
-			}
-			ArrayList<List<NamedEntity>> rr = new ArrayList<List<NamedEntity>>();
-			for (List<NamedEntity> entList : top.values()) {
-				rr.add(entList);
-			}
-			return rr;
+			return resolveCollisions(ngramEntities);
 		}
 
 		private Map<Integer, List<NamedEntity>> getNgramEntitiesFromRTL(
@@ -299,6 +330,36 @@ public class YagoEntityCandidateFinderFactory {
 			return result;
 		}
 
+		/*
+		 * The entities matched by each ngram size, found in one scan of the
+		 * gazetteer
+		 */
+		private HashMap<Integer, Map<Integer, List<NamedEntity>>> getNgramEntities(List<String> tokens) {
+			final HashMap<Integer, Map<Integer, List<NamedEntity>>> ngramEntities = new HashMap<Integer, Map<Integer, List<NamedEntity>>>();
+			for (int i = 0; i < ngrams.size(); i++) {
+				ngramEntities.put(ngrams.get(i), new HashMap<Integer, List<NamedEntity>>());
+			}
+			gazetteer.scan(tokens, ngrams.get(ngrams.size() - 1), new EntityGazetteer.MatchHandler() {
+				@Override
+				public void match(int start, int length, List<String> matches) {
+					Map<Integer, List<NamedEntity>> result = ngramEntities.get(length);
+					if (result == null)
+						return;
+					ArrayList<NamedEntity> subRes = new ArrayList<NamedEntity>();
+					for (String match : matches) {
+						NamedEntity ne = new NamedEntity();
+						ne.rootName = match;
+						ne.startToken = start;
+						ne.stopToken = start - 1 + length;
+						ne.type = NamedEntity.Type.Organisation;
+						subRes.add(ne);
+					}
+					result.put(start, subRes);
+				}
+			});
+			return ngramEntities;
+		}
+
 		private HashMap<Integer, List<NamedEntity>> getNgramEntities(int n,
 				List<String> baseTokens) {
 			List<String[]> ngrams = new StringNGramGenerator().getNGrams(
@@ -510,6 +510,45 @@ public class TweetTokeniserTest {
 
 	}
 
+	/**
+	 * Check that the {@link TweetTokenScanner} produces exactly the same tokens
+	 * as the original protect regex (for both the {@link TweetTokeniser} and
+	 * {@link EntityTweetTokeniser}), over all the test tweets and some awkward
+	 * strings
+	 *
+	 * @throws UnsupportedEncodingException
+	 * @throws TweetTokeniserException
+	 */
+	@Test
+	public void scannerMatchesRegex() throws UnsupportedEncodingException, TweetTokeniserException {
+		final List<String> texts = new ArrayList<String>(allTweets);
+		texts.add("");
+		texts.add("   ");
+		texts.add("\t leading\r\n\u000Bspaces\f ");
+		texts.add("mail me at a.b-c@example.co.uk or x@y, not @ or a@b");
+		texts.add("U.S.A. and e.g. i.e., A.b.c? don't can\u2019t rock-n-roll 'quoted' -- \u2015");
+		texts.add("&amp; &lt;3 &quot;hi&quot; &#39; &nbsp;&bogus;");
+		texts.add("$1,000,000.50 at 10:30pm 3.14 1/2 \u266b\u266b la la");
+		texts.add("http://t.co/abc www2.example.com/x?y=z http:/ http://trunc\u2026 ftp://a.b");
+		texts.add("RT @user: #tag #\u00e9t\u00e9 :-) :D xD <3 ^_^ (c) o_O \ud83d\ude00 \ud83d lone \ude00");
+		texts.add("\u212A\u002E\u017F. K.K. ok!!! ?!? ...... \u201cquote\u201d");
+		for (final String text : texts) {
+			final TweetTokeniser regex = new TweetTokeniser(text, true);
+			final TweetTokeniser scanner = new TweetTokeniser(text, false);
+			Assert.assertEquals(text, regex.getStringTokens(), scanner.getStringTokens());
+			Assert.assertEquals(text, regex.getProtectedStringTokens(), scanner.getProtectedStringTokens());
+			Assert.assertEquals(text, regex.getUnprotectedStringTokens(), scanner.getUnprotectedStringTokens());
+
+			final EntityTweetTokeniser entityRegex = new EntityTweetTokeniser(text, true);
+			final EntityTweetTokeniser entityScanner = new EntityTweetTokeniser(text, false);
+			Assert.assertEquals(text, entityRegex.getStringTokens(), entityScanner.getStringTokens());
+			Assert.assertEquals(text, entityRegex.getProtectedStringTokens(), entityScanner.getProtectedStringTokens());
+			Assert.assertEquals(text, entityRegex.getUnprotectedStringTokens(),
+					entityScanner.getUnprotectedStringTokens());
+		}
+		Assert.assertEquals(texts.size(), EntityTweetTokeniser.tokenise(texts).size());
+	}
+
 	private List<String> launchScript(String pythonScriptLocation, String json) throws IOException, InterruptedException {
 		final Process p = Runtime.getRuntime().exec(pythonScriptLocation);
 		final PrintStream ps = new PrintStream(p.getOutputStream());
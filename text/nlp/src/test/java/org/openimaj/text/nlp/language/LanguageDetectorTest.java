@@ -36,6 +36,8 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -120,6 +122,33 @@ public class LanguageDetectorTest {
 		assertLanguage(newdet, hindiStrings, new Locale("hi"));
 	}
 
+	/**
+	 * Check that classifying a batch of texts gives the same results as
+	 * classifying them one at a time
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testBatchClassify() throws IOException {
+		final LanguageDetector det = new LanguageDetector();
+
+		final List<String> texts = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			texts.add("This is an english sentence number " + i);
+			texts.add("das erlebnis im wahllokal im bezirk um im \u00f6sterreich ticker ist heftig " + i);
+		}
+
+		final List<WeightedLocale> results = det.classify(texts);
+		Assert.assertEquals(texts.size(), results.size());
+		for (int i = 0; i < texts.size(); i++) {
+			final WeightedLocale expected = det.classify(texts.get(i));
+			Assert.assertEquals(expected.getLocale(), results.get(i).getLocale());
+			Assert.assertEquals(expected.confidence, results.get(i).confidence, 1e-12);
+		}
+		Assert.assertEquals(Locale.ENGLISH, results.get(0).getLocale());
+		Assert.assertEquals(Locale.GERMAN, results.get(1).getLocale());
+	}
+
 	private void assertLanguage(LanguageDetector det, String[] statements, Locale language) {
 		for (final String statement : statements) {
 			final WeightedLocale estimateLanguage = det.classify(statement);
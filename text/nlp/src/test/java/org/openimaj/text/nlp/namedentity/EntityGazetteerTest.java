@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.text.nlp.namedentity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openimaj.text.nlp.namedentity.YagoEntityCandidateFinderFactory.YagoEntityCandidateFinder;
+
+/**
+ * Check the {@link EntityGazetteer} finds the same candidates as looking up
+ * every n-gram in the alias map
+ */
+public class EntityGazetteerTest {
+	/**
+	 * temp folder
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final String[][] ALIASES = {
+			{ "British_Airways", "British Airways", "BA", "British Airways plc" },
+			{ "Lufthansa", "Lufthansa", "Deutsche Lufthansa" },
+			{ "Apple_Inc.", "Apple", "Apple Inc", "Apple Computer" },
+			{ "Apple_Records", "Apple", "Apple Records" },
+			{ "The_New_York_Times_Company", "New York Times", "The New York Times Company", "NYT" },
+			{ "The_Times", "The Times", "Times" },
+			{ "Ignored", "the", "one", "42", "twenty two" },
+			{ "Spaced", "a  b" },
+			{ "Long", "one two three four five six" },
+	};
+
+	private static final String[] VOCABULARY = {
+			"British", "Airways", "BA", "plc", "Lufthansa", "Deutsche", "Apple", "Inc", "Computer", "Records", "New",
+			"York", "Times", "The", "Company", "NYT", "the", "one", "42", "twenty", "two", "a", "b", "", "three",
+			"four", "five", "six", "flies", "to", "and", "#apple", "@ba", "!"
+	};
+
+	private YagoEntityCandidateFinder finder;
+
+	/**
+	 * Write an alias file and load it
+	 * 
+	 * @throws IOException
+	 */
+	@Before
+	public void setup() throws IOException {
+		final File aliases = folder.newFile("aliases.txt");
+		final PrintWriter pw = new PrintWriter(aliases, "UTF-8");
+		for (final String[] entity : ALIASES) {
+			pw.println("+" + entity[0]);
+			for (int i = 1; i < entity.length; i++)
+				pw.println("." + entity[i]);
+		}
+		pw.close();
+
+		finder = YagoEntityCandidateFinderFactory.createFromAliasFile(aliases.getAbsolutePath());
+	}
+
+	private List<List<String>> randomTokenLists() {
+		final Random rng = new Random(1);
+		final List<List<String>> lists = new ArrayList<List<String>>();
+		for (int i = 0; i < 2000; i++) {
+			final List<String> tokens = new ArrayList<String>();
+			final int n = rng.nextInt(30);
+			for (int j = 0; j < n; j++)
+				tokens.add(VOCABULARY[rng.nextInt(VOCABULARY.length)]);
+			lists.add(tokens);
+		}
+		lists.add(Arrays.asList("British", "Airways", "and", "Lufthansa", "are", "airlines"));
+		lists.add(Arrays.asList("The", "New", "York", "Times", "Company"));
+		lists.add(Arrays.asList("a", "", "b", "one", "two", "three", "four", "five", "six"));
+		lists.add(Arrays.asList("British Airways", "flies"));
+		return lists;
+	}
+
+	/**
+	 * The compiled and uncompiled candidates should be identical
+	 */
+	@Test
+	public void testSameCandidates() {
+		for (final Integer[] ngrams : new Integer[][] { { 1, 2, 3, 4, 5 }, { 1, 3 }, { 2, 6 } }) {
+			finder.setNgrams(ngrams);
+			for (final List<String> tokens : randomTokenLists()) {
+				finder.setCompiled(false);
+				final String expected = finder.getCandidates(tokens).toString();
+				finder.setCompiled(true);
+				assertEquals(tokens.toString(), expected, finder.getCandidates(tokens).toString());
+			}
+		}
+	}
+
+	/**
+	 * The batch and single candidates should be identical
+	 */
+	@Test
+	public void testBatch() {
+		final List<List<String>> lists = randomTokenLists();
+		final List<List<List<NamedEntity>>> batch = finder.getCandidatesForAll(lists);
+
+		assertEquals(lists.size(), batch.size());
+		int found = 0;
+		for (int i = 0; i < lists.size(); i++) {
+			assertEquals(finder.getCandidates(lists.get(i)).toString(), batch.get(i).toString());
+			found += batch.get(i).size();
+		}
+		assertTrue(found > 0);
+	}
+}
@@ -0,0 +1,471 @@
+package ch.akuhn.matrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An immutable-structure sparse matrix in compressed sparse row (CSR) format.
+ * <p>
+ * The non-zero values are held in three flat arrays (row pointers, column
+ * indices and values) rather than as a list of {@link SparseVector}s, so the
+ * matrix-vector products that dominate iterative solvers (such as the Lanczos
+ * iterations in {@link ch.akuhn.matrix.eigenvalues.FewEigenvalues}) stream
+ * through contiguous memory. Large products are split into row blocks with
+ * roughly equal numbers of non-zeros and computed in parallel. The transpose
+ * product is computed from a lazily built (and cached) transposed copy of the
+ * matrix so that it can be parallelised in the same way without contention.
+ * <p>
+ * Existing values can be changed with {@link #put(int, int, double)}, but new
+ * non-zero entries cannot be added; build a {@link SparseMatrix} (or use
+ * {@link #fromTriplets(int, int, int[], int[], double[], int)}) and compress
+ * it instead.
+ */
+public class CompressedSparseRowMatrix extends Matrix {
+
+	/**
+	 * Minimum number of non-zeros before products are computed in parallel
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+	private final int rows;
+	private final int columns;
+
+	/* default */final int[] rowPointers;
+	/* default */final int[] columnIndices;
+	/* default */final double[] values;
+
+	private int nThreads = Runtime.getRuntime().availableProcessors();
+	private volatile CompressedSparseRowMatrix transpose;
+	private volatile CompressedSparseRowMatrix transposeOf;
+
+	/**
+	 * Lazily created shared thread pool for the parallel products
+	 */
+	private static class Pool {
+		static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+				Runtime.getRuntime().availableProcessors(),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						final Thread t = new Thread(r, "csr-matrix");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+	}
+
+	/**
+	 * Construct directly from CSR arrays. The arrays are not copied. Column
+	 * indices within each row must be sorted in ascending order.
+	 *
+	 * @param rows
+	 *            number of rows
+	 * @param columns
+	 *            number of columns
+	 * @param rowPointers
+	 *            the offsets of the start of each row (length
+	 *            <code>rows + 1</code>)
+	 * @param columnIndices
+	 *            the column index of each non-zero
+	 * @param values
+	 *            the value of each non-zero
+	 */
+	public CompressedSparseRowMatrix(int rows, int columns, int[] rowPointers, int[] columnIndices, double[] values) {
+		if (rowPointers.length != rows + 1)
+			throw new IllegalArgumentException("rowPointers must have length rows + 1");
+		if (columnIndices.length < rowPointers[rows] || values.length < rowPointers[rows])
+			throw new IllegalArgumentException("columnIndices and values must hold all the non-zeros");
+
+		this.rows = rows;
+		this.columns = columns;
+		this.rowPointers = rowPointers;
+		this.columnIndices = columnIndices;
+		this.values = values;
+	}
+
+	/**
+	 * Construct by compressing the given matrix. {@link SparseMatrix}s are
+	 * compressed in a single pass over their rows; other matrix types are
+	 * compressed through their row {@link Vector#entries()}.
+	 *
+	 * @param matrix
+	 *            the matrix to compress
+	 */
+	public CompressedSparseRowMatrix(Matrix matrix) {
+		this.rows = matrix.rowCount();
+		this.columns = matrix.columnCount();
+		this.rowPointers = new int[rows + 1];
+
+		int nnz = 0;
+		for (final Vector row : matrix.rows())
+			nnz += row.used();
+
+		this.columnIndices = new int[nnz];
+		this.values = new double[nnz];
+
+		int r = 0;
+		int k = 0;
+		for (final Vector row : matrix.rows()) {
+			if (row instanceof SparseVector) {
+				final SparseVector sv = (SparseVector) row;
+				System.arraycopy(sv.keys, 0, columnIndices, k, sv.used);
+				System.arraycopy(sv.values, 0, values, k, sv.used);
+				k += sv.used;
+			} else {
+				for (final Vector.Entry e : row.entries()) {
+					if (e.value == 0)
+						continue;
+					columnIndices[k] = e.index;
+					values[k++] = e.value;
+				}
+			}
+			rowPointers[++r] = k;
+		}
+	}
+
+	/**
+	 * Build a matrix from coordinate (triplet) form. The triplets may be in any
+	 * order; entries with the same row and column are summed. The input arrays
+	 * are not modified.
+	 * <p>
+	 * This runs in <code>O(nnz + rows + columns)</code> time using two stable
+	 * counting sorts, so it is suitable for building very large graphs.
+	 *
+	 * @param rows
+	 *            number of rows
+	 * @param columns
+	 *            number of columns
+	 * @param rowIdx
+	 *            row index of each triplet
+	 * @param colIdx
+	 *            column index of each triplet
+	 * @param vals
+	 *            value of each triplet
+	 * @param n
+	 *            the number of triplets to use from the arrays
+	 * @return the matrix
+	 */
+	public static CompressedSparseRowMatrix fromTriplets(int rows, int columns, int[] rowIdx, int[] colIdx,
+			double[] vals, int n)
+	{
+		// first pass: stable counting sort by column
+		final int[] colCount = new int[columns + 1];
+		for (int i = 0; i < n; i++)
+			colCount[colIdx[i] + 1]++;
+		for (int i = 0; i < columns; i++)
+			colCount[i + 1] += colCount[i];
+
+		final int[] byCol = new int[n];
+		for (int i = 0; i < n; i++)
+			byCol[colCount[colIdx[i]]++] = i;
+
+		// second pass: stable counting sort by row gives (row, column) order
+		final int[] rowPointers = new int[rows + 1];
+		for (int i = 0; i < n; i++)
+			rowPointers[rowIdx[i] + 1]++;
+		for (int i = 0; i < rows; i++)
+			rowPointers[i + 1] += rowPointers[i];
+
+		final int[] next = Arrays.copyOf(rowPointers, rows);
+		final int[] columnIndices = new int[n];
+		final double[] values = new double[n];
+		for (int j = 0; j < n; j++) {
+			final int i = byCol[j];
+			final int p = next[rowIdx[i]]++;
+			columnIndices[p] = colIdx[i];
+			values[p] = vals[i];
+		}
+
+		// finally merge duplicates in place
+		int k = 0;
+		for (int r = 0; r < rows; r++) {
+			final int start = rowPointers[r];
+			final int end = rowPointers[r + 1];
+			rowPointers[r] = k;
+			for (int p = start; p < end; p++) {
+				if (p > start && columnIndices[p] == columnIndices[k - 1]) {
+					values[k - 1] += values[p];
+				} else {
+					columnIndices[k] = columnIndices[p];
+					values[k++] = values[p];
+				}
+			}
+		}
+		rowPointers[rows] = k;
+
+		if (k == n)
+			return new CompressedSparseRowMatrix(rows, columns, rowPointers, columnIndices, values);
+		return new CompressedSparseRowMatrix(rows, columns, rowPointers, Arrays.copyOf(columnIndices, k),
+				Arrays.copyOf(values, k));
+	}
+
+	/**
+	 * Set the number of threads used for the matrix-vector products. A value
+	 * of 1 disables the parallel products.
+	 *
+	 * @param nThreads
+	 *            the number of threads
+	 * @return this
+	 */
+	public CompressedSparseRowMatrix setThreads(int nThreads) {
+		this.nThreads = Math.max(1, nThreads);
+		return this;
+	}
+
+	@Override
+	public int rowCount() {
+		return rows;
+	}
+
+	@Override
+	public int columnCount() {
+		return columns;
+	}
+
+	@Override
+	public int used() {
+		return rowPointers[rows];
+	}
+
+	private int find(int row, int column) {
+		return Arrays.binarySearch(columnIndices, rowPointers[row], rowPointers[row + 1], column);
+	}
+
+	@Override
+	public double get(int row, int column) {
+		final int p = find(row, column);
+		return p < 0 ? 0 : values[p];
+	}
+
+	@Override
+	public double put(int row, int column, double value) {
+		final int p = find(row, column);
+		if (p < 0) {
+			if (value == 0)
+				return 0;
+			throw new UnsupportedOperationException("Cannot add a new non-zero to a compressed matrix");
+		}
+		transpose = null;
+		final CompressedSparseRowMatrix source = transposeOf;
+		if (source != null) {
+			// this matrix is the cached transpose of source, which must no
+			// longer reuse it
+			if (source.transpose == this)
+				source.transpose = null;
+			transposeOf = null;
+		}
+		return values[p] = value;
+	}
+
+	@Override
+	public Vector row(int row) {
+		final int start = rowPointers[row];
+		final int len = rowPointers[row + 1] - start;
+		final SparseVector v = new SparseVector(columns, len);
+		System.arraycopy(columnIndices, start, v.keys, 0, len);
+		System.arraycopy(values, start, v.values, 0, len);
+		v.used = len;
+		return v;
+	}
+
+	@Override
+	public Iterable<Vector> rows() {
+		return new Iterable<Vector>() {
+			@Override
+			public Iterator<Vector> iterator() {
+				return new Iterator<Vector>() {
+					int i = 0;
+
+					@Override
+					public boolean hasNext() {
+						return i < rows;
+					}
+
+					@Override
+					public Vector next() {
+						if (!hasNext())
+							throw new NoSuchElementException();
+						return row(i++);
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Get the transpose of this matrix. The transpose is computed once and
+	 * cached until a value of either this matrix or the returned transpose is
+	 * changed.
+	 *
+	 * @return the transpose
+	 */
+	public CompressedSparseRowMatrix transpose() {
+		CompressedSparseRowMatrix t = transpose;
+		if (t == null) {
+			final int nnz = used();
+			final int[] tRowPointers = new int[columns + 1];
+			for (int p = 0; p < nnz; p++)
+				tRowPointers[columnIndices[p] + 1]++;
+			for (int c = 0; c < columns; c++)
+				tRowPointers[c + 1] += tRowPointers[c];
+
+			final int[] next = Arrays.copyOf(tRowPointers, columns);
+			final int[] tColumnIndices = new int[nnz];
+			final double[] tValues = new double[nnz];
+			for (int r = 0; r < rows; r++) {
+				for (int p = rowPointers[r]; p < rowPointers[r + 1]; p++) {
+					final int q = next[columnIndices[p]]++;
+					tColumnIndices[q] = r;
+					tValues[q] = values[p];
+				}
+			}
+
+			t = new CompressedSparseRowMatrix(columns, rows, tRowPointers, tColumnIndices, tValues);
+			t.nThreads = nThreads;
+			t.transposeOf = this;
+			transpose = t;
+		}
+		return t;
+	}
+
+	/**
+	 * Convert to a {@link SparseMatrix}
+	 *
+	 * @return a new {@link SparseMatrix} with the same values
+	 */
+	public SparseMatrix toSparseMatrix() {
+		final SparseMatrix m = new SparseMatrix(rows, columns);
+		for (int r = 0; r < rows; r++)
+			m.setRow(r, (SparseVector) row(r));
+		return m;
+	}
+
+	private static double[] asArray(Vector x) {
+		if (x instanceof DenseVector)
+			return ((DenseVector) x).values;
+
+		final double[] a = new double[x.size()];
+		for (final Vector.Entry e : x.entries())
+			a[e.index] = e.value;
+		return a;
+	}
+
+	private void multRows(double[] x, double[] y, int from, int to) {
+		final int[] rp = rowPointers;
+		final int[] ci = columnIndices;
+		final double[] v = values;
+		for (int i = from; i < to; i++) {
+			double sum = 0;
+			for (int p = rp[i]; p < rp[i + 1]; p++)
+				sum += v[p] * x[ci[p]];
+			y[i] = sum;
+		}
+	}
+
+	/**
+	 * Compute row boundaries that split the non-zeros into roughly equal sized
+	 * blocks
+	 */
+	private int[] partition(int nBlocks) {
+		final int nnz = used();
+		final int[] bounds = new int[nBlocks + 1];
+		bounds[nBlocks] = rows;
+		for (int b = 1; b < nBlocks; b++) {
+			final int target = (int) ((long) nnz * b / nBlocks);
+			int p = Arrays.binarySearch(rowPointers, bounds[b - 1], rows + 1, target);
+			if (p < 0)
+				p = -p - 1;
+			bounds[b] = Math.min(rows, Math.max(p, bounds[b - 1]));
+		}
+		return bounds;
+	}
+
+	@Override
+	public Vector mult(Vector dense) {
+		assert dense.size() == columns;
+		final double[] x = asArray(dense);
+		final double[] y = new double[rows];
+
+		if (nThreads <= 1 || used() < PARALLEL_THRESHOLD) {
+			multRows(x, y, 0, rows);
+			return Vector.wrap(y);
+		}
+
+		final int[] bounds = partition(nThreads);
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(nThreads);
+		for (int b = 0; b < nThreads; b++) {
+			final int from = bounds[b];
+			final int to = bounds[b + 1];
+			if (from == to)
+				continue;
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					multRows(x, y, from, to);
+					return null;
+				}
+			});
+		}
+		invokeAll(tasks);
+
+		return Vector.wrap(y);
+	}
+
+	@Override
+	public Vector transposeMultiply(Vector dense) {
+		assert dense.size() == rows;
+		return transpose().mult(dense);
+	}
+
+	private static void invokeAll(List<Callable<Void>> tasks) {
+		try {
+			for (final Future<Void> f : Pool.INSTANCE.invokeAll(tasks))
+				f.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (final ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	@Override
+	public Matrix newInstance(int rows, int cols) {
+		return new SparseMatrix(rows, cols);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof CompressedSparseRowMatrix))
+			return false;
+		final CompressedSparseRowMatrix m = (CompressedSparseRowMatrix) obj;
+		final int nnz = used();
+		if (m.rows != rows || m.columns != columns || m.used() != nnz)
+			return false;
+		return Arrays.equals(rowPointers, m.rowPointers)
+				&& Arrays.equals(Arrays.copyOf(columnIndices, nnz), Arrays.copyOf(m.columnIndices, nnz))
+				&& Arrays.equals(Arrays.copyOf(values, nnz), Arrays.copyOf(m.values, nnz));
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 31 * rows + columns;
+		for (int p = 0; p < used(); p++)
+			hash = 31 * hash + columnIndices[p] + (int) Double.doubleToLongBits(values[p]);
+		return hash;
+	}
+}
@@ -252,4 +252,15 @@ public class SparseMatrix extends Matrix {
 	public Matrix newInstance(int rows, int cols) {
 		return new SparseMatrix(rows, cols);
 	}
+
+	/**
+	 * Compress this matrix into compressed sparse row form. The result is a
+	 * copy which is much faster (and can be multi-threaded) for repeated
+	 * matrix-vector products, but cannot have new non-zeros added.
+	 * 
+	 * @return the compressed matrix
+	 */
+	public CompressedSparseRowMatrix compress() {
+		return new CompressedSparseRowMatrix(this);
+	}
 }
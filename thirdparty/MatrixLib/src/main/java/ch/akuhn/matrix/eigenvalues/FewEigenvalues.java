@@ -6,7 +6,9 @@ import org.netlib.arpack.ARPACK;
 import org.netlib.util.doubleW;
 import org.netlib.util.intW;
 
+import ch.akuhn.matrix.CompressedSparseRowMatrix;
 import ch.akuhn.matrix.Matrix;
+import ch.akuhn.matrix.SparseMatrix;
 import ch.akuhn.matrix.Vector;
 
 /**
@@ -60,12 +62,19 @@ public abstract class FewEigenvalues extends Eigenvalues {
 
 	private Which which;
 
+	/**
+	 * Get an object to compute a few eigenvalues of the given square matrix.
+	 * {@link SparseMatrix}s are compressed into a
+	 * {@link CompressedSparseRowMatrix} first, as the solver performs many
+	 * matrix-vector products.
+	 */
 	public static FewEigenvalues of(final Matrix matrix) {
 		assert matrix.isSquare();
+		final Matrix op = matrix instanceof SparseMatrix ? ((SparseMatrix) matrix).compress() : matrix;
 		return new FewEigenvalues(matrix.columnCount()) {
 			@Override
 			protected Vector callback(Vector vector) {
-				return matrix.mult(vector);
+				return op.mult(vector);
 			}
 		};
 	}
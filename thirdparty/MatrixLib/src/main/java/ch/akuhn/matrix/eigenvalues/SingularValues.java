@@ -48,6 +48,9 @@ public class SingularValues {
 	 * @return this
 	 */
 	public SingularValues decompose() {
+		// the solver performs many products, so work with the compressed form
+		final Matrix A = this.A instanceof SparseMatrix ? ((SparseMatrix) this.A).compress() : this.A;
+
 		final Eigenvalues eigen = new FewEigenvalues(A.rowCount()) {
 			@Override
 			protected Vector callback(Vector v) {
@@ -0,0 +1,97 @@
+package ch.akuhn.matrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link CompressedSparseRowMatrix}
+ */
+public class TestCompressedSparseRowMatrix {
+	private static double[] randomVector(Random rng, int n) {
+		final double[] v = new double[n];
+		for (int i = 0; i < n; i++)
+			v[i] = rng.nextDouble();
+		return v;
+	}
+
+	/**
+	 * Check the products against the {@link SparseMatrix} implementation,
+	 * both single threaded and with enough non-zeros to run in parallel
+	 */
+	@Test
+	public void testProducts() {
+		final Random rng = new Random(1);
+		for (final double density : new double[] { 0.01, 0.5 }) {
+			final SparseMatrix A = SparseMatrix.random(300, 400, density);
+			for (final int threads : new int[] { 1, 4 }) {
+				final CompressedSparseRowMatrix C = A.compress().setThreads(threads);
+				assertEquals(A.used(), C.used());
+
+				final Vector x = Vector.wrap(randomVector(rng, 400));
+				assertArrayEquals(A.mult(x).unwrap(), C.mult(x).unwrap(), 1e-10);
+
+				final Vector y = Vector.wrap(randomVector(rng, 300));
+				assertArrayEquals(A.transposeMultiply(y).unwrap(), C.transposeMultiply(y).unwrap(), 1e-10);
+			}
+		}
+	}
+
+	/**
+	 * Check construction from unsorted triplets with duplicates
+	 */
+	@Test
+	public void testFromTriplets() {
+		final int[] r = { 2, 0, 1, 0, 2, 0 };
+		final int[] c = { 1, 2, 0, 0, 1, 2 };
+		final double[] v = { 1, 2, 3, 4, 5, 6 };
+
+		final CompressedSparseRowMatrix m = CompressedSparseRowMatrix.fromTriplets(3, 3, r, c, v, r.length);
+		assertEquals(4, m.used());
+		assertArrayEquals(new double[][] { { 4, 0, 8 }, { 3, 0, 0 }, { 0, 6, 0 } }, m.asArray());
+		assertArrayEquals(new double[][] { { 4, 3, 0 }, { 0, 0, 6 }, { 8, 0, 0 } }, m.transpose().asArray());
+		assertArrayEquals(m.asArray(), m.toSparseMatrix().asDenseDoubleDouble());
+	}
+
+	/**
+	 * Changing an existing value must invalidate the cached transpose
+	 */
+	@Test
+	public void testPut() {
+		final CompressedSparseRowMatrix m = CompressedSparseRowMatrix.fromTriplets(2, 2,
+				new int[] { 0, 1 }, new int[] { 1, 0 }, new double[] { 1, 2 }, 2);
+		assertEquals(1, m.transpose().get(1, 0), 0);
+		m.put(0, 1, 5);
+		assertEquals(5, m.transpose().get(1, 0), 0);
+	}
+
+	/**
+	 * Changing a value of the transpose must not leak into products computed
+	 * with the original matrix
+	 */
+	@Test
+	public void testPutTranspose() {
+		final CompressedSparseRowMatrix m = CompressedSparseRowMatrix.fromTriplets(2, 2,
+				new int[] { 0, 1 }, new int[] { 1, 0 }, new double[] { 1, 2 }, 2);
+		final CompressedSparseRowMatrix t = m.transpose();
+		t.put(1, 0, 5);
+
+		assertEquals(5, t.get(1, 0), 0);
+		assertEquals(1, m.get(0, 1), 0);
+		assertEquals(1, m.transpose().get(1, 0), 0);
+		assertArrayEquals(new double[] { 2, 1 }, m.transposeMultiply(Vector.wrap(1, 1)).unwrap(), 0);
+	}
+
+	/**
+	 * Adding a new non-zero is not supported
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testPutNewValue() {
+		final CompressedSparseRowMatrix m = CompressedSparseRowMatrix.fromTriplets(2, 2,
+				new int[] { 0 }, new int[] { 1 }, new double[] { 1 }, 1);
+		m.put(1, 1, 5);
+	}
+}
@@ -0,0 +1,335 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.tools.twitter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openimaj.tools.twitter.modes.output.TwitterOutputMode;
+import org.openimaj.tools.twitter.modes.preprocessing.TwitterPreprocessingMode;
+import org.openimaj.tools.twitter.options.AbstractTwitterPreprocessingToolOptions;
+import org.openimaj.twitter.USMFStatus;
+import org.openimaj.util.parallel.GlobalExecutorPool.DaemonThreadFactory;
+
+/**
+ * Applies the configured {@link TwitterPreprocessingMode}s to a stream of
+ * tweets using a fixed pool of worker threads.
+ * <p>
+ * Each worker thread has its own instances of the preprocessing modes (created
+ * with {@link AbstractTwitterPreprocessingToolOptions#preprocessingMode()}), so
+ * the modes themselves don't need to be thread-safe. The workers and their
+ * modes are created once per engine and reused by every call to
+ * {@link #process(Iterable, TwitterOutputMode, PrintWriter)}, so an engine
+ * should be {@link #shutdown()} once it is no longer needed. The pre- and post-filters,
+ * the conversion to the output format and the writing all happen on the
+ * calling thread, in the same way as the single-threaded tool. Output can
+ * either be in input order, or in the order tweets finish (which avoids one
+ * slow tweet holding up the rest of the output).
+ * <p>
+ * Tweets taking longer than the skip timeout are cancelled (and their worker
+ * interrupted) by a single watchdog thread rather than a thread per tweet. A
+ * cancelled tweet is counted as skipped and not written, but interruption is
+ * only a request: the remaining modes for the tweet are not started, but a
+ * mode that is already running and ignores interrupts keeps its worker busy
+ * until it returns.
+ * The number of tweets in flight is bounded, so memory use doesn't depend on
+ * the size of the input, and the output is flushed in batches rather than
+ * after every tweet.
+ */
+public class TwitterPreprocessingEngine {
+	private final AbstractTwitterPreprocessingToolOptions options;
+	private final int nThreads;
+	private final boolean ordered;
+	private final int flushEvery;
+	private final ExecutorService workers;
+	private final ThreadLocal<List<TwitterPreprocessingMode<?>>> modes;
+
+	private long done;
+	private long skipped;
+	private long failed;
+
+	/**
+	 * Construct the engine
+	 * 
+	 * @param options
+	 *            the options describing the modes, filters and output format
+	 * @param nThreads
+	 *            the number of worker threads
+	 * @param ordered
+	 *            if true the output is in the same order as the input
+	 * @param flushEvery
+	 *            the number of tweets to write between flushes of the output
+	 */
+	public TwitterPreprocessingEngine(AbstractTwitterPreprocessingToolOptions options, int nThreads,
+			boolean ordered, int flushEvery)
+	{
+		this.options = options;
+		this.nThreads = Math.max(1, nThreads);
+		this.ordered = ordered;
+		this.flushEvery = Math.max(1, flushEvery);
+
+		this.workers = Executors.newFixedThreadPool(this.nThreads, new DaemonThreadFactory());
+		this.modes = new ThreadLocal<List<TwitterPreprocessingMode<?>>>() {
+			@Override
+			protected List<TwitterPreprocessingMode<?>> initialValue() {
+				try {
+					return TwitterPreprocessingEngine.this.options.preprocessingMode();
+				} catch (final Exception e) {
+					throw new RuntimeException("Could not create processing mode!", e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Stop the worker threads. The engine cannot be used afterwards.
+	 */
+	public void shutdown() {
+		workers.shutdownNow();
+	}
+
+	/**
+	 * A tweet being processed by the modes of a worker thread
+	 */
+	static class TweetTask extends FutureTask<USMFStatus> {
+		volatile long started;
+		BlockingQueue<TweetTask> completed;
+
+		TweetTask(Callable<USMFStatus> callable, BlockingQueue<TweetTask> completed) {
+			super(callable);
+			this.completed = completed;
+		}
+
+		@Override
+		public void run() {
+			started = System.currentTimeMillis();
+			super.run();
+		}
+
+		@Override
+		protected void done() {
+			if (completed != null)
+				completed.add(this);
+		}
+	}
+
+	/**
+	 * Process all the given tweets, writing the results to the given writer.
+	 * 
+	 * @param tweets
+	 *            the tweets
+	 * @param outputMode
+	 *            the output mode
+	 * @param writer
+	 *            the writer
+	 * @throws IOException
+	 *             if an error occurs writing
+	 */
+	public void process(Iterable<USMFStatus> tweets, TwitterOutputMode outputMode, PrintWriter writer)
+			throws IOException
+	{
+		done = skipped = failed = 0;
+
+		final Map<TweetTask, Boolean> running = new ConcurrentHashMap<TweetTask, Boolean>();
+		final ScheduledExecutorService watchdog = startWatchdog(running);
+
+		// bound the number of tweets that have been read but not written
+		final Semaphore inFlight = new Semaphore(nThreads * 64);
+		final BlockingQueue<TweetTask> queue = new LinkedBlockingQueue<TweetTask>();
+		final long start = System.currentTimeMillis();
+		long lastReport = start;
+		long submitted = 0;
+		long written = 0;
+
+		try {
+			for (final USMFStatus twitterStatus : tweets) {
+				if (twitterStatus.isInvalid() || twitterStatus.text.isEmpty()) {
+					if (options.veryLoud()) {
+						System.out.println("\nTWEET INVALID, skipping.");
+					}
+					continue;
+				}
+				if (options.preProcessesSkip(twitterStatus))
+					continue;
+
+				final TweetTask task = new TweetTask(new Callable<USMFStatus>() {
+					@Override
+					public USMFStatus call() {
+						for (final TwitterPreprocessingMode<?> mode : modes.get()) {
+							if (Thread.currentThread().isInterrupted())
+								break;
+							try {
+								TwitterPreprocessingMode.results(twitterStatus, mode);
+							} catch (final Exception e) {
+								System.err.println("Mode failed: " + mode);
+							}
+						}
+						return twitterStatus;
+					}
+				}, ordered ? null : queue);
+
+				// if too many tweets are waiting to be written, block until the
+				// next one can be
+				while (!inFlight.tryAcquire()) {
+					write(queue.take(), running, outputMode, writer, ++written);
+					inFlight.release();
+				}
+				if (ordered)
+					queue.add(task);
+				running.put(task, Boolean.TRUE);
+				workers.execute(task);
+				submitted++;
+
+				// write whatever is ready without blocking the reader
+				TweetTask next;
+				while ((next = queue.peek()) != null && next.isDone()) {
+					queue.poll();
+					write(next, running, outputMode, writer, ++written);
+					inFlight.release();
+				}
+
+				final long now = System.currentTimeMillis();
+				if (now - lastReport > 1000) {
+					report(start, now);
+					lastReport = now;
+				}
+			}
+
+			while (written < submitted) {
+				final TweetTask next = queue.take();
+				write(next, running, outputMode, writer, ++written);
+				inFlight.release();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			// the workers outlive this call, so don't leave them with the
+			// tweets that weren't written
+			for (final TweetTask task : running.keySet())
+				task.cancel(true);
+			if (watchdog != null)
+				watchdog.shutdownNow();
+			writer.flush();
+		}
+
+		report(start, System.currentTimeMillis());
+	}
+
+	private ScheduledExecutorService startWatchdog(final Map<TweetTask, Boolean> running) {
+		final long timeout = options.getTimeBeforeSkip();
+		if (timeout <= 0)
+			return null;
+
+		final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+		final long period = Math.max(1, timeout / 4);
+		watchdog.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				final long now = System.currentTimeMillis();
+				for (final TweetTask task : running.keySet()) {
+					final long started = task.started;
+					if (started > 0 && now - started > timeout)
+						task.cancel(true);
+				}
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+
+		return watchdog;
+	}
+
+	private void write(TweetTask task, Map<TweetTask, Boolean> running, TwitterOutputMode outputMode,
+			PrintWriter writer, long written) throws IOException, InterruptedException
+	{
+		running.remove(task);
+
+		final USMFStatus status;
+		try {
+			status = task.get();
+		} catch (final CancellationException e) {
+			skipped++;
+			return;
+		} catch (final ExecutionException e) {
+			failed++;
+			System.err.println("Processing failed: " + e.getCause());
+			return;
+		}
+
+		done++;
+		if (options.veryLoud()) {
+			System.out.println("\nPROCESSED TWEET");
+			System.out.println(status);
+		}
+		if (!options.postProcessesSkip(status)) {
+			outputMode.output(options.convertToOutputFormat(status), writer);
+		}
+		if (written % flushEvery == 0)
+			writer.flush();
+	}
+
+	private void report(long start, long now) {
+		final double secs = Math.max(1, now - start) / 1000.0;
+		String msg = String.format("\rDone: %d (%.1f tweets/sec)", done, done / secs);
+		if (skipped > 0)
+			msg += " (Skipped: " + skipped + ")";
+		if (failed > 0)
+			msg += " (Failed: " + failed + ")";
+		options.progress(msg);
+	}
+
+	/**
+	 * @return the number of tweets processed by the last call to
+	 *         {@link #process(Iterable, TwitterOutputMode, PrintWriter)}
+	 */
+	public long getDone() {
+		return done;
+	}
+
+	/**
+	 * @return the number of tweets that timed out during the last call to
+	 *         {@link #process(Iterable, TwitterOutputMode, PrintWriter)}
+	 */
+	public long getSkipped() {
+		return skipped;
+	}
+}
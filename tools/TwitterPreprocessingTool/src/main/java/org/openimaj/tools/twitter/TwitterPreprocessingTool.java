@@ -31,15 +31,12 @@ package org.openimaj.tools.twitter;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.List;
 
 import org.kohsuke.args4j.CmdLineException;
 import org.openimaj.tools.twitter.modes.output.TwitterOutputMode;
-import org.openimaj.tools.twitter.modes.preprocessing.TwitterPreprocessingMode;
 import org.openimaj.tools.twitter.options.TwitterPreprocessingToolOptions;
 import org.openimaj.twitter.USMFStatus;
 import org.openimaj.twitter.collection.TwitterStatusList;
-import org.openimaj.utils.threads.WatchedRunner;
 
 /**
  * A tool for applying preprocessing to a set of tweets and outputting the results in json
@@ -66,9 +63,9 @@ public class TwitterPreprocessingTool
 			System.exit(1);
 		}
 		TwitterOutputMode outputMode;
-		final List<TwitterPreprocessingMode<?>> modes;
 		try {
-			modes = options.preprocessingMode();
+			// check the modes can be created; each worker thread makes its own
+			options.preprocessingMode();
 			outputMode = options.ouputMode();
 			outputMode.delimit("\n");
 		} catch (Exception e) {
@@ -77,67 +74,23 @@ public class TwitterPreprocessingTool
 			return;
 		}
 
-		while(options.hasNextFile()){
-			options.nextFile();
-			options.progress("Preparing tweets\n");
-			TwitterStatusList<USMFStatus> tweets = options.getTwitterStatusList();
-			options.progress("Processing " + tweets.size() + " tweets\n");
-
-			long done = 0;
-			long skipped = 0;
-			long start = System.currentTimeMillis();
-			PrintWriter oWriter = options.outputWriter();
-			for (final USMFStatus twitterStatus : tweets) {
-				if(twitterStatus.isInvalid() || twitterStatus.text.isEmpty()){
-					if(options.veryLoud()){
-						System.out.println("\nTWEET INVALID, skipping.");
-					}
-					continue;
-				}
-				if(options.veryLoud()){
-					System.out.println("\nPROCESSING TWEET");
-					System.out.println(twitterStatus);
-				}
-
-				if(options.preProcessesSkip(twitterStatus)) continue;
-
-				WatchedRunner runner = new WatchedRunner(options.getTimeBeforeSkip()){
-					@Override
-					public void doTask() {
-						for (TwitterPreprocessingMode<?> mode : modes) {
-							try {
-								TwitterPreprocessingMode.results(twitterStatus, mode);
-							} catch (Exception e) {
-								System.err.println("Mode failed: " + mode);
-							}
-						}
-					}
-				};
-				runner.go();
-				if(runner.taskCompleted()){
-					done++;
-					options.progress("\rDone: " + done);
-
-
-					if(!options.postProcessesSkip(twitterStatus))
-					{
-						outputMode.output(options.convertToOutputFormat(twitterStatus),oWriter);
-						oWriter.flush();
-					}
-				}
-				else{
-					skipped ++;
-				}
-				if(skipped > 0){
-					options.progress(" (Skipped: " + skipped + ") ");
-				}
-
-
+		final TwitterPreprocessingEngine engine = new TwitterPreprocessingEngine(options, options.getThreads(), options.isOrdered(), options.getFlushEvery());
+		try {
+			while(options.hasNextFile()){
+				options.nextFile();
+				options.progress("Preparing tweets\n");
+				TwitterStatusList<USMFStatus> tweets = options.getTwitterStatusList();
+				options.progress("Processing " + tweets.size() + " tweets\n");
 
+				long start = System.currentTimeMillis();
+				PrintWriter oWriter = options.outputWriter();
+				engine.process(tweets, outputMode, oWriter);
+				long end = System.currentTimeMillis();
+				options.progress(String.format("\nTook: %d\n",(end-start)));
+				options.progress("Done!\n");
 			}
-			long end = System.currentTimeMillis();
-			options.progress(String.format("\nTook: %d\n",(end-start)));
-			options.progress("Done!\n");
+		} finally {
+			engine.shutdown();
 		}
 		options.outputWriter().flush();
 		options.outputWriter().close();
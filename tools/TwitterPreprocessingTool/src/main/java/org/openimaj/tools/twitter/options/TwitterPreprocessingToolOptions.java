@@ -43,6 +43,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.Option;
 import org.openimaj.tools.FileToolsUtil;
 import org.openimaj.twitter.USMFStatus;
 import org.openimaj.twitter.collection.FileTwitterStatusList;
@@ -68,6 +69,25 @@ public class TwitterPreprocessingToolOptions extends  AbstractTwitterPreprocessi
 	private boolean stdout;
 	private Iterator<File> fileIterator;
 	private boolean stdin;
+
+	@Option(
+			name = "--threads",
+			aliases = "-j",
+			required = false,
+			usage = "The number of threads used to process tweets. Defaults to the number of processors.")
+	int threads = Runtime.getRuntime().availableProcessors();
+
+	@Option(
+			name = "--unordered",
+			required = false,
+			usage = "Output tweets as soon as they are processed rather than in input order.")
+	boolean unordered = false;
+
+	@Option(
+			name = "--flush-every",
+			required = false,
+			usage = "The number of tweets to write between flushes of the output.")
+	int flushEvery = 1000;
 	
 	/**
 	 * See: {@link AbstractTwitterPreprocessingToolOptions#AbstractTwitterPreprocessingToolOptions(String[])}
@@ -170,4 +190,25 @@ public class TwitterPreprocessingToolOptions extends  AbstractTwitterPreprocessi
 			TwitterPreprocessingToolOptions.this.inputFile = null;
 		
 	}
+
+	/**
+	 * @return the number of threads to process tweets with
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return true if the output should be in the same order as the input
+	 */
+	public boolean isOrdered() {
+		return !unordered;
+	}
+
+	/**
+	 * @return the number of tweets to write between flushes of the output
+	 */
+	public int getFlushEvery() {
+		return flushEvery;
+	}
 }
@@ -29,6 +29,7 @@
  */
 package org.openimaj.tools.twitter;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedReader;
@@ -197,6 +198,30 @@ public class TwitterPreprocessingToolTests {
 		tokenOutJSON.delete();
 	}
 
+	/**
+	 * tokenise with several worker threads, both in order and unordered
+	 * @throws IOException
+	 */
+	@Test
+	public void testTweetTokeniseJSONThreaded() throws IOException{
+		String tokMode = "TOKENISE";
+		File tokenOutJSON = folder.newFile("tokens-testTweetTokeniseJSONThreaded.json");
+		String commandArgs = String.format(commandFormat,jsonTwitterInputFile,tokenOutJSON,tokMode,"APPEND") + " -j 4 --flush-every 7";
+		TwitterPreprocessingTool.main(commandArgs.split(" "));
+		TokeniseMode m = new TokeniseMode();
+		assertTrue(checkSameAnalysis(jsonTwitterInputFile,tokenOutJSON,m));
+
+		File unorderedOutJSON = folder.newFile("tokens-testTweetTokeniseJSONUnordered.json");
+		commandArgs = String.format(commandFormat,jsonTwitterInputFile,unorderedOutJSON,tokMode,"APPEND") + " -j 4 --unordered";
+		TwitterPreprocessingTool.main(commandArgs.split(" "));
+		String[] ordered = FileUtils.readlines(tokenOutJSON,"UTF-8");
+		String[] unordered = FileUtils.readlines(unorderedOutJSON,"UTF-8");
+		Arrays.sort(ordered);
+		Arrays.sort(unordered);
+		assertTrue(ordered.length > 0);
+		assertEquals(Arrays.asList(ordered), Arrays.asList(unordered));
+	}
+
 	/**
 	 * tokenise a json tweet stream
 	 * @throws IOException
@@ -29,63 +29,208 @@
  */
 package org.openimaj.ml.sketch.bloom;
 
-import gnu.trove.map.hash.TIntIntHashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import org.openimaj.io.ReadWriteableBinary;
 import org.openimaj.ml.sketch.SummarySketcher;
 import org.openimaj.util.hash.StringMurmurHashFunction;
-import org.openimaj.util.hash.StringMurmurHashFunctionFactory;
 
 /**
  * The bloom sketch as described by
  * http://lkozma.net/blog/sketching-data-structures/
+ * <p>
+ * The filter is held as a bit array packed into longs which are set without
+ * locking, so a single filter can be shared between threads. The hash
+ * functions are derived from a fixed seed so that filters with the same size
+ * and seed can be combined with {@link #merge(Bloom)}.
  * 
  * @author Sina Samangooei (ss@ecs.soton.ac.uk)
  * 
  */
-public class Bloom implements SummarySketcher<String, Boolean> {
+public class Bloom implements SummarySketcher<String, Boolean>, ReadWriteableBinary {
+	private static final byte[] HEADER = "BLSK".getBytes();
 
-	private StringMurmurHashFunction[] maps;
-	private TIntIntHashMap table;
+	/**
+	 * The default seed of the hash functions
+	 */
+	public static final int DEFAULT_SEED = 0x2f7c4c61;
+
+	private int ntables;
 	private int nwords;
+	private int seed;
+	private AtomicLongArray bits;
+
+	/**
+	 * Used for reading
+	 */
+	private Bloom() {
+	}
 
 	/**
+	 * Construct with the default seed
+	 * 
 	 * @param ntables
 	 *            the number of hash functions
 	 * @param nwords
 	 *            the range of the hash functions
 	 */
 	public Bloom(int ntables, int nwords) {
-		maps = new StringMurmurHashFunction[ntables];
+		this(ntables, nwords, DEFAULT_SEED);
+	}
 
-		final StringMurmurHashFunctionFactory fact = new StringMurmurHashFunctionFactory();
-		for (int i = 0; i < maps.length; i++) {
-			maps[i] = fact.create();
-		}
+	/**
+	 * @param ntables
+	 *            the number of hash functions
+	 * @param nwords
+	 *            the range of the hash functions
+	 * @param seed
+	 *            the seed of the hash functions
+	 */
+	public Bloom(int ntables, int nwords, int seed) {
+		if (ntables <= 0 || nwords <= 0)
+			throw new IllegalArgumentException("The number of tables and words must be positive");
 
+		this.ntables = ntables;
 		this.nwords = nwords;
-		this.table = new TIntIntHashMap(nwords);
+		this.seed = seed;
+		this.bits = new AtomicLongArray((nwords + 63) >>> 6);
+	}
+
+	/**
+	 * Construct a filter sized to hold the given number of items with the
+	 * given false positive rate.
+	 * 
+	 * @param nitems
+	 *            the expected number of items
+	 * @param falsePositiveRate
+	 *            the desired false positive rate
+	 * @return the new filter
+	 */
+	public static Bloom withFalsePositiveRate(int nitems, double falsePositiveRate) {
+		final double ln2 = Math.log(2);
+		final int nwords = (int) Math.ceil(-nitems * Math.log(falsePositiveRate) / (ln2 * ln2));
+		final int ntables = (int) Math.round(ln2 * nwords / nitems);
+
+		return new Bloom(Math.max(1, ntables), Math.max(1, nwords));
+	}
+
+	private static byte[] bytes(String data) {
+		try {
+			return data.getBytes("UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private int location(int h1, int h2, int i) {
+		return ((h1 + i * h2) & Integer.MAX_VALUE) % nwords;
+	}
+
+	/**
+	 * Add an item to the filter
+	 * 
+	 * @param data
+	 *            the item
+	 */
+	public void add(String data) {
+		final byte[] b = bytes(data);
+		final int h1 = StringMurmurHashFunction.murmurhash(b, seed);
+		final int h2 = StringMurmurHashFunction.murmurhash(b, h1);
+
+		for (int i = 0; i < ntables; i++) {
+			final int loc = location(h1, h2, i);
+			final int word = loc >>> 6;
+			final long mask = 1L << (loc & 63);
+
+			long current;
+			while (((current = bits.get(word)) & mask) == 0) {
+				if (bits.compareAndSet(word, current, current | mask))
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Test whether an item might have been added to the filter. False
+	 * positives are possible, but false negatives are not.
+	 * 
+	 * @param data
+	 *            the item
+	 * @return true if the item might have been added
+	 */
+	public boolean contains(String data) {
+		final byte[] b = bytes(data);
+		final int h1 = StringMurmurHashFunction.murmurhash(b, seed);
+		final int h2 = StringMurmurHashFunction.murmurhash(b, h1);
+
+		for (int i = 0; i < ntables; i++) {
+			final int loc = location(h1, h2, i);
+			if ((bits.get(loc >>> 6) & (1L << (loc & 63))) == 0)
+				return false;
+		}
+		return true;
 	}
 
 	@Override
 	public void update(String data, Boolean value) {
-		for (final StringMurmurHashFunction map : maps) {
-			final int hash = map.computeHashCode(data);
-			final int loc = Math.abs(hash) % this.nwords;
-			this.table.put(loc, 1);
-		}
+		if (value)
+			add(data);
 	}
 
 	@Override
 	public Boolean query(String data) {
-		boolean found = false;
-		for (final StringMurmurHashFunction map : maps) {
-			final int hash = map.computeHashCode(data);
-			final int loc = Math.abs(hash) % this.nwords;
-			found = this.table.get(loc) == 1;
-			if (found)
-				return found;
+		return contains(data);
+	}
+
+	/**
+	 * Add all the items of another filter to this one. The other filter must
+	 * have the same size and seed.
+	 * 
+	 * @param other
+	 *            the filter to merge
+	 */
+	public void merge(Bloom other) {
+		if (other.ntables != ntables || other.nwords != nwords || other.seed != seed)
+			throw new IllegalArgumentException("Only filters with the same dimensions and seed can be merged");
+
+		for (int i = 0; i < bits.length(); i++) {
+			final long v = other.bits.get(i);
+			long current;
+			while (((current = bits.get(i)) | v) != current) {
+				if (bits.compareAndSet(i, current, current | v))
+					break;
+			}
 		}
-		return found;
 	}
 
+	@Override
+	public void readBinary(DataInput in) throws IOException {
+		ntables = in.readInt();
+		nwords = in.readInt();
+		seed = in.readInt();
+
+		final long[] data = new long[(nwords + 63) >>> 6];
+		for (int i = 0; i < data.length; i++)
+			data[i] = in.readLong();
+		bits = new AtomicLongArray(data);
+	}
+
+	@Override
+	public byte[] binaryHeader() {
+		return HEADER;
+	}
+
+	@Override
+	public void writeBinary(DataOutput out) throws IOException {
+		out.writeInt(ntables);
+		out.writeInt(nwords);
+		out.writeInt(seed);
+
+		for (int i = 0; i < bits.length(); i++)
+			out.writeLong(bits.get(i));
+	}
 }
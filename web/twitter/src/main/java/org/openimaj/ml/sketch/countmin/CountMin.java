@@ -29,70 +29,271 @@
  */
 package org.openimaj.ml.sketch.countmin;
 
-import gnu.trove.map.hash.TIntIntHashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import org.openimaj.io.ReadWriteableBinary;
 import org.openimaj.ml.sketch.SummarySketcher;
 import org.openimaj.util.hash.StringMurmurHashFunction;
-import org.openimaj.util.hash.StringMurmurHashFunctionFactory;
-import org.openimaj.util.pair.IndependentPair;
 
 /**
- * CountMin as described in the reference below
+ * CountMin as described by Cormode and Muthukrishnan, "An Improved Data Stream
+ * Summary: The Count-Min Sketch and its Applications".
+ * <p>
+ * The counters of all the tables are held in a single primitive array which is
+ * updated without locking, so a single sketch can be shared between threads.
+ * The hash functions are derived from a fixed seed, so sketches built with the
+ * same dimensions and seed (for example one per mapper) can be combined with
+ * {@link #merge(CountMin)} or written and read with the binary IO methods.
+ * <p>
+ * If conservative update is enabled then each update only raises the counters
+ * that are below the new estimate of the item, which reduces the
+ * over-estimation of infrequent items. Conservatively updated sketches can
+ * still be merged, but the result is then only guaranteed to be an upper bound.
  * 
  * @author Sina Samangooei (ss@ecs.soton.ac.uk)
  * 
  */
-public class CountMin implements SummarySketcher<String, Integer> {
+public class CountMin implements SummarySketcher<String, Long>, ReadWriteableBinary {
+	private static final byte[] HEADER = "CMSK".getBytes();
 
-	private static class FunctionHashPair extends IndependentPair<StringMurmurHashFunction, TIntIntHashMap> {
+	/**
+	 * The default seed of the hash functions
+	 */
+	public static final int DEFAULT_SEED = 0x5f3759df;
 
-		public FunctionHashPair(StringMurmurHashFunction func, TIntIntHashMap map) {
-			super(func, map);
+	private int ntables;
+	private int nwords;
+	private int seed;
+	private boolean conservative;
+	private AtomicLongArray table;
+	private AtomicLong total;
 
-		}
+	/**
+	 * Used for reading
+	 */
+	private CountMin() {
 	}
 
-	private FunctionHashPair[] maps;
-	private int nwords;
-
 	/**
+	 * Construct with the default seed
+	 * 
 	 * @param ntables
 	 *            the number of hash functions
 	 * @param nwords
 	 *            the range of the hash functions
 	 */
 	public CountMin(int ntables, int nwords) {
-		maps = new FunctionHashPair[ntables];
+		this(ntables, nwords, DEFAULT_SEED, false);
+	}
+
+	/**
+	 * @param ntables
+	 *            the number of hash functions
+	 * @param nwords
+	 *            the range of the hash functions
+	 * @param seed
+	 *            the seed of the hash functions
+	 * @param conservative
+	 *            true if conservative update should be used
+	 */
+	public CountMin(int ntables, int nwords, int seed, boolean conservative) {
+		if (ntables <= 0 || nwords <= 0)
+			throw new IllegalArgumentException("The number of tables and words must be positive");
+
+		this.ntables = ntables;
 		this.nwords = nwords;
+		this.seed = seed;
+		this.conservative = conservative;
+		this.table = new AtomicLongArray(ntables * nwords);
+		this.total = new AtomicLong();
+	}
 
-		final StringMurmurHashFunctionFactory fact = new StringMurmurHashFunctionFactory();
-		for (int i = 0; i < maps.length; i++) {
-			maps[i] = new FunctionHashPair(fact.create(), new TIntIntHashMap());
+	/**
+	 * Construct a sketch whose estimates exceed the true counts by at most
+	 * <code>epsilon</code> times the total count with probability
+	 * <code>1 - delta</code>.
+	 * 
+	 * @param epsilon
+	 *            the relative error
+	 * @param delta
+	 *            the probability of exceeding the error
+	 * @param conservative
+	 *            true if conservative update should be used
+	 * @return the new sketch
+	 */
+	public static CountMin withErrorBounds(double epsilon, double delta, boolean conservative) {
+		final int nwords = (int) Math.ceil(Math.E / epsilon);
+		final int ntables = (int) Math.ceil(Math.log(1 / delta));
+
+		return new CountMin(Math.max(1, ntables), nwords, DEFAULT_SEED, conservative);
+	}
+
+	static byte[] bytes(String data) {
+		try {
+			return data.getBytes("UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
 		}
 	}
 
-	@Override
-	public void update(String data, Integer value) {
-		for (final FunctionHashPair map : this.maps) {
-			final int hash = map.firstObject().computeHashCode(data);
-			final int loc = Math.abs(hash) % this.nwords;
+	/*
+	 * The location of an item in each table is h1 + i * h2 (Kirsch and
+	 * Mitzenmacher), so only two hashes are computed per item.
+	 */
+	private int index(int h1, int h2, int i) {
+		return i * nwords + ((h1 + i * h2) & Integer.MAX_VALUE) % nwords;
+	}
+
+	/**
+	 * Add a count for the given item
+	 * 
+	 * @param data
+	 *            the item
+	 * @param count
+	 *            the count to add; must be non-negative
+	 */
+	public void add(String data, long count) {
+		add(bytes(data), count);
+	}
+
+	/**
+	 * Add a count for the item with the given UTF-8 encoded bytes
+	 * 
+	 * @param data
+	 *            the item
+	 * @param count
+	 *            the count to add; must be non-negative
+	 */
+	public void add(byte[] data, long count) {
+		if (count < 0)
+			throw new IllegalArgumentException("Counts must be non-negative");
 
-			map.secondObject().adjustOrPutValue(loc, value, value);
+		final int h1 = StringMurmurHashFunction.murmurhash(data, seed);
+		final int h2 = StringMurmurHashFunction.murmurhash(data, h1);
+
+		total.addAndGet(count);
+
+		if (conservative) {
+			final long target = estimate(h1, h2) + count;
+			for (int i = 0; i < ntables; i++) {
+				final int idx = index(h1, h2, i);
+				long current;
+				while ((current = table.get(idx)) < target) {
+					if (table.compareAndSet(idx, current, target))
+						break;
+				}
+			}
+		} else {
+			for (int i = 0; i < ntables; i++)
+				table.addAndGet(index(h1, h2, i), count);
 		}
 	}
 
-	@Override
-	public Integer query(String data) {
-		int min = -1;
-		for (final FunctionHashPair map : this.maps) {
-			final int hash = map.firstObject().computeHashCode(data);
-			final int loc = Math.abs(hash) % this.nwords;
-			final int v = map.secondObject().get(loc);
-			if (min == -1 || min > v) {
+	/**
+	 * Estimate the count of the given item. The estimate is never less than
+	 * the true count.
+	 * 
+	 * @param data
+	 *            the item
+	 * @return the estimated count
+	 */
+	public long estimate(String data) {
+		return estimate(bytes(data));
+	}
+
+	/**
+	 * Estimate the count of the item with the given UTF-8 encoded bytes
+	 * 
+	 * @param data
+	 *            the item
+	 * @return the estimated count
+	 */
+	public long estimate(byte[] data) {
+		final int h1 = StringMurmurHashFunction.murmurhash(data, seed);
+		final int h2 = StringMurmurHashFunction.murmurhash(data, h1);
+
+		return estimate(h1, h2);
+	}
+
+	private long estimate(int h1, int h2) {
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < ntables; i++) {
+			final long v = table.get(index(h1, h2, i));
+			if (v < min)
 				min = v;
-			}
 		}
 		return min;
 	}
 
+	@Override
+	public void update(String data, Long value) {
+		add(data, value);
+	}
+
+	@Override
+	public Long query(String data) {
+		return estimate(data);
+	}
+
+	/**
+	 * @return the sum of all the counts added to the sketch
+	 */
+	public long getTotal() {
+		return total.get();
+	}
+
+	/**
+	 * Add the counts of another sketch to this one. The other sketch must have
+	 * the same dimensions and seed.
+	 * 
+	 * @param other
+	 *            the sketch to merge
+	 */
+	public void merge(CountMin other) {
+		if (other.ntables != ntables || other.nwords != nwords || other.seed != seed)
+			throw new IllegalArgumentException("Only sketches with the same dimensions and seed can be merged");
+
+		for (int i = 0; i < table.length(); i++) {
+			final long v = other.table.get(i);
+			if (v != 0)
+				table.addAndGet(i, v);
+		}
+		total.addAndGet(other.total.get());
+	}
+
+	@Override
+	public void readBinary(DataInput in) throws IOException {
+		ntables = in.readInt();
+		nwords = in.readInt();
+		seed = in.readInt();
+		conservative = in.readBoolean();
+		total = new AtomicLong(in.readLong());
+
+		final long[] counts = new long[ntables * nwords];
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = in.readLong();
+		table = new AtomicLongArray(counts);
+	}
+
+	@Override
+	public byte[] binaryHeader() {
+		return HEADER;
+	}
+
+	@Override
+	public void writeBinary(DataOutput out) throws IOException {
+		out.writeInt(ntables);
+		out.writeInt(nwords);
+		out.writeInt(seed);
+		out.writeBoolean(conservative);
+		out.writeLong(total.get());
+
+		for (int i = 0; i < table.length(); i++)
+			out.writeLong(table.get(i));
+	}
 }
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.ml.sketch.countmin;
+
+import gnu.trove.map.hash.TObjectLongHashMap;
+import gnu.trove.procedure.TObjectLongProcedure;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openimaj.io.IOUtils;
+import org.openimaj.io.ReadWriteableBinary;
+import org.openimaj.util.pair.ObjectLongPair;
+
+/**
+ * Track the (approximately) most frequent items of a stream using a
+ * {@link CountMin} sketch for the counts and a small table of the current top
+ * candidates. Updates of the sketch are lock-free; only changes to the
+ * candidate table are synchronised, and these become rare once the table has
+ * filled with the frequent items.
+ */
+public class HeavyHitters implements ReadWriteableBinary {
+	private static final byte[] HEADER = "HHSK".getBytes();
+
+	private CountMin sketch;
+	private int k;
+	private TObjectLongHashMap<String> candidates;
+	private String minItem;
+	private volatile long minCount;
+
+	/**
+	 * Used for reading
+	 */
+	private HeavyHitters() {
+	}
+
+	/**
+	 * @param sketch
+	 *            the sketch used to count the items
+	 * @param k
+	 *            the number of items to track
+	 */
+	public HeavyHitters(CountMin sketch, int k) {
+		this.sketch = sketch;
+		this.k = k;
+		this.candidates = new TObjectLongHashMap<String>(2 * k);
+	}
+
+	/**
+	 * Add a count for the given item
+	 * 
+	 * @param data
+	 *            the item
+	 * @param count
+	 *            the count to add
+	 */
+	public void add(String data, long count) {
+		final byte[] bytes = CountMin.bytes(data);
+		sketch.add(bytes, count);
+
+		final long estimate = sketch.estimate(bytes);
+		if (estimate > minCount)
+			offer(data, estimate);
+	}
+
+	private synchronized void offer(String data, long estimate) {
+		if (candidates.containsKey(data)) {
+			candidates.put(data, estimate);
+			if (data.equals(minItem))
+				findMin();
+		} else if (candidates.size() < k) {
+			candidates.put(data, estimate);
+			findMin();
+		} else if (estimate > minCount) {
+			candidates.remove(minItem);
+			candidates.put(data, estimate);
+			findMin();
+		}
+	}
+
+	private void findMin() {
+		minItem = null;
+		minCount = Long.MAX_VALUE;
+		candidates.forEachEntry(new TObjectLongProcedure<String>() {
+			@Override
+			public boolean execute(String item, long count) {
+				if (count < minCount) {
+					minCount = count;
+					minItem = item;
+				}
+				return true;
+			}
+		});
+
+		if (candidates.size() < k)
+			minCount = 0;
+	}
+
+	/**
+	 * @return the underlying sketch
+	 */
+	public CountMin getSketch() {
+		return sketch;
+	}
+
+	/**
+	 * @return the tracked items and their current estimated counts, most
+	 *         frequent first
+	 */
+	public synchronized List<ObjectLongPair<String>> getTopK() {
+		final List<ObjectLongPair<String>> top = new ArrayList<ObjectLongPair<String>>(candidates.size());
+		for (final String item : candidates.keySet())
+			top.add(ObjectLongPair.pair(item, sketch.estimate(item)));
+		Collections.sort(top, ObjectLongPair.SECOND_ITEM_DESCENDING_COMPARATOR);
+
+		return top;
+	}
+
+	/**
+	 * Merge another tracker into this one. The underlying sketches are merged
+	 * and the candidates of both are re-estimated against the merged sketch.
+	 * 
+	 * @param other
+	 *            the tracker to merge
+	 */
+	public synchronized void merge(HeavyHitters other) {
+		sketch.merge(other.sketch);
+
+		final List<String> items = new ArrayList<String>(candidates.keySet());
+		for (final String item : other.candidates.keySet())
+			if (!candidates.containsKey(item))
+				items.add(item);
+
+		final List<ObjectLongPair<String>> estimates = new ArrayList<ObjectLongPair<String>>(items.size());
+		for (final String item : items)
+			estimates.add(ObjectLongPair.pair(item, sketch.estimate(item)));
+		Collections.sort(estimates, ObjectLongPair.SECOND_ITEM_DESCENDING_COMPARATOR);
+
+		candidates.clear();
+		for (int i = 0; i < Math.min(k, estimates.size()); i++)
+			candidates.put(estimates.get(i).first, estimates.get(i).second);
+		findMin();
+	}
+
+	@Override
+	public synchronized void readBinary(DataInput in) throws IOException {
+		k = in.readInt();
+		sketch = IOUtils.newInstance(CountMin.class);
+		sketch.readBinary(in);
+
+		final int n = in.readInt();
+		candidates = new TObjectLongHashMap<String>(2 * k);
+		for (int i = 0; i < n; i++)
+			candidates.put(in.readUTF(), in.readLong());
+		findMin();
+	}
+
+	@Override
+	public byte[] binaryHeader() {
+		return HEADER;
+	}
+
+	@Override
+	public synchronized void writeBinary(final DataOutput out) throws IOException {
+		out.writeInt(k);
+		sketch.writeBinary(out);
+
+		out.writeInt(candidates.size());
+		for (final ObjectLongPair<String> p : getTopK()) {
+			out.writeUTF(p.first);
+			out.writeLong(p.second);
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.ml.sketch.hyperloglog;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.openimaj.io.ReadWriteableBinary;
+import org.openimaj.util.hash.StringMurmurHashFunction;
+
+/**
+ * HyperLogLog cardinality sketch as described by Flajolet et al.,
+ * "HyperLogLog: the analysis of a near-optimal cardinality estimation
+ * algorithm". Estimates the number of distinct items offered with a relative
+ * standard error of about <code>1.04 / sqrt(2^precision)</code>.
+ * <p>
+ * The 6-bit registers are stored one per byte, four to an int, and are raised
+ * without locking so a single sketch can be shared between threads. Sketches
+ * with the same precision and seed can be combined with
+ * {@link #merge(HyperLogLog)}.
+ */
+public class HyperLogLog implements ReadWriteableBinary {
+	private static final byte[] HEADER = "HLLS".getBytes();
+
+	/**
+	 * The default seed of the hash function
+	 */
+	public static final int DEFAULT_SEED = 0x1b873593;
+
+	private int precision;
+	private int seed;
+	private AtomicIntegerArray registers;
+
+	/**
+	 * Used for reading
+	 */
+	private HyperLogLog() {
+	}
+
+	/**
+	 * Construct with the default seed
+	 * 
+	 * @param precision
+	 *            the number of bits used to select a register (between 4 and
+	 *            18)
+	 */
+	public HyperLogLog(int precision) {
+		this(precision, DEFAULT_SEED);
+	}
+
+	/**
+	 * @param precision
+	 *            the number of bits used to select a register (between 4 and
+	 *            18)
+	 * @param seed
+	 *            the seed of the hash function
+	 */
+	public HyperLogLog(int precision, int seed) {
+		if (precision < 4 || precision > 18)
+			throw new IllegalArgumentException("The precision must be between 4 and 18");
+
+		this.precision = precision;
+		this.seed = seed;
+		this.registers = new AtomicIntegerArray((1 << precision) >>> 2);
+	}
+
+	/**
+	 * Offer an item to the sketch
+	 * 
+	 * @param data
+	 *            the item
+	 */
+	public void offer(String data) {
+		final byte[] b;
+		try {
+			b = data.getBytes("UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+
+		final int h1 = StringMurmurHashFunction.murmurhash(b, seed);
+		final int h2 = StringMurmurHashFunction.murmurhash(b, h1);
+		offerHash(((long) h1 << 32) | (h2 & 0xffffffffL));
+	}
+
+	/**
+	 * Offer a 64-bit hash of an item to the sketch
+	 * 
+	 * @param hash
+	 *            the hash
+	 */
+	public void offerHash(long hash) {
+		final int register = (int) (hash >>> (64 - precision));
+		final int rank = Math.min(Long.numberOfLeadingZeros(hash << precision) + 1, 64 - precision + 1);
+
+		raise(register, rank);
+	}
+
+	private int get(int register) {
+		return (registers.get(register >>> 2) >>> ((register & 3) << 3)) & 0xff;
+	}
+
+	private void raise(int register, int value) {
+		final int word = register >>> 2;
+		final int shift = (register & 3) << 3;
+
+		int current;
+		while (((current = registers.get(word)) >>> shift & 0xff) < value) {
+			final int updated = (current & ~(0xff << shift)) | (value << shift);
+			if (registers.compareAndSet(word, current, updated))
+				break;
+		}
+	}
+
+	/**
+	 * @return the estimated number of distinct items offered
+	 */
+	public long cardinality() {
+		final int m = 1 << precision;
+
+		double sum = 0;
+		int zeros = 0;
+		for (int i = 0; i < m; i++) {
+			final int v = get(i);
+			sum += 1.0 / (1L << v);
+			if (v == 0)
+				zeros++;
+		}
+
+		final double alpha;
+		switch (m) {
+		case 16:
+			alpha = 0.673;
+			break;
+		case 32:
+			alpha = 0.697;
+			break;
+		case 64:
+			alpha = 0.709;
+			break;
+		default:
+			alpha = 0.7213 / (1 + 1.079 / m);
+		}
+
+		final double estimate = alpha * m * m / sum;
+
+		// small range correction using linear counting
+		if (estimate <= 2.5 * m && zeros > 0)
+			return Math.round(m * Math.log((double) m / zeros));
+
+		return Math.round(estimate);
+	}
+
+	/**
+	 * Merge another sketch into this one, so that this sketch estimates the
+	 * cardinality of the union of the items offered to both. The other sketch
+	 * must have the same precision and seed.
+	 * 
+	 * @param other
+	 *            the sketch to merge
+	 */
+	public void merge(HyperLogLog other) {
+		if (other.precision != precision || other.seed != seed)
+			throw new IllegalArgumentException("Only sketches with the same precision and seed can be merged");
+
+		final int m = 1 << precision;
+		for (int i = 0; i < m; i++) {
+			final int v = other.get(i);
+			if (v != 0)
+				raise(i, v);
+		}
+	}
+
+	@Override
+	public void readBinary(DataInput in) throws IOException {
+		precision = in.readInt();
+		seed = in.readInt();
+
+		final int[] data = new int[(1 << precision) >>> 2];
+		for (int i = 0; i < data.length; i++)
+			data[i] = in.readInt();
+		registers = new AtomicIntegerArray(data);
+	}
+
+	@Override
+	public byte[] binaryHeader() {
+		return HEADER;
+	}
+
+	@Override
+	public void writeBinary(DataOutput out) throws IOException {
+		out.writeInt(precision);
+		out.writeInt(seed);
+
+		for (int i = 0; i < registers.length(); i++)
+			out.writeInt(registers.get(i));
+	}
+}
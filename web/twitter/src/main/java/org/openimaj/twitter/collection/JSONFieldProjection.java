@@ -0,0 +1,458 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.twitter.collection;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Extracts a fixed set of fields from lines of JSON without parsing the rest
+ * of the document. The scanner works directly on the encoded bytes of the
+ * line: structure it isn't interested in is skipped without being decoded,
+ * and only the values of the projected fields are turned into objects. It
+ * stops as soon as every projected field has been seen.
+ * <p>
+ * Fields are named by their path from the top level object, with nested
+ * object keys separated by dots (e.g. <code>"user.lang"</code>). Strings are
+ * returned as {@link String}s, integral numbers as {@link Long}s (or
+ * {@link Double}s if they overflow), other numbers as {@link Double}s,
+ * booleans as {@link Boolean}s and null as null. If a projected field holds an
+ * object or array its raw JSON text is returned as a {@link String}. Fields
+ * that are missing are null.
+ * <p>
+ * The encoding must be ASCII compatible (as UTF-8 is). Instances are not
+ * thread safe.
+ */
+public class JSONFieldProjection {
+	@SuppressWarnings("serial")
+	private static class MalformedException extends RuntimeException {
+		MalformedException() {
+			super("Malformed JSON", null, false, false);
+		}
+	}
+
+	private static final MalformedException MALFORMED = new MalformedException();
+
+	private final String[] fields;
+	private final String[][] paths;
+	private final byte[][][] pathBytes;
+	private final Charset charset;
+
+	private byte[] buf;
+	private int pos;
+	private int end;
+	private Object[] values;
+	private long found;
+	private long all;
+	private final StringBuilder sb = new StringBuilder();
+
+	/**
+	 * Construct a UTF-8 projection of the given fields
+	 * 
+	 * @param fields
+	 *            the fields (at most 64)
+	 */
+	public JSONFieldProjection(String... fields) {
+		this(Charset.forName("UTF-8"), fields);
+	}
+
+	/**
+	 * Construct a projection of the given fields
+	 * 
+	 * @param charset
+	 *            the encoding of the lines
+	 * @param fields
+	 *            the fields (at most 64)
+	 */
+	public JSONFieldProjection(Charset charset, String... fields) {
+		if (fields.length > 64)
+			throw new IllegalArgumentException("At most 64 fields can be projected");
+
+		this.charset = charset;
+		this.fields = fields.clone();
+		this.paths = new String[fields.length][];
+		this.pathBytes = new byte[fields.length][][];
+		for (int i = 0; i < fields.length; i++) {
+			paths[i] = fields[i].split("\\.");
+			pathBytes[i] = new byte[paths[i].length][];
+			for (int j = 0; j < paths[i].length; j++)
+				pathBytes[i][j] = paths[i][j].getBytes(charset);
+		}
+		this.all = fields.length == 64 ? -1L : (1L << fields.length) - 1;
+	}
+
+	/**
+	 * @return the number of projected fields
+	 */
+	public int size() {
+		return fields.length;
+	}
+
+	/**
+	 * @param i
+	 *            the index of the field
+	 * @return the name of the field
+	 */
+	public String getField(int i) {
+		return fields[i];
+	}
+
+	/**
+	 * @param field
+	 *            the field name
+	 * @return the index of the field, or -1 if it isn't projected
+	 */
+	public int indexOf(String field) {
+		for (int i = 0; i < fields.length; i++)
+			if (fields[i].equals(field))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * @return the encoding of the lines
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Project a line of JSON. The values of the fields are written into the
+	 * given array in the order the fields were given to the constructor.
+	 * 
+	 * @param line
+	 *            the buffer holding the line
+	 * @param offset
+	 *            the start of the line in the buffer
+	 * @param length
+	 *            the length of the line
+	 * @param values
+	 *            the array to hold the values
+	 * @return false if the line isn't a JSON object (in which case all the
+	 *         values will be null)
+	 */
+	public boolean project(byte[] line, int offset, int length, Object[] values) {
+		Arrays.fill(values, 0, fields.length, null);
+		this.buf = line;
+		this.pos = offset;
+		this.end = offset + length;
+		this.values = values;
+		this.found = 0;
+
+		try {
+			skipWhitespace();
+			if (peek() != '{')
+				return false;
+			if (all != 0)
+				object(0, all);
+			return true;
+		} catch (final MalformedException e) {
+			Arrays.fill(values, 0, fields.length, null);
+			return false;
+		} finally {
+			this.buf = null;
+			this.values = null;
+		}
+	}
+
+	/*
+	 * Scan the object at pos; active holds the fields whose path matches the
+	 * keys leading to this object. Returns true if every field has been found.
+	 */
+	private boolean object(int depth, long active) {
+		pos++; // {
+		skipWhitespace();
+		if (peek() == '}') {
+			pos++;
+			return false;
+		}
+
+		while (true) {
+			skipWhitespace();
+			if (peek() != '"')
+				throw MALFORMED;
+
+			final int keyStart = pos + 1;
+			skipString();
+			final int keyEnd = pos - 1;
+
+			long terminal = 0;
+			long nested = 0;
+			if (active != 0) {
+				for (int i = 0; i < fields.length; i++) {
+					if ((active & (1L << i)) != 0 && keyEquals(keyStart, keyEnd, i, depth)) {
+						if (paths[i].length == depth + 1)
+							terminal |= 1L << i;
+						else
+							nested |= 1L << i;
+					}
+				}
+			}
+
+			skipWhitespace();
+			if (next() != ':')
+				throw MALFORMED;
+			skipWhitespace();
+
+			if (terminal != 0) {
+				final int start = pos;
+				final Object value = value();
+				for (int i = 0; i < fields.length; i++) {
+					if ((terminal & (1L << i)) != 0)
+						values[i] = value;
+				}
+				found |= terminal;
+				if (found == all)
+					return true;
+
+				// other fields might also be inside the object
+				if (nested != 0 && buf[start] == '{') {
+					final int after = pos;
+					pos = start;
+					if (object(depth + 1, nested))
+						return true;
+					pos = after;
+				}
+			} else if (nested != 0 && peek() == '{') {
+				if (object(depth + 1, nested))
+					return true;
+			} else {
+				skipValue();
+			}
+
+			skipWhitespace();
+			final byte c = next();
+			if (c == '}')
+				return false;
+			if (c != ',')
+				throw MALFORMED;
+		}
+	}
+
+	private boolean keyEquals(int start, int end, int field, int depth) {
+		final byte[] segment = pathBytes[field][depth];
+		if (segment.length == end - start) {
+			for (int i = 0; i < segment.length; i++)
+				if (buf[start + i] != segment[i])
+					return false;
+			return true;
+		}
+
+		// the key might contain escapes
+		for (int i = start; i < end; i++) {
+			if (buf[i] == '\\')
+				return decode(start, end).equals(paths[field][depth]);
+		}
+		return false;
+	}
+
+	private Object value() {
+		final byte c = peek();
+		final int start = pos;
+		switch (c) {
+		case '"':
+			skipString();
+			return decode(start + 1, pos - 1);
+		case '{':
+		case '[':
+			skipValue();
+			return new String(buf, start, pos - start, charset);
+		case 't':
+			literal("true");
+			return Boolean.TRUE;
+		case 'f':
+			literal("false");
+			return Boolean.FALSE;
+		case 'n':
+			literal("null");
+			return null;
+		default:
+			return number();
+		}
+	}
+
+	private Object number() {
+		final int start = pos;
+		boolean integral = true;
+		while (pos < end) {
+			final byte c = buf[pos];
+			if (c == '.' || c == 'e' || c == 'E')
+				integral = false;
+			else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9')))
+				break;
+			pos++;
+		}
+		if (pos == start)
+			throw MALFORMED;
+
+		final String s = new String(buf, start, pos - start, charset);
+		try {
+			if (integral) {
+				try {
+					return Long.parseLong(s);
+				} catch (final NumberFormatException e) {
+					// too big
+				}
+			}
+			return Double.parseDouble(s);
+		} catch (final NumberFormatException e) {
+			throw MALFORMED;
+		}
+	}
+
+	private void literal(String s) {
+		for (int i = 0; i < s.length(); i++)
+			if (next() != s.charAt(i))
+				throw MALFORMED;
+	}
+
+	private void skipValue() {
+		final byte c = peek();
+		if (c == '"') {
+			skipString();
+		} else if (c == '{' || c == '[') {
+			int depth = 0;
+			while (true) {
+				final byte d = peek();
+				if (d == '"') {
+					skipString();
+					continue;
+				}
+				pos++;
+				if (d == '{' || d == '[')
+					depth++;
+				else if (d == '}' || d == ']') {
+					if (--depth == 0)
+						return;
+				}
+			}
+		} else if (c == 't') {
+			literal("true");
+		} else if (c == 'f') {
+			literal("false");
+		} else if (c == 'n') {
+			literal("null");
+		} else {
+			number();
+		}
+	}
+
+	/* skip the string starting at pos, leaving pos after the closing quote */
+	private void skipString() {
+		pos++;
+		while (true) {
+			final byte c = next();
+			if (c == '"')
+				return;
+			if (c == '\\')
+				pos++;
+		}
+	}
+
+	/* decode the (unquoted) string contents between start and end */
+	private String decode(int start, int end) {
+		int i = start;
+		while (i < end && buf[i] != '\\')
+			i++;
+		if (i == end)
+			return new String(buf, start, end - start, charset);
+
+		sb.setLength(0);
+		int run = start;
+		while (i < end) {
+			if (buf[i] != '\\') {
+				i++;
+				continue;
+			}
+			sb.append(new String(buf, run, i - run, charset));
+			if (i + 1 >= end)
+				throw MALFORMED;
+
+			final byte e = buf[i + 1];
+			i += 2;
+			switch (e) {
+			case 'b':
+				sb.append('\b');
+				break;
+			case 'f':
+				sb.append('\f');
+				break;
+			case 'n':
+				sb.append('\n');
+				break;
+			case 'r':
+				sb.append('\r');
+				break;
+			case 't':
+				sb.append('\t');
+				break;
+			case 'u':
+				if (i + 4 > end)
+					throw MALFORMED;
+				int cp = 0;
+				for (int j = 0; j < 4; j++) {
+					final int d = Character.digit(buf[i + j], 16);
+					if (d < 0)
+						throw MALFORMED;
+					cp = (cp << 4) | d;
+				}
+				sb.append((char) cp);
+				i += 4;
+				break;
+			default:
+				sb.append((char) e);
+			}
+			run = i;
+		}
+		sb.append(new String(buf, run, end - run, charset));
+		return sb.toString();
+	}
+
+	private void skipWhitespace() {
+		while (pos < end) {
+			final byte c = buf[pos];
+			if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+				return;
+			pos++;
+		}
+	}
+
+	private byte peek() {
+		if (pos >= end)
+			throw MALFORMED;
+		return buf[pos];
+	}
+
+	private byte next() {
+		if (pos >= end)
+			throw MALFORMED;
+		return buf[pos++];
+	}
+}
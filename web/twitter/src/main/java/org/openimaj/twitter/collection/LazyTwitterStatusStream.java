@@ -0,0 +1,389 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.twitter.collection;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.tools.bzip2.CBZip2InputStream;
+import org.openimaj.io.ReadAheadInputStream;
+import org.openimaj.twitter.GeneralJSON;
+import org.openimaj.twitter.USMFStatus;
+import org.openimaj.util.function.Function;
+import org.openimaj.util.function.Predicate;
+import org.openimaj.util.stream.AbstractStream;
+import org.openimaj.util.stream.Stream;
+
+/**
+ * A stream of statuses read from a file (or stream) of JSON, one per line,
+ * which avoids parsing statuses that aren't wanted. Each line is scanned once
+ * with a {@link JSONFieldProjection} to pull out just the projected fields;
+ * predicates given to {@link #where(Predicate)} are evaluated against these
+ * (on a reused instance, so nothing is allocated for rejected lines) before
+ * the line is even copied. The full {@link USMFStatus} of the
+ * {@link ProjectedStatus}es that get through is only parsed when it is asked
+ * for.
+ * <p>
+ * Lines that are not JSON objects are skipped; the number skipped is available
+ * from {@link #getMalformedLines()}.
+ * <p>
+ * Gzip and bzip2 compressed input is detected automatically and decompressed
+ * in a background thread. Uncompressed files can be {@link #split} into
+ * line aligned byte ranges to be read by several workers at once.
+ * <p>
+ * For example, to read the English statuses of a large dump:
+ * 
+ * <pre>
+ * LazyTwitterStatusStream stream = new LazyTwitterStatusStream(file, GeneralJSONTwitter.class, &quot;user.lang&quot;);
+ * stream.where(new Predicate&lt;ProjectedStatus&gt;() {
+ * 	public boolean test(ProjectedStatus s) {
+ * 		return &quot;en&quot;.equals(s.get(0));
+ * 	}
+ * });
+ * for (USMFStatus status : stream.statuses())
+ * 	...
+ * </pre>
+ */
+public class LazyTwitterStatusStream extends AbstractStream<ProjectedStatus> implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final InputStream in;
+	private final JSONFieldProjection projection;
+	private final Class<? extends GeneralJSON> inputClass;
+	private final List<Predicate<ProjectedStatus>> predicates = new ArrayList<Predicate<ProjectedStatus>>();
+	private final ProjectedStatus view;
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int bufferPos;
+	private int bufferLength;
+	private byte[] line = new byte[1024];
+	private int lineLength;
+	private long position;
+	private final long end;
+	private boolean eof;
+
+	private ProjectedStatus next;
+	private long malformed;
+
+	/**
+	 * Read the given (possibly compressed) UTF-8 file
+	 * 
+	 * @param file
+	 *            the file
+	 * @param inputClass
+	 *            the type of JSON in the file
+	 * @param fields
+	 *            the fields to project
+	 * @throws IOException
+	 */
+	public LazyTwitterStatusStream(File file, Class<? extends GeneralJSON> inputClass, String... fields)
+			throws IOException
+	{
+		this(new FileInputStream(file), inputClass, fields);
+	}
+
+	/**
+	 * Read the given (possibly compressed) UTF-8 stream
+	 * 
+	 * @param stream
+	 *            the stream
+	 * @param inputClass
+	 *            the type of JSON in the stream
+	 * @param fields
+	 *            the fields to project
+	 * @throws IOException
+	 */
+	public LazyTwitterStatusStream(InputStream stream, Class<? extends GeneralJSON> inputClass, String... fields)
+			throws IOException
+	{
+		this(stream, Charset.forName("UTF-8"), inputClass, fields);
+	}
+
+	/**
+	 * Read the given (possibly compressed) stream
+	 * 
+	 * @param stream
+	 *            the stream
+	 * @param charset
+	 *            the (ASCII compatible) charset of the stream
+	 * @param inputClass
+	 *            the type of JSON in the stream
+	 * @param fields
+	 *            the fields to project
+	 * @throws IOException
+	 */
+	public LazyTwitterStatusStream(InputStream stream, Charset charset, Class<? extends GeneralJSON> inputClass,
+			String... fields) throws IOException
+	{
+		this(decompress(stream), 0, Long.MAX_VALUE, false, charset, inputClass, fields);
+	}
+
+	private LazyTwitterStatusStream(InputStream in, long start, long end, boolean skipFirst, Charset charset,
+			Class<? extends GeneralJSON> inputClass, String... fields) throws IOException
+	{
+		this.in = in;
+		this.position = start;
+		this.end = end;
+		this.inputClass = inputClass;
+		this.projection = new JSONFieldProjection(charset, fields);
+		this.view = new ProjectedStatus(projection, inputClass);
+
+		// the first (partial) line belongs to the previous split
+		if (skipFirst)
+			readLine();
+	}
+
+	/**
+	 * Split an uncompressed UTF-8 file into (at most) the given number of
+	 * streams, each reading the lines starting in a contiguous range of bytes.
+	 * Together the streams read every line of the file exactly once. A
+	 * compressed file can't be split, so is returned as a single stream.
+	 * 
+	 * @param file
+	 *            the file
+	 * @param n
+	 *            the number of splits
+	 * @param inputClass
+	 *            the type of JSON in the file
+	 * @param fields
+	 *            the fields to project
+	 * @return the streams
+	 * @throws IOException
+	 */
+	public static List<LazyTwitterStatusStream> split(File file, int n, Class<? extends GeneralJSON> inputClass,
+			String... fields) throws IOException
+	{
+		final List<LazyTwitterStatusStream> splits = new ArrayList<LazyTwitterStatusStream>();
+		final Charset charset = Charset.forName("UTF-8");
+		final long length = file.length();
+
+		if (n <= 1 || isCompressed(file) || length < n) {
+			splits.add(new LazyTwitterStatusStream(file, inputClass, fields));
+			return splits;
+		}
+
+		for (int i = 0; i < n; i++) {
+			final long start = length * i / n;
+			final long end = length * (i + 1) / n;
+
+			// start a byte early so a line starting exactly on the boundary
+			// is not skipped
+			final long from = Math.max(0, start - 1);
+			final FileInputStream fis = new FileInputStream(file);
+			fis.getChannel().position(from);
+			splits.add(new LazyTwitterStatusStream(fis, from, end, i > 0, charset, inputClass, fields));
+		}
+		return splits;
+	}
+
+	private static boolean isCompressed(File file) throws IOException {
+		final InputStream is = new FileInputStream(file);
+		try {
+			return isCompressed(is.read(), is.read(), is.read());
+		} finally {
+			is.close();
+		}
+	}
+
+	private static boolean isCompressed(int b0, int b1, int b2) {
+		return (b0 == 0x1f && b1 == 0x8b) || (b0 == 'B' && b1 == 'Z' && b2 == 'h');
+	}
+
+	/*
+	 * Wrap the stream to decompress it (in a background thread) if it looks
+	 * like gzip or bzip2
+	 */
+	private static InputStream decompress(InputStream stream) throws IOException {
+		final BufferedInputStream bis = new BufferedInputStream(stream, BUFFER_SIZE);
+		bis.mark(3);
+		final int b0 = bis.read();
+		final int b1 = bis.read();
+		final int b2 = bis.read();
+		bis.reset();
+
+		if (!isCompressed(b0, b1, b2))
+			return bis;
+
+		if (b0 == 0x1f)
+			return new ReadAheadInputStream(new GZIPInputStream(bis, BUFFER_SIZE));
+
+		// the bzip2 stream expects the magic to have been consumed
+		bis.read();
+		bis.read();
+		return new ReadAheadInputStream(new CBZip2InputStream(bis));
+	}
+
+	/**
+	 * Only return lines accepted by the predicate. The predicate is applied to
+	 * a reused {@link ProjectedStatus} before the line is copied, so it must
+	 * not keep a reference to it. Multiple predicates must all accept a line.
+	 * 
+	 * @param predicate
+	 *            the predicate
+	 * @return this stream
+	 */
+	public LazyTwitterStatusStream where(Predicate<ProjectedStatus> predicate) {
+		this.predicates.add(predicate);
+		return this;
+	}
+
+	/**
+	 * @return a stream of the fully parsed statuses of the accepted lines
+	 */
+	public Stream<USMFStatus> statuses() {
+		return this.map(new Function<ProjectedStatus, USMFStatus>() {
+			@Override
+			public USMFStatus apply(ProjectedStatus in) {
+				return in.status();
+			}
+		});
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next != null)
+			return true;
+
+		try {
+			while (true) {
+				final long lineStart = position;
+				if (lineStart >= end || !readLine()) {
+					close();
+					return false;
+				}
+				if (lineLength == 0)
+					continue;
+
+				if (!projection.project(line, 0, lineLength, view.values)) {
+					malformed++;
+					continue;
+				}
+				view.reset(line, lineLength);
+				if (accept(view)) {
+					next = view.copy();
+					return true;
+				}
+			}
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Get the number of non-empty lines read so far that were skipped because
+	 * they weren't JSON objects.
+	 * 
+	 * @return the number of malformed lines
+	 */
+	public long getMalformedLines() {
+		return malformed;
+	}
+
+	private boolean accept(ProjectedStatus status) {
+		for (final Predicate<ProjectedStatus> p : predicates)
+			if (!p.test(status))
+				return false;
+		return true;
+	}
+
+	@Override
+	public ProjectedStatus next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		final ProjectedStatus ret = next;
+		next = null;
+		return ret;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/*
+	 * Read the next line (without the line terminator) into line, returning
+	 * false at the end of the input
+	 */
+	private boolean readLine() throws IOException {
+		lineLength = 0;
+		boolean read = false;
+		while (true) {
+			if (bufferPos == bufferLength) {
+				if (eof || (bufferLength = in.read(buffer)) < 0) {
+					eof = true;
+					bufferLength = bufferPos = 0;
+					return read;
+				}
+				bufferPos = 0;
+			}
+			read = true;
+
+			int i = bufferPos;
+			while (i < bufferLength && buffer[i] != '\n')
+				i++;
+
+			final int n = i - bufferPos;
+			if (lineLength + n > line.length) {
+				final byte[] tmp = new byte[Math.max(line.length * 2, lineLength + n)];
+				System.arraycopy(line, 0, tmp, 0, lineLength);
+				line = tmp;
+			}
+			System.arraycopy(buffer, bufferPos, line, lineLength, n);
+			lineLength += n;
+			position += n;
+			bufferPos = i;
+
+			if (i < bufferLength) {
+				// consume the newline
+				bufferPos++;
+				position++;
+				if (lineLength > 0 && line[lineLength - 1] == '\r')
+					lineLength--;
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		eof = true;
+		in.close();
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.twitter.collection;
+
+import org.openimaj.twitter.GeneralJSON;
+import org.openimaj.twitter.USMFStatus;
+
+/**
+ * A line of JSON read by a {@link LazyTwitterStatusStream}, holding just the
+ * values of the projected fields. The full {@link USMFStatus} is only parsed
+ * if (and when) {@link #status()} is called.
+ */
+public class ProjectedStatus {
+	private final JSONFieldProjection projection;
+	private final Class<? extends GeneralJSON> inputClass;
+	byte[] line;
+	int length;
+	final Object[] values;
+	private USMFStatus status;
+
+	ProjectedStatus(JSONFieldProjection projection, Class<? extends GeneralJSON> inputClass) {
+		this.projection = projection;
+		this.inputClass = inputClass;
+		this.values = new Object[projection.size()];
+	}
+
+	/*
+	 * Point this at a new line; used to reuse a single instance while
+	 * evaluating pushed down predicates
+	 */
+	void reset(byte[] line, int length) {
+		this.line = line;
+		this.length = length;
+		this.status = null;
+	}
+
+	/*
+	 * A copy which owns its line and values
+	 */
+	ProjectedStatus copy() {
+		final ProjectedStatus copy = new ProjectedStatus(projection, inputClass);
+		copy.line = new byte[length];
+		System.arraycopy(line, 0, copy.line, 0, length);
+		copy.length = length;
+		System.arraycopy(values, 0, copy.values, 0, values.length);
+		copy.status = status;
+		return copy;
+	}
+
+	/**
+	 * Get the value of a projected field
+	 * 
+	 * @param field
+	 *            the field name, as given to the stream
+	 * @return the value, or null if it was missing
+	 * @throws IllegalArgumentException
+	 *             if the field was not projected
+	 */
+	public Object get(String field) {
+		final int i = projection.indexOf(field);
+		if (i < 0)
+			throw new IllegalArgumentException("Field " + field + " was not projected");
+		return values[i];
+	}
+
+	/**
+	 * Get the value of a projected field
+	 * 
+	 * @param field
+	 *            the index of the field, in the order given to the stream
+	 * @return the value, or null if it was missing
+	 */
+	public Object get(int field) {
+		return values[field];
+	}
+
+	/**
+	 * Get the value of a projected field as a string
+	 * 
+	 * @param field
+	 *            the field name, as given to the stream
+	 * @return the value, or null if it was missing
+	 */
+	public String getString(String field) {
+		final Object value = get(field);
+		return value == null ? null : value.toString();
+	}
+
+	/**
+	 * @return the raw JSON line
+	 */
+	public String line() {
+		return new String(line, 0, length, projection.getCharset());
+	}
+
+	/**
+	 * Parse the full status. The result is cached.
+	 * 
+	 * @return the status
+	 */
+	public USMFStatus status() {
+		if (status == null) {
+			status = new USMFStatus(inputClass);
+			status.fillFromString(line());
+		}
+		return status;
+	}
+
+	@Override
+	public String toString() {
+		return line();
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.ml.sketch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.openimaj.io.IOUtils;
+import org.openimaj.io.ReadWriteableBinary;
+import org.openimaj.ml.sketch.bloom.Bloom;
+import org.openimaj.ml.sketch.countmin.CountMin;
+import org.openimaj.ml.sketch.countmin.HeavyHitters;
+import org.openimaj.ml.sketch.hyperloglog.HyperLogLog;
+import org.openimaj.util.pair.ObjectLongPair;
+
+/**
+ * Tests for the {@link CountMin}, {@link Bloom}, {@link HeavyHitters} and
+ * {@link HyperLogLog} sketches
+ */
+public class SketchesTest {
+	@SuppressWarnings("unchecked")
+	private static <T extends ReadWriteableBinary> T roundTrip(T sketch) throws IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		IOUtils.writeBinary(baos, sketch);
+		return (T) IOUtils.read(new ByteArrayInputStream(baos.toByteArray()), sketch.getClass());
+	}
+
+	/**
+	 * Estimates are never below the true counts, and merging two sketches is
+	 * the same as counting everything in one
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testCountMin() throws IOException {
+		for (final boolean conservative : new boolean[] { false, true }) {
+			final CountMin all = new CountMin(4, 1000, CountMin.DEFAULT_SEED, conservative);
+			final CountMin a = new CountMin(4, 1000, CountMin.DEFAULT_SEED, false);
+			final CountMin b = new CountMin(4, 1000, CountMin.DEFAULT_SEED, false);
+
+			final long[] truth = new long[500];
+			final Random rng = new Random(1);
+			for (int i = 0; i < 20000; i++) {
+				final int item = (int) Math.min(truth.length - 1, Math.abs(rng.nextGaussian() * 50));
+				truth[item]++;
+				all.add("word" + item, 1);
+				(i % 2 == 0 ? a : b).add("word" + item, 1);
+			}
+			a.merge(b);
+
+			final CountMin read = roundTrip(all);
+			assertEquals(20000, all.getTotal());
+			assertEquals(20000, a.getTotal());
+			for (int i = 0; i < truth.length; i++) {
+				assertTrue(all.estimate("word" + i) >= truth[i]);
+				assertTrue(a.estimate("word" + i) >= truth[i]);
+				assertEquals(all.estimate("word" + i), (long) read.query("word" + i));
+				if (!conservative)
+					assertEquals(all.estimate("word" + i), a.estimate("word" + i));
+			}
+		}
+	}
+
+	/**
+	 * Added items are always found, and most others are not
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testBloom() throws IOException {
+		final Bloom a = Bloom.withFalsePositiveRate(1000, 0.01);
+		final Bloom b = Bloom.withFalsePositiveRate(1000, 0.01);
+		for (int i = 0; i < 500; i++) {
+			a.add("word" + i);
+			b.add("word" + (i + 500));
+		}
+		a.merge(b);
+
+		final Bloom read = roundTrip(a);
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(a.contains("word" + i));
+			assertTrue(read.contains("word" + i));
+		}
+
+		int falsePositives = 0;
+		for (int i = 1000; i < 11000; i++)
+			if (a.contains("word" + i))
+				falsePositives++;
+		assertTrue(falsePositives < 300);
+		assertFalse(new Bloom(3, 100).query("word0"));
+	}
+
+	/**
+	 * The cardinality estimates are within a few standard errors, including
+	 * after merging
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testHyperLogLog() throws IOException {
+		final HyperLogLog a = new HyperLogLog(12);
+		final HyperLogLog b = new HyperLogLog(12);
+		for (int i = 0; i < 50000; i++) {
+			a.offer("word" + i);
+			a.offer("word" + i);
+			b.offer("word" + (i + 25000));
+		}
+		assertEquals(50000, a.cardinality(), 50000 * 0.05);
+
+		a.merge(b);
+		assertEquals(75000, a.cardinality(), 75000 * 0.05);
+		assertEquals(a.cardinality(), roundTrip(a).cardinality());
+
+		final HyperLogLog small = new HyperLogLog(12);
+		for (int i = 0; i < 100; i++)
+			small.offer("word" + i);
+		assertEquals(100, small.cardinality(), 5);
+	}
+
+	/**
+	 * The most frequent items of a skewed stream are found
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testHeavyHitters() throws IOException {
+		final HeavyHitters hh = new HeavyHitters(new CountMin(4, 2000), 5);
+		final Random rng = new Random(1);
+		for (int i = 0; i < 20000; i++) {
+			hh.add("noise" + rng.nextInt(5000), 1);
+			if (i % 10 == 0)
+				hh.add("frequent" + (i % 50) / 10, 5 - (i % 50) / 10);
+		}
+
+		final List<ObjectLongPair<String>> top = roundTrip(hh).getTopK();
+		assertEquals(5, top.size());
+		for (int i = 0; i < 5; i++)
+			assertEquals("frequent" + i, top.get(i).first);
+	}
+}
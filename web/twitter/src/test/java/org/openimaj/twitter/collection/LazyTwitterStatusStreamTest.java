@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.twitter.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.bzip2.CBZip2OutputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openimaj.twitter.GeneralJSONTwitter;
+import org.openimaj.twitter.USMFStatus;
+import org.openimaj.util.function.Predicate;
+
+/**
+ * Tests for the {@link LazyTwitterStatusStream} and
+ * {@link JSONFieldProjection}
+ */
+public class LazyTwitterStatusStreamTest {
+	/**
+	 * temp folder
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File tweets;
+
+	/**
+	 * Copy the test tweets to a file
+	 * 
+	 * @throws IOException
+	 */
+	@Before
+	public void setup() throws IOException {
+		tweets = folder.newFile("tweets.json");
+		copy(LazyTwitterStatusStreamTest.class.getResourceAsStream("/org/openimaj/twitter/json_tweets.txt"),
+				new FileOutputStream(tweets));
+	}
+
+	private static void copy(InputStream is, OutputStream os) throws IOException {
+		IOUtils.copy(is, os);
+		is.close();
+		os.close();
+	}
+
+	private static List<String> lines(List<LazyTwitterStatusStream> streams) {
+		final List<String> lines = new ArrayList<String>();
+		for (final LazyTwitterStatusStream stream : streams)
+			for (final ProjectedStatus s : stream)
+				lines.add(s.line());
+		return lines;
+	}
+
+	/**
+	 * The projected fields and parsed statuses should be the same as those
+	 * read by a {@link StreamTwitterStatusList}
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testMatchesStatusList() throws IOException {
+		final StreamTwitterStatusList<USMFStatus> expected = StreamTwitterStatusList.readUSMF(
+				new FileInputStream(tweets), GeneralJSONTwitter.class, "UTF-8");
+		final LazyTwitterStatusStream stream = new LazyTwitterStatusStream(tweets, GeneralJSONTwitter.class,
+				"created_at", "user.lang", "id", "text");
+
+		int count = 0;
+		for (final USMFStatus e : expected) {
+			assertTrue(stream.hasNext());
+			final ProjectedStatus p = stream.next();
+			final USMFStatus s = p.status();
+
+			assertEquals(e.text, s.text);
+			assertEquals(e.date, s.date);
+			assertEquals(e.id, s.id);
+			assertEquals(e.user.language, s.user.language);
+
+			assertEquals(e.date, p.get("created_at"));
+			assertEquals(e.user.language, p.get("user.lang"));
+			// delete notices have no top level id
+			final Long id = (Long) p.get("id");
+			assertEquals(e.id, id == null ? 0 : id.longValue());
+			assertEquals(e.text, p.get("text"));
+			count++;
+		}
+		assertFalse(stream.hasNext());
+		assertTrue(count > 0);
+	}
+
+	/**
+	 * Predicates should be applied before the statuses are parsed
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testPushDown() throws IOException {
+		int expected = 0;
+		for (final USMFStatus s : new LazyTwitterStatusStream(tweets, GeneralJSONTwitter.class).statuses())
+			if ("en".equals(s.user.language))
+				expected++;
+
+		final LazyTwitterStatusStream stream = new LazyTwitterStatusStream(tweets, GeneralJSONTwitter.class, "user.lang");
+		stream.where(new Predicate<ProjectedStatus>() {
+			@Override
+			public boolean test(ProjectedStatus object) {
+				return "en".equals(object.get(0));
+			}
+		});
+		int count = 0;
+		for (final USMFStatus s : stream.statuses()) {
+			assertEquals("en", s.user.language);
+			count++;
+		}
+		assertEquals(expected, count);
+		assertTrue(count > 0);
+	}
+
+	/**
+	 * Gzip and bzip2 input should be read transparently
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testCompressed() throws IOException {
+		final List<String> expected = lines(LazyTwitterStatusStream.split(tweets, 1, GeneralJSONTwitter.class));
+
+		final File gz = folder.newFile("tweets.json.gz");
+		copy(new FileInputStream(tweets), new GZIPOutputStream(new FileOutputStream(gz)));
+
+		final File bz = folder.newFile("tweets.json.bz2");
+		final OutputStream os = new FileOutputStream(bz);
+		os.write('B');
+		os.write('Z');
+		copy(new FileInputStream(tweets), new CBZip2OutputStream(os));
+
+		assertEquals(expected, lines(LazyTwitterStatusStream.split(gz, 4, GeneralJSONTwitter.class)));
+		assertEquals(expected, lines(LazyTwitterStatusStream.split(bz, 4, GeneralJSONTwitter.class)));
+	}
+
+	/**
+	 * Splits should read every line exactly once between them
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testSplit() throws IOException {
+		final List<String> expected = lines(LazyTwitterStatusStream.split(tweets, 1, GeneralJSONTwitter.class));
+		assertTrue(expected.size() > 0);
+
+		for (int n = 2; n < 20; n++) {
+			final List<LazyTwitterStatusStream> splits = LazyTwitterStatusStream.split(tweets, n,
+					GeneralJSONTwitter.class);
+			assertEquals(n, splits.size());
+			assertEquals(expected, lines(splits));
+		}
+	}
+
+	/**
+	 * Lines that aren't JSON objects should be skipped and counted
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testMalformedLines() throws IOException {
+		final List<String> expected = lines(LazyTwitterStatusStream.split(tweets, 1, GeneralJSONTwitter.class, "id"));
+
+		final File withBroken = folder.newFile("broken.json");
+		final OutputStream os = new FileOutputStream(withBroken);
+		os.write("not json\n{\"id\":\n".getBytes("UTF-8"));
+		copy(new FileInputStream(tweets), os);
+
+		final LazyTwitterStatusStream stream = new LazyTwitterStatusStream(withBroken, GeneralJSONTwitter.class, "id");
+		final List<String> read = new ArrayList<String>();
+		for (final ProjectedStatus s : stream)
+			read.add(s.line());
+
+		assertEquals(expected, read);
+		assertEquals(2, stream.getMalformedLines());
+	}
+
+	/**
+	 * Test the projection of awkward json
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testProjection() throws IOException {
+		final JSONFieldProjection projection = new JSONFieldProjection("a", "b.c", "b", "d", "e", "f", "g\"h");
+		final Object[] values = new Object[projection.size()];
+
+		final byte[] json = ("{\"x\":[1,{\"a\":\"no\"},\"]}\"],\"a\":\"x\\ty\\u00e9\\\"é\", "
+				+ "\"b\" : {\"c\":-1.5e3,\"z\":null}, \"d\":true,\"e\":12345678901234567890,"
+				+ "\"f\":null,\"g\\\"h\":42}").getBytes("UTF-8");
+		assertTrue(projection.project(json, 0, json.length, values));
+		assertArrayEquals(new Object[] { "x\tyé\"é", -1500.0, "{\"c\":-1.5e3,\"z\":null}", true,
+				12345678901234567890.0, null, 42L }, values);
+
+		final byte[] broken = "{\"a\":\"x\",\"b\":{".getBytes("UTF-8");
+		assertFalse(projection.project(broken, 0, broken.length, values));
+		assertArrayEquals(new Object[values.length], values);
+
+		final byte[] text = "just some text".getBytes("UTF-8");
+		assertFalse(projection.project(text, 0, text.length, values));
+	}
+}